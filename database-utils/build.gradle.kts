@@ -19,6 +19,8 @@ dependencies {
     // Database
     implementation(libs.liquibase.core)
     implementation(libs.bundles.jdbi)
+    implementation(libs.hikaricp)
+    implementation(libs.micrometer.core)
     testImplementation(libs.bundles.jdbi.testing)
     testImplementation(libs.hsqldb)
 
@@ -2,8 +2,17 @@ package io.github.pretenderdb.dbu.factory;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.pretenderdb.dbu.model.ConnectionPool;
 import io.github.pretenderdb.dbu.model.Database;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -16,28 +25,50 @@ import org.jdbi.v3.sqlobject.SqlObjectPlugin;
 import org.slf4j.Logger;
 
 /**
- * The type Jdbi factory.
+ * The type Jdbi factory. It owns the pools behind the jdbis it creates; close it to close them.
  */
 @Singleton
-public class JdbiFactory {
+public class JdbiFactory implements AutoCloseable {
 
   public static final String IMMUTABLES = "JdbiImmutableClasses";
+
+  /**
+   * Names the jdbi used for eventually consistent reads: the read replicas when configured, else the primary.
+   */
+  public static final String READ_JDBI = "readJdbi";
+
   private static final Logger log = getLogger(JdbiFactory.class);
 
   private final Database database;
   private final Set<Class<?>> immutableClasses;
+  private final MeterRegistry meterRegistry;
+  private final List<HikariDataSource> pools = new CopyOnWriteArrayList<>();
+
+  /**
+   * Instantiates a new Jdbi factory. Pool metrics go to the global meter registry.
+   *
+   * @param database         the configuration
+   * @param immutableClasses the immutable classes
+   */
+  public JdbiFactory(final Database database,
+                     final Set<Class<?>> immutableClasses) {
+    this(database, immutableClasses, Metrics.globalRegistry);
+  }
 
   /**
    * Instantiates a new Jdbi factory.
    *
    * @param database         the configuration
    * @param immutableClasses the immutable classes
+   * @param meterRegistry    the meter registry for pool metrics
    */
   @Inject
   public JdbiFactory(final Database database,
-                     @Named(IMMUTABLES) final Set<Class<?>> immutableClasses) {
+                     @Named(IMMUTABLES) final Set<Class<?>> immutableClasses,
+                     final MeterRegistry meterRegistry) {
     this.database = database;
     this.immutableClasses = immutableClasses;
+    this.meterRegistry = meterRegistry;
     log.info("JdbiFactory({})", database);
   }
 
@@ -48,11 +79,84 @@ public class JdbiFactory {
    */
   public Jdbi createJdbi() {
     log.trace("createJdbi()");
-    final Jdbi jdbi = Jdbi.create(database.url(), database.username(), database.password());
+    final HikariDataSource dataSource = createDataSource(database);
+    pools.add(dataSource);
+    final Jdbi jdbi = Jdbi.create(dataSource);
     setup(jdbi);
     return jdbi;
   }
 
+  /**
+   * Create a jdbi over the read replicas, handing out replica connections round robin. Empty when no
+   * replicas are configured.
+   *
+   * @return the read replica jdbi
+   */
+  public Optional<Jdbi> createReadReplicaJdbi() {
+    log.trace("createReadReplicaJdbi()");
+    if (database.readReplicaUrls().isEmpty()) {
+      return Optional.empty();
+    }
+    final List<String> urls = database.readReplicaUrls();
+    final List<HikariDataSource> dataSources = IntStream.range(0, urls.size())
+        .mapToObj(i -> createDataSource(database, urls.get(i),
+            database.connectionPool().poolName().map(name -> name + "-replica-" + i)))
+        .toList();
+    pools.addAll(dataSources);
+    final Jdbi jdbi = Jdbi.create(new RoundRobinDataSource(dataSources));
+    setup(jdbi);
+    return Optional.of(jdbi);
+  }
+
+  /**
+   * Creates the pooled data source for the database. The pool publishes the hikaricp.connections.* meters
+   * (acquire wait time, active, idle, pending) to the meter registry. The caller closes it.
+   *
+   * @param database the database
+   * @return the data source
+   */
+  public HikariDataSource createDataSource(final Database database) {
+    return createDataSource(database, database.url(), database.connectionPool().poolName());
+  }
+
+  private HikariDataSource createDataSource(final Database database,
+                                            final String url,
+                                            final Optional<String> poolName) {
+    log.trace("createDataSource({}, {}, {})", database, url, poolName);
+    final ConnectionPool pool = database.connectionPool();
+    final HikariConfig config = new HikariConfig();
+    config.setJdbcUrl(url);
+    config.setUsername(database.username());
+    config.setPassword(database.password());
+    poolName.ifPresent(config::setPoolName);
+    config.setMaximumPoolSize(pool.maximumPoolSize());
+    config.setMinimumIdle(pool.minimumIdle());
+    config.setIdleTimeout(pool.idleTimeoutMillis());
+    config.setMaxLifetime(pool.maxLifetimeMillis());
+    config.setConnectionTimeout(pool.connectionTimeoutMillis());
+    config.setValidationTimeout(pool.validationTimeoutMillis());
+    config.setLeakDetectionThreshold(pool.leakDetectionThresholdMillis());
+    pool.connectionTestQuery().ifPresent(config::setConnectionTestQuery);
+    if (database.usePostgresql()) {
+      config.addDataSourceProperty("prepareThreshold", pool.prepareThreshold());
+      config.addDataSourceProperty("preparedStatementCacheQueries", pool.preparedStatementCacheQueries());
+    }
+    config.setMetricRegistry(meterRegistry);
+    return new HikariDataSource(config);
+  }
+
+  /**
+   * Closes the pools of the primary and read replica jdbis created so far.
+   */
+  @Override
+  public void close() {
+    log.trace("close()");
+    for (HikariDataSource pool : pools) {
+      pool.close();
+    }
+    pools.clear();
+  }
+
   /**
    * Setup so it can be used even if we do not create the JDBI resource.
    *
@@ -0,0 +1,96 @@
+package io.github.pretenderdb.dbu.factory;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Hands out connections from a fixed set of data sources in turn. Used to spread reads over the replicas.
+ */
+public class RoundRobinDataSource implements DataSource {
+
+  private final List<? extends DataSource> dataSources;
+  private final AtomicInteger next = new AtomicInteger();
+
+  /**
+   * Instantiates a new Round robin data source.
+   *
+   * @param dataSources the data sources, must not be empty
+   */
+  public RoundRobinDataSource(final List<? extends DataSource> dataSources) {
+    if (dataSources.isEmpty()) {
+      throw new IllegalArgumentException("At least one data source is required");
+    }
+    this.dataSources = List.copyOf(dataSources);
+  }
+
+  /**
+   * The data sources in rotation.
+   *
+   * @return the data sources
+   */
+  public List<? extends DataSource> dataSources() {
+    return dataSources;
+  }
+
+  private DataSource nextDataSource() {
+    return dataSources.get(Math.floorMod(next.getAndIncrement(), dataSources.size()));
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return nextDataSource().getConnection();
+  }
+
+  @Override
+  public Connection getConnection(final String username, final String password) throws SQLException {
+    return nextDataSource().getConnection(username, password);
+  }
+
+  @Override
+  public PrintWriter getLogWriter() throws SQLException {
+    return dataSources.get(0).getLogWriter();
+  }
+
+  @Override
+  public void setLogWriter(final PrintWriter out) throws SQLException {
+    for (DataSource dataSource : dataSources) {
+      dataSource.setLogWriter(out);
+    }
+  }
+
+  @Override
+  public int getLoginTimeout() throws SQLException {
+    return dataSources.get(0).getLoginTimeout();
+  }
+
+  @Override
+  public void setLoginTimeout(final int seconds) throws SQLException {
+    for (DataSource dataSource : dataSources) {
+      dataSource.setLoginTimeout(seconds);
+    }
+  }
+
+  @Override
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    throw new SQLFeatureNotSupportedException("getParentLogger");
+  }
+
+  @Override
+  public <T> T unwrap(final Class<T> iface) throws SQLException {
+    if (iface.isInstance(this)) {
+      return iface.cast(this);
+    }
+    throw new SQLException("Not a wrapper for " + iface.getName());
+  }
+
+  @Override
+  public boolean isWrapperFor(final Class<?> iface) {
+    return iface.isInstance(this);
+  }
+}
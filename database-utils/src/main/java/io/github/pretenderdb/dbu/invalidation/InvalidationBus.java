@@ -0,0 +1,326 @@
+package io.github.pretenderdb.dbu.invalidation;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import io.github.pretenderdb.dbu.liquibase.LiquibaseHelper;
+import io.github.pretenderdb.dbu.model.Database;
+import io.github.pretenderdb.dbu.model.Invalidation;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.jdbi.v3.core.Jdbi;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+
+/**
+ * Carries cache invalidations between the processes sharing a database. A process publishes a topic and key
+ * after it changes what the key names; every other process hands it to the listeners subscribed to the topic.
+ * Processes never receive their own invalidations, since they drop their local copy themselves.
+ *
+ * <p>On PostgreSQL invalidations go out with {@code NOTIFY pretender_invalidate} and are received on a
+ * dedicated connection, outside the pool, that LISTENs on the channel. Other databases append them to the
+ * DBU_INVALIDATION version table, which each process polls for rows after the last one it saw. Ids are taken
+ * at insert, not commit, so a poller also re-reads the ids it skipped until they show up. Whenever
+ * invalidations may have been missed, when the listener reconnects, a poller falls behind the retention or a
+ * skipped id never commits, listeners are told to drop everything.</p>
+ *
+ * <p>Disabled unless {@link Invalidation#enabled()}; then publishing and subscribing do nothing. The receiving
+ * thread starts with the first subscription or publication.</p>
+ */
+@Singleton
+public class InvalidationBus implements AutoCloseable {
+
+  /**
+   * The PostgreSQL notification channel.
+   */
+  public static final String CHANNEL = "pretender_invalidate";
+
+  /**
+   * The changelog creating the version table.
+   */
+  public static final String CHANGELOG = "liquibase/dbu/invalidation-setup.xml";
+
+  private static final Logger log = getLogger(InvalidationBus.class);
+  private static final String SEPARATOR = "\n";
+
+  private final Database database;
+  private final Invalidation settings;
+  private final Jdbi jdbi;
+  private final LiquibaseHelper liquibaseHelper;
+  private final String source = UUID.randomUUID().toString();
+  private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+  private volatile boolean running;
+  private Thread thread;
+  private final Map<Long, Instant> gaps = new HashMap<>();
+  private long lastSeen;
+
+  /**
+   * Instantiates a new Invalidation bus.
+   *
+   * @param database        the database
+   * @param jdbi            the jdbi of the primary
+   * @param liquibaseHelper the liquibase helper, for the version table
+   */
+  @Inject
+  public InvalidationBus(final Database database,
+                         final Jdbi jdbi,
+                         final LiquibaseHelper liquibaseHelper) {
+    log.info("InvalidationBus({}, {})", database.invalidation(), jdbi);
+    this.database = database;
+    this.settings = database.invalidation();
+    this.jdbi = jdbi;
+    this.liquibaseHelper = liquibaseHelper;
+  }
+
+  /**
+   * Whether invalidations travel between processes.
+   *
+   * @return true if enabled
+   */
+  public boolean enabled() {
+    return settings.enabled();
+  }
+
+  /**
+   * Subscribes to the invalidations other processes publish on a topic.
+   *
+   * @param topic    the topic
+   * @param listener the listener
+   */
+  public void subscribe(final String topic, final Listener listener) {
+    log.trace("subscribe({})", topic);
+    if (!enabled()) {
+      return;
+    }
+    listeners.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(listener);
+    start();
+  }
+
+  /**
+   * Tells the other processes that the key on the topic changed. Call it after the change is committed.
+   *
+   * @param topic the topic
+   * @param key   the key
+   */
+  public void publish(final String topic, final String key) {
+    log.trace("publish({}, {})", topic, key);
+    if (!enabled()) {
+      return;
+    }
+    start();
+    if (database.usePostgresql()) {
+      jdbi.useHandle(handle -> handle.createQuery("SELECT pg_notify(:channel, :payload)")
+          .bind("channel", CHANNEL)
+          .bind("payload", source + SEPARATOR + topic + SEPARATOR + key)
+          .mapTo(String.class)
+          .one());
+    } else {
+      jdbi.useHandle(handle -> handle.createUpdate("INSERT INTO DBU_INVALIDATION "
+              + "(SOURCE, TOPIC, INVALIDATION_KEY, CREATE_DATE) VALUES (:source, :topic, :key, :createDate)")
+          .bind("source", source)
+          .bind("topic", topic)
+          .bind("key", key)
+          .bind("createDate", Instant.now())
+          .execute());
+    }
+  }
+
+  /**
+   * Stops receiving invalidations.
+   */
+  @Override
+  public synchronized void close() {
+    log.trace("close()");
+    running = false;
+    if (thread != null) {
+      thread.interrupt();
+      thread = null;
+    }
+  }
+
+  private synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    final Runnable receiver;
+    if (database.usePostgresql()) {
+      receiver = this::listen;
+    } else {
+      liquibaseHelper.runLiquibase(jdbi, CHANGELOG);
+      lastSeen = jdbi.withHandle(handle -> handle
+          .createQuery("SELECT COALESCE(MAX(ID), 0) FROM DBU_INVALIDATION")
+          .mapTo(Long.class)
+          .one());
+      receiver = this::pollLoop;
+    }
+    thread = new Thread(receiver, "pretender-invalidation");
+    thread.setDaemon(true);
+    thread.start();
+    log.info("Receiving invalidations as {}", source);
+  }
+
+  /**
+   * Receives notifications on a connection of its own, reconnecting after failures.
+   */
+  private void listen() {
+    while (running) {
+      try (Connection connection = DriverManager.getConnection(
+          database.url(), database.username(), database.password())) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + CHANNEL);
+        }
+        // Anything published while we were not listening is lost
+        invalidateAll();
+        final PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+          final PGNotification[] notifications =
+              pgConnection.getNotifications((int) settings.pollIntervalMillis());
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              receive(notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException e) {
+        if (running) {
+          log.warn("Invalidation listener failed, reconnecting: {}", e.getMessage());
+          pause();
+        }
+      }
+    }
+  }
+
+  private void receive(final String payload) {
+    final String[] parts = payload.split(SEPARATOR, 3);
+    if (parts.length == 3 && !parts[0].equals(source)) {
+      deliver(parts[1], parts[2]);
+    }
+  }
+
+  private void pollLoop() {
+    while (running) {
+      pause();
+      try {
+        poll();
+      } catch (RuntimeException e) {
+        if (running) {
+          log.warn("Invalidation poll failed: {}", e.getMessage());
+          invalidateAll();
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the invalidations after the last one seen and in the gaps below it, and drops the ones older than
+   * the retention. A gap is an id skipped because its row had not committed when a later one was read; it is
+   * re-read until it shows up, or for the retention, after which its row is taken as missed.
+   */
+  void poll() {
+    jdbi.useHandle(handle -> {
+      final Instant now = Instant.now();
+      handle.createUpdate("DELETE FROM DBU_INVALIDATION WHERE CREATE_DATE < :cutoff")
+          .bind("cutoff", now.minusMillis(settings.retentionMillis()))
+          .execute();
+      final Long oldest = handle.createQuery("SELECT MIN(ID) FROM DBU_INVALIDATION")
+          .mapTo(Long.class)
+          .findOne()
+          .orElse(null);
+      // A skipped row that never showed up rolled back, or was dropped unread
+      boolean missed = gaps.values().removeIf(seen -> seen.isBefore(now.minusMillis(settings.retentionMillis())));
+      if (oldest != null) {
+        missed |= gaps.keySet().removeIf(id -> id < oldest);
+        if (oldest > lastSeen + 1) {
+          // Rows after the last one seen were dropped before this process read them
+          missed = true;
+          lastSeen = oldest - 1;
+        }
+      }
+      if (missed) {
+        invalidateAll();
+      }
+      final var query = handle.createQuery("SELECT ID, SOURCE, TOPIC, INVALIDATION_KEY FROM DBU_INVALIDATION "
+          + "WHERE ID > :lastSeen" + (gaps.isEmpty() ? "" : " OR ID IN (<gaps>)") + " ORDER BY ID")
+          .bind("lastSeen", lastSeen);
+      if (!gaps.isEmpty()) {
+        query.bindList("gaps", List.copyOf(gaps.keySet()));
+      }
+      query.map((rs, ctx) -> {
+        final long id = rs.getLong("ID");
+        if (id > lastSeen) {
+          for (long skipped = lastSeen + 1; skipped < id; skipped++) {
+            gaps.put(skipped, now);
+          }
+          lastSeen = id;
+        } else {
+          gaps.remove(id);
+        }
+        if (!rs.getString("SOURCE").equals(source)) {
+          deliver(rs.getString("TOPIC"), rs.getString("INVALIDATION_KEY"));
+        }
+        return null;
+      }).list();
+    });
+  }
+
+  private void deliver(final String topic, final String key) {
+    log.trace("deliver({}, {})", topic, key);
+    for (Listener listener : listeners.getOrDefault(topic, List.of())) {
+      try {
+        listener.invalidate(key);
+      } catch (RuntimeException e) {
+        log.warn("Invalidation listener failed on {} {}", topic, key, e);
+      }
+    }
+  }
+
+  private void invalidateAll() {
+    log.trace("invalidateAll()");
+    listeners.values().forEach(topicListeners -> topicListeners.forEach(listener -> {
+      try {
+        listener.invalidateAll();
+      } catch (RuntimeException e) {
+        log.warn("Invalidation listener failed", e);
+      }
+    }));
+  }
+
+  private void pause() {
+    try {
+      Thread.sleep(settings.pollIntervalMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+  /**
+   * Receives the invalidations published by other processes on a topic.
+   */
+  public interface Listener {
+
+    /**
+     * The key was changed by another process.
+     *
+     * @param key the key
+     */
+    void invalidate(String key);
+
+    /**
+     * Invalidations may have been missed; drop everything cached for the topic.
+     */
+    void invalidateAll();
+  }
+}
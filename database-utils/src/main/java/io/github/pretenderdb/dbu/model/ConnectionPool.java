@@ -0,0 +1,125 @@
+package io.github.pretenderdb.dbu.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.Optional;
+import org.immutables.value.Value;
+
+/**
+ * Connection pool settings for the database. Defaults are sized for a single pretender instance; set the
+ * maximum pool size close to the number of concurrent requests the database should see, not the number of
+ * client threads.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableConnectionPool.class)
+@JsonDeserialize(builder = ImmutableConnectionPool.Builder.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public interface ConnectionPool {
+
+  /**
+   * The pool name, used as the tag on the pool metrics. When empty a unique name is generated.
+   *
+   * @return the pool name
+   */
+  Optional<String> poolName();
+
+  /**
+   * Maximum number of connections in the pool, idle and in use.
+   *
+   * @return the maximum pool size
+   */
+  @Value.Default
+  default int maximumPoolSize() {
+    return 10;
+  }
+
+  /**
+   * Minimum number of idle connections the pool tries to keep.
+   *
+   * @return the minimum idle
+   */
+  @Value.Default
+  default int minimumIdle() {
+    return 1;
+  }
+
+  /**
+   * How long a connection may sit idle before it is retired, in milliseconds.
+   *
+   * @return the idle timeout
+   */
+  @Value.Default
+  default long idleTimeoutMillis() {
+    return 600_000L;
+  }
+
+  /**
+   * Maximum lifetime of a connection in the pool, in milliseconds.
+   *
+   * @return the max lifetime
+   */
+  @Value.Default
+  default long maxLifetimeMillis() {
+    return 1_800_000L;
+  }
+
+  /**
+   * How long a caller waits for a connection before failing, in milliseconds.
+   *
+   * @return the connection timeout
+   */
+  @Value.Default
+  default long connectionTimeoutMillis() {
+    return 30_000L;
+  }
+
+  /**
+   * How long a connection validation may take, in milliseconds.
+   *
+   * @return the validation timeout
+   */
+  @Value.Default
+  default long validationTimeoutMillis() {
+    return 5_000L;
+  }
+
+  /**
+   * Log a warning when a connection is held longer than this, in milliseconds. Zero disables leak detection.
+   *
+   * @return the leak detection threshold
+   */
+  @Value.Default
+  default long leakDetectionThresholdMillis() {
+    return 0L;
+  }
+
+  /**
+   * PostgreSQL only: number of executions of the same SQL on a connection before the driver switches to a
+   * server-side prepared statement. Zero disables server-side prepares.
+   *
+   * @return the prepare threshold
+   */
+  @Value.Default
+  default int prepareThreshold() {
+    return 1;
+  }
+
+  /**
+   * PostgreSQL only: number of prepared statements the driver keeps per connection.
+   *
+   * @return the prepared statement cache size
+   */
+  @Value.Default
+  default int preparedStatementCacheQueries() {
+    return 256;
+  }
+
+  /**
+   * Query used to validate connections. When empty the JDBC4 isValid() check is used.
+   *
+   * @return the connection test query
+   */
+  Optional<String> connectionTestQuery();
+
+}
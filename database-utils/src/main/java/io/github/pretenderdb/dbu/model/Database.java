@@ -3,6 +3,7 @@ package io.github.pretenderdb.dbu.model;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.List;
 import org.immutables.value.Value;
 
 /**
@@ -36,6 +37,34 @@ public interface Database {
   @Value.Redacted
   String password();
 
+  /**
+   * Read replica urls. Replicas use the same credentials and pool settings as the primary. Eventually
+   * consistent reads are spread across them; when empty every read goes to the primary.
+   *
+   * @return the read replica urls
+   */
+  List<String> readReplicaUrls();
+
+  /**
+   * Connection pool settings.
+   *
+   * @return the connection pool
+   */
+  @Value.Default
+  default ConnectionPool connectionPool() {
+    return ImmutableConnectionPool.builder().build();
+  }
+
+  /**
+   * Cross-instance cache invalidation settings.
+   *
+   * @return the invalidation settings
+   */
+  @Value.Default
+  default Invalidation invalidation() {
+    return ImmutableInvalidation.builder().build();
+  }
+
   /**
    * Use postgresql boolean.
    *
@@ -0,0 +1,50 @@
+package io.github.pretenderdb.dbu.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+/**
+ * Cross-instance cache invalidation settings. Enable it whenever more than one process shares the database
+ * and any of them caches what the database holds.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableInvalidation.class)
+@JsonDeserialize(builder = ImmutableInvalidation.Builder.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public interface Invalidation {
+
+  /**
+   * Whether invalidations are published to and received from other instances.
+   *
+   * @return true if enabled
+   */
+  @Value.Default
+  default boolean enabled() {
+    return false;
+  }
+
+  /**
+   * How often the version table is polled, in milliseconds, when the database has no LISTEN/NOTIFY. On
+   * PostgreSQL it is how long the listener waits for a notification before checking it should stop.
+   *
+   * @return the poll interval
+   */
+  @Value.Default
+  default long pollIntervalMillis() {
+    return 1_000L;
+  }
+
+  /**
+   * How long polled invalidations are kept in the version table, in milliseconds. An instance that falls
+   * further behind than this drops everything it caches.
+   *
+   * @return the retention
+   */
+  @Value.Default
+  default long retentionMillis() {
+    return 300_000L;
+  }
+
+}
@@ -0,0 +1,107 @@
+package io.github.pretenderdb.dbu.factory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.pretenderdb.dbu.model.Database;
+import io.github.pretenderdb.dbu.model.ImmutableConnectionPool;
+import io.github.pretenderdb.dbu.model.ImmutableDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.Test;
+
+class JdbiFactoryTest {
+
+  private Database database(final String poolName) {
+    return ImmutableDatabase.builder()
+        .url("jdbc:hsqldb:mem:" + getClass().getSimpleName() + ":" + UUID.randomUUID())
+        .username("SA")
+        .password("")
+        .connectionPool(ImmutableConnectionPool.builder()
+            .poolName(poolName)
+            .maximumPoolSize(3)
+            .minimumIdle(0)
+            .leakDetectionThresholdMillis(10_000L)
+            .build())
+        .build();
+  }
+
+  @Test
+  void createDataSource_appliesPoolSettings() {
+    final Database database = database("settings");
+    try (HikariDataSource dataSource = new JdbiFactory(database, Set.of(), new SimpleMeterRegistry())
+        .createDataSource(database)) {
+      assertThat(dataSource.getPoolName()).isEqualTo("settings");
+      assertThat(dataSource.getMaximumPoolSize()).isEqualTo(3);
+      assertThat(dataSource.getMinimumIdle()).isZero();
+      assertThat(dataSource.getLeakDetectionThreshold()).isEqualTo(10_000L);
+    }
+  }
+
+  @Test
+  void createJdbi_publishesPoolMetrics() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final Jdbi jdbi = new JdbiFactory(database("metrics"), Set.of(), registry).createJdbi();
+
+    final Integer one = jdbi.withHandle(handle -> handle.createQuery("VALUES (1)").mapTo(Integer.class).one());
+
+    assertThat(one).isEqualTo(1);
+    assertThat(registry.find("hikaricp.connections.active").tag("pool", "metrics").gauge()).isNotNull();
+    assertThat(registry.find("hikaricp.connections.idle").tag("pool", "metrics").gauge()).isNotNull();
+    assertThat(registry.find("hikaricp.connections.acquire").tag("pool", "metrics").timer().count())
+        .isGreaterThanOrEqualTo(1);
+    jdbi.withHandle(handle -> handle.execute("SHUTDOWN"));
+  }
+
+  @Test
+  void createReadReplicaJdbi_emptyWithoutReplicas() {
+    assertThat(new JdbiFactory(database("primary"), Set.of(), new SimpleMeterRegistry()).createReadReplicaJdbi())
+        .isEmpty();
+  }
+
+  @Test
+  void createReadReplicaJdbi_roundRobinsReplicas() {
+    final Database database = ImmutableDatabase.builder()
+        .from(database("routed"))
+        .readReplicaUrls(List.of(
+            "jdbc:hsqldb:mem:replicaA:" + UUID.randomUUID(),
+            "jdbc:hsqldb:mem:replicaB:" + UUID.randomUUID()))
+        .build();
+    final Optional<Jdbi> replicas = new JdbiFactory(database, Set.of(), new SimpleMeterRegistry())
+        .createReadReplicaJdbi();
+
+    assertThat(replicas).isPresent();
+    replicas.get().useHandle(handle -> handle.execute("CREATE TABLE marker (id INT)"));
+    // The second handle comes from the other replica, which has no marker table
+    final Integer tables = replicas.get().withHandle(handle -> handle.createQuery(
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'MARKER'")
+        .mapTo(Integer.class).one());
+    assertThat(tables).isZero();
+  }
+
+  @Test
+  void close_closesPrimaryAndReplicaPools() {
+    final Database database = ImmutableDatabase.builder()
+        .from(database("closed"))
+        .readReplicaUrls(List.of("jdbc:hsqldb:mem:replicaC:" + UUID.randomUUID()))
+        .build();
+    final JdbiFactory factory = new JdbiFactory(database, Set.of(), new SimpleMeterRegistry());
+    final Jdbi primary = factory.createJdbi();
+    final Jdbi replica = factory.createReadReplicaJdbi().orElseThrow();
+    primary.useHandle(handle -> handle.execute("VALUES (1)"));
+    replica.useHandle(handle -> handle.execute("VALUES (1)"));
+
+    factory.close();
+
+    assertThatThrownBy(() -> primary.useHandle(handle -> handle.execute("VALUES (1)")))
+        .hasRootCauseMessage("HikariDataSource HikariDataSource (closed) has been closed.");
+    assertThatThrownBy(() -> replica.useHandle(handle -> handle.execute("VALUES (1)")))
+        .hasRootCauseMessage("HikariDataSource HikariDataSource (closed-replica-0) has been closed.");
+  }
+
+}
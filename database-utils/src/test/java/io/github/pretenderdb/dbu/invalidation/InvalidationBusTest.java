@@ -0,0 +1,149 @@
+package io.github.pretenderdb.dbu.invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.pretenderdb.dbu.factory.JdbiFactory;
+import io.github.pretenderdb.dbu.liquibase.LiquibaseHelper;
+import io.github.pretenderdb.dbu.model.Database;
+import io.github.pretenderdb.dbu.model.ImmutableDatabase;
+import io.github.pretenderdb.dbu.model.ImmutableInvalidation;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class InvalidationBusTest {
+
+  private static final String TOPIC = "topic";
+
+  private Database database;
+  private InvalidationBus first;
+  private InvalidationBus second;
+
+  @BeforeEach
+  void setup() {
+    database = ImmutableDatabase.builder()
+        .url("jdbc:hsqldb:mem:" + getClass().getSimpleName() + ":" + UUID.randomUUID())
+        .username("SA")
+        .password("")
+        .invalidation(ImmutableInvalidation.builder().enabled(true).pollIntervalMillis(50).build())
+        .build();
+    first = bus(database);
+    second = bus(database);
+  }
+
+  @AfterEach
+  void tearDown() {
+    first.close();
+    second.close();
+  }
+
+  @Test
+  void publish_deliveredToOtherBus() throws InterruptedException {
+    final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    second.subscribe(TOPIC, listener(received));
+
+    first.publish(TOPIC, "key");
+    first.publish("other", "ignored");
+    first.publish(TOPIC, "multi\nline");
+
+    assertThat(received.poll(5, TimeUnit.SECONDS)).isEqualTo("key");
+    assertThat(received.poll(5, TimeUnit.SECONDS)).isEqualTo("multi\nline");
+  }
+
+  @Test
+  void publish_notDeliveredToItself() throws InterruptedException {
+    final BlockingQueue<String> own = new LinkedBlockingQueue<>();
+    final BlockingQueue<String> other = new LinkedBlockingQueue<>();
+    first.subscribe(TOPIC, listener(own));
+    second.subscribe(TOPIC, listener(other));
+
+    first.publish(TOPIC, "key");
+
+    assertThat(other.poll(5, TimeUnit.SECONDS)).isEqualTo("key");
+    assertThat(own.poll(200, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  void poll_missedInvalidations_invalidatesAll() throws InterruptedException {
+    final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    second.subscribe(TOPIC, listener(received));
+    second.close();
+    first.publish(TOPIC, "one");
+    first.publish(TOPIC, "two");
+    jdbi(database).useHandle(handle -> handle.execute("DELETE FROM DBU_INVALIDATION"));
+    first.publish(TOPIC, "three");
+
+    second.poll();
+
+    assertThat(received).containsExactly("*", "three");
+  }
+
+  @Test
+  void poll_rowCommittedAfterLaterOne_delivered() {
+    final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    second.subscribe(TOPIC, listener(received));
+    second.close();
+    first.publish(TOPIC, "one");
+    final long one = jdbi(database).withHandle(handle -> handle
+        .createQuery("SELECT MAX(ID) FROM DBU_INVALIDATION").mapTo(Long.class).one());
+    // The row taking the next id commits only after the one after it has been read
+    insert(one + 2, "three");
+
+    second.poll();
+    insert(one + 1, "two");
+    second.poll();
+    second.poll();
+
+    assertThat(received).containsExactly("one", "three", "two");
+  }
+
+  @Test
+  void disabled_doesNothing() {
+    final Database disabled = ImmutableDatabase.builder().from(database).invalidation(
+        ImmutableInvalidation.builder().build()).build();
+    try (InvalidationBus bus = bus(disabled)) {
+      bus.subscribe(TOPIC, listener(new LinkedBlockingQueue<>()));
+      bus.publish(TOPIC, "key");
+      assertThat(bus.enabled()).isFalse();
+    }
+  }
+
+  private void insert(final long id, final String key) {
+    jdbi(database).useHandle(handle -> handle.createUpdate("INSERT INTO DBU_INVALIDATION "
+            + "(ID, SOURCE, TOPIC, INVALIDATION_KEY, CREATE_DATE) VALUES (:id, 'elsewhere', :topic, :key, :createDate)")
+        .bind("id", id)
+        .bind("topic", TOPIC)
+        .bind("key", key)
+        .bind("createDate", Instant.now())
+        .execute());
+  }
+
+  private InvalidationBus bus(final Database database) {
+    return new InvalidationBus(database, jdbi(database), new LiquibaseHelper());
+  }
+
+  private Jdbi jdbi(final Database database) {
+    return new JdbiFactory(database, Set.of()).createJdbi();
+  }
+
+  private InvalidationBus.Listener listener(final BlockingQueue<String> received) {
+    return new InvalidationBus.Listener() {
+      @Override
+      public void invalidate(final String key) {
+        received.add(key);
+      }
+
+      @Override
+      public void invalidateAll() {
+        received.add("*");
+      }
+    };
+  }
+}
@@ -17,4 +17,17 @@ class DatabaseTest {
     assertThat(database.toString()).doesNotContain("password");
   }
 
-}
\ No newline at end of file
+  @Test
+  void testDefaultConnectionPool() {
+    Database database = ImmutableDatabase.builder()
+        .url("jdbc:hsqldb:mem:DatabaseTest")
+        .username("SA")
+        .password("password")
+        .build();
+    assertThat(database.connectionPool().maximumPoolSize()).isEqualTo(10);
+    assertThat(database.connectionPool().minimumIdle()).isEqualTo(1);
+    assertThat(database.connectionPool().leakDetectionThresholdMillis()).isZero();
+    assertThat(database.connectionPool().poolName()).isEmpty();
+  }
+
+}
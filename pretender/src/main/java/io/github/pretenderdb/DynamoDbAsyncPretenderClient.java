@@ -0,0 +1,190 @@
+package io.github.pretenderdb;
+
+import io.github.pretenderdb.dagger.PretenderModule;
+import io.github.pretenderdb.model.Configuration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.paginators.QueryPublisher;
+import software.amazon.awssdk.services.dynamodb.paginators.ScanPublisher;
+
+/**
+ * Async DynamoDB client over the same tables as {@link DynamoDbPretenderClient}. Each call runs the
+ * synchronous client on the async executor, a virtual thread per call by default, and at most
+ * {@link #concurrency()} calls run at once. The rest wait for a slot without holding a connection, each
+ * on its own virtual thread blocked on the slot; with a platform thread executor they would hold pool
+ * threads instead. Failures complete the future exceptionally, wrapped in a CompletionException as the SDK
+ * does; so does a call made after {@link #close()}.
+ */
+@Singleton
+public class DynamoDbAsyncPretenderClient implements DynamoDbAsyncClient {
+
+  private static final Logger log = LoggerFactory.getLogger(DynamoDbAsyncPretenderClient.class);
+
+  private static final String SERVICE_NAME = "dynamodb";
+  private final DynamoDbPretenderClient client;
+  private final ExecutorService executor;
+  private final int concurrency;
+  private final Semaphore permits;
+
+  /**
+   * Instantiates a new Dynamo db async pretender client.
+   *
+   * @param client        the synchronous client the calls run on
+   * @param configuration the configuration, for the concurrency bound
+   * @param executor      the executor the calls run on
+   */
+  @Inject
+  public DynamoDbAsyncPretenderClient(final DynamoDbPretenderClient client,
+                                      final Configuration configuration,
+                                      @Named(PretenderModule.ASYNC_EXECUTOR) final ExecutorService executor) {
+    log.info("DynamoDbAsyncPretenderClient({},{},{})", client, configuration, executor);
+    this.client = client;
+    this.executor = executor;
+    this.concurrency = configuration.asyncConcurrency()
+        .orElse(configuration.database().connectionPool().maximumPoolSize());
+    this.permits = new Semaphore(concurrency, true);
+  }
+
+  /**
+   * The number of calls that may run at once.
+   *
+   * @return the concurrency
+   */
+  public int concurrency() {
+    return concurrency;
+  }
+
+  @Override
+  public String serviceName() {
+    return SERVICE_NAME;
+  }
+
+  /**
+   * Shuts down the async executor, which belongs to this client: calls already made still complete, and
+   * later ones fail with a RejectedExecutionException.
+   */
+  @Override
+  public void close() {
+    log.trace("close()");
+    executor.shutdown();
+  }
+
+  @Override
+  public CompletableFuture<ListTablesResponse> listTables(final ListTablesRequest listTablesRequest) {
+    return submit(() -> client.listTables(listTablesRequest));
+  }
+
+  @Override
+  public CompletableFuture<CreateTableResponse> createTable(final CreateTableRequest createTableRequest) {
+    return submit(() -> client.createTable(createTableRequest));
+  }
+
+  @Override
+  public CompletableFuture<DeleteTableResponse> deleteTable(final DeleteTableRequest deleteTableRequest) {
+    return submit(() -> client.deleteTable(deleteTableRequest));
+  }
+
+  @Override
+  public CompletableFuture<PutItemResponse> putItem(final PutItemRequest putItemRequest) {
+    return submit(() -> client.putItem(putItemRequest));
+  }
+
+  @Override
+  public CompletableFuture<GetItemResponse> getItem(final GetItemRequest getItemRequest) {
+    return submit(() -> client.getItem(getItemRequest));
+  }
+
+  @Override
+  public CompletableFuture<UpdateItemResponse> updateItem(final UpdateItemRequest updateItemRequest) {
+    return submit(() -> client.updateItem(updateItemRequest));
+  }
+
+  @Override
+  public CompletableFuture<DeleteItemResponse> deleteItem(final DeleteItemRequest deleteItemRequest) {
+    return submit(() -> client.deleteItem(deleteItemRequest));
+  }
+
+  @Override
+  public CompletableFuture<QueryResponse> query(final QueryRequest queryRequest) {
+    return submit(() -> client.query(queryRequest));
+  }
+
+  @Override
+  public CompletableFuture<ScanResponse> scan(final ScanRequest scanRequest) {
+    return submit(() -> client.scan(scanRequest));
+  }
+
+  /**
+   * Pages through a query. Each page is one {@link #query(QueryRequest)} call, requested only when the
+   * subscriber asks for it.
+   *
+   * @param queryRequest the query request
+   * @return the query publisher
+   */
+  @Override
+  public QueryPublisher queryPaginator(final QueryRequest queryRequest) {
+    return new QueryPublisher(this, queryRequest);
+  }
+
+  /**
+   * Pages through a scan. Each page is one {@link #scan(ScanRequest)} call, requested only when the
+   * subscriber asks for it.
+   *
+   * @param scanRequest the scan request
+   * @return the scan publisher
+   */
+  @Override
+  public ScanPublisher scanPaginator(final ScanRequest scanRequest) {
+    return new ScanPublisher(this, scanRequest);
+  }
+
+  @Override
+  public CompletableFuture<BatchGetItemResponse> batchGetItem(final BatchGetItemRequest batchGetItemRequest) {
+    return submit(() -> client.batchGetItem(batchGetItemRequest));
+  }
+
+  @Override
+  public CompletableFuture<BatchWriteItemResponse> batchWriteItem(final BatchWriteItemRequest batchWriteItemRequest) {
+    return submit(() -> client.batchWriteItem(batchWriteItemRequest));
+  }
+
+  @Override
+  public CompletableFuture<TransactGetItemsResponse> transactGetItems(final TransactGetItemsRequest transactGetItemsRequest) {
+    return submit(() -> client.transactGetItems(transactGetItemsRequest));
+  }
+
+  @Override
+  public CompletableFuture<TransactWriteItemsResponse> transactWriteItems(final TransactWriteItemsRequest transactWriteItemsRequest) {
+    return submit(() -> client.transactWriteItems(transactWriteItemsRequest));
+  }
+
+  /**
+   * Runs the call on the executor once a slot is free. The slot is taken on the executor's thread, so the
+   * caller never blocks.
+   */
+  private <T> CompletableFuture<T> submit(final Supplier<T> call) {
+    try {
+      return CompletableFuture.supplyAsync(() -> {
+        permits.acquireUninterruptibly();
+        try {
+          return call.get();
+        } finally {
+          permits.release();
+        }
+      }, executor);
+    } catch (RejectedExecutionException e) {
+      // Closed: fail the future like any other call rather than throwing from an async method
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+}
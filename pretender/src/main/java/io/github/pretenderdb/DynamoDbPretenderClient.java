@@ -4,7 +4,9 @@ import io.github.pretenderdb.converter.PdbTableConverter;
 import io.github.pretenderdb.manager.PdbItemManager;
 import io.github.pretenderdb.manager.PdbTableManager;
 import io.github.pretenderdb.model.PdbMetadata;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.slf4j.Logger;
@@ -114,6 +116,28 @@ public class DynamoDbPretenderClient implements DynamoDbClient {
     return pdbItemManager.scan(scanRequest);
   }
 
+  /**
+   * Streams the items of a query from one database cursor instead of pages. Pretender only; see
+   * {@link PdbItemManager#queryStream(QueryRequest)}. The stream must be closed.
+   *
+   * @param queryRequest the query request
+   * @return the items
+   */
+  public Stream<Map<String, AttributeValue>> queryStream(final QueryRequest queryRequest) {
+    return pdbItemManager.queryStream(queryRequest);
+  }
+
+  /**
+   * Streams the items of a scan from one database cursor instead of pages. Pretender only; see
+   * {@link PdbItemManager#scanStream(ScanRequest)}. The stream must be closed.
+   *
+   * @param scanRequest the scan request
+   * @return the items
+   */
+  public Stream<Map<String, AttributeValue>> scanStream(final ScanRequest scanRequest) {
+    return pdbItemManager.scanStream(scanRequest);
+  }
+
   @Override
   public BatchGetItemResponse batchGetItem(final BatchGetItemRequest batchGetItemRequest) throws AwsServiceException, SdkClientException {
     return pdbItemManager.batchGetItem(batchGetItemRequest);
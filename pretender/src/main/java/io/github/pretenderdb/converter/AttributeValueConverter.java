@@ -2,7 +2,11 @@ package io.github.pretenderdb.converter;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.Optional;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.slf4j.Logger;
@@ -20,6 +24,11 @@ public class AttributeValueConverter {
 
   private static final Logger log = LoggerFactory.getLogger(AttributeValueConverter.class);
 
+  /**
+   * Offset that keeps the decimal exponent of any DynamoDB number (-130 to 126) a positive three digit value.
+   */
+  private static final int NUMBER_EXPONENT_OFFSET = 500;
+
   private final ObjectMapper objectMapper;
 
   /**
@@ -97,6 +106,13 @@ public class AttributeValueConverter {
       throw new IllegalArgumentException("Key attribute '" + keyName + "' not found in item");
     }
 
+    return plainKeyValue(value, keyName);
+  }
+
+  /**
+   * The key encoding of tables that predate typed keys: the scalar value as a plain string.
+   */
+  private String plainKeyValue(final AttributeValue value, final String keyName) {
     // Extract the value based on type
     if (value.s() != null) {
       return value.s();
@@ -109,6 +125,127 @@ public class AttributeValueConverter {
     }
   }
 
+  /**
+   * Extracts the value of a key attribute in the storage encoding of its declared type.
+   *
+   * @param item    the item
+   * @param keyName the key name
+   * @param keyType the declared scalar type (S, N or B); empty for tables that predate typed keys
+   * @return the encoded key value
+   */
+  public String extractKeyValue(final Map<String, AttributeValue> item,
+                                final String keyName,
+                                final Optional<String> keyType) {
+    log.trace("extractKeyValue({}, {}, {})", item, keyName, keyType);
+    final AttributeValue value = item.get(keyName);
+    if (value == null) {
+      throw new IllegalArgumentException("Key attribute '" + keyName + "' not found in item");
+    }
+    return keyType.isEmpty() ? plainKeyValue(value, keyName) : encodeKeyValue(value, keyType);
+  }
+
+  /**
+   * Encodes a key value so that the stored strings sort like DynamoDB orders the type: S as is, N as a
+   * sortable decimal and B as lowercase hex, which orders like the unsigned bytes.
+   *
+   * @param value   the key value
+   * @param keyType the declared scalar type (S, N or B); empty for tables that predate typed keys
+   * @return the encoded key value
+   */
+  public String encodeKeyValue(final AttributeValue value, final Optional<String> keyType) {
+    if (keyType.isEmpty()) {
+      return plainKeyValue(value, "key");
+    }
+    switch (keyType.get()) {
+      case "S" -> {
+        if (value.s() != null) {
+          return value.s();
+        }
+      }
+      case "N" -> {
+        if (value.n() != null) {
+          return encodeNumber(value.n());
+        }
+      }
+      case "B" -> {
+        if (value.b() != null) {
+          return HexFormat.of().formatHex(value.b().asByteArray());
+        }
+      }
+      default -> throw new IllegalArgumentException("Unsupported key type: " + keyType.get());
+    }
+    throw new IllegalArgumentException("Key value " + value + " does not match the key type " + keyType.get());
+  }
+
+  /**
+   * Decodes a stored key value back to an AttributeValue.
+   *
+   * @param encoded the stored key value
+   * @param keyType the declared scalar type (S, N or B); empty for tables that predate typed keys, whose keys
+   *                come back as strings
+   * @return the attribute value
+   */
+  public AttributeValue decodeKeyValue(final String encoded, final Optional<String> keyType) {
+    return switch (keyType.orElse("S")) {
+      case "N" -> AttributeValue.builder().n(decodeNumber(encoded)).build();
+      case "B" -> AttributeValue.builder().b(SdkBytes.fromByteArrayUnsafe(HexFormat.of().parseHex(encoded))).build();
+      default -> AttributeValue.builder().s(encoded).build();
+    };
+  }
+
+  /**
+   * Sortable decimal: a sign class (1 negative, 2 zero, 3 positive), the decimal exponent offset into three
+   * digits, then the significant digits. Negative numbers complement the exponent and digits and end with 'z'
+   * so that a longer magnitude sorts first. Compared alone, encodings use only digits and a letter, so their order
+   * holds in any collation. In a GSI composite sort key a shorter encoding is followed by the '#' separator,
+   * which has to sort below digits and letters: that holds in code point order, which the key columns use, but
+   * not in collations that skip punctuation.
+   */
+  private String encodeNumber(final String number) {
+    final BigDecimal value;
+    try {
+      value = new BigDecimal(number).stripTrailingZeros();
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid number key value: " + number, e);
+    }
+    if (value.signum() == 0) {
+      return "2";
+    }
+    final String digits = value.unscaledValue().abs().toString();
+    final int exponent = digits.length() - value.scale() + NUMBER_EXPONENT_OFFSET;
+    if (exponent < 0 || exponent > 999) {
+      throw new IllegalArgumentException("Number key value out of range: " + number);
+    }
+    if (value.signum() > 0) {
+      return "3" + String.format("%03d", exponent) + digits;
+    }
+    final StringBuilder complement = new StringBuilder("1").append(String.format("%03d", 999 - exponent));
+    for (char digit : digits.toCharArray()) {
+      complement.append((char) ('9' - digit + '0'));
+    }
+    return complement.append('z').toString();
+  }
+
+  private String decodeNumber(final String encoded) {
+    if (encoded.equals("2")) {
+      return "0";
+    }
+    final boolean negative = encoded.charAt(0) == '1';
+    int exponent = Integer.parseInt(encoded.substring(1, 4));
+    String digits = encoded.substring(4);
+    if (negative) {
+      exponent = 999 - exponent;
+      final StringBuilder original = new StringBuilder();
+      for (char digit : digits.substring(0, digits.length() - 1).toCharArray()) {
+        original.append((char) ('9' - digit + '0'));
+      }
+      digits = original.toString();
+    }
+    final BigDecimal magnitude = new BigDecimal(new BigInteger(digits),
+        digits.length() - (exponent - NUMBER_EXPONENT_OFFSET));
+    return (negative ? magnitude.negate() : magnitude).toPlainString();
+  }
+
   /**
    * Converts an AttributeValue to a JSON-serializable object.
    */
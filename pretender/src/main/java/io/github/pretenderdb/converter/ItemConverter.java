@@ -52,7 +52,8 @@ public class ItemConverter {
     log.trace("toPdbItem({}, {}, {})", tableName, item, metadata);
 
     // Validate hash key exists
-    final String hashKeyValue = attributeValueConverter.extractKeyValue(item, metadata.hashKey());
+    final String hashKeyValue = attributeValueConverter.extractKeyValue(
+        item, metadata.hashKey(), metadata.hashKeyType());
 
     // Extract sort key if table has one
     final ImmutablePdbItem.Builder builder = ImmutablePdbItem.builder()
@@ -64,7 +65,7 @@ public class ItemConverter {
 
     // Only set sort key if table has one
     metadata.sortKey().ifPresent(sortKey -> {
-      final String sortKeyValue = attributeValueConverter.extractKeyValue(item, sortKey);
+      final String sortKeyValue = attributeValueConverter.extractKeyValue(item, sortKey, metadata.sortKeyType());
       builder.sortKeyValue(sortKeyValue);
     });
 
@@ -85,14 +86,15 @@ public class ItemConverter {
     log.trace("updatePdbItem({}, {}, {})", existingItem, newItem, metadata);
 
     // Validate hash key exists and matches
-    final String hashKeyValue = attributeValueConverter.extractKeyValue(newItem, metadata.hashKey());
+    final String hashKeyValue = attributeValueConverter.extractKeyValue(
+        newItem, metadata.hashKey(), metadata.hashKeyType());
     if (!hashKeyValue.equals(existingItem.hashKeyValue())) {
       throw new IllegalArgumentException("Cannot update hash key value");
     }
 
     // Validate sort key if table has one
     metadata.sortKey().ifPresent(sortKey -> {
-      final String sortKeyValue = attributeValueConverter.extractKeyValue(newItem, sortKey);
+      final String sortKeyValue = attributeValueConverter.extractKeyValue(newItem, sortKey, metadata.sortKeyType());
       if (!sortKeyValue.equals(existingItem.sortKeyValue().orElse(null))) {
         throw new IllegalArgumentException("Cannot update sort key value");
       }
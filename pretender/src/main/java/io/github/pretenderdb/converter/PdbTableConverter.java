@@ -6,17 +6,20 @@ import io.github.pretenderdb.model.PdbGlobalSecondaryIndex;
 import io.github.pretenderdb.model.PdbMetadata;
 import java.time.Clock;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
 import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
 import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
 import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
 import software.amazon.awssdk.services.dynamodb.model.KeyType;
 import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
 import software.amazon.awssdk.services.dynamodb.model.TableDescription;
 
 /**
@@ -54,10 +57,19 @@ public class PdbTableConverter {
         .findFirst()
         .map(KeySchemaElement::attributeName);
 
+    // Key types come from the attribute definitions
+    final Map<String, String> attributeTypes = createTableRequest.hasAttributeDefinitions()
+        ? createTableRequest.attributeDefinitions().stream()
+        .filter(ad -> ad.attributeType() != null
+            && ad.attributeType() != ScalarAttributeType.UNKNOWN_TO_SDK_VERSION)
+        .collect(Collectors.toMap(AttributeDefinition::attributeName, ad -> ad.attributeType().toString(),
+            (first, second) -> first))
+        : Map.of();
+
     // Extract Global Secondary Indexes
     final List<PdbGlobalSecondaryIndex> gsiList = createTableRequest.hasGlobalSecondaryIndexes()
         ? createTableRequest.globalSecondaryIndexes().stream()
-        .map(this::convertGlobalSecondaryIndex)
+        .map(gsi -> convertGlobalSecondaryIndex(gsi, attributeTypes))
         .collect(Collectors.toList())
         : List.of();
 
@@ -65,6 +77,8 @@ public class PdbTableConverter {
         .name(createTableRequest.tableName())
         .hashKey(hashKey)
         .sortKey(sortKey)
+        .hashKeyType(Optional.ofNullable(attributeTypes.get(hashKey)))
+        .sortKeyType(sortKey.map(attributeTypes::get))
         .globalSecondaryIndexes(gsiList)
         .ttlAttributeName(Optional.empty())  // TTL is set via UpdateTimeToLive API
         .ttlEnabled(false)
@@ -75,10 +89,12 @@ public class PdbTableConverter {
   /**
    * Convert a DynamoDB GlobalSecondaryIndex to PdbGlobalSecondaryIndex.
    *
-   * @param gsi the GlobalSecondaryIndex from AWS SDK
+   * @param gsi            the GlobalSecondaryIndex from AWS SDK
+   * @param attributeTypes the declared attribute types by name
    * @return the PdbGlobalSecondaryIndex
    */
-  private PdbGlobalSecondaryIndex convertGlobalSecondaryIndex(final GlobalSecondaryIndex gsi) {
+  private PdbGlobalSecondaryIndex convertGlobalSecondaryIndex(final GlobalSecondaryIndex gsi,
+                                                              final Map<String, String> attributeTypes) {
     final String hashKey = gsi.keySchema().stream()
         .filter(ks -> ks.keyType().equals(KeyType.HASH))
         .findFirst()
@@ -103,6 +119,8 @@ public class PdbTableConverter {
         .indexName(gsi.indexName())
         .hashKey(hashKey)
         .sortKey(sortKey)
+        .hashKeyType(Optional.ofNullable(attributeTypes.get(hashKey)))
+        .sortKeyType(sortKey.map(attributeTypes::get))
         .projectionType(projectionType)
         .nonKeyAttributes(nonKeyAttributes)
         .build();
@@ -120,9 +138,22 @@ public class PdbTableConverter {
     final List<KeySchemaElement> keySchema = Stream.of(hashKey, sortKey.orElse(null))
         .filter(Objects::nonNull)
         .toList();
-    return TableDescription.builder()
+    final List<AttributeDefinition> attributeDefinitions = Stream.of(
+            pdbMetadata.hashKeyType().map(type -> attributeDefinition(pdbMetadata.hashKey(), type)),
+            pdbMetadata.sortKey().flatMap(sk ->
+                pdbMetadata.sortKeyType().map(type -> attributeDefinition(sk, type))))
+        .flatMap(Optional::stream)
+        .toList();
+    final TableDescription.Builder builder = TableDescription.builder()
         .tableName(pdbMetadata.name())
-        .keySchema(keySchema)
-        .build();
+        .keySchema(keySchema);
+    if (!attributeDefinitions.isEmpty()) {
+      builder.attributeDefinitions(attributeDefinitions);
+    }
+    return builder.build();
+  }
+
+  private AttributeDefinition attributeDefinition(final String name, final String type) {
+    return AttributeDefinition.builder().attributeName(name).attributeType(type).build();
   }
 }
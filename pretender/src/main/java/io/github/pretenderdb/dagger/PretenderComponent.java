@@ -1,6 +1,7 @@
 package io.github.pretenderdb.dagger;
 
 import dagger.Component;
+import io.github.pretenderdb.DynamoDbAsyncPretenderClient;
 import io.github.pretenderdb.DynamoDbPretenderClient;
 import io.github.pretenderdb.DynamoDbStreamsPretenderClient;
 import io.github.pretenderdb.manager.PdbTableManager;
@@ -33,6 +34,13 @@ public interface PretenderComponent {
    */
   DynamoDbPretenderClient dynamoDbPretenderClient();
 
+  /**
+   * Async pretender client.
+   *
+   * @return the dynamodb async pretender client
+   */
+  DynamoDbAsyncPretenderClient dynamoDbAsyncPretenderClient();
+
   /**
    * PDB table manager.
    *
@@ -81,4 +89,32 @@ public interface PretenderComponent {
    * @return the attribute encryption helper
    */
   io.github.pretenderdb.helper.AttributeEncryptionHelper encryptionHelper();
+
+  /**
+   * Item near-cache, for its stats.
+   *
+   * @return the item cache
+   */
+  io.github.pretenderdb.dao.PdbItemCache itemCache();
+
+  /**
+   * Invalidation bus shared with the other processes on the database; close it to stop receiving.
+   *
+   * @return the invalidation bus
+   */
+  io.github.pretenderdb.dbu.invalidation.InvalidationBus invalidationBus();
+
+  /**
+   * Jdbi factory owning the primary and read replica connection pools; close it to release them.
+   *
+   * @return the jdbi factory
+   */
+  io.github.pretenderdb.dbu.factory.JdbiFactory jdbiFactory();
+
+  /**
+   * Meter registry holding the connection pool metrics.
+   *
+   * @return the meter registry
+   */
+  io.micrometer.core.instrument.MeterRegistry meterRegistry();
 }
@@ -13,7 +13,11 @@ import io.github.pretenderdb.model.PdbGlobalSecondaryIndex;
 import io.github.pretenderdb.model.PdbItem;
 import io.github.pretenderdb.model.PdbMetadata;
 import io.github.pretenderdb.model.PdbStreamRecord;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import org.jdbi.v3.core.Jdbi;
@@ -29,6 +33,11 @@ public class PretenderModule {
    */
   public static final String LIQUIBASE_SETUP_XML = "liquibase/liquibase-setup.xml";
 
+  /**
+   * The constant ASYNC_EXECUTOR, naming the executor the async client runs its calls on.
+   */
+  public static final String ASYNC_EXECUTOR = "asyncExecutor";
+
   /**
    * Instantiates a new Pretender module.
    */
@@ -51,11 +60,34 @@ public class PretenderModule {
                    final ObjectMapper objectMapper) {
     final Jdbi jdbi = factory.createJdbi();
     liquibaseHelper.runLiquibase(jdbi, LIQUIBASE_SETUP_XML);
+    registerGsiMappers(jdbi, objectMapper);
+    return jdbi;
+  }
+
+  /**
+   * Jdbi for eventually consistent reads. Spreads over the read replicas when configured, otherwise it is
+   * the primary jdbi. Schema changes only ever run on the primary.
+   *
+   * @param factory      the factory
+   * @param jdbi         the primary jdbi
+   * @param objectMapper the object mapper
+   * @return the read jdbi
+   */
+  @Provides
+  @Singleton
+  @Named(JdbiFactory.READ_JDBI)
+  public Jdbi readJdbi(final JdbiFactory factory,
+                       final Jdbi jdbi,
+                       final ObjectMapper objectMapper) {
+    return factory.createReadReplicaJdbi()
+        .map(replica -> registerGsiMappers(replica, objectMapper))
+        .orElse(jdbi);
+  }
 
+  private Jdbi registerGsiMappers(final Jdbi jdbi, final ObjectMapper objectMapper) {
     // Register custom mappers for GSI list serialization
     jdbi.registerArgument(new io.github.pretenderdb.dao.GsiListArgumentFactory(objectMapper));
     jdbi.registerColumnMapper(new io.github.pretenderdb.dao.GsiListColumnMapper(objectMapper));
-
     return jdbi;
   }
 
@@ -91,6 +123,32 @@ public class PretenderModule {
     return objectMapper;
   }
 
+  /**
+   * Meter registry for pool and cache metrics. Defaults to the global registry, so adding a registry to
+   * {@link Metrics#addRegistry(MeterRegistry)} is enough to export them.
+   *
+   * @return the meter registry
+   */
+  @Provides
+  @Singleton
+  public MeterRegistry meterRegistry() {
+    return Metrics.globalRegistry;
+  }
+
+  /**
+   * Executor for the async client. One virtual thread per call, so a call blocked on JDBC costs no platform
+   * thread; the client bounds how many run at once, and shuts the executor down when it is closed. Override
+   * this provider to use another executor.
+   *
+   * @return the async executor
+   */
+  @Provides
+  @Singleton
+  @Named(ASYNC_EXECUTOR)
+  public ExecutorService asyncExecutor() {
+    return Executors.newVirtualThreadPerTaskExecutor();
+  }
+
   /**
    * PdbMetadata dao metadata dao.
    *
@@ -44,6 +44,8 @@ public class GsiListArgumentFactory extends AbstractArgumentFactory<List<PdbGlob
             gsiNode.put("indexName", gsi.indexName());
             gsiNode.put("hashKey", gsi.hashKey());
             gsi.sortKey().ifPresent(sk -> gsiNode.put("sortKey", sk));
+            gsi.hashKeyType().ifPresent(type -> gsiNode.put("hashKeyType", type));
+            gsi.sortKeyType().ifPresent(type -> gsiNode.put("sortKeyType", type));
             gsiNode.put("projectionType", gsi.projectionType());
             gsi.nonKeyAttributes().ifPresent(nka -> gsiNode.put("nonKeyAttributes", nka));
             arrayNode.add(gsiNode);
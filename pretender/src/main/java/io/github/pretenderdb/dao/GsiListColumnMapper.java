@@ -54,6 +54,14 @@ public class GsiListColumnMapper implements ColumnMapper<List<PdbGlobalSecondary
             builder.sortKey(gsiNode.get("sortKey").asText());
           }
 
+          if (gsiNode.has("hashKeyType")) {
+            builder.hashKeyType(gsiNode.get("hashKeyType").asText());
+          }
+
+          if (gsiNode.has("sortKeyType")) {
+            builder.sortKeyType(gsiNode.get("sortKeyType").asText());
+          }
+
           if (gsiNode.has("nonKeyAttributes")) {
             builder.nonKeyAttributes(gsiNode.get("nonKeyAttributes").asText());
           }
@@ -0,0 +1,309 @@
+package io.github.pretenderdb.dao;
+
+import io.github.pretenderdb.dbu.invalidation.InvalidationBus;
+import io.github.pretenderdb.model.Configuration;
+import io.github.pretenderdb.model.ItemCacheConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Near-cache of decoded, decrypted items for the tables listed in {@link Configuration#itemCaches()}, in front
+ * of {@link PdbItemDao#get}. Each table has its own LRU map, bounded by size, whose entries expire a fixed time
+ * after they were read. Only items that exist are cached.
+ *
+ * <p>Writers call {@link #invalidate} once their transaction has committed. Every invalidation moves the table's
+ * generation; a reader takes the generation before it reads the database and its {@link #put} is dropped when
+ * the generation has moved since, so a read that raced a write never puts the older image back.</p>
+ *
+ * <p>Invalidations are also published on the {@link InvalidationBus}, and the ones other processes publish are
+ * applied here. Only writes to tables listed in {@link Configuration#itemCaches()} are published, so every
+ * process writing a cached table must list it too, with the bus enabled.</p>
+ *
+ * <p>Hits, misses, evictions and size are published as {@code cache.gets}, {@code cache.evictions} and
+ * {@code cache.size}, tagged with {@code cache=pretender.items} and the table name.</p>
+ */
+@Singleton
+public class PdbItemCache {
+
+  private static final Logger log = LoggerFactory.getLogger(PdbItemCache.class);
+
+  private static final String CACHE_NAME = "pretender.items";
+
+  /**
+   * The invalidation bus topic of cached items; keys are a table name, or an item key encoded by
+   * {@link #itemKey}.
+   */
+  public static final String INVALIDATION_TOPIC = "pretender.item";
+  private static final String KEY_SEPARATOR = "\n";
+
+  private final Map<String, ItemCacheConfig> configs;
+  private final MeterRegistry meterRegistry;
+  private final Clock clock;
+  private final InvalidationBus invalidationBus;
+  private final Map<String, TableCache> caches = new ConcurrentHashMap<>();
+
+  /**
+   * Instantiates a new Pdb item cache.
+   *
+   * @param configuration the configuration, for the cached tables
+   * @param meterRegistry the meter registry
+   * @param clock           the clock
+   * @param invalidationBus the invalidation bus
+   */
+  @Inject
+  public PdbItemCache(final Configuration configuration,
+                      final MeterRegistry meterRegistry,
+                      final Clock clock,
+                      final InvalidationBus invalidationBus) {
+    log.info("PdbItemCache({}, {}, {}, {})", configuration.itemCaches(), meterRegistry, clock, invalidationBus);
+    this.configs = configuration.itemCaches().stream()
+        .collect(Collectors.toUnmodifiableMap(ItemCacheConfig::tableName, Function.identity(), (a, b) -> b));
+    this.meterRegistry = meterRegistry;
+    this.clock = clock;
+    this.invalidationBus = invalidationBus;
+    if (!configs.isEmpty()) {
+      invalidationBus.subscribe(INVALIDATION_TOPIC, new InvalidationBus.Listener() {
+        @Override
+        public void invalidate(final String key) {
+          invalidateRemote(key);
+        }
+
+        @Override
+        public void invalidateAll() {
+          caches.values().forEach(TableCache::clear);
+        }
+      });
+    }
+  }
+
+  /**
+   * Whether the table's items are cached.
+   *
+   * @param tableName the table name
+   * @return true if cached
+   */
+  public boolean enabled(final String tableName) {
+    return configs.containsKey(tableName);
+  }
+
+  /**
+   * The table's generation, to take before reading an item that may be put in the cache.
+   *
+   * @param tableName the table name
+   * @return the generation
+   */
+  public long generation(final String tableName) {
+    return cache(tableName).map(TableCache::generation).orElse(0L);
+  }
+
+  /**
+   * Looks up an item.
+   *
+   * @param tableName    the table name
+   * @param hashKeyValue the hash key value
+   * @param sortKeyValue the sort key value
+   * @return the cached item, or empty on a miss
+   */
+  public Optional<Map<String, AttributeValue>> get(final String tableName,
+                                                   final String hashKeyValue,
+                                                   final Optional<String> sortKeyValue) {
+    log.trace("get({}, {}, {})", tableName, hashKeyValue, sortKeyValue);
+    return cache(tableName).flatMap(cache -> cache.get(new Key(hashKeyValue, sortKeyValue)));
+  }
+
+  /**
+   * Caches an item read from the database, unless the table was written since the generation was taken.
+   *
+   * @param tableName    the table name
+   * @param hashKeyValue the hash key value
+   * @param sortKeyValue the sort key value
+   * @param item         the decoded, decrypted item
+   * @param generation   the generation taken before the read
+   */
+  public void put(final String tableName,
+                  final String hashKeyValue,
+                  final Optional<String> sortKeyValue,
+                  final Map<String, AttributeValue> item,
+                  final long generation) {
+    log.trace("put({}, {}, {})", tableName, hashKeyValue, sortKeyValue);
+    cache(tableName).ifPresent(cache -> cache.put(new Key(hashKeyValue, sortKeyValue), Map.copyOf(item), generation));
+  }
+
+  /**
+   * Drops an item after it was written.
+   *
+   * @param tableName    the table name
+   * @param hashKeyValue the hash key value
+   * @param sortKeyValue the sort key value
+   */
+  public void invalidate(final String tableName,
+                         final String hashKeyValue,
+                         final Optional<String> sortKeyValue) {
+    log.trace("invalidate({}, {}, {})", tableName, hashKeyValue, sortKeyValue);
+    cache(tableName).ifPresent(cache -> {
+      cache.invalidate(new Key(hashKeyValue, sortKeyValue));
+      invalidationBus.publish(INVALIDATION_TOPIC, itemKey(tableName, hashKeyValue, sortKeyValue));
+    });
+  }
+
+  /**
+   * Drops every item of a table, when the table is deleted.
+   *
+   * @param tableName the table name
+   */
+  public void invalidateTable(final String tableName) {
+    log.trace("invalidateTable({})", tableName);
+    cache(tableName).ifPresent(cache -> {
+      cache.clear();
+      invalidationBus.publish(INVALIDATION_TOPIC, tableName);
+    });
+  }
+
+  /**
+   * The table's counters, as published to the meter registry.
+   *
+   * @param tableName the table name
+   * @return the stats
+   */
+  public Stats stats(final String tableName) {
+    return cache(tableName)
+        .map(cache -> new Stats(cache.hits.sum(), cache.misses.sum(), cache.evictions.sum(), cache.size()))
+        .orElse(new Stats(0, 0, 0, 0));
+  }
+
+  /**
+   * Applies an invalidation published by another process, without publishing it again.
+   */
+  private void invalidateRemote(final String key) {
+    final int separator = key.indexOf(KEY_SEPARATOR);
+    if (separator < 0) {
+      cache(key).ifPresent(TableCache::clear);
+      return;
+    }
+    final String rest = key.substring(separator + 1);
+    final int colon = rest.indexOf(':');
+    final int hashEnd = colon + 1 + Integer.parseInt(rest.substring(0, colon));
+    final String hashKeyValue = rest.substring(colon + 1, hashEnd);
+    final String sortKeyValue = rest.substring(hashEnd);
+    cache(key.substring(0, separator)).ifPresent(cache -> cache.invalidate(
+        new Key(hashKeyValue, sortKeyValue.isEmpty() ? Optional.empty() : Optional.of(sortKeyValue))));
+  }
+
+  /**
+   * Encodes an item as table name, newline, hash key length, colon, hash key and sort key. Key values may hold
+   * any character, so the hash key is length-prefixed; table names cannot hold a newline, nor keys be empty.
+   */
+  static String itemKey(final String tableName, final String hashKeyValue, final Optional<String> sortKeyValue) {
+    return tableName + KEY_SEPARATOR + hashKeyValue.length() + ":" + hashKeyValue + sortKeyValue.orElse("");
+  }
+
+  private Optional<TableCache> cache(final String tableName) {
+    final ItemCacheConfig config = configs.get(tableName);
+    return config == null
+        ? Optional.empty()
+        : Optional.of(caches.computeIfAbsent(tableName, name -> new TableCache(config)));
+  }
+
+  /**
+   * Cache counters of one table.
+   *
+   * @param hits      lookups that found the item
+   * @param misses    lookups that did not
+   * @param evictions items dropped for size
+   * @param size      items cached now
+   */
+  public record Stats(long hits, long misses, long evictions, long size) {
+  }
+
+  private record Key(String hashKeyValue, Optional<String> sortKeyValue) {
+  }
+
+  private record Entry(Map<String, AttributeValue> item, long expiresAtMillis) {
+  }
+
+  /**
+   * The LRU map of one table. All access is synchronized; the work under the lock is a map operation.
+   */
+  private final class TableCache {
+
+    private final ItemCacheConfig config;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long generation;
+
+    private TableCache(final ItemCacheConfig config) {
+      this.config = config;
+      this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+          if (size() > config.maximumSize()) {
+            evictions.increment();
+            return true;
+          }
+          return false;
+        }
+      };
+      final Tags tags = Tags.of("cache", CACHE_NAME, "table", config.tableName());
+      FunctionCounter.builder("cache.gets", hits, LongAdder::sum).tags(tags).tag("result", "hit")
+          .register(meterRegistry);
+      FunctionCounter.builder("cache.gets", misses, LongAdder::sum).tags(tags).tag("result", "miss")
+          .register(meterRegistry);
+      FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum).tags(tags).register(meterRegistry);
+      Gauge.builder("cache.size", this, TableCache::size).tags(tags).register(meterRegistry);
+    }
+
+    private synchronized long generation() {
+      return generation;
+    }
+
+    private synchronized int size() {
+      return entries.size();
+    }
+
+    private synchronized Optional<Map<String, AttributeValue>> get(final Key key) {
+      final Entry entry = entries.get(key);
+      if (entry == null || entry.expiresAtMillis() <= clock.millis()) {
+        if (entry != null) {
+          entries.remove(key);
+        }
+        misses.increment();
+        return Optional.empty();
+      }
+      hits.increment();
+      return Optional.of(entry.item());
+    }
+
+    private synchronized void put(final Key key, final Map<String, AttributeValue> item, final long readGeneration) {
+      if (readGeneration == generation) {
+        entries.put(key, new Entry(item, clock.millis() + config.expireAfterWriteMillis()));
+      }
+    }
+
+    private synchronized void invalidate(final Key key) {
+      generation++;
+      entries.remove(key);
+    }
+
+    private synchronized void clear() {
+      generation++;
+      entries.clear();
+    }
+  }
+}
@@ -1,39 +1,107 @@
 package io.github.pretenderdb.dao;
 
+import io.github.pretenderdb.dbu.factory.JdbiFactory;
 import io.github.pretenderdb.dbu.model.Database;
 import io.github.pretenderdb.model.PdbItem;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Data access object for item operations.
- * Uses JDBI Handle directly to support dynamic table names.
+ * Uses JDBI Handle directly to support dynamic table names. Reads that are not strongly consistent go to the
+ * read jdbi, which is backed by the read replicas when they are configured.
  */
 @Singleton
 public class PdbItemDao {
 
   private static final Logger log = LoggerFactory.getLogger(PdbItemDao.class);
 
+  /**
+   * The segment hash of a row on PostgreSQL; the item table has an expression index on it, see
+   * {@link io.github.pretenderdb.manager.PdbItemTableManager}.
+   */
+  private static final String SEGMENT_HASH = "(md5(hash_key_value) COLLATE \"C\")";
+  private static final String SEGMENT_ORDER = SEGMENT_HASH + ", hash_key_value, sort_key_value";
+
+  /**
+   * Rows read per round when HSQLDB picks the rows of a segment in Java.
+   */
+  private static final int SEGMENT_SCAN_BATCH = 500;
+
+  /**
+   * Rows fetched per round trip by the streaming reads.
+   */
+  private static final int STREAM_FETCH_SIZE = 1000;
+
+  /**
+   * DynamoDB ends a query or scan page once it has read 1 MB of items, whatever the Limit. Pages are
+   * measured by the UTF-8 size of the whole stored documents they read, whatever the projection.
+   */
+  static final int PAGE_BYTES = 1024 * 1024;
+
+  /**
+   * The UTF-8 size of a row's stored document, as both page paths count it.
+   */
+  private static final String STORED_BYTES = "octet_length(CAST(attributes_json AS TEXT))";
+
+  private static final String ITEM_BYTES = "item_bytes";
+
   private final Jdbi jdbi;
+  private final Jdbi readJdbi;
   private final Database database;
+  private final PdbItemStatements statements;
 
   /**
-   * Instantiates a new Pdb item dao.
+   * Instantiates a new Pdb item dao that sends every read to the primary.
    *
    * @param jdbi     the jdbi
    * @param database the database configuration
    */
-  @Inject
   public PdbItemDao(final Jdbi jdbi, final Database database) {
-    log.info("PdbItemDao({}, {})", jdbi, database);
+    this(jdbi, jdbi, database, new PdbItemStatements(database));
+  }
+
+  /**
+   * Instantiates a new Pdb item dao.
+   *
+   * @param jdbi       the jdbi
+   * @param readJdbi   the jdbi for eventually consistent reads
+   * @param database   the database configuration
+   * @param statements the per-table statement registry
+   */
+  @Inject
+  public PdbItemDao(final Jdbi jdbi,
+                    @Named(JdbiFactory.READ_JDBI) final Jdbi readJdbi,
+                    final Database database,
+                    final PdbItemStatements statements) {
+    log.info("PdbItemDao({}, {}, {}, {})", jdbi, readJdbi, database, statements);
     this.jdbi = jdbi;
+    this.readJdbi = readJdbi;
     this.database = database;
+    this.statements = statements;
+  }
+
+  private Jdbi jdbi(final boolean consistentRead) {
+    return consistentRead ? jdbi : readJdbi;
   }
 
   /**
@@ -46,17 +114,7 @@ public class PdbItemDao {
   public boolean insert(final String tableName, final PdbItem item) {
     log.trace("insert({}, {})", tableName, item);
 
-    // For PostgreSQL, we need to cast JSON string to JSONB
-    final String jsonValuePlaceholder = database.usePostgresql()
-        ? "CAST(:attributesJson AS JSONB)"
-        : ":attributesJson";
-
-    final String sql = String.format(
-        "INSERT INTO \"%s\" (hash_key_value, sort_key_value, attributes_json, create_date, update_date) " +
-            "VALUES (:hashKeyValue, :sortKeyValue, %s, :createDate, :updateDate)",
-        tableName,
-        jsonValuePlaceholder
-    );
+    final String sql = statements.forTable(tableName).insert();
 
     return jdbi.withHandle(handle ->
         handle.createUpdate(sql)
@@ -80,17 +138,7 @@ public class PdbItemDao {
   public boolean insert(final Handle handle, final String tableName, final PdbItem item) {
     log.trace("insert(handle, {}, {})", tableName, item);
 
-    // For PostgreSQL, we need to cast JSON string to JSONB
-    final String jsonValuePlaceholder = database.usePostgresql()
-        ? "CAST(:attributesJson AS JSONB)"
-        : ":attributesJson";
-
-    final String sql = String.format(
-        "INSERT INTO \"%s\" (hash_key_value, sort_key_value, attributes_json, create_date, update_date) " +
-            "VALUES (:hashKeyValue, :sortKeyValue, %s, :createDate, :updateDate)",
-        tableName,
-        jsonValuePlaceholder
-    );
+    final String sql = statements.forTable(tableName).insert();
 
     return handle.createUpdate(sql)
         .bind("hashKeyValue", item.hashKeyValue())
@@ -112,21 +160,48 @@ public class PdbItemDao {
   public Optional<PdbItem> get(final String tableName,
                                final String hashKeyValue,
                                final Optional<String> sortKeyValue) {
-    log.trace("get({}, {}, {})", tableName, hashKeyValue, sortKeyValue);
-
-    final String sql = sortKeyValue.isPresent()
-        ? String.format(
-        "SELECT * FROM \"%s\" WHERE hash_key_value = :hashKey AND sort_key_value = :sortKey",
-        tableName
-    )
-        : String.format(
-        "SELECT * FROM \"%s\" WHERE hash_key_value = :hashKey",
-        tableName
-    );
+    return get(tableName, hashKeyValue, sortKeyValue, true);
+  }
 
-    return jdbi.withHandle(handle -> {
+  /**
+   * Gets an item by its primary key.
+   *
+   * @param tableName      the table name
+   * @param hashKeyValue   the hash key value
+   * @param sortKeyValue   the sort key value (optional)
+   * @param consistentRead read from the primary when true, otherwise from a read replica
+   * @return the item
+   */
+  public Optional<PdbItem> get(final String tableName,
+                               final String hashKeyValue,
+                               final Optional<String> sortKeyValue,
+                               final boolean consistentRead) {
+    return get(tableName, hashKeyValue, sortKeyValue, consistentRead, Projection.ALL);
+  }
+
+  /**
+   * Gets an item by its primary key, selecting only the projected attributes.
+   *
+   * @param tableName      the table name
+   * @param hashKeyValue   the hash key value
+   * @param sortKeyValue   the sort key value (optional)
+   * @param consistentRead read from the primary when true, otherwise from a read replica
+   * @param projection     the attributes to select
+   * @return the item
+   */
+  public Optional<PdbItem> get(final String tableName,
+                               final String hashKeyValue,
+                               final Optional<String> sortKeyValue,
+                               final boolean consistentRead,
+                               final Projection projection) {
+    log.trace("get({}, {}, {}, {}, {})", tableName, hashKeyValue, sortKeyValue, consistentRead, projection);
+
+    final String sql = projection.select(statements.forTable(tableName).get(sortKeyValue.isPresent()));
+
+    return jdbi(consistentRead).withHandle(handle -> {
       var query = handle.createQuery(sql)
-          .bind("hashKey", hashKeyValue);
+          .bind("hashKey", hashKeyValue)
+          .bindMap(projection.parameters());
 
       sortKeyValue.ifPresent(sk -> query.bind("sortKey", sk));
 
@@ -160,15 +235,7 @@ public class PdbItemDao {
                                final Optional<String> sortKeyValue) {
     log.trace("get(handle, {}, {}, {})", tableName, hashKeyValue, sortKeyValue);
 
-    final String sql = sortKeyValue.isPresent()
-        ? String.format(
-        "SELECT * FROM \"%s\" WHERE hash_key_value = :hashKey AND sort_key_value = :sortKey",
-        tableName
-    )
-        : String.format(
-        "SELECT * FROM \"%s\" WHERE hash_key_value = :hashKey",
-        tableName
-    );
+    final String sql = statements.forTable(tableName).get(sortKeyValue.isPresent());
 
     var query = handle.createQuery(sql)
         .bind("hashKey", hashKeyValue);
@@ -199,24 +266,7 @@ public class PdbItemDao {
   public boolean update(final String tableName, final PdbItem item) {
     log.trace("update({}, {})", tableName, item);
 
-    // For PostgreSQL, we need to cast JSON string to JSONB
-    final String jsonValuePlaceholder = database.usePostgresql()
-        ? "CAST(:attributesJson AS JSONB)"
-        : ":attributesJson";
-
-    final String sql = item.sortKeyValue().isPresent()
-        ? String.format(
-        "UPDATE \"%s\" SET attributes_json = %s, update_date = :updateDate " +
-            "WHERE hash_key_value = :hashKeyValue AND sort_key_value = :sortKeyValue",
-        tableName,
-        jsonValuePlaceholder
-    )
-        : String.format(
-        "UPDATE \"%s\" SET attributes_json = %s, update_date = :updateDate " +
-            "WHERE hash_key_value = :hashKeyValue",
-        tableName,
-        jsonValuePlaceholder
-    );
+    final String sql = statements.forTable(tableName).update(item.sortKeyValue().isPresent());
 
     return jdbi.withHandle(handle ->
         handle.createUpdate(sql)
@@ -239,24 +289,7 @@ public class PdbItemDao {
   public boolean update(final Handle handle, final String tableName, final PdbItem item) {
     log.trace("update(handle, {}, {})", tableName, item);
 
-    // For PostgreSQL, we need to cast JSON string to JSONB
-    final String jsonValuePlaceholder = database.usePostgresql()
-        ? "CAST(:attributesJson AS JSONB)"
-        : ":attributesJson";
-
-    final String sql = item.sortKeyValue().isPresent()
-        ? String.format(
-        "UPDATE \"%s\" SET attributes_json = %s, update_date = :updateDate " +
-            "WHERE hash_key_value = :hashKeyValue AND sort_key_value = :sortKeyValue",
-        tableName,
-        jsonValuePlaceholder
-    )
-        : String.format(
-        "UPDATE \"%s\" SET attributes_json = %s, update_date = :updateDate " +
-            "WHERE hash_key_value = :hashKeyValue",
-        tableName,
-        jsonValuePlaceholder
-    );
+    final String sql = statements.forTable(tableName).update(item.sortKeyValue().isPresent());
 
     return handle.createUpdate(sql)
         .bind("hashKeyValue", item.hashKeyValue())
@@ -279,15 +312,7 @@ public class PdbItemDao {
                         final Optional<String> sortKeyValue) {
     log.trace("delete({}, {}, {})", tableName, hashKeyValue, sortKeyValue);
 
-    final String sql = sortKeyValue.isPresent()
-        ? String.format(
-        "DELETE FROM \"%s\" WHERE hash_key_value = :hashKey AND sort_key_value = :sortKey",
-        tableName
-    )
-        : String.format(
-        "DELETE FROM \"%s\" WHERE hash_key_value = :hashKey",
-        tableName
-    );
+    final String sql = statements.forTable(tableName).delete(sortKeyValue.isPresent());
 
     return jdbi.withHandle(handle -> {
       var update = handle.createUpdate(sql)
@@ -314,15 +339,7 @@ public class PdbItemDao {
                         final Optional<String> sortKeyValue) {
     log.trace("delete(handle, {}, {}, {})", tableName, hashKeyValue, sortKeyValue);
 
-    final String sql = sortKeyValue.isPresent()
-        ? String.format(
-        "DELETE FROM \"%s\" WHERE hash_key_value = :hashKey AND sort_key_value = :sortKey",
-        tableName
-    )
-        : String.format(
-        "DELETE FROM \"%s\" WHERE hash_key_value = :hashKey",
-        tableName
-    );
+    final String sql = statements.forTable(tableName).delete(sortKeyValue.isPresent());
 
     var update = handle.createUpdate(sql)
         .bind("hashKey", hashKeyValue);
@@ -332,23 +349,213 @@ public class PdbItemDao {
     return update.execute() > 0;
   }
 
+  /**
+   * Inserts the item or replaces the existing one with the same key in a single statement
+   * (ON CONFLICT on PostgreSQL, MERGE on HSQLDB).
+   *
+   * @param tableName the table name
+   * @param item      the item
+   */
+  public void upsert(final String tableName, final PdbItem item) {
+    log.trace("upsert({}, {})", tableName, item);
+    jdbi.useHandle(handle -> upsert(handle, tableName, item));
+  }
+
+  /**
+   * Inserts the item or replaces the existing one with the same key within an existing transaction.
+   *
+   * @param handle    the database handle (for transactional operations)
+   * @param tableName the table name
+   * @param item      the item
+   */
+  public void upsert(final Handle handle, final String tableName, final PdbItem item) {
+    log.trace("upsert(handle, {}, {})", tableName, item);
+    bindItem(handle.createUpdate(statements.forTable(tableName).upsert(item.sortKeyValue().isPresent())), item)
+        .execute();
+  }
+
+  /**
+   * Upserts the item and returns the attributes json it replaced, if any, in one transaction. See
+   * {@link #upsertReturningPrevious(Handle, String, PdbItem)}.
+   *
+   * @param tableName the table name
+   * @param item      the item
+   * @return the previous attributes json, empty if the item is new
+   */
+  public Optional<String> upsertReturningPrevious(final String tableName, final PdbItem item) {
+    log.trace("upsertReturningPrevious({}, {})", tableName, item);
+    return jdbi.inTransaction(handle -> upsertReturningPrevious(handle, tableName, item));
+  }
+
+  /**
+   * Upserts the item within an existing transaction and returns the attributes json it replaced, if any.
+   * On PostgreSQL the existing row is locked with SELECT ... FOR UPDATE before it is overwritten, so the
+   * json returned is the one replaced even under concurrent puts; a statement snapshot would miss a row
+   * another transaction inserted meanwhile. When there is no row to lock the item is inserted unless one
+   * appeared since, in which case that row is locked and overwritten instead. HSQLDB reads then merges.
+   *
+   * @param handle    the database handle (for transactional operations)
+   * @param tableName the table name
+   * @param item      the item
+   * @return the previous attributes json, empty if the item is new
+   */
+  public Optional<String> upsertReturningPrevious(final Handle handle, final String tableName, final PdbItem item) {
+    log.trace("upsertReturningPrevious(handle, {}, {})", tableName, item);
+    final boolean hasSortKey = item.sortKeyValue().isPresent();
+    if (database.usePostgresql()) {
+      final PdbItemStatements.ItemSql sql = statements.forTable(tableName);
+      while (true) {
+        final Optional<String> previous = handle.createQuery(sql.lock(hasSortKey))
+            .bind("hashKeyValue", item.hashKeyValue())
+            .bind("sortKeyValue", item.sortKeyValue().orElse(null))
+            .mapTo(String.class)
+            .findFirst();
+        if (previous.isPresent()) {
+          bindItem(handle.createUpdate(sql.update(hasSortKey)), item).execute();
+          return previous;
+        }
+        if (bindItem(handle.createUpdate(sql.insertIfAbsent(hasSortKey)), item).execute() > 0) {
+          return Optional.empty();
+        }
+        // Another put inserted the row after the lock found none; lock that one and overwrite it
+      }
+    }
+    final Optional<String> previous = get(handle, tableName, item.hashKeyValue(), item.sortKeyValue())
+        .map(PdbItem::attributesJson);
+    upsert(handle, tableName, item);
+    return previous;
+  }
+
+  /**
+   * Rewrites an item's attributes in place with a compiled JSONB expression and returns the new attributes
+   * json. PostgreSQL only.
+   *
+   * @param handle       the database handle (for transactional operations)
+   * @param tableName    the table name
+   * @param hashKeyValue the hash key value
+   * @param sortKeyValue the sort key value (optional)
+   * @param expression   the SQL expression for the new attributes_json
+   * @param guards       predicates the stored attributes must satisfy
+   * @param parameters   the string parameters used by the expression and guards
+   * @param updateDate   the update date
+   * @return the new attributes json, empty if the item does not exist or a guard did not hold
+   */
+  public Optional<String> updateInPlace(final Handle handle,
+                                        final String tableName,
+                                        final String hashKeyValue,
+                                        final Optional<String> sortKeyValue,
+                                        final String expression,
+                                        final List<String> guards,
+                                        final Map<String, String> parameters,
+                                        final Instant updateDate) {
+    log.trace("updateInPlace(handle, {}, {}, {}, {})", tableName, hashKeyValue, sortKeyValue, expression);
+
+    final StringBuilder sql = new StringBuilder("UPDATE \"").append(tableName)
+        .append("\" SET attributes_json = ").append(expression)
+        .append(", update_date = :updateDate WHERE hash_key_value = :hashKey");
+    sortKeyValue.ifPresent(sk -> sql.append(" AND sort_key_value = :sortKey"));
+    guards.forEach(guard -> sql.append(" AND ").append(guard));
+    sql.append(" RETURNING attributes_json");
+
+    final var query = handle.createQuery(sql.toString())
+        .bind("updateDate", updateDate)
+        .bind("hashKey", hashKeyValue);
+    sortKeyValue.ifPresent(sk -> query.bind("sortKey", sk));
+    parameters.forEach(query::bind);
+    return query.mapTo(String.class).findFirst();
+  }
+
+  /**
+   * Writes the item only if the stored item satisfies a predicate, checked by the write statement itself.
+   * PostgreSQL only. With insertIfAbsent a missing item is inserted (ON CONFLICT ... DO UPDATE ... WHERE);
+   * otherwise only an existing item that satisfies the predicate is replaced.
+   *
+   * @param handle         the database handle (for transactional operations)
+   * @param tableName      the table name
+   * @param item           the item
+   * @param predicate      the predicate, given the qualified attributes_json column of the stored row
+   * @param parameters     the string parameters used by the predicate
+   * @param insertIfAbsent whether a missing item is inserted
+   * @return true if the item was written, false if the predicate did not hold (or, without insertIfAbsent,
+   *     the item does not exist)
+   */
+  public boolean putIf(final Handle handle,
+                       final String tableName,
+                       final PdbItem item,
+                       final Function<String, String> predicate,
+                       final Map<String, String> parameters,
+                       final boolean insertIfAbsent) {
+    log.trace("putIf(handle, {}, {}, {})", tableName, item, insertIfAbsent);
+
+    final PdbItemStatements.ItemSql sql = statements.forTable(tableName);
+    final boolean hasSortKey = item.sortKeyValue().isPresent();
+    final String statement = insertIfAbsent
+        ? sql.upsert(hasSortKey) + " WHERE " + predicate.apply("\"" + tableName + "\".attributes_json")
+        : sql.update(hasSortKey) + " AND " + predicate.apply("attributes_json");
+
+    final var update = bindItem(handle.createUpdate(statement), item);
+    parameters.forEach(update::bind);
+    return update.execute() > 0;
+  }
+
+  /**
+   * Deletes the item only if the stored item satisfies a predicate, checked by the DELETE itself.
+   * PostgreSQL only.
+   *
+   * @param handle       the database handle (for transactional operations)
+   * @param tableName    the table name
+   * @param hashKeyValue the hash key value
+   * @param sortKeyValue the sort key value (optional)
+   * @param predicate    the predicate over attributes_json
+   * @param parameters   the string parameters used by the predicate
+   * @return the attributes json of the deleted item, empty if the item does not exist or the predicate did
+   *     not hold
+   */
+  public Optional<String> deleteIf(final Handle handle,
+                                   final String tableName,
+                                   final String hashKeyValue,
+                                   final Optional<String> sortKeyValue,
+                                   final String predicate,
+                                   final Map<String, String> parameters) {
+    log.trace("deleteIf(handle, {}, {}, {}, {})", tableName, hashKeyValue, sortKeyValue, predicate);
+
+    final String sql = statements.forTable(tableName).delete(sortKeyValue.isPresent())
+        + " AND " + predicate + " RETURNING attributes_json";
+
+    final var query = handle.createQuery(sql)
+        .bind("hashKey", hashKeyValue);
+    sortKeyValue.ifPresent(sk -> query.bind("sortKey", sk));
+    parameters.forEach(query::bind);
+    return query.mapTo(String.class).findFirst();
+  }
+
+  private org.jdbi.v3.core.statement.Update bindItem(final org.jdbi.v3.core.statement.Update update,
+                                                     final PdbItem item) {
+    return update
+        .bind("hashKeyValue", item.hashKeyValue())
+        .bind("sortKeyValue", item.sortKeyValue().orElse(null))
+        .bind("attributesJson", item.attributesJson())
+        .bind("createDate", item.createDate())
+        .bind("updateDate", item.updateDate());
+  }
+
   /**
    * Queries items by hash key with optional sort key condition (without pagination).
    * This is a convenience method that delegates to the full query method with no ExclusiveStartKey.
    *
-   * @param tableName        the table name
-   * @param hashKeyValue     the hash key value
-   * @param sortKeyCondition the sort key SQL condition (e.g., "sort_key_value = :sortKey")
-   * @param sortKeyValue     the sort key value for binding
-   * @param limit            the maximum number of items to return
+   * @param tableName         the table name
+   * @param hashKeyValue      the hash key value
+   * @param sortKeyCondition  the sort key SQL condition (e.g., "sort_key_value = :sortKey")
+   * @param sortKeyParameters the values of the sort key condition's parameters, by name
+   * @param limit             the maximum number of items to return
    * @return the list of items
    */
   public List<PdbItem> query(final String tableName,
                              final String hashKeyValue,
                              final String sortKeyCondition,
-                             final Optional<String> sortKeyValue,
+                             final Map<String, String> sortKeyParameters,
                              final int limit) {
-    return query(tableName, hashKeyValue, sortKeyCondition, sortKeyValue, limit,
+    return query(tableName, hashKeyValue, sortKeyCondition, sortKeyParameters, limit,
         Optional.empty(), Optional.empty());
   }
 
@@ -358,7 +565,7 @@ public class PdbItemDao {
    * @param tableName             the table name
    * @param hashKeyValue          the hash key value
    * @param sortKeyCondition      the sort key SQL condition (e.g., "sort_key_value = :sortKey")
-   * @param sortKeyValue          the sort key value for binding
+   * @param sortKeyParameters     the values of the sort key condition's parameters, by name
    * @param limit                 the maximum number of items to return
    * @param exclusiveStartHashKey the exclusive start hash key for pagination (optional)
    * @param exclusiveStartSortKey the exclusive start sort key for pagination (optional)
@@ -367,50 +574,108 @@ public class PdbItemDao {
   public List<PdbItem> query(final String tableName,
                              final String hashKeyValue,
                              final String sortKeyCondition,
-                             final Optional<String> sortKeyValue,
+                             final Map<String, String> sortKeyParameters,
                              final int limit,
                              final Optional<String> exclusiveStartHashKey,
                              final Optional<String> exclusiveStartSortKey) {
-    log.trace("query({}, {}, {}, {}, {}, {}, {})", tableName, hashKeyValue, sortKeyCondition,
-        sortKeyValue, limit, exclusiveStartHashKey, exclusiveStartSortKey);
-
-    // Build WHERE clause with sort key condition
-    String whereClause = sortKeyCondition != null && !sortKeyCondition.isBlank()
-        ? "hash_key_value = :hashKey AND " + sortKeyCondition
-        : "hash_key_value = :hashKey";
+    return query(tableName, hashKeyValue, sortKeyCondition, sortKeyParameters, limit,
+        exclusiveStartHashKey, exclusiveStartSortKey, true);
+  }
 
-    // Add ExclusiveStartKey filtering for pagination
-    // DynamoDB pagination: return items AFTER the ExclusiveStartKey
-    // Using standard SQL compatible with both HSQLDB and PostgreSQL
-    if (exclusiveStartHashKey.isPresent() && exclusiveStartSortKey.isPresent()) {
-      // Both hash and sort key provided
-      // Equivalent to tuple comparison: (hash_key_value, sort_key_value) > (exclusiveHash, exclusiveSort)
-      // Expanded to: (hash > exclusiveHash) OR (hash = exclusiveHash AND sort > exclusiveSort)
-      // But since we're querying with hash_key_value = :hashKey, we only need the sort key part
-      whereClause += " AND COALESCE(sort_key_value, '') > :exclusiveSortKey";
-    } else if (exclusiveStartSortKey.isPresent()) {
-      // Only sort key provided (hash key matches the query hash key)
-      whereClause += " AND COALESCE(sort_key_value, '') > :exclusiveSortKey";
-    } else if (exclusiveStartHashKey.isPresent()) {
-      // Only hash key provided
-      // This shouldn't happen in a Query operation since we're filtering by a specific hash key
-      // But if it does, we can't filter further as we're already at the hash key boundary
-      // This would only be relevant for Scan operations
-      whereClause += " AND hash_key_value > :exclusiveHashKey";
-    }
+  /**
+   * Queries items by hash key with optional sort key condition and pagination support.
+   *
+   * @param tableName             the table name
+   * @param hashKeyValue          the hash key value
+   * @param sortKeyCondition      the sort key SQL condition (e.g., "sort_key_value = :sortKey")
+   * @param sortKeyParameters     the values of the sort key condition's parameters, by name
+   * @param limit                 the maximum number of items to return
+   * @param exclusiveStartHashKey the exclusive start hash key for pagination (optional)
+   * @param exclusiveStartSortKey the exclusive start sort key for pagination (optional)
+   * @param consistentRead        read from the primary when true, otherwise from a read replica
+   * @return the list of items
+   */
+  public List<PdbItem> query(final String tableName,
+                             final String hashKeyValue,
+                             final String sortKeyCondition,
+                             final Map<String, String> sortKeyParameters,
+                             final int limit,
+                             final Optional<String> exclusiveStartHashKey,
+                             final Optional<String> exclusiveStartSortKey,
+                             final boolean consistentRead) {
+    return query(tableName, hashKeyValue, sortKeyCondition, sortKeyParameters, limit,
+        exclusiveStartHashKey, exclusiveStartSortKey, consistentRead, Projection.ALL);
+  }
 
-    final String sql = String.format(
-        "SELECT * FROM \"%s\" WHERE %s ORDER BY hash_key_value, sort_key_value LIMIT :limit",
-        tableName,
-        whereClause
-    );
+  /**
+   * Queries items by hash key with optional sort key condition and pagination support, selecting only the
+   * projected attributes.
+   *
+   * @param tableName             the table name
+   * @param hashKeyValue          the hash key value
+   * @param sortKeyCondition      the sort key SQL condition (e.g., "sort_key_value = :sortKey")
+   * @param sortKeyParameters     the values of the sort key condition's parameters, by name
+   * @param limit                 the maximum number of items to return
+   * @param exclusiveStartHashKey the exclusive start hash key for pagination (optional)
+   * @param exclusiveStartSortKey the exclusive start sort key for pagination (optional)
+   * @param consistentRead        read from the primary when true, otherwise from a read replica
+   * @param projection            the attributes to select
+   * @return the list of items
+   */
+  public List<PdbItem> query(final String tableName,
+                             final String hashKeyValue,
+                             final String sortKeyCondition,
+                             final Map<String, String> sortKeyParameters,
+                             final int limit,
+                             final Optional<String> exclusiveStartHashKey,
+                             final Optional<String> exclusiveStartSortKey,
+                             final boolean consistentRead,
+                             final Projection projection) {
+    return query(tableName, hashKeyValue, sortKeyCondition, sortKeyParameters, limit,
+        exclusiveStartHashKey, exclusiveStartSortKey, consistentRead, projection, true);
+  }
 
-    return jdbi.withHandle(handle -> {
+  /**
+   * Queries items by hash key with optional sort key condition and pagination support, in either sort key
+   * order. Descending queries read the key index backwards and start below the ExclusiveStartKey, so the
+   * latest items of a partition cost only the rows returned.
+   *
+   * @param tableName             the table name
+   * @param hashKeyValue          the hash key value
+   * @param sortKeyCondition      the sort key SQL condition (e.g., "sort_key_value = :sortKey")
+   * @param sortKeyParameters     the values of the sort key condition's parameters, by name
+   * @param limit                 the maximum number of items to return
+   * @param exclusiveStartHashKey the exclusive start hash key for pagination (optional)
+   * @param exclusiveStartSortKey the exclusive start sort key for pagination (optional)
+   * @param consistentRead        read from the primary when true, otherwise from a read replica
+   * @param projection            the attributes to select
+   * @param scanIndexForward      ascending sort key order when true, descending when false
+   * @return the list of items
+   */
+  public List<PdbItem> query(final String tableName,
+                             final String hashKeyValue,
+                             final String sortKeyCondition,
+                             final Map<String, String> sortKeyParameters,
+                             final int limit,
+                             final Optional<String> exclusiveStartHashKey,
+                             final Optional<String> exclusiveStartSortKey,
+                             final boolean consistentRead,
+                             final Projection projection,
+                             final boolean scanIndexForward) {
+    log.trace("query({}, {}, {}, {}, {}, {}, {}, {}, {}, {})", tableName, hashKeyValue, sortKeyCondition,
+        sortKeyParameters, limit, exclusiveStartHashKey, exclusiveStartSortKey, consistentRead, projection,
+        scanIndexForward);
+
+    final String sql = projection.select(
+        querySql(tableName, sortKeyCondition, exclusiveStartHashKey, exclusiveStartSortKey, scanIndexForward));
+
+    return jdbi(consistentRead).withHandle(handle -> {
       var query = handle.createQuery(sql)
           .bind("hashKey", hashKeyValue)
-          .bind("limit", limit);
+          .bind("limit", limit)
+          .bindMap(projection.parameters());
 
-      sortKeyValue.ifPresent(sk -> query.bind("sortKey", sk));
+      query.bindMap(sortKeyParameters);
       exclusiveStartHashKey.ifPresent(esk -> query.bind("exclusiveHashKey", esk));
       exclusiveStartSortKey.ifPresent(esk -> query.bind("exclusiveSortKey", esk));
 
@@ -429,6 +694,109 @@ public class PdbItemDao {
     });
   }
 
+  /**
+   * Queries one page of items, evaluating a filter in the database. The page is the same rows the unfiltered
+   * query would read, {@code pageSize} of them or fewer once they reach {@link #PAGE_BYTES}; only the rows of
+   * the page that pass the filter are returned, along with the number of rows read and the last one read when
+   * more follow.
+   *
+   * @param tableName             the table name
+   * @param hashKeyValue          the hash key value
+   * @param sortKeyCondition      the sort key SQL condition (e.g., "sort_key_value = :sortKey")
+   * @param sortKeyParameters     the values of the sort key condition's parameters, by name
+   * @param pageSize              the number of rows to evaluate
+   * @param exclusiveStartHashKey the exclusive start hash key for pagination (optional)
+   * @param exclusiveStartSortKey the exclusive start sort key for pagination (optional)
+   * @param consistentRead        read from the primary when true, otherwise from a read replica
+   * @param filter                the filter predicate over attributes_json
+   * @param filterParameters      the string parameters of the filter, by name
+   * @param projection            the attributes to select for the returned rows
+   * @param scanIndexForward      ascending sort key order when true, descending when false
+   * @return the filtered page
+   */
+  public Page queryFiltered(final String tableName,
+                                    final String hashKeyValue,
+                                    final String sortKeyCondition,
+                                    final Map<String, String> sortKeyParameters,
+                                    final int pageSize,
+                                    final Optional<String> exclusiveStartHashKey,
+                                    final Optional<String> exclusiveStartSortKey,
+                                    final boolean consistentRead,
+                                    final String filter,
+                                    final Map<String, String> filterParameters,
+                                    final Projection projection,
+                                    final boolean scanIndexForward) {
+    log.trace("queryFiltered({}, {}, {}, {}, {}, {}, {}, {}, {}, {}, {})", tableName, hashKeyValue,
+        sortKeyCondition, sortKeyParameters, pageSize, exclusiveStartHashKey, exclusiveStartSortKey, consistentRead,
+        filter, projection, scanIndexForward);
+
+    final String sql = filteredPageSql(
+        querySql(tableName, sortKeyCondition, exclusiveStartHashKey, exclusiveStartSortKey, scanIndexForward),
+        filter, projection, keyOrder(scanIndexForward));
+    return jdbi(consistentRead).withHandle(handle -> {
+      final var query = handle.createQuery(sql)
+          .bind("hashKey", hashKeyValue)
+          .bind("limit", pageSize + 1)
+          .bind("pageSize", pageSize)
+          .bind("pageBytes", PAGE_BYTES)
+          .bindMap(filterParameters)
+          .bindMap(projection.parameters());
+      query.bindMap(sortKeyParameters);
+      exclusiveStartHashKey.ifPresent(esk -> query.bind("exclusiveHashKey", esk));
+      exclusiveStartSortKey.ifPresent(esk -> query.bind("exclusiveSortKey", esk));
+      return filteredPage(tableName, query);
+    });
+  }
+
+  private String querySql(final String tableName,
+                          final String sortKeyCondition,
+                          final Optional<String> exclusiveStartHashKey,
+                          final Optional<String> exclusiveStartSortKey,
+                          final boolean scanIndexForward) {
+    // Build WHERE clause with sort key condition
+    String whereClause = sortKeyCondition != null && !sortKeyCondition.isBlank()
+        ? "hash_key_value = :hashKey AND " + sortKeyCondition
+        : "hash_key_value = :hashKey";
+
+    // Add ExclusiveStartKey filtering for pagination
+    // DynamoDB pagination: return items AFTER the ExclusiveStartKey
+    // Using standard SQL compatible with both HSQLDB and PostgreSQL
+    if (!scanIndexForward) {
+      // Descending: items below the ExclusiveStartKey, as a plain column comparison the index can seek to
+      if (exclusiveStartSortKey.isPresent()) {
+        whereClause += " AND sort_key_value < :exclusiveSortKey";
+      } else if (exclusiveStartHashKey.isPresent()) {
+        whereClause += " AND hash_key_value < :exclusiveHashKey";
+      }
+    } else if (exclusiveStartSortKey.isPresent()) {
+      // The query fixes the hash key, so only the sort key part of the key comparison remains. The column is
+      // compared as is (sort keys are never null) so each page is a seek on the primary key index.
+      whereClause += " AND sort_key_value > :exclusiveSortKey";
+    } else if (exclusiveStartHashKey.isPresent()) {
+      // Only hash key provided
+      // This shouldn't happen in a Query operation since we're filtering by a specific hash key
+      // But if it does, we can't filter further as we're already at the hash key boundary
+      // This would only be relevant for Scan operations
+      whereClause += " AND hash_key_value > :exclusiveHashKey";
+    }
+
+    return String.format(
+        "SELECT * FROM \"%s\" WHERE %s ORDER BY %s LIMIT :limit",
+        tableName,
+        whereClause,
+        keyOrder(scanIndexForward)
+    );
+  }
+
+  /**
+   * The key order of a page. Both columns take the same direction so the key index serves either one.
+   */
+  private String keyOrder(final boolean scanIndexForward) {
+    return scanIndexForward
+        ? "hash_key_value, sort_key_value"
+        : "hash_key_value DESC, sort_key_value DESC";
+  }
+
   /**
    * Scans all items in a table.
    *
@@ -441,31 +809,140 @@ public class PdbItemDao {
   public List<PdbItem> scan(final String tableName, final int limit,
                             final Optional<String> exclusiveStartHashKey,
                             final Optional<String> exclusiveStartSortKey) {
-    log.trace("scan({}, {}, {}, {})", tableName, limit, exclusiveStartHashKey, exclusiveStartSortKey);
-
-    // Build WHERE clause for pagination
-    // Note: We use standard SQL comparison instead of tuple comparison for HSQLDB compatibility
-    String whereClause = "";
-    if (exclusiveStartHashKey.isPresent()) {
-      // For pagination, we need to start after the last evaluated key
-      // Since scan returns items ordered by (hash_key, sort_key), we filter using:
-      // WHERE (hash_key > last_hash) OR (hash_key = last_hash AND sort_key > last_sort)
-      if (exclusiveStartSortKey.isPresent()) {
-        whereClause = "WHERE (hash_key_value > :exclusiveHashKey) OR " +
-            "(hash_key_value = :exclusiveHashKey AND COALESCE(sort_key_value, '') > :exclusiveSortKey)";
-      } else {
-        whereClause = "WHERE hash_key_value > :exclusiveHashKey";
-      }
-    }
-
-    final String sql = String.format(
-        "SELECT * FROM \"%s\" %s ORDER BY hash_key_value, sort_key_value LIMIT :limit",
-        tableName, whereClause
-    );
+    return scan(tableName, limit, exclusiveStartHashKey, exclusiveStartSortKey, true);
+  }
 
-    return jdbi.withHandle(handle -> {
-      var query = handle.createQuery(sql)
-          .bind("limit", limit);
+  /**
+   * Scans all items in a table.
+   *
+   * @param tableName             the table name
+   * @param limit                 the maximum number of items to return
+   * @param exclusiveStartHashKey the exclusive start hash key
+   * @param exclusiveStartSortKey the exclusive start sort key
+   * @param consistentRead        read from the primary when true, otherwise from a read replica
+   * @return the list of items
+   */
+  public List<PdbItem> scan(final String tableName, final int limit,
+                            final Optional<String> exclusiveStartHashKey,
+                            final Optional<String> exclusiveStartSortKey,
+                            final boolean consistentRead) {
+    return scan(tableName, limit, exclusiveStartHashKey, exclusiveStartSortKey, consistentRead, Projection.ALL);
+  }
+
+  /**
+   * Scans all items in a table, selecting only the projected attributes.
+   *
+   * @param tableName             the table name
+   * @param limit                 the maximum number of items to return
+   * @param exclusiveStartHashKey the exclusive start hash key
+   * @param exclusiveStartSortKey the exclusive start sort key
+   * @param consistentRead        read from the primary when true, otherwise from a read replica
+   * @param projection            the attributes to select
+   * @return the list of items
+   */
+  public List<PdbItem> scan(final String tableName, final int limit,
+                            final Optional<String> exclusiveStartHashKey,
+                            final Optional<String> exclusiveStartSortKey,
+                            final boolean consistentRead,
+                            final Projection projection) {
+    return scan(tableName, limit, exclusiveStartHashKey, exclusiveStartSortKey, consistentRead, projection,
+        Segment.ALL);
+  }
+
+  /**
+   * Scans one segment of a parallel scan, selecting only the projected attributes. Segments split the table
+   * by a hash of the hash key; each one pages with its own ExclusiveStartKey. On PostgreSQL a segment is a
+   * range of the indexed md5 of the hash key, read in that order, so concurrent segments read disjoint parts
+   * of the index. HSQLDB has no hash function, so there the rows of the segment are picked in Java from the
+   * table in key order.
+   *
+   * <p>On HSQLDB each call reads the table in batches of {@value #SEGMENT_SCAN_BATCH} rows until the segment
+   * has {@code limit} items, so a page costs O(table) rows read and a full segment scan O(table) per page;
+   * with N segments the table is read about N times over. Fine for tests, not for large tables.
+   *
+   * @param tableName             the table name
+   * @param limit                 the maximum number of items to return
+   * @param exclusiveStartHashKey the exclusive start hash key
+   * @param exclusiveStartSortKey the exclusive start sort key
+   * @param consistentRead        read from the primary when true, otherwise from a read replica
+   * @param projection            the attributes to select
+   * @param segment               the segment to scan
+   * @return the list of items
+   */
+  public List<PdbItem> scan(final String tableName, final int limit,
+                            final Optional<String> exclusiveStartHashKey,
+                            final Optional<String> exclusiveStartSortKey,
+                            final boolean consistentRead,
+                            final Projection projection,
+                            final Segment segment) {
+    if (segment.isAll()) {
+      return scanTable(tableName, limit, exclusiveStartHashKey, exclusiveStartSortKey, consistentRead, projection);
+    }
+    log.trace("scan({}, {}, {}, {}, {}, {}, {})", tableName, limit, exclusiveStartHashKey, exclusiveStartSortKey,
+        consistentRead, projection, segment);
+
+    if (database.usePostgresql()) {
+      final String sql = projection.select(segmentScanSql(tableName, exclusiveStartHashKey, exclusiveStartSortKey,
+          segment));
+      return jdbi(consistentRead).withHandle(handle -> {
+        final var query = handle.createQuery(sql)
+            .bind("limit", limit)
+            .bindMap(segment.parameters())
+            .bindMap(projection.parameters());
+        exclusiveStartHashKey.ifPresent(esk -> query.bind("exclusiveHashKey", esk));
+        exclusiveStartSortKey.ifPresent(esk -> query.bind("exclusiveSortKey", esk));
+        return query.map((rs, ctx) -> (PdbItem) io.github.pretenderdb.model.ImmutablePdbItem.builder()
+            .tableName(tableName)
+            .hashKeyValue(rs.getString("hash_key_value"))
+            .sortKeyValue(Optional.ofNullable(rs.getString("sort_key_value")))
+            .attributesJson(rs.getString("attributes_json"))
+            .createDate(rs.getTimestamp("create_date").toInstant())
+            .updateDate(rs.getTimestamp("update_date").toInstant())
+            .build()).list();
+      });
+    }
+
+    final List<PdbItem> items = new ArrayList<>();
+    Optional<String> afterHashKey = exclusiveStartHashKey;
+    Optional<String> afterSortKey = exclusiveStartSortKey;
+    while (items.size() < limit) {
+      final List<PdbItem> batch = scanTable(tableName, SEGMENT_SCAN_BATCH, afterHashKey, afterSortKey,
+          consistentRead, projection);
+      for (PdbItem item : batch) {
+        if (segment.contains(item.hashKeyValue()) && items.size() < limit) {
+          items.add(item);
+        }
+      }
+      if (batch.size() < SEGMENT_SCAN_BATCH) {
+        break;
+      }
+      final PdbItem last = batch.get(batch.size() - 1);
+      afterHashKey = Optional.of(last.hashKeyValue());
+      afterSortKey = last.sortKeyValue();
+    }
+    return items;
+  }
+
+  private List<PdbItem> scanTable(final String tableName, final int limit,
+                                  final Optional<String> exclusiveStartHashKey,
+                                  final Optional<String> exclusiveStartSortKey,
+                                  final boolean consistentRead,
+                                  final Projection projection) {
+    log.trace("scan({}, {}, {}, {}, {}, {})", tableName, limit, exclusiveStartHashKey, exclusiveStartSortKey,
+        consistentRead, projection);
+
+    // Pagination starts after the last evaluated key. Since scan returns items ordered by (hash_key, sort_key),
+    // the page filter is (hash_key, sort_key) > (last_hash, last_sort), written so the primary key index
+    // seeks to it (see PdbItemStatements)
+    final PdbItemStatements.ItemSql itemSql = statements.forTable(tableName);
+    final String sql = projection.select(exclusiveStartHashKey.isEmpty()
+        ? itemSql.scan()
+        : exclusiveStartSortKey.isPresent() ? itemSql.scanAfterKey() : itemSql.scanAfterHash());
+
+    return jdbi(consistentRead).withHandle(handle -> {
+      var query = handle.createQuery(sql)
+          .bind("limit", limit)
+          .bindMap(projection.parameters());
 
       if (exclusiveStartHashKey.isPresent()) {
         query = query.bind("exclusiveHashKey", exclusiveStartHashKey.get());
@@ -490,6 +967,407 @@ public class PdbItemDao {
     });
   }
 
+  /**
+   * Scans one page of items, evaluating a filter in the database. See
+   * {@link #queryFiltered(String, String, String, Map, int, Optional, Optional, boolean, String, Map,
+   * Projection, boolean)}.
+   *
+   * @param tableName             the table name
+   * @param pageSize              the number of rows to evaluate
+   * @param exclusiveStartHashKey the exclusive start hash key
+   * @param exclusiveStartSortKey the exclusive start sort key
+   * @param consistentRead        read from the primary when true, otherwise from a read replica
+   * @param filter                the filter predicate over attributes_json
+   * @param filterParameters      the string parameters of the filter, by name
+   * @param projection            the attributes to select for the returned rows
+   * @param segment               the segment to scan
+   * @return the filtered page
+   */
+  public Page scanFiltered(final String tableName,
+                                   final int pageSize,
+                                   final Optional<String> exclusiveStartHashKey,
+                                   final Optional<String> exclusiveStartSortKey,
+                                   final boolean consistentRead,
+                                   final String filter,
+                                   final Map<String, String> filterParameters,
+                                   final Projection projection,
+                                   final Segment segment) {
+    log.trace("scanFiltered({}, {}, {}, {}, {}, {}, {}, {})", tableName, pageSize, exclusiveStartHashKey,
+        exclusiveStartSortKey, consistentRead, filter, projection, segment);
+
+    final PdbItemStatements.ItemSql itemSql = statements.forTable(tableName);
+    final String sql = segment.isAll()
+        ? filteredPageSql(exclusiveStartHashKey.isEmpty()
+            ? itemSql.scan()
+            : exclusiveStartSortKey.isPresent() ? itemSql.scanAfterKey() : itemSql.scanAfterHash(),
+        filter, projection, keyOrder(true))
+        : filteredPageSql(segmentScanSql(tableName, exclusiveStartHashKey, exclusiveStartSortKey, segment),
+            filter, projection, SEGMENT_ORDER);
+    return jdbi(consistentRead).withHandle(handle -> {
+      final var query = handle.createQuery(sql)
+          .bind("limit", pageSize + 1)
+          .bind("pageSize", pageSize)
+          .bind("pageBytes", PAGE_BYTES)
+          .bindMap(filterParameters)
+          .bindMap(projection.parameters());
+      if (!segment.isAll()) {
+        query.bindMap(segment.parameters());
+      }
+      exclusiveStartHashKey.ifPresent(esk -> query.bind("exclusiveHashKey", esk));
+      exclusiveStartSortKey.ifPresent(esk -> query.bind("exclusiveSortKey", esk));
+      return filteredPage(tableName, query);
+    });
+  }
+
+  /**
+   * Reads one page of a query from a cursor: up to {@code pageSize} rows, ending early at the row that
+   * brings the documents read to {@link #PAGE_BYTES}, as DynamoDB does. Rows are fetched incrementally and
+   * the row after the page is only read to learn whether more follow, so a page of large items never holds
+   * more than about 1 MB of documents whatever the page size.
+   *
+   * @param tableName             the table name
+   * @param hashKeyValue          the hash key value
+   * @param sortKeyCondition      the sort key SQL condition (e.g., "sort_key_value = :sortKey")
+   * @param sortKeyParameters     the values of the sort key condition's parameters, by name
+   * @param pageSize              the maximum number of rows in the page
+   * @param exclusiveStartHashKey the exclusive start hash key for pagination (optional)
+   * @param exclusiveStartSortKey the exclusive start sort key for pagination (optional)
+   * @param consistentRead        read from the primary when true, otherwise from a read replica
+   * @param projection            the attributes to select
+   * @param scanIndexForward      ascending sort key order when true, descending when false
+   * @return the page
+   */
+  public Page queryPage(final String tableName,
+                        final String hashKeyValue,
+                        final String sortKeyCondition,
+                        final Map<String, String> sortKeyParameters,
+                        final int pageSize,
+                        final Optional<String> exclusiveStartHashKey,
+                        final Optional<String> exclusiveStartSortKey,
+                        final boolean consistentRead,
+                        final Projection projection,
+                        final boolean scanIndexForward) {
+    log.trace("queryPage({}, {}, {}, {}, {}, {}, {}, {}, {}, {})", tableName, hashKeyValue, sortKeyCondition,
+        sortKeyParameters, pageSize, exclusiveStartHashKey, exclusiveStartSortKey, consistentRead, projection,
+        scanIndexForward);
+
+    final String sql = querySql(tableName, sortKeyCondition, exclusiveStartHashKey, exclusiveStartSortKey,
+        scanIndexForward);
+    return page(stream(consistentRead, projection.sized(sql), pageSize + 1,
+        queryBinder(hashKeyValue, sortKeyParameters, exclusiveStartHashKey, exclusiveStartSortKey, projection),
+        sizedMapper(tableName, projection)), pageSize);
+  }
+
+  /**
+   * Reads one page of a scan from a cursor. See
+   * {@link #queryPage(String, String, String, Map, int, Optional, Optional, boolean, Projection, boolean)}.
+   * A segment of a parallel scan on HSQLDB is read as in
+   * {@link #scan(String, int, Optional, Optional, boolean, Projection, Segment)}, at O(table) rows per page.
+   *
+   * @param tableName             the table name
+   * @param pageSize              the maximum number of rows in the page
+   * @param exclusiveStartHashKey the exclusive start hash key
+   * @param exclusiveStartSortKey the exclusive start sort key
+   * @param consistentRead        read from the primary when true, otherwise from a read replica
+   * @param projection            the attributes to select
+   * @param segment               the segment to scan
+   * @return the page
+   */
+  public Page scanPage(final String tableName,
+                       final int pageSize,
+                       final Optional<String> exclusiveStartHashKey,
+                       final Optional<String> exclusiveStartSortKey,
+                       final boolean consistentRead,
+                       final Projection projection,
+                       final Segment segment) {
+    log.trace("scanPage({}, {}, {}, {}, {}, {}, {})", tableName, pageSize, exclusiveStartHashKey,
+        exclusiveStartSortKey, consistentRead, projection, segment);
+
+    if (!segment.isAll() && !database.usePostgresql()) {
+      // HSQLDB picks the segment rows in Java, reading the table in batches: O(table) per page, see scan
+      return page(scan(tableName, pageSize + 1, exclusiveStartHashKey, exclusiveStartSortKey, consistentRead,
+          projection, segment).stream().map(SizedItem::of), pageSize);
+    }
+    return page(stream(consistentRead,
+        projection.sized(scanSql(tableName, exclusiveStartHashKey, exclusiveStartSortKey, segment)), pageSize + 1,
+        scanBinder(exclusiveStartHashKey, exclusiveStartSortKey, projection, segment),
+        sizedMapper(tableName, projection)), pageSize);
+  }
+
+  /**
+   * Streams the items of a table, or of one segment of it, in scan order from a single cursor. Rows are
+   * fetched {@value #STREAM_FETCH_SIZE} at a time and mapped as the stream is consumed, so a whole table can
+   * be walked in constant memory with one statement. The stream holds a connection until it is closed.
+   *
+   * @param tableName             the table name
+   * @param exclusiveStartHashKey the exclusive start hash key
+   * @param exclusiveStartSortKey the exclusive start sort key
+   * @param consistentRead        read from the primary when true, otherwise from a read replica
+   * @param projection            the attributes to select
+   * @param segment               the segment to scan
+   * @return the items; must be closed
+   */
+  public Stream<PdbItem> streamScan(final String tableName,
+                                    final Optional<String> exclusiveStartHashKey,
+                                    final Optional<String> exclusiveStartSortKey,
+                                    final boolean consistentRead,
+                                    final Projection projection,
+                                    final Segment segment) {
+    log.trace("streamScan({}, {}, {}, {}, {}, {})", tableName, exclusiveStartHashKey, exclusiveStartSortKey,
+        consistentRead, projection, segment);
+
+    final Stream<PdbItem> items = stream(consistentRead,
+        projection.select(scanSql(tableName, exclusiveStartHashKey, exclusiveStartSortKey, segment)),
+        Integer.MAX_VALUE, scanBinder(exclusiveStartHashKey, exclusiveStartSortKey, projection, segment),
+        itemMapper(tableName));
+    return segment.isAll() || database.usePostgresql()
+        ? items
+        : items.filter(item -> segment.contains(item.hashKeyValue()));
+  }
+
+  /**
+   * Streams the items of one partition in sort key order from a single cursor. See
+   * {@link #streamScan(String, Optional, Optional, boolean, Projection, Segment)}.
+   *
+   * @param tableName             the table name
+   * @param hashKeyValue          the hash key value
+   * @param sortKeyCondition      the sort key SQL condition (e.g., "sort_key_value = :sortKey")
+   * @param sortKeyParameters     the values of the sort key condition's parameters, by name
+   * @param exclusiveStartHashKey the exclusive start hash key (optional)
+   * @param exclusiveStartSortKey the exclusive start sort key (optional)
+   * @param consistentRead        read from the primary when true, otherwise from a read replica
+   * @param projection            the attributes to select
+   * @param scanIndexForward      ascending sort key order when true, descending when false
+   * @return the items; must be closed
+   */
+  public Stream<PdbItem> streamQuery(final String tableName,
+                                     final String hashKeyValue,
+                                     final String sortKeyCondition,
+                                     final Map<String, String> sortKeyParameters,
+                                     final Optional<String> exclusiveStartHashKey,
+                                     final Optional<String> exclusiveStartSortKey,
+                                     final boolean consistentRead,
+                                     final Projection projection,
+                                     final boolean scanIndexForward) {
+    log.trace("streamQuery({}, {}, {}, {}, {}, {}, {}, {}, {})", tableName, hashKeyValue, sortKeyCondition,
+        sortKeyParameters, exclusiveStartHashKey, exclusiveStartSortKey, consistentRead, projection, scanIndexForward);
+
+    final String sql = projection.select(
+        querySql(tableName, sortKeyCondition, exclusiveStartHashKey, exclusiveStartSortKey, scanIndexForward));
+    return stream(consistentRead, sql, Integer.MAX_VALUE,
+        queryBinder(hashKeyValue, sortKeyParameters, exclusiveStartHashKey, exclusiveStartSortKey, projection),
+        itemMapper(tableName));
+  }
+
+  /**
+   * The scan statement: the whole table in key order, or on PostgreSQL the rows of one segment.
+   */
+  private String scanSql(final String tableName,
+                         final Optional<String> exclusiveStartHashKey,
+                         final Optional<String> exclusiveStartSortKey,
+                         final Segment segment) {
+    final PdbItemStatements.ItemSql itemSql = statements.forTable(tableName);
+    return !segment.isAll() && database.usePostgresql()
+        ? segmentScanSql(tableName, exclusiveStartHashKey, exclusiveStartSortKey, segment)
+        : exclusiveStartHashKey.isEmpty()
+            ? itemSql.scan()
+            : exclusiveStartSortKey.isPresent() ? itemSql.scanAfterKey() : itemSql.scanAfterHash();
+  }
+
+  private Consumer<Query> scanBinder(final Optional<String> exclusiveStartHashKey,
+                                     final Optional<String> exclusiveStartSortKey,
+                                     final Projection projection,
+                                     final Segment segment) {
+    return query -> {
+      query.bindMap(projection.parameters());
+      if (!segment.isAll() && database.usePostgresql()) {
+        query.bindMap(segment.parameters());
+      }
+      exclusiveStartHashKey.ifPresent(esk -> query.bind("exclusiveHashKey", esk));
+      exclusiveStartSortKey.ifPresent(esk -> query.bind("exclusiveSortKey", esk));
+    };
+  }
+
+  private Consumer<Query> queryBinder(final String hashKeyValue,
+                                      final Map<String, String> sortKeyParameters,
+                                      final Optional<String> exclusiveStartHashKey,
+                                      final Optional<String> exclusiveStartSortKey,
+                                      final Projection projection) {
+    return query -> {
+      query.bind("hashKey", hashKeyValue).bindMap(projection.parameters());
+      query.bindMap(sortKeyParameters);
+      exclusiveStartHashKey.ifPresent(esk -> query.bind("exclusiveHashKey", esk));
+      exclusiveStartSortKey.ifPresent(esk -> query.bind("exclusiveSortKey", esk));
+    };
+  }
+
+  /**
+   * Takes a page from the rows in order: up to {@code pageSize} of them, or fewer once the documents read
+   * reach {@link #PAGE_BYTES}. When a row follows the page, the last row of the page is the last evaluated
+   * one. Closes the rows.
+   */
+  private Page page(final Stream<SizedItem> rows, final int pageSize) {
+    try (rows) {
+      final List<PdbItem> items = new ArrayList<>();
+      long bytes = 0;
+      final java.util.Iterator<SizedItem> iterator = rows.iterator();
+      while (iterator.hasNext()) {
+        final SizedItem row = iterator.next();
+        if (items.size() >= pageSize || bytes >= PAGE_BYTES) {
+          return new Page(items, items.size(), Optional.of(items.get(items.size() - 1)));
+        }
+        items.add(row.item());
+        bytes += row.bytes();
+      }
+      return new Page(items, items.size(), Optional.empty());
+    }
+  }
+
+  /**
+   * Maps a row of a read statement to its item.
+   */
+  private static RowMapper<PdbItem> itemMapper(final String tableName) {
+    return (rs, ctx) -> io.github.pretenderdb.model.ImmutablePdbItem.builder()
+        .tableName(tableName)
+        .hashKeyValue(rs.getString("hash_key_value"))
+        .sortKeyValue(Optional.ofNullable(rs.getString("sort_key_value")))
+        .attributesJson(rs.getString("attributes_json"))
+        .createDate(rs.getTimestamp("create_date").toInstant())
+        .updateDate(rs.getTimestamp("update_date").toInstant())
+        .build();
+  }
+
+  /**
+   * Maps a row of a {@link Projection#sized(String)} statement. A projected row carries less than it read,
+   * so its size comes from the database; a whole row is sized as it stands.
+   */
+  private static RowMapper<SizedItem> sizedMapper(final String tableName, final Projection projection) {
+    final RowMapper<PdbItem> items = itemMapper(tableName);
+    return (rs, ctx) -> {
+      final PdbItem item = items.map(rs, ctx);
+      return projection.equals(Projection.ALL) ? SizedItem.of(item) : new SizedItem(item, rs.getLong(ITEM_BYTES));
+    };
+  }
+
+  /**
+   * Opens a cursor over a page statement. PostgreSQL only fetches by the fetch size inside a transaction, so
+   * the read runs in one, and closing the stream ends it and releases the connection.
+   */
+  private <T> Stream<T> stream(final boolean consistentRead,
+                               final String sql,
+                               final int limit,
+                               final Consumer<Query> binder,
+                               final RowMapper<T> mapper) {
+    final Handle handle = jdbi(consistentRead).open();
+    try {
+      handle.begin();
+      final Query query = handle.createQuery(sql)
+          .bind("limit", limit)
+          .setFetchSize(Math.min(limit, STREAM_FETCH_SIZE));
+      binder.accept(query);
+      return query.map(mapper)
+          .stream()
+          .onClose(() -> {
+            try {
+              handle.rollback();
+            } finally {
+              handle.close();
+            }
+          });
+    } catch (RuntimeException e) {
+      try {
+        if (handle.isInTransaction()) {
+          handle.rollback();
+        }
+      } finally {
+        handle.close();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * PostgreSQL page of a segment: the rows whose hash key md5 falls in the segment range, in md5 then key
+   * order, after the ExclusiveStartKey in that same order.
+   */
+  private String segmentScanSql(final String tableName,
+                                final Optional<String> exclusiveStartHashKey,
+                                final Optional<String> exclusiveStartSortKey,
+                                final Segment segment) {
+    String whereClause = SEGMENT_HASH + " >= :segmentStart";
+    if (segment.end().isPresent()) {
+      whereClause += " AND " + SEGMENT_HASH + " < :segmentEnd";
+    }
+    if (exclusiveStartHashKey.isPresent()) {
+      // A row value comparison in index order, so the segment index seeks to the start key
+      final String startHash = "(md5(CAST(:exclusiveHashKey AS TEXT)) COLLATE \"C\")";
+      whereClause += exclusiveStartSortKey.isPresent()
+          ? " AND (" + SEGMENT_ORDER + ") > (" + startHash + ", :exclusiveHashKey, :exclusiveSortKey)"
+          : " AND (" + SEGMENT_HASH + ", hash_key_value) > (" + startHash + ", :exclusiveHashKey)";
+    }
+    return "SELECT * FROM \"" + tableName + "\" WHERE " + whereClause + " ORDER BY " + SEGMENT_ORDER
+        + " LIMIT :limit";
+  }
+
+  /**
+   * Wraps a page select (ordered, limited to page size + 1) so the filter runs over the page in the database.
+   * The page ends at the page size or at the row that brings the documents read to {@link #PAGE_BYTES},
+   * whichever comes first. Besides the matching rows it returns the row at the page end, which is the last
+   * evaluated key when more rows follow, and the last row, so the row count is known even when nothing
+   * matches. The filter sees the whole document; the projection applies to the rows returned.
+   */
+  private String filteredPageSql(final String pageSql,
+                                 final String filter,
+                                 final Projection projection,
+                                 final String keyOrder) {
+    return "SELECT hash_key_value, sort_key_value, " + projection.document() + " AS attributes_json, "
+        + "create_date, update_date, page_row, page_rows, page_end, page_match FROM (SELECT sized.*, "
+        + "COALESCE(MIN(CASE WHEN page_bytes >= :pageBytes AND page_row < :pageSize THEN page_row END) OVER (), "
+        + ":pageSize) AS page_end FROM (SELECT base.*, "
+        + "ROW_NUMBER() OVER (ORDER BY " + keyOrder + ") AS page_row, "
+        + "COUNT(*) OVER () AS page_rows, "
+        + "SUM(" + STORED_BYTES + ") OVER (ORDER BY " + keyOrder
+        + " ROWS UNBOUNDED PRECEDING) AS page_bytes, "
+        + "COALESCE(" + filter + ", FALSE) AS page_match "
+        + "FROM (" + pageSql + ") base) sized) page "
+        + "WHERE (page_match AND page_row <= page_end) OR page_row = page_end OR page_row = page_rows "
+        + "ORDER BY page_row";
+  }
+
+  private Page filteredPage(final String tableName,
+                            final org.jdbi.v3.core.statement.Query query) {
+    final List<FilteredRow> rows = query.map((rs, ctx) -> new FilteredRow(
+        io.github.pretenderdb.model.ImmutablePdbItem.builder()
+            .tableName(tableName)
+            .hashKeyValue(rs.getString("hash_key_value"))
+            .sortKeyValue(Optional.ofNullable(rs.getString("sort_key_value")))
+            .attributesJson(rs.getString("attributes_json"))
+            .createDate(rs.getTimestamp("create_date").toInstant())
+            .updateDate(rs.getTimestamp("update_date").toInstant())
+            .build(),
+        rs.getInt("page_row"),
+        rs.getInt("page_rows"),
+        rs.getInt("page_end"),
+        rs.getBoolean("page_match"))).list();
+
+    final List<PdbItem> items = new java.util.ArrayList<>();
+    PdbItem lastEvaluated = null;
+    int scannedCount = 0;
+    for (FilteredRow row : rows) {
+      scannedCount = Math.min(row.pageRows(), row.pageEnd());
+      if (row.pageRow() <= row.pageEnd() && row.match()) {
+        items.add(row.item());
+      }
+      if (row.pageRow() == row.pageEnd() && row.pageRows() > row.pageEnd()) {
+        lastEvaluated = row.item();
+      }
+    }
+    return new Page(items, scannedCount, Optional.ofNullable(lastEvaluated));
+  }
+
+  private record FilteredRow(PdbItem item, int pageRow, int pageRows, int pageEnd, boolean match) {
+  }
+
   /**
    * Scan all items in a table (backward-compatible overload without pagination).
    *
@@ -516,17 +1394,7 @@ public class PdbItemDao {
       return 0;
     }
 
-    // For PostgreSQL, we need to cast JSON string to JSONB
-    final String jsonValuePlaceholder = database.usePostgresql()
-        ? "CAST(:attributesJson AS JSONB)"
-        : ":attributesJson";
-
-    final String sql = String.format(
-        "INSERT INTO \"%s\" (hash_key_value, sort_key_value, attributes_json, create_date, update_date) " +
-            "VALUES (:hashKeyValue, :sortKeyValue, %s, :createDate, :updateDate)",
-        tableName,
-        jsonValuePlaceholder
-    );
+    final String sql = statements.forTable(tableName).insert();
 
     return jdbi.withHandle(handle -> {
       final org.jdbi.v3.core.statement.PreparedBatch batch = handle.prepareBatch(sql);
@@ -545,9 +1413,64 @@ public class PdbItemDao {
     });
   }
 
+  /**
+   * Inserts or replaces multiple rows of one table as a single JDBC batch within an existing transaction.
+   * All items must agree on whether they have a sort key.
+   *
+   * @param handle    the database handle (for transactional operations)
+   * @param tableName the table name
+   * @param items     the items
+   */
+  public void batchUpsert(final Handle handle, final String tableName, final List<PdbItem> items) {
+    log.trace("batchUpsert(handle, {}, {} items)", tableName, items.size());
+
+    if (items.isEmpty()) {
+      return;
+    }
+
+    final String sql = statements.forTable(tableName).upsert(items.get(0).sortKeyValue().isPresent());
+    final org.jdbi.v3.core.statement.PreparedBatch batch = handle.prepareBatch(sql);
+    for (PdbItem item : items) {
+      batch.bind("hashKeyValue", item.hashKeyValue())
+          .bind("sortKeyValue", item.sortKeyValue().orElse(null))
+          .bind("attributesJson", item.attributesJson())
+          .bind("createDate", item.createDate())
+          .bind("updateDate", item.updateDate())
+          .add();
+    }
+    batch.execute();
+  }
+
+  /**
+   * Deletes multiple rows of one table by primary key as a single JDBC batch within an existing transaction.
+   * All keys must agree on whether they have a sort key.
+   *
+   * @param handle    the database handle (for transactional operations)
+   * @param tableName the table name
+   * @param keys      the keys
+   * @return the number of rows deleted
+   */
+  public int batchDelete(final Handle handle, final String tableName, final List<KeyPair> keys) {
+    log.trace("batchDelete(handle, {}, {} keys)", tableName, keys.size());
+
+    if (keys.isEmpty()) {
+      return 0;
+    }
+
+    final String sql = statements.forTable(tableName).delete(keys.get(0).sortKey().isPresent());
+    final org.jdbi.v3.core.statement.PreparedBatch batch = handle.prepareBatch(sql);
+    for (KeyPair key : keys) {
+      batch.bind("hashKey", key.hashKey());
+      key.sortKey().ifPresent(sk -> batch.bind("sortKey", sk));
+      batch.add();
+    }
+    return java.util.Arrays.stream(batch.execute()).sum();
+  }
+
   /**
    * Batch get multiple items by their primary keys in a single database round-trip.
-   * Uses SQL IN clause or UNION ALL for optimal performance.
+   * Joins the keys, bound as arrays, against the primary key, so the statement does not change with the
+   * number of keys.
    *
    * @param tableName the table name
    * @param keys      the list of (hashKey, sortKey) pairs to retrieve
@@ -555,7 +1478,38 @@ public class PdbItemDao {
    */
   public List<PdbItem> batchGet(final String tableName,
                                 final List<KeyPair> keys) {
-    log.trace("batchGet({}, {} keys)", tableName, keys.size());
+    return batchGet(tableName, keys, true);
+  }
+
+  /**
+   * Batch get multiple items by their primary keys in a single database round-trip.
+   *
+   * @param tableName      the table name
+   * @param keys           the list of (hashKey, sortKey) pairs to retrieve
+   * @param consistentRead read from the primary when true, otherwise from a read replica
+   * @return the list of items found (may be fewer than requested)
+   */
+  public List<PdbItem> batchGet(final String tableName,
+                                final List<KeyPair> keys,
+                                final boolean consistentRead) {
+    return batchGet(tableName, keys, consistentRead, Projection.ALL);
+  }
+
+  /**
+   * Batch get multiple items by their primary keys in a single database round-trip, selecting only the
+   * projected attributes.
+   *
+   * @param tableName      the table name
+   * @param keys           the list of (hashKey, sortKey) pairs to retrieve
+   * @param consistentRead read from the primary when true, otherwise from a read replica
+   * @param projection     the attributes to select
+   * @return the list of items found (may be fewer than requested)
+   */
+  public List<PdbItem> batchGet(final String tableName,
+                                final List<KeyPair> keys,
+                                final boolean consistentRead,
+                                final Projection projection) {
+    log.trace("batchGet({}, {} keys, {}, {})", tableName, keys.size(), consistentRead, projection);
 
     if (keys.isEmpty()) {
       return List.of();
@@ -564,107 +1518,227 @@ public class PdbItemDao {
     // Separate keys by whether they have sort keys
     final boolean hasSortKeys = keys.stream().anyMatch(k -> k.sortKey().isPresent());
 
-    if (!hasSortKeys) {
-      // Simple case: hash key only - use IN clause
-      return batchGetHashKeyOnly(tableName, keys);
-    } else {
-      // Complex case: mix of hash+sort keys - use UNION ALL or composite IN
-      return batchGetWithSortKeys(tableName, keys);
+    return jdbi(consistentRead).withHandle(handle -> hasSortKeys
+        // Hash and sort keys - join the two key arrays
+        ? batchGetWithSortKeys(handle, tableName, keys, projection)
+        // Hash key only - join the hash key array
+        : batchGetHashKeyOnly(handle, tableName, keys, projection));
+  }
+
+  /**
+   * Batch get multiple items by their primary keys within an existing transaction, so a batch write can read
+   * the images it replaces in one statement.
+   *
+   * @param handle    the database handle (for transactional operations)
+   * @param tableName the table name
+   * @param keys      the list of (hashKey, sortKey) pairs to retrieve
+   * @return the list of items found (may be fewer than requested)
+   */
+  public List<PdbItem> batchGet(final Handle handle,
+                                final String tableName,
+                                final List<KeyPair> keys) {
+    log.trace("batchGet(handle, {}, {} keys)", tableName, keys.size());
+
+    if (keys.isEmpty()) {
+      return List.of();
     }
+    return keys.stream().anyMatch(k -> k.sortKey().isPresent())
+        ? batchGetWithSortKeys(handle, tableName, keys, Projection.ALL)
+        : batchGetHashKeyOnly(handle, tableName, keys, Projection.ALL);
   }
 
   /**
-   * Batch get items using hash key IN clause (no sort keys).
+   * Batch get items by hash key, with the keys bound as one array.
    */
-  private List<PdbItem> batchGetHashKeyOnly(final String tableName, final List<KeyPair> keys) {
-    final String sql = String.format(
-        "SELECT * FROM \"%s\" WHERE hash_key_value IN (<hashKeys>)",
-        tableName
-    );
+  private List<PdbItem> batchGetHashKeyOnly(final Handle handle,
+                                            final String tableName,
+                                            final List<KeyPair> keys,
+                                            final Projection projection) {
+    final String sql = projection.select(statements.forTable(tableName).batchGetByHash());
 
     final List<String> hashKeys = keys.stream()
         .map(KeyPair::hashKey)
         .distinct()
         .toList();
 
-    return jdbi.withHandle(handle -> {
-      final List<PdbItem> results = handle.createQuery(sql)
-          .bindList("hashKeys", hashKeys)
-          .map((rs, ctx) -> {
-            final PdbItem item = io.github.pretenderdb.model.ImmutablePdbItem.builder()
-                .tableName(tableName)
-                .hashKeyValue(rs.getString("hash_key_value"))
-                .sortKeyValue(rs.getString("sort_key_value") != null ?
-                    Optional.of(rs.getString("sort_key_value")) : Optional.empty())
-                .attributesJson(rs.getString("attributes_json"))
-                .createDate(rs.getTimestamp("create_date").toInstant())
-                .updateDate(rs.getTimestamp("update_date").toInstant())
-                .build();
-            return item;
-          })
-          .list();
-      return results;
-    });
+    return handle.createQuery(sql)
+        .bindArray("hashKeys", String.class, hashKeys)
+        .bindMap(projection.parameters())
+        .map((rs, ctx) -> (PdbItem) io.github.pretenderdb.model.ImmutablePdbItem.builder()
+            .tableName(tableName)
+            .hashKeyValue(rs.getString("hash_key_value"))
+            .sortKeyValue(Optional.ofNullable(rs.getString("sort_key_value")))
+            .attributesJson(rs.getString("attributes_json"))
+            .createDate(rs.getTimestamp("create_date").toInstant())
+            .updateDate(rs.getTimestamp("update_date").toInstant())
+            .build())
+        .list();
   }
 
   /**
-   * Batch get items with hash and sort keys using UNION ALL.
+   * Batch get items by hash and sort key, with the keys bound as two parallel arrays. Unlike a UNION ALL of
+   * one select per key, the statement is the same for 1 or 100 keys.
    */
-  private List<PdbItem> batchGetWithSortKeys(final String tableName, final List<KeyPair> keys) {
-    // Build UNION ALL query for each key pair
-    final StringBuilder sql = new StringBuilder();
-    for (int i = 0; i < keys.size(); i++) {
-      if (i > 0) {
-        sql.append(" UNION ALL ");
+  private List<PdbItem> batchGetWithSortKeys(final Handle handle,
+                                             final String tableName,
+                                             final List<KeyPair> keys,
+                                             final Projection projection) {
+    final String sql = projection.select(statements.forTable(tableName).batchGetByKey());
+
+    final List<KeyPair> distinct = keys.stream().distinct().toList();
+    return handle.createQuery(sql)
+        .bindArray("hashKeys", String.class, distinct.stream().map(KeyPair::hashKey).toList())
+        .bindArray("sortKeys", String.class, distinct.stream().map(key -> key.sortKey().orElse(null)).toList())
+        .bindMap(projection.parameters())
+        .map((rs, ctx) -> (PdbItem) io.github.pretenderdb.model.ImmutablePdbItem.builder()
+            .tableName(tableName)
+            .hashKeyValue(rs.getString("hash_key_value"))
+            .sortKeyValue(Optional.ofNullable(rs.getString("sort_key_value")))
+            .attributesJson(rs.getString("attributes_json"))
+            .createDate(rs.getTimestamp("create_date").toInstant())
+            .updateDate(rs.getTimestamp("update_date").toInstant())
+            .build())
+        .list();
+  }
+
+  /**
+   * Key pair for batch get operations.
+   *
+   * @param hashKey the hash key value
+   * @param sortKey the optional sort key value
+   */
+  public record KeyPair(String hashKey, Optional<String> sortKey) {
+  }
+
+  /**
+   * The attributes a read selects: the whole document, or an expression selecting part of it.
+   *
+   * @param document   the expression to select in place of attributes_json
+   * @param parameters the string parameters of the expression, by name
+   */
+  public record Projection(String document, Map<String, String> parameters) {
+
+    /**
+     * Select the whole document.
+     */
+    public static final Projection ALL = new Projection("attributes_json", Map.of());
+
+    /**
+     * Rewrites each {@code SELECT *} of a read statement to select the projected document.
+     *
+     * @param sql the read statement
+     * @return the projected statement
+     */
+    String select(final String sql) {
+      if (this.equals(ALL)) {
+        return sql;
       }
-      final KeyPair key = keys.get(i);
-      if (key.sortKey().isPresent()) {
-        sql.append(String.format(
-            "SELECT * FROM \"%s\" WHERE hash_key_value = :hashKey%d AND sort_key_value = :sortKey%d",
-            tableName, i, i
-        ));
-      } else {
-        sql.append(String.format(
-            "SELECT * FROM \"%s\" WHERE hash_key_value = :hashKey%d AND sort_key_value IS NULL",
-            tableName, i
-        ));
+      return sql.replace("SELECT * FROM", "SELECT hash_key_value, sort_key_value, " + document
+          + " AS attributes_json, create_date, update_date FROM");
+    }
+
+    /**
+     * Like {@link #select(String)}, also selecting the size of the whole stored document as item_bytes
+     * when the projection selects part of it, so pages are measured by what was read.
+     *
+     * @param sql the read statement
+     * @return the projected statement
+     */
+    String sized(final String sql) {
+      if (this.equals(ALL)) {
+        return sql;
       }
+      return sql.replace("SELECT * FROM", "SELECT hash_key_value, sort_key_value, " + document
+          + " AS attributes_json, create_date, update_date, " + STORED_BYTES + " AS " + ITEM_BYTES + " FROM");
     }
+  }
 
-    return jdbi.withHandle(handle -> {
-      var query = handle.createQuery(sql.toString());
+  /**
+   * A row read for a page, with the size of its whole stored document.
+   *
+   * @param item  the item as selected
+   * @param bytes the UTF-8 size of the stored document
+   */
+  private record SizedItem(PdbItem item, long bytes) {
 
-      for (int i = 0; i < keys.size(); i++) {
-        final KeyPair key = keys.get(i);
-        query = query.bind("hashKey" + i, key.hashKey());
-        if (key.sortKey().isPresent()) {
-          query = query.bind("sortKey" + i, key.sortKey().get());
-        }
-      }
+    /**
+     * Sizes a row that holds its whole document.
+     */
+    static SizedItem of(final PdbItem item) {
+      return new SizedItem(item, item.attributesJson().getBytes(StandardCharsets.UTF_8).length);
+    }
+  }
 
-      final List<PdbItem> results = query.map((rs, ctx) -> {
-            final PdbItem item = io.github.pretenderdb.model.ImmutablePdbItem.builder()
-                .tableName(tableName)
-                .hashKeyValue(rs.getString("hash_key_value"))
-                .sortKeyValue(rs.getString("sort_key_value") != null ?
-                    Optional.of(rs.getString("sort_key_value")) : Optional.empty())
-                .attributesJson(rs.getString("attributes_json"))
-                .createDate(rs.getTimestamp("create_date").toInstant())
-                .updateDate(rs.getTimestamp("update_date").toInstant())
-                .build();
-            return item;
-          })
-          .list();
-      return results;
-    });
+  /**
+   * One segment of a parallel scan. Segment i of n holds the hash keys whose md5, read as a 32 bit number
+   * from its first 8 hex digits, falls in [i * 2^32 / n, (i + 1) * 2^32 / n).
+   *
+   * @param segment       the segment, from 0
+   * @param totalSegments the number of segments
+   */
+  public record Segment(int segment, int totalSegments) {
+
+    /**
+     * The whole table as one segment.
+     */
+    public static final Segment ALL = new Segment(0, 1);
+
+    private static final long HASH_SPACE = 1L << 32;
+
+    /**
+     * Whether this segment is the whole table.
+     *
+     * @return true for a single segment
+     */
+    public boolean isAll() {
+      return totalSegments == 1;
+    }
+
+    /**
+     * Whether a hash key belongs to this segment.
+     *
+     * @param hashKeyValue the stored hash key value
+     * @return true when the key is in the segment
+     */
+    public boolean contains(final String hashKeyValue) {
+      final String hash = md5(hashKeyValue);
+      return hash.compareTo(start()) >= 0 && end().map(end -> hash.compareTo(end) < 0).orElse(true);
+    }
+
+    String start() {
+      return bound(segment);
+    }
+
+    Optional<String> end() {
+      return segment == totalSegments - 1 ? Optional.empty() : Optional.of(bound(segment + 1));
+    }
+
+    Map<String, String> parameters() {
+      return end().map(end -> Map.of("segmentStart", start(), "segmentEnd", end))
+          .orElseGet(() -> Map.of("segmentStart", start()));
+    }
+
+    private String bound(final int index) {
+      return String.format("%08x", index * HASH_SPACE / totalSegments);
+    }
+
+    private static String md5(final String value) {
+      try {
+        return HexFormat.of().formatHex(
+            MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8)));
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("MD5 is not available", e);
+      }
+    }
   }
 
   /**
-   * Key pair for batch get operations.
+   * One page of a query or scan.
    *
-   * @param hashKey the hash key value
-   * @param sortKey the optional sort key value
+   * @param items         the rows of the page, or those that passed the filter, in key order
+   * @param scannedCount  the number of rows evaluated
+   * @param lastEvaluated the last row evaluated, when more rows follow
    */
-  public record KeyPair(String hashKey, Optional<String> sortKey) {
+  public record Page(List<PdbItem> items, int scannedCount, Optional<PdbItem> lastEvaluated) {
   }
 }
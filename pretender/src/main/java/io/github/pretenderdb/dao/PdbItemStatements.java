@@ -0,0 +1,248 @@
+package io.github.pretenderdb.dao;
+
+import io.github.pretenderdb.dbu.model.Database;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of the SQL used against each item table. The statements for a table are formatted once, on first
+ * use, and reused afterwards so the hot paths neither re-format nor hand JDBI a new string to parse. Keeping
+ * the SQL text stable per table also lets the PostgreSQL driver switch to server-side prepared statements
+ * (see prepareThreshold). Entries are dropped when the table is deleted.
+ */
+@Singleton
+public class PdbItemStatements {
+
+  private static final Logger log = LoggerFactory.getLogger(PdbItemStatements.class);
+
+  private final Database database;
+  private final Map<String, ItemSql> statements = new ConcurrentHashMap<>();
+
+  /**
+   * Instantiates a new Pdb item statements.
+   *
+   * @param database the database configuration
+   */
+  @Inject
+  public PdbItemStatements(final Database database) {
+    log.info("PdbItemStatements({})", database);
+    this.database = database;
+  }
+
+  /**
+   * The statements for an item or GSI table, building them on first use.
+   *
+   * @param tableName the table name (with pdb_item_ prefix)
+   * @return the statements
+   */
+  public ItemSql forTable(final String tableName) {
+    return statements.computeIfAbsent(tableName, this::build);
+  }
+
+  /**
+   * Drops the statements of an item table and its GSI tables.
+   *
+   * @param itemTableName the item table name (with pdb_item_ prefix)
+   */
+  public void evict(final String itemTableName) {
+    log.trace("evict({})", itemTableName);
+    final String gsiPrefix = itemTableName + "_gsi_";
+    statements.keySet().removeIf(name -> name.equals(itemTableName) || name.startsWith(gsiPrefix));
+  }
+
+  private ItemSql build(final String tableName) {
+    log.trace("build({})", tableName);
+    // For PostgreSQL, we need to cast JSON string to JSONB
+    final String json = database.usePostgresql()
+        ? "CAST(:attributesJson AS JSONB)"
+        : ":attributesJson";
+    final String table = "\"" + tableName + "\"";
+
+    return new ItemSql(
+        "INSERT INTO " + table + " (hash_key_value, sort_key_value, attributes_json, create_date, update_date) "
+            + "VALUES (:hashKeyValue, :sortKeyValue, " + json + ", :createDate, :updateDate)",
+        "SELECT * FROM " + table + " WHERE hash_key_value = :hashKey",
+        "SELECT * FROM " + table + " WHERE hash_key_value = :hashKey AND sort_key_value = :sortKey",
+        "UPDATE " + table + " SET attributes_json = " + json + ", update_date = :updateDate "
+            + "WHERE hash_key_value = :hashKeyValue",
+        "UPDATE " + table + " SET attributes_json = " + json + ", update_date = :updateDate "
+            + "WHERE hash_key_value = :hashKeyValue AND sort_key_value = :sortKeyValue",
+        "DELETE FROM " + table + " WHERE hash_key_value = :hashKey",
+        "DELETE FROM " + table + " WHERE hash_key_value = :hashKey AND sort_key_value = :sortKey",
+        "SELECT * FROM " + table + " ORDER BY hash_key_value, sort_key_value LIMIT :limit",
+        "SELECT * FROM " + table + " WHERE hash_key_value > :exclusiveHashKey "
+            + "ORDER BY hash_key_value, sort_key_value LIMIT :limit",
+        "SELECT * FROM " + table + " WHERE " + afterKey()
+            + " ORDER BY hash_key_value, sort_key_value LIMIT :limit",
+        "SELECT * FROM " + table + " WHERE hash_key_value IN (" + keys(false) + ")",
+        "SELECT * FROM " + table + " WHERE (hash_key_value, sort_key_value) IN (" + keys(true) + ")",
+        upsert(table, json, false),
+        upsert(table, json, true),
+        "SELECT attributes_json FROM " + table + " WHERE hash_key_value = :hashKeyValue FOR UPDATE",
+        "SELECT attributes_json FROM " + table
+            + " WHERE hash_key_value = :hashKeyValue AND sort_key_value = :sortKeyValue FOR UPDATE",
+        "INSERT INTO " + table + " (hash_key_value, sort_key_value, attributes_json, create_date, update_date) "
+            + "VALUES (:hashKeyValue, :sortKeyValue, " + json + ", :createDate, :updateDate) "
+            + "ON CONFLICT (hash_key_value) DO NOTHING",
+        "INSERT INTO " + table + " (hash_key_value, sort_key_value, attributes_json, create_date, update_date) "
+            + "VALUES (:hashKeyValue, :sortKeyValue, " + json + ", :createDate, :updateDate) "
+            + "ON CONFLICT (hash_key_value, sort_key_value) DO NOTHING"
+    );
+  }
+
+  /**
+   * Keys after the ExclusiveStartKey, in a form that seeks the primary key index: a row value comparison on
+   * PostgreSQL, and on HSQLDB a range start on the hash key with the rest as a residual condition.
+   */
+  private String afterKey() {
+    if (database.usePostgresql()) {
+      return "(hash_key_value, sort_key_value) > (:exclusiveHashKey, :exclusiveSortKey)";
+    }
+    return "hash_key_value >= :exclusiveHashKey "
+        + "AND (hash_key_value > :exclusiveHashKey OR sort_key_value > :exclusiveSortKey)";
+  }
+
+  /**
+   * The keys of a batch get, from the :hashKeys and :sortKeys arrays. The statement text is the same for any
+   * number of keys, so it is prepared once and its plan reused, and the keys join the primary key index.
+   */
+  private String keys(final boolean hasSortKey) {
+    if (database.usePostgresql()) {
+      return hasSortKey
+          ? "SELECT h, s FROM unnest(CAST(:hashKeys AS TEXT[]), CAST(:sortKeys AS TEXT[])) AS k (h, s)"
+          : "SELECT h FROM unnest(CAST(:hashKeys AS TEXT[])) AS k (h)";
+    }
+    return hasSortKey
+        ? "SELECT h, s FROM UNNEST(CAST(:hashKeys AS VARCHAR(2048) ARRAY), "
+            + "CAST(:sortKeys AS VARCHAR(2048) ARRAY)) AS k (h, s)"
+        : "SELECT h FROM UNNEST(CAST(:hashKeys AS VARCHAR(2048) ARRAY)) AS k (h)";
+  }
+
+  /**
+   * Insert-or-replace in one statement: ON CONFLICT on PostgreSQL, MERGE on HSQLDB. The create date of an
+   * existing row is kept.
+   */
+  private String upsert(final String table, final String json, final boolean hasSortKey) {
+    if (database.usePostgresql()) {
+      return "INSERT INTO " + table + " (hash_key_value, sort_key_value, attributes_json, create_date, update_date) "
+          + "VALUES (:hashKeyValue, :sortKeyValue, " + json + ", :createDate, :updateDate) "
+          + "ON CONFLICT (" + (hasSortKey ? "hash_key_value, sort_key_value" : "hash_key_value") + ") "
+          + "DO UPDATE SET attributes_json = EXCLUDED.attributes_json, update_date = EXCLUDED.update_date";
+    }
+    return "MERGE INTO " + table + " AS t USING (VALUES (CAST(:hashKeyValue AS VARCHAR(2048)), "
+        + "CAST(:sortKeyValue AS VARCHAR(2048)), CAST(:attributesJson AS CLOB), "
+        + "CAST(:createDate AS TIMESTAMP), CAST(:updateDate AS TIMESTAMP))) "
+        + "AS v (hash_key_value, sort_key_value, attributes_json, create_date, update_date) "
+        + "ON t.hash_key_value = v.hash_key_value"
+        + (hasSortKey ? " AND t.sort_key_value = v.sort_key_value " : " ")
+        + "WHEN MATCHED THEN UPDATE SET t.attributes_json = v.attributes_json, t.update_date = v.update_date "
+        + "WHEN NOT MATCHED THEN INSERT (hash_key_value, sort_key_value, attributes_json, create_date, update_date) "
+        + "VALUES (v.hash_key_value, v.sort_key_value, v.attributes_json, v.create_date, v.update_date)";
+  }
+
+  /**
+   * The statements of one table.
+   *
+   * @param insert                        insert a row
+   * @param getByHash                     select by hash key
+   * @param getByKey                      select by hash and sort key
+   * @param updateByHash                  update by hash key
+   * @param updateByKey                   update by hash and sort key
+   * @param deleteByHash                  delete by hash key
+   * @param deleteByKey                   delete by hash and sort key
+   * @param scan                          first scan page
+   * @param scanAfterHash                 scan page after a hash key
+   * @param scanAfterKey                  scan page after a hash and sort key
+   * @param batchGetByHash                select the hash keys of the :hashKeys array
+   * @param batchGetByKey                 select the hash and sort keys of the :hashKeys and :sortKeys arrays
+   * @param upsertByHash                  insert or replace a row keyed by hash key
+   * @param upsertByKey                   insert or replace a row keyed by hash and sort key
+   * @param lockByHash                    PostgreSQL only: select the json by hash key, locking the row
+   * @param lockByKey                     PostgreSQL only: select the json by hash and sort key, locking the row
+   * @param insertIfAbsentByHash          PostgreSQL only: insert a row keyed by hash key unless it exists
+   * @param insertIfAbsentByKey           PostgreSQL only: insert a row keyed by hash and sort key unless it exists
+   */
+  public record ItemSql(String insert,
+                        String getByHash,
+                        String getByKey,
+                        String updateByHash,
+                        String updateByKey,
+                        String deleteByHash,
+                        String deleteByKey,
+                        String scan,
+                        String scanAfterHash,
+                        String scanAfterKey,
+                        String batchGetByHash,
+                        String batchGetByKey,
+                        String upsertByHash,
+                        String upsertByKey,
+                        String lockByHash,
+                        String lockByKey,
+                        String insertIfAbsentByHash,
+                        String insertIfAbsentByKey) {
+
+    /**
+     * Select by primary key.
+     *
+     * @param hasSortKey whether the key has a sort key
+     * @return the sql
+     */
+    public String get(final boolean hasSortKey) {
+      return hasSortKey ? getByKey : getByHash;
+    }
+
+    /**
+     * Update by primary key.
+     *
+     * @param hasSortKey whether the key has a sort key
+     * @return the sql
+     */
+    public String update(final boolean hasSortKey) {
+      return hasSortKey ? updateByKey : updateByHash;
+    }
+
+    /**
+     * Delete by primary key.
+     *
+     * @param hasSortKey whether the key has a sort key
+     * @return the sql
+     */
+    public String delete(final boolean hasSortKey) {
+      return hasSortKey ? deleteByKey : deleteByHash;
+    }
+
+    /**
+     * Insert or replace by primary key.
+     *
+     * @param hasSortKey whether the key has a sort key
+     * @return the sql
+     */
+    public String upsert(final boolean hasSortKey) {
+      return hasSortKey ? upsertByKey : upsertByHash;
+    }
+
+    /**
+     * Select the attributes json by primary key, locking the row until the transaction ends. PostgreSQL only.
+     *
+     * @param hasSortKey whether the key has a sort key
+     * @return the sql
+     */
+    public String lock(final boolean hasSortKey) {
+      return hasSortKey ? lockByKey : lockByHash;
+    }
+
+    /**
+     * Insert by primary key, doing nothing when the row exists. PostgreSQL only.
+     *
+     * @param hasSortKey whether the key has a sort key
+     * @return the sql
+     */
+    public String insertIfAbsent(final boolean hasSortKey) {
+      return hasSortKey ? insertIfAbsentByKey : insertIfAbsentByHash;
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package io.github.pretenderdb.dao;
 
 import io.github.pretenderdb.model.PdbMetadata;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import org.jdbi.v3.sqlobject.customizer.Bind;
@@ -30,16 +31,26 @@ public interface PdbMetadataDao {
   @SqlQuery("select * from PDB_TABLE where NAME = :name")
   Optional<PdbMetadata> getTable(@Bind("name") String name);
 
+  /**
+   * Gets the metadata version of a table, if the table is the one created at the given date.
+   *
+   * @param name       the name
+   * @param createDate the create date
+   * @return the metadata version, or empty if the table was deleted or recreated
+   */
+  @SqlQuery("select METADATA_VERSION from PDB_TABLE where NAME = :name and CREATE_DATE = :createDate")
+  Optional<Long> getMetadataVersion(@Bind("name") String name, @Bind("createDate") Instant createDate);
+
   /**
    * Insert boolean.
    *
    * @param pdbMetadata the pdb table
    * @return the boolean
    */
-  @SqlUpdate("insert into PDB_TABLE (NAME, HASH_KEY, SORT_KEY, GLOBAL_SECONDARY_INDEXES, TTL_ATTRIBUTE_NAME, TTL_ENABLED, " +
-      "STREAM_ENABLED, STREAM_VIEW_TYPE, STREAM_ARN, STREAM_LABEL, CREATE_DATE) "
-      + "values (:name, :hashKey, :sortKey, :globalSecondaryIndexes, :ttlAttributeName, :ttlEnabled, " +
-      ":streamEnabled, :streamViewType, :streamArn, :streamLabel, :createDate)")
+  @SqlUpdate("insert into PDB_TABLE (NAME, HASH_KEY, SORT_KEY, HASH_KEY_TYPE, SORT_KEY_TYPE, " +
+      "GLOBAL_SECONDARY_INDEXES, TTL_ATTRIBUTE_NAME, TTL_ENABLED, STREAM_ENABLED, STREAM_VIEW_TYPE, STREAM_ARN, STREAM_LABEL, CREATE_DATE) "
+      + "values (:name, :hashKey, :sortKey, :hashKeyType, :sortKeyType, :globalSecondaryIndexes, " +
+      ":ttlAttributeName, :ttlEnabled, :streamEnabled, :streamViewType, :streamArn, :streamLabel, :createDate)")
   boolean insert(@BindPojo PdbMetadata pdbMetadata);
 
   /**
@@ -59,7 +70,8 @@ public interface PdbMetadataDao {
    * @param ttlEnabled       whether TTL is enabled
    * @return the boolean
    */
-  @SqlUpdate("update PDB_TABLE set TTL_ATTRIBUTE_NAME = :ttlAttributeName, TTL_ENABLED = :ttlEnabled where NAME = :name")
+  @SqlUpdate("update PDB_TABLE set TTL_ATTRIBUTE_NAME = :ttlAttributeName, TTL_ENABLED = :ttlEnabled, " +
+      "METADATA_VERSION = METADATA_VERSION + 1 where NAME = :name")
   boolean updateTtl(@Bind("name") String name,
                     @Bind("ttlAttributeName") String ttlAttributeName,
                     @Bind("ttlEnabled") boolean ttlEnabled);
@@ -75,7 +87,8 @@ public interface PdbMetadataDao {
    * @return the boolean
    */
   @SqlUpdate("update PDB_TABLE set STREAM_ENABLED = :streamEnabled, STREAM_VIEW_TYPE = :streamViewType, " +
-      "STREAM_ARN = :streamArn, STREAM_LABEL = :streamLabel where NAME = :name")
+      "STREAM_ARN = :streamArn, STREAM_LABEL = :streamLabel, METADATA_VERSION = METADATA_VERSION + 1 " +
+      "where NAME = :name")
   boolean updateStreamConfig(@Bind("name") String name,
                              @Bind("streamEnabled") boolean streamEnabled,
                              @Bind("streamViewType") String streamViewType,
@@ -1,13 +1,17 @@
 package io.github.pretenderdb.dao;
 
+import io.github.pretenderdb.dbu.factory.JdbiFactory;
 import io.github.pretenderdb.dbu.model.Database;
 import io.github.pretenderdb.model.ImmutablePdbStreamRecord;
 import io.github.pretenderdb.model.PdbStreamRecord;
 import java.time.Instant;
 import java.util.List;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
+import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.PreparedBatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,18 +25,33 @@ public class PdbStreamDao {
   private static final Logger log = LoggerFactory.getLogger(PdbStreamDao.class);
 
   private final Jdbi jdbi;
+  private final Jdbi readJdbi;
   private final Database database;
 
+  /**
+   * Instantiates a new Pdb stream dao that sends every read to the primary.
+   *
+   * @param jdbi     the jdbi
+   * @param database the database configuration
+   */
+  public PdbStreamDao(final Jdbi jdbi, final Database database) {
+    this(jdbi, jdbi, database);
+  }
+
   /**
    * Instantiates a new Pdb stream dao.
    *
    * @param jdbi     the jdbi
+   * @param readJdbi the jdbi for reading stream records, backed by the read replicas when configured
    * @param database the database configuration
    */
   @Inject
-  public PdbStreamDao(final Jdbi jdbi, final Database database) {
-    log.info("PdbStreamDao({}, {})", jdbi, database);
+  public PdbStreamDao(final Jdbi jdbi,
+                      @Named(JdbiFactory.READ_JDBI) final Jdbi readJdbi,
+                      final Database database) {
+    log.info("PdbStreamDao({}, {}, {})", jdbi, readJdbi, database);
     this.jdbi = jdbi;
+    this.readJdbi = readJdbi;
     this.database = database;
   }
 
@@ -47,22 +66,7 @@ public class PdbStreamDao {
   public boolean insert(final String tableName, final PdbStreamRecord record) {
     log.trace("insert({}, {})", tableName, record);
 
-    // For PostgreSQL, we need to cast JSON strings to JSONB
-    final String jsonCast = database.usePostgresql() ? " AS JSONB)" : ")";
-    final String keysJsonPlaceholder = database.usePostgresql() ? "CAST(:keysJson AS JSONB)" : ":keysJson";
-    final String oldImageJsonPlaceholder = database.usePostgresql() ? "CAST(:oldImageJson AS JSONB)" : ":oldImageJson";
-    final String newImageJsonPlaceholder = database.usePostgresql() ? "CAST(:newImageJson AS JSONB)" : ":newImageJson";
-
-    final String sql = String.format(
-        "INSERT INTO \"%s\" (event_id, event_type, event_timestamp, hash_key_value, sort_key_value, " +
-            "keys_json, old_image_json, new_image_json, approximate_creation_time, size_bytes, create_date) " +
-            "VALUES (:eventId, :eventType, :eventTimestamp, :hashKeyValue, :sortKeyValue, " +
-            "%s, %s, %s, :approximateCreationTime, :sizeBytes, :createDate)",
-        tableName,
-        keysJsonPlaceholder,
-        oldImageJsonPlaceholder,
-        newImageJsonPlaceholder
-    );
+    final String sql = insertSql(tableName);
 
     return jdbi.withHandle(handle ->
         handle.createUpdate(sql)
@@ -82,7 +86,59 @@ public class PdbStreamDao {
   }
 
   /**
-   * Gets stream records starting from a sequence number.
+   * Inserts stream records as a single JDBC batch within an existing transaction, in list order so the
+   * generated sequence numbers follow it.
+   *
+   * @param handle    the database handle (for transactional operations)
+   * @param tableName the stream table name (with pdb_stream_ prefix)
+   * @param records   the stream records
+   */
+  public void batchInsert(final Handle handle, final String tableName, final List<PdbStreamRecord> records) {
+    log.trace("batchInsert(handle, {}, {} records)", tableName, records.size());
+
+    if (records.isEmpty()) {
+      return;
+    }
+
+    final PreparedBatch batch = handle.prepareBatch(insertSql(tableName));
+    for (PdbStreamRecord record : records) {
+      batch.bind("eventId", record.eventId())
+          .bind("eventType", record.eventType())
+          .bind("eventTimestamp", record.eventTimestamp())
+          .bind("hashKeyValue", record.hashKeyValue())
+          .bind("sortKeyValue", record.sortKeyValue().orElse(null))
+          .bind("keysJson", record.keysJson())
+          .bind("oldImageJson", record.oldImageJson().orElse(null))
+          .bind("newImageJson", record.newImageJson().orElse(null))
+          .bind("approximateCreationTime", record.approximateCreationTime())
+          .bind("sizeBytes", record.sizeBytes())
+          .bind("createDate", record.createDate())
+          .add();
+    }
+    batch.execute();
+  }
+
+  private String insertSql(final String tableName) {
+    // For PostgreSQL, we need to cast JSON strings to JSONB
+    final String keysJsonPlaceholder = database.usePostgresql() ? "CAST(:keysJson AS JSONB)" : ":keysJson";
+    final String oldImageJsonPlaceholder = database.usePostgresql() ? "CAST(:oldImageJson AS JSONB)" : ":oldImageJson";
+    final String newImageJsonPlaceholder = database.usePostgresql() ? "CAST(:newImageJson AS JSONB)" : ":newImageJson";
+
+    return String.format(
+        "INSERT INTO \"%s\" (event_id, event_type, event_timestamp, hash_key_value, sort_key_value, " +
+            "keys_json, old_image_json, new_image_json, approximate_creation_time, size_bytes, create_date) " +
+            "VALUES (:eventId, :eventType, :eventTimestamp, :hashKeyValue, :sortKeyValue, " +
+            "%s, %s, %s, :approximateCreationTime, :sizeBytes, :createDate)",
+        tableName,
+        keysJsonPlaceholder,
+        oldImageJsonPlaceholder,
+        newImageJsonPlaceholder
+    );
+  }
+
+  /**
+   * Gets stream records starting from a sequence number. Stream reads are eventually consistent, so they
+   * are served by the read jdbi.
    *
    * @param tableName     the stream table name
    * @param startSequence the starting sequence number (exclusive)
@@ -101,7 +157,7 @@ public class PdbStreamDao {
         limit
     );
 
-    return jdbi.withHandle(handle ->
+    return readJdbi.withHandle(handle ->
         handle.createQuery(sql)
             .bind("startSequence", startSequence)
             .<PdbStreamRecord>map((rs, ctx) -> {
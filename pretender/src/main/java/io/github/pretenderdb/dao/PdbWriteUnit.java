@@ -0,0 +1,108 @@
+package io.github.pretenderdb.dao;
+
+import io.github.pretenderdb.model.PdbItem;
+import io.github.pretenderdb.model.PdbStreamRecord;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jdbi.v3.core.Handle;
+
+/**
+ * One item mutation: the handle its item statements run on, plus the GSI and stream writes that go with it.
+ * The GSI and stream writes are only collected here; {@link PdbWriteUnitRunner} sends them as batches on the
+ * same handle before the transaction commits, so the item, its index rows and its stream record are written
+ * together or not at all.
+ */
+public class PdbWriteUnit {
+
+  private final Handle handle;
+  private final Map<String, List<PdbItemDao.KeyPair>> deletes = new LinkedHashMap<>();
+  private final Map<String, List<PdbItem>> upserts = new LinkedHashMap<>();
+  private final Map<String, List<PdbStreamRecord>> streamRecords = new LinkedHashMap<>();
+
+  /**
+   * Instantiates a new Pdb write unit.
+   *
+   * @param handle the handle, inside the transaction of the mutation
+   */
+  public PdbWriteUnit(final Handle handle) {
+    this.handle = handle;
+  }
+
+  /**
+   * The handle the item statements run on.
+   *
+   * @return the handle
+   */
+  public Handle handle() {
+    return handle;
+  }
+
+  /**
+   * Queues a delete from a GSI table.
+   *
+   * @param tableName the GSI table name
+   * @param key       the row key
+   */
+  public void delete(final String tableName, final PdbItemDao.KeyPair key) {
+    deletes.computeIfAbsent(tableName, k -> new ArrayList<>()).add(key);
+  }
+
+  /**
+   * Queues an insert-or-replace into a GSI table.
+   *
+   * @param tableName the GSI table name
+   * @param item      the row
+   */
+  public void upsert(final String tableName, final PdbItem item) {
+    upserts.computeIfAbsent(tableName, k -> new ArrayList<>()).add(item);
+  }
+
+  /**
+   * Queues a stream record.
+   *
+   * @param streamTableName the stream table name
+   * @param record          the record
+   */
+  public void streamRecord(final String streamTableName, final PdbStreamRecord record) {
+    streamRecords.computeIfAbsent(streamTableName, k -> new ArrayList<>()).add(record);
+  }
+
+  /**
+   * Queued deletes by table.
+   *
+   * @return the deletes
+   */
+  public Map<String, List<PdbItemDao.KeyPair>> deletes() {
+    return Collections.unmodifiableMap(deletes);
+  }
+
+  /**
+   * Queued upserts by table.
+   *
+   * @return the upserts
+   */
+  public Map<String, List<PdbItem>> upserts() {
+    return Collections.unmodifiableMap(upserts);
+  }
+
+  /**
+   * Queued stream records by stream table.
+   *
+   * @return the stream records
+   */
+  public Map<String, List<PdbStreamRecord>> streamRecords() {
+    return Collections.unmodifiableMap(streamRecords);
+  }
+
+  /**
+   * Drops everything queued, after it has been written.
+   */
+  void clear() {
+    deletes.clear();
+    upserts.clear();
+    streamRecords.clear();
+  }
+}
@@ -0,0 +1,81 @@
+package io.github.pretenderdb.dao;
+
+import io.github.pretenderdb.model.PdbItem;
+import io.github.pretenderdb.model.PdbStreamRecord;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.jdbi.v3.core.Jdbi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs item mutations as write units: one handle, one transaction, with the queued GSI and stream writes
+ * flushed as batches just before commit. Any failure, including a failed condition check, rolls back the
+ * whole unit.
+ */
+@Singleton
+public class PdbWriteUnitRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(PdbWriteUnitRunner.class);
+
+  private final Jdbi jdbi;
+  private final PdbItemDao itemDao;
+  private final PdbStreamDao streamDao;
+
+  /**
+   * Instantiates a new Pdb write unit runner.
+   *
+   * @param jdbi      the jdbi
+   * @param itemDao   the item dao
+   * @param streamDao the stream dao
+   */
+  @Inject
+  public PdbWriteUnitRunner(final Jdbi jdbi,
+                            final PdbItemDao itemDao,
+                            final PdbStreamDao streamDao) {
+    log.info("PdbWriteUnitRunner({}, {}, {})", jdbi, itemDao, streamDao);
+    this.jdbi = jdbi;
+    this.itemDao = itemDao;
+    this.streamDao = streamDao;
+  }
+
+  /**
+   * Runs the work in a new write unit and commits it.
+   *
+   * @param work the mutation
+   * @param <T>  the result type
+   * @return the result of the work
+   */
+  public <T> T inWriteUnit(final Function<PdbWriteUnit, T> work) {
+    log.trace("inWriteUnit()");
+    return jdbi.inTransaction(handle -> {
+      final PdbWriteUnit unit = new PdbWriteUnit(handle);
+      final T result = work.apply(unit);
+      flush(unit);
+      return result;
+    });
+  }
+
+  /**
+   * Writes the queued GSI and stream writes on the unit's handle: GSI deletes first so a re-keyed index row
+   * can be replaced, then GSI upserts, then stream records. Each table gets one batch.
+   *
+   * @param unit the write unit
+   */
+  public void flush(final PdbWriteUnit unit) {
+    log.trace("flush()");
+    for (Map.Entry<String, List<PdbItemDao.KeyPair>> entry : unit.deletes().entrySet()) {
+      itemDao.batchDelete(unit.handle(), entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<String, List<PdbItem>> entry : unit.upserts().entrySet()) {
+      itemDao.batchUpsert(unit.handle(), entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<String, List<PdbStreamRecord>> entry : unit.streamRecords().entrySet()) {
+      streamDao.batchInsert(unit.handle(), entry.getKey(), entry.getValue());
+    }
+    unit.clear();
+  }
+}
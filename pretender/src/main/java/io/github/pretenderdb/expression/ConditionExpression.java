@@ -0,0 +1,561 @@
+package io.github.pretenderdb.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * A ConditionExpression or FilterExpression parsed once into an immutable predicate tree, with its expression
+ * attribute names resolved. Values are looked up when the tree is tested, so one tree serves every request
+ * sending the same expression and names, and testing an item allocates nothing.
+ *
+ * <p>Supports comparisons of an attribute with a value (=, &lt;&gt;, &lt;, &lt;=, &gt;, &gt;=), BETWEEN,
+ * attribute_exists, attribute_not_exists, begins_with and contains, combined with parentheses, NOT, AND and OR
+ * in that order of precedence. A condition it cannot parse never holds, and is logged once when parsed.</p>
+ */
+public final class ConditionExpression {
+
+  private static final Logger log = LoggerFactory.getLogger(ConditionExpression.class);
+
+  private static final ConditionExpression ALWAYS = new ConditionExpression(new Constant(true));
+
+  private final Node root;
+
+  private ConditionExpression(final Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Parses an expression.
+   *
+   * @param expression the condition or filter expression; blank always holds
+   * @param names      the expression attribute names (optional)
+   * @return the parsed expression
+   * @throws IllegalArgumentException if the expression uses an attribute name that is not provided
+   */
+  public static ConditionExpression parse(final String expression, final Map<String, String> names) {
+    if (expression == null || expression.isBlank()) {
+      return ALWAYS;
+    }
+    return new ConditionExpression(new Parser(expression, names).parse());
+  }
+
+  /**
+   * Tests an item.
+   *
+   * @param item   the item, null when it does not exist
+   * @param values the expression attribute values
+   * @return true if the condition holds
+   * @throws IllegalArgumentException if a value the condition needs is not provided
+   */
+  public boolean test(final Map<String, AttributeValue> item, final Map<String, AttributeValue> values) {
+    return root.test(item, values == null ? Map.of() : values);
+  }
+
+  /**
+   * A node of the predicate tree.
+   */
+  private sealed interface Node permits Or, And, Not, Constant, Exists, NotExists, BeginsWith, Contains,
+      Between, Comparison {
+
+    boolean test(Map<String, AttributeValue> item, Map<String, AttributeValue> values);
+  }
+
+  private record Or(Node left, Node right) implements Node {
+    @Override
+    public boolean test(final Map<String, AttributeValue> item, final Map<String, AttributeValue> values) {
+      return left.test(item, values) || right.test(item, values);
+    }
+  }
+
+  private record And(Node left, Node right) implements Node {
+    @Override
+    public boolean test(final Map<String, AttributeValue> item, final Map<String, AttributeValue> values) {
+      return left.test(item, values) && right.test(item, values);
+    }
+  }
+
+  private record Not(Node operand) implements Node {
+    @Override
+    public boolean test(final Map<String, AttributeValue> item, final Map<String, AttributeValue> values) {
+      return !operand.test(item, values);
+    }
+  }
+
+  private record Constant(boolean holds) implements Node {
+    @Override
+    public boolean test(final Map<String, AttributeValue> item, final Map<String, AttributeValue> values) {
+      return holds;
+    }
+  }
+
+  private record Exists(String attribute) implements Node {
+    @Override
+    public boolean test(final Map<String, AttributeValue> item, final Map<String, AttributeValue> values) {
+      return item != null && item.containsKey(attribute);
+    }
+  }
+
+  private record NotExists(String attribute) implements Node {
+    @Override
+    public boolean test(final Map<String, AttributeValue> item, final Map<String, AttributeValue> values) {
+      return item == null || !item.containsKey(attribute);
+    }
+  }
+
+  private record BeginsWith(String attribute, String placeholder) implements Node {
+    @Override
+    public boolean test(final Map<String, AttributeValue> item, final Map<String, AttributeValue> values) {
+      final AttributeValue itemValue = item == null ? null : item.get(attribute);
+      if (itemValue == null) {
+        return false;
+      }
+      final AttributeValue prefix = value(values, placeholder);
+      return itemValue.s() != null && prefix.s() != null && itemValue.s().startsWith(prefix.s());
+    }
+  }
+
+  private record Contains(String attribute, String placeholder) implements Node {
+    @Override
+    public boolean test(final Map<String, AttributeValue> item, final Map<String, AttributeValue> values) {
+      final AttributeValue itemValue = item == null ? null : item.get(attribute);
+      if (itemValue == null) {
+        return false;
+      }
+      return containsValue(itemValue, value(values, placeholder));
+    }
+  }
+
+  private record Between(String attribute, Operand lower, Operand upper) implements Node {
+    @Override
+    public boolean test(final Map<String, AttributeValue> item, final Map<String, AttributeValue> values) {
+      final AttributeValue itemValue = item == null ? null : item.get(attribute);
+      if (itemValue == null) {
+        return false;
+      }
+      return compareValues(itemValue, lower.value(values), lower) >= 0
+          && compareValues(itemValue, upper.value(values), upper) <= 0;
+    }
+  }
+
+  private record Comparison(String attribute, Comparator comparator, Operand operand) implements Node {
+    @Override
+    public boolean test(final Map<String, AttributeValue> item, final Map<String, AttributeValue> values) {
+      final AttributeValue itemValue = item == null ? null : item.get(attribute);
+      if (itemValue == null) {
+        return false;
+      }
+      return comparator.holds(compareValues(itemValue, operand.value(values), operand));
+    }
+  }
+
+  private enum Comparator {
+    EQ("="), NE("<>"), LT("<"), LE("<="), GT(">"), GE(">=");
+
+    private final String symbol;
+
+    Comparator(final String symbol) {
+      this.symbol = symbol;
+    }
+
+    private static Comparator of(final String symbol) {
+      for (Comparator comparator : values()) {
+        if (comparator.symbol.equals(symbol)) {
+          return comparator;
+        }
+      }
+      throw new IllegalArgumentException("Unknown comparator: " + symbol);
+    }
+
+    private boolean holds(final int cmp) {
+      return switch (this) {
+        case EQ -> cmp == 0;
+        case NE -> cmp != 0;
+        case LT -> cmp < 0;
+        case LE -> cmp <= 0;
+        case GT -> cmp > 0;
+        case GE -> cmp >= 0;
+      };
+    }
+  }
+
+  /**
+   * A value placeholder compared with numbers. The last value seen is kept parsed, so the requests of a scan,
+   * which pass the same value for every item, parse it once.
+   */
+  private static final class Operand {
+
+    private final String placeholder;
+    private volatile ParsedNumber last;
+
+    private Operand(final String placeholder) {
+      this.placeholder = placeholder;
+    }
+
+    private AttributeValue value(final Map<String, AttributeValue> values) {
+      return ConditionExpression.value(values, placeholder);
+    }
+
+    private double number(final AttributeValue value) {
+      final ParsedNumber parsed = last;
+      if (parsed != null && parsed.value() == value) {
+        return parsed.number();
+      }
+      final double number = Double.parseDouble(value.n());
+      last = new ParsedNumber(value, number);
+      return number;
+    }
+
+    @Override
+    public String toString() {
+      return placeholder;
+    }
+  }
+
+  private record ParsedNumber(AttributeValue value, double number) {
+  }
+
+  private static AttributeValue value(final Map<String, AttributeValue> values, final String placeholder) {
+    final AttributeValue value = values.get(placeholder);
+    if (value == null) {
+      throw new IllegalArgumentException("Missing value for placeholder: " + placeholder);
+    }
+    return value;
+  }
+
+  /**
+   * Compares two AttributeValues. Returns negative if v1 &lt; v2, zero if equal, positive if v1 &gt; v2; values
+   * of different or unsupported types compare as less.
+   */
+  private static int compareValues(final AttributeValue v1, final AttributeValue v2, final Operand operand) {
+    if (v1.s() != null && v2.s() != null) {
+      return compareCodePoints(v1.s(), v2.s());
+    }
+    if (v1.n() != null && v2.n() != null) {
+      final double n2 = operand == null ? Double.parseDouble(v2.n()) : operand.number(v2);
+      return Double.compare(Double.parseDouble(v1.n()), n2);
+    }
+    if (v1.bool() != null && v2.bool() != null) {
+      return Boolean.compare(v1.bool(), v2.bool());
+    }
+    if (v1.b() != null && v2.b() != null) {
+      return v1.b().asByteBuffer().compareTo(v2.b().asByteBuffer());
+    }
+    return -1;
+  }
+
+  /**
+   * Compares strings by code point, which is the UTF-8 byte order DynamoDB and the "C" collation use.
+   * String.compareTo compares UTF-16 units instead, putting supplementary characters below U+E000..U+FFFF.
+   */
+  static int compareCodePoints(final String s1, final String s2) {
+    int i = 0;
+    while (i < s1.length() && i < s2.length()) {
+      final int c1 = s1.codePointAt(i);
+      final int c2 = s2.codePointAt(i);
+      if (c1 != c2) {
+        return Integer.compare(c1, c2);
+      }
+      i += Character.charCount(c1);
+    }
+    return Integer.compare(s1.length() - i, s2.length() - i);
+  }
+
+  /**
+   * Checks if a value contains another value (for strings, lists, and sets).
+   */
+  private static boolean containsValue(final AttributeValue itemValue, final AttributeValue searchValue) {
+    if (itemValue.s() != null && searchValue.s() != null) {
+      return itemValue.s().contains(searchValue.s());
+    }
+    if (itemValue.hasL()) {
+      for (AttributeValue listItem : itemValue.l()) {
+        if (compareValues(listItem, searchValue, null) == 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+    if (itemValue.hasSs() && searchValue.s() != null) {
+      return itemValue.ss().contains(searchValue.s());
+    }
+    if (itemValue.hasNs() && searchValue.n() != null) {
+      return itemValue.ns().contains(searchValue.n());
+    }
+    if (itemValue.hasBs() && searchValue.b() != null) {
+      return itemValue.bs().contains(searchValue.b());
+    }
+    return false;
+  }
+
+  private enum TokenType {
+    NAME, VALUE, LPAREN, RPAREN, COMMA, COMPARATOR, OTHER, END
+  }
+
+  private record Token(TokenType type, String text, int start) {
+
+    private boolean isKeyword(final String keyword) {
+      return type == TokenType.NAME && text.equalsIgnoreCase(keyword);
+    }
+  }
+
+  /**
+   * Recursive descent parser over the expression's tokens:
+   * <pre>
+   * or         := and (OR and)*
+   * and        := not (AND not)*
+   * not        := NOT not | primary
+   * primary    := '(' or ')' | function | path comparator value | path BETWEEN value AND value
+   * function   := attribute_exists '(' path ')' | attribute_not_exists '(' path ')'
+   *             | begins_with '(' path ',' value ')' | contains '(' path ',' value ')'
+   * </pre>
+   * A primary that does not parse, up to the next AND or OR outside parentheses, becomes a condition that never
+   * holds.
+   */
+  private static final class Parser {
+
+    private final String expression;
+    private final Map<String, String> names;
+    private final List<Token> tokens;
+    private int pos;
+
+    private Parser(final String expression, final Map<String, String> names) {
+      this.expression = expression;
+      this.names = names;
+      this.tokens = tokenize(expression);
+    }
+
+    private Node parse() {
+      final Node root = parseOr();
+      if (peek().type() != TokenType.END) {
+        log.warn("Unable to parse condition: {}", expression);
+        return new Constant(false);
+      }
+      return root;
+    }
+
+    private Node parseOr() {
+      Node node = parseAnd();
+      while (peek().isKeyword("OR")) {
+        pos++;
+        node = new Or(node, parseAnd());
+      }
+      return node;
+    }
+
+    private Node parseAnd() {
+      Node node = parseNot();
+      while (peek().isKeyword("AND")) {
+        pos++;
+        node = new And(node, parseNot());
+      }
+      return node;
+    }
+
+    private Node parseNot() {
+      if (peek().isKeyword("NOT") && peek(1).type() != TokenType.COMPARATOR && !peek(1).isKeyword("BETWEEN")
+          && peek(1).type() != TokenType.END) {
+        pos++;
+        return new Not(parseNot());
+      }
+      return parsePrimary();
+    }
+
+    private Node parsePrimary() {
+      final int start = pos;
+      final Node node = tryPrimary();
+      if (node != null && atPrimaryEnd()) {
+        return node;
+      }
+      pos = start;
+      skipPrimary();
+      log.warn("Unable to parse condition: {}", text(start, pos));
+      return new Constant(false);
+    }
+
+    private Node tryPrimary() {
+      final Token token = next();
+      if (token.type() == TokenType.LPAREN) {
+        final Node inner = parseOr();
+        return next().type() == TokenType.RPAREN ? inner : null;
+      }
+      if (token.type() != TokenType.NAME) {
+        return null;
+      }
+      if (peek().type() == TokenType.LPAREN) {
+        return function(token.text().toLowerCase(Locale.ROOT));
+      }
+      if (peek().type() == TokenType.COMPARATOR) {
+        final Comparator comparator = Comparator.of(next().text());
+        final Token value = next();
+        return value.type() == TokenType.VALUE
+            ? new Comparison(resolve(token.text()), comparator, new Operand(value.text()))
+            : null;
+      }
+      if (peek().isKeyword("BETWEEN")) {
+        pos++;
+        final Token lower = next();
+        final boolean and = next().isKeyword("AND");
+        final Token upper = next();
+        return lower.type() == TokenType.VALUE && and && upper.type() == TokenType.VALUE
+            ? new Between(resolve(token.text()), new Operand(lower.text()), new Operand(upper.text()))
+            : null;
+      }
+      return null;
+    }
+
+    private Node function(final String function) {
+      final boolean withValue = function.equals("begins_with") || function.equals("contains");
+      if (!withValue && !function.equals("attribute_exists") && !function.equals("attribute_not_exists")) {
+        return null;
+      }
+      pos++;
+      final Token path = next();
+      if (path.type() != TokenType.NAME) {
+        return null;
+      }
+      String placeholder = null;
+      if (withValue) {
+        final Token comma = next();
+        final Token value = next();
+        if (comma.type() != TokenType.COMMA || value.type() != TokenType.VALUE) {
+          return null;
+        }
+        placeholder = value.text();
+      }
+      if (next().type() != TokenType.RPAREN) {
+        return null;
+      }
+      final String attribute = resolve(path.text());
+      return switch (function) {
+        case "attribute_exists" -> new Exists(attribute);
+        case "attribute_not_exists" -> new NotExists(attribute);
+        case "begins_with" -> new BeginsWith(attribute, placeholder);
+        default -> new Contains(attribute, placeholder);
+      };
+    }
+
+    private boolean atPrimaryEnd() {
+      final Token token = peek();
+      return token.type() == TokenType.END || token.type() == TokenType.RPAREN
+          || token.isKeyword("AND") || token.isKeyword("OR");
+    }
+
+    /**
+     * Skips to the AND or OR ending the primary, or the parenthesis closing the group it is in. The AND of a
+     * BETWEEN belongs to the primary.
+     */
+    private void skipPrimary() {
+      int depth = 0;
+      boolean inBetween = false;
+      while (peek().type() != TokenType.END) {
+        final Token token = peek();
+        if (token.type() == TokenType.LPAREN) {
+          depth++;
+        } else if (token.type() == TokenType.RPAREN) {
+          if (depth == 0) {
+            return;
+          }
+          depth--;
+        } else if (depth == 0 && token.isKeyword("BETWEEN")) {
+          inBetween = true;
+        } else if (depth == 0 && token.isKeyword("AND")) {
+          if (!inBetween) {
+            return;
+          }
+          inBetween = false;
+        } else if (depth == 0 && token.isKeyword("OR")) {
+          return;
+        }
+        pos++;
+      }
+    }
+
+    private String resolve(final String name) {
+      if (name.startsWith("#")) {
+        if (names == null) {
+          throw new IllegalArgumentException(
+              "Expression attribute name used but expressionAttributeNames not provided: " + name);
+        }
+        final String resolved = names.get(name);
+        if (resolved == null) {
+          throw new IllegalArgumentException("Expression attribute name not found: " + name);
+        }
+        return resolved;
+      }
+      return name;
+    }
+
+    private Token peek() {
+      return peek(0);
+    }
+
+    private Token peek(final int ahead) {
+      return tokens.get(Math.min(pos + ahead, tokens.size() - 1));
+    }
+
+    private Token next() {
+      final Token token = peek();
+      if (token.type() != TokenType.END) {
+        pos++;
+      }
+      return token;
+    }
+
+    private String text(final int startToken, final int endToken) {
+      return expression.substring(tokens.get(startToken).start(), tokens.get(endToken).start()).trim();
+    }
+
+    private static List<Token> tokenize(final String expression) {
+      final List<Token> tokens = new ArrayList<>();
+      int i = 0;
+      while (i < expression.length()) {
+        final char c = expression.charAt(i);
+        final int start = i;
+        if (Character.isWhitespace(c)) {
+          i++;
+          continue;
+        }
+        if (c == '(' || c == ')' || c == ',') {
+          i++;
+          tokens.add(new Token(c == '(' ? TokenType.LPAREN : c == ')' ? TokenType.RPAREN : TokenType.COMMA,
+              String.valueOf(c), start));
+        } else if (c == '<' || c == '>' || c == '=') {
+          i++;
+          if (i < expression.length() && c != '='
+              && (expression.charAt(i) == '=' || (c == '<' && expression.charAt(i) == '>'))) {
+            i++;
+          }
+          tokens.add(new Token(TokenType.COMPARATOR, expression.substring(start, i), start));
+        } else if ((c == '#' || c == ':') && i + 1 < expression.length() && isWordChar(expression.charAt(i + 1))) {
+          i = endOfWord(expression, i + 1);
+          tokens.add(new Token(c == '#' ? TokenType.NAME : TokenType.VALUE, expression.substring(start, i), start));
+        } else if (isWordChar(c)) {
+          i = endOfWord(expression, i);
+          tokens.add(new Token(TokenType.NAME, expression.substring(start, i), start));
+        } else {
+          i++;
+          tokens.add(new Token(TokenType.OTHER, String.valueOf(c), start));
+        }
+      }
+      tokens.add(new Token(TokenType.END, "", expression.length()));
+      return tokens;
+    }
+
+    private static int endOfWord(final String expression, final int from) {
+      int i = from;
+      while (i < expression.length() && isWordChar(expression.charAt(i))) {
+        i++;
+      }
+      return i;
+    }
+
+    private static boolean isWordChar(final char c) {
+      return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+  }
+}
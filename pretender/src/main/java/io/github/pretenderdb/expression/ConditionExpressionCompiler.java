@@ -0,0 +1,230 @@
+package io.github.pretenderdb.expression;
+
+import io.github.pretenderdb.dbu.model.Database;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Compiles a DynamoDB ConditionExpression or FilterExpression into a PostgreSQL predicate over the stored JSONB
+ * document, so a conditional write can check its condition in the WHERE clause of the write itself and a query
+ * or scan can filter rows without shipping them to Java. Only AND-ed
+ * attribute_exists, attribute_not_exists and comparisons of a top-level attribute with a string or number
+ * value are compiled, and each translates to exactly what {@link ConditionExpressionParser} would decide,
+ * including its answer for type mismatches. Anything else is left to the Java path.
+ */
+@Singleton
+public class ConditionExpressionCompiler {
+
+  private static final Logger log = LoggerFactory.getLogger(ConditionExpressionCompiler.class);
+
+  private static final String DOCUMENT = "{document}";
+  private static final Pattern AND_PATTERN = Pattern.compile("\\s+(?i)and\\s+");
+  private static final Pattern OR_PATTERN = Pattern.compile("\\s+(?i)or\\s+");
+  private static final Pattern BETWEEN_KEYWORD = Pattern.compile("\\s(?i)between\\s");
+
+  // Patterns for condition functions
+  private static final Pattern ATTRIBUTE_EXISTS_PATTERN = Pattern.compile(
+      "attribute_exists\\s*\\(\\s*(#?\\w+)\\s*\\)", Pattern.CASE_INSENSITIVE);
+  private static final Pattern ATTRIBUTE_NOT_EXISTS_PATTERN = Pattern.compile(
+      "attribute_not_exists\\s*\\(\\s*(#?\\w+)\\s*\\)", Pattern.CASE_INSENSITIVE);
+  private static final Pattern BEGINS_WITH_PATTERN = Pattern.compile(
+      "begins_with\\s*\\(\\s*(#?\\w+)\\s*,\\s*:(\\w+)\\s*\\)", Pattern.CASE_INSENSITIVE);
+  private static final Pattern CONTAINS_PATTERN = Pattern.compile(
+      "contains\\s*\\(\\s*(#?\\w+)\\s*,\\s*:(\\w+)\\s*\\)", Pattern.CASE_INSENSITIVE);
+
+  // Patterns for comparison operators
+  private static final Pattern EQUALS_PATTERN = Pattern.compile(
+      "(#?\\w+)\\s*=\\s*:(\\w+)");
+  private static final Pattern NOT_EQUALS_PATTERN = Pattern.compile(
+      "(#?\\w+)\\s*<>\\s*:(\\w+)");
+  private static final Pattern LESS_THAN_PATTERN = Pattern.compile(
+      "(#?\\w+)\\s*<\\s*:(\\w+)");
+  private static final Pattern GREATER_THAN_PATTERN = Pattern.compile(
+      "(#?\\w+)\\s*>\\s*:(\\w+)");
+  private static final Pattern LESS_THAN_EQUALS_PATTERN = Pattern.compile(
+      "(#?\\w+)\\s*<=\\s*:(\\w+)");
+  private static final Pattern GREATER_THAN_EQUALS_PATTERN = Pattern.compile(
+      "(#?\\w+)\\s*>=\\s*:(\\w+)");
+
+  private final Database database;
+
+  /**
+   * Instantiates a new Condition expression compiler.
+   *
+   * @param database the database configuration
+   */
+  @Inject
+  public ConditionExpressionCompiler(final Database database) {
+    log.info("ConditionExpressionCompiler({})", database);
+    this.database = database;
+  }
+
+  /**
+   * Compiles the condition expression.
+   *
+   * @param conditionExpression       the condition expression
+   * @param expressionAttributeValues the expression attribute values
+   * @param expressionAttributeNames  the expression attribute names (optional)
+   * @return the compiled condition, or empty when the database is not PostgreSQL or the condition needs the
+   *     Java path
+   */
+  public Optional<CompiledCondition> compile(final String conditionExpression,
+                                             final Map<String, AttributeValue> expressionAttributeValues,
+                                             final Map<String, String> expressionAttributeNames) {
+    log.trace("compile({}, {}, {})", conditionExpression, expressionAttributeValues, expressionAttributeNames);
+
+    if (!database.usePostgresql() || conditionExpression == null || conditionExpression.isBlank()) {
+      return Optional.empty();
+    }
+    final String trimmed = conditionExpression.trim();
+    if (OR_PATTERN.matcher(trimmed).find() || BETWEEN_KEYWORD.matcher(trimmed).find()) {
+      return Optional.empty();
+    }
+
+    final Map<String, String> parameters = new LinkedHashMap<>();
+    final List<String> predicates = new ArrayList<>();
+    boolean matchesMissingItem = true;
+    for (String part : AND_PATTERN.split(trimmed)) {
+      final Atomic atomic = compileAtomic(part.trim(),
+          expressionAttributeValues == null ? Map.of() : expressionAttributeValues,
+          expressionAttributeNames, parameters);
+      if (atomic == null) {
+        log.trace("Condition needs the Java path: {}", conditionExpression);
+        return Optional.empty();
+      }
+      predicates.add(atomic.predicate());
+      matchesMissingItem &= atomic.matchesMissingItem();
+    }
+    return Optional.of(new CompiledCondition(
+        "(" + String.join(" AND ", predicates) + ")", Map.copyOf(parameters), matchesMissingItem));
+  }
+
+  /**
+   * Compiles one atomic condition, checking the patterns in the order the parser checked them.
+   */
+  private Atomic compileAtomic(final String condition,
+                               final Map<String, AttributeValue> values,
+                               final Map<String, String> names,
+                               final Map<String, String> parameters) {
+    Matcher matcher = ATTRIBUTE_EXISTS_PATTERN.matcher(condition);
+    if (matcher.matches()) {
+      final String attribute = attribute(matcher.group(1), names, parameters);
+      return attribute == null ? null : new Atomic(attribute + " IS NOT NULL", false);
+    }
+    matcher = ATTRIBUTE_NOT_EXISTS_PATTERN.matcher(condition);
+    if (matcher.matches()) {
+      final String attribute = attribute(matcher.group(1), names, parameters);
+      return attribute == null ? null : new Atomic(attribute + " IS NULL", true);
+    }
+    if (BEGINS_WITH_PATTERN.matcher(condition).matches()
+        || CONTAINS_PATTERN.matcher(condition).matches()) {
+      return null;
+    }
+
+    final Pattern[] comparisons = {
+        LESS_THAN_EQUALS_PATTERN,
+        GREATER_THAN_EQUALS_PATTERN,
+        NOT_EQUALS_PATTERN,
+        LESS_THAN_PATTERN,
+        GREATER_THAN_PATTERN,
+        EQUALS_PATTERN};
+    final String[] operators = {"<=", ">=", "<>", "<", ">", "="};
+    for (int i = 0; i < comparisons.length; i++) {
+      matcher = comparisons[i].matcher(condition);
+      if (matcher.matches()) {
+        return comparison(matcher.group(1), values.get(":" + matcher.group(2)), operators[i], names, parameters);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * A comparison. The parser treats values of different types as "less than", so &lt;&gt;, &lt; and &lt;=
+   * hold when the stored attribute exists with another type, and =, &gt; and &gt;= do not.
+   */
+  private Atomic comparison(final String nameToken,
+                            final AttributeValue value,
+                            final String operator,
+                            final Map<String, String> names,
+                            final Map<String, String> parameters) {
+    final String attribute = attribute(nameToken, names, parameters);
+    if (attribute == null || value == null) {
+      return null;
+    }
+
+    final String typed;
+    final String operand;
+    if (value.s() != null) {
+      typed = "(" + attribute + " ->> 'S') COLLATE \"C\"";
+      operand = "CAST(" + bind(value.s(), parameters) + " AS TEXT)";
+    } else if (value.n() != null && isNumber(value.n())) {
+      typed = "CAST(" + attribute + " ->> 'N' AS DOUBLE PRECISION)";
+      operand = "CAST(" + bind(value.n(), parameters) + " AS DOUBLE PRECISION)";
+    } else {
+      return null;
+    }
+
+    final String compare = typed + " " + operator + " " + operand;
+    final boolean mismatchHolds = operator.equals("<>") || operator.startsWith("<");
+    final String predicate = mismatchHolds
+        ? "(" + attribute + " IS NOT NULL AND (" + typed + " IS NULL OR " + compare + "))"
+        : "COALESCE(" + compare + ", FALSE)";
+    return new Atomic(predicate, false);
+  }
+
+  private String attribute(final String nameToken,
+                           final Map<String, String> names,
+                           final Map<String, String> parameters) {
+    final String name = nameToken.startsWith("#") ? (names == null ? null : names.get(nameToken)) : nameToken;
+    return name == null ? null : "(" + DOCUMENT + " -> CAST(" + bind(name, parameters) + " AS TEXT))";
+  }
+
+  private String bind(final String value, final Map<String, String> parameters) {
+    final String name = "c" + parameters.size();
+    parameters.put(name, value);
+    return ":" + name;
+  }
+
+  private boolean isNumber(final String number) {
+    try {
+      Double.parseDouble(number);
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  private record Atomic(String predicate, boolean matchesMissingItem) {
+  }
+
+  /**
+   * A condition compiled to SQL.
+   *
+   * @param template           the predicate, with the document column left as a placeholder
+   * @param parameters         the string parameters to bind, by name
+   * @param matchesMissingItem whether the condition holds when the item does not exist, i.e. it only checks
+   *                           attribute_not_exists
+   */
+  public record CompiledCondition(String template, Map<String, String> parameters, boolean matchesMissingItem) {
+
+    /**
+     * The predicate over the given document column.
+     *
+     * @param document the attributes_json column reference, qualified where the statement needs it
+     * @return the predicate sql
+     */
+    public String predicate(final String document) {
+      return template.replace(DOCUMENT, document);
+    }
+  }
+}
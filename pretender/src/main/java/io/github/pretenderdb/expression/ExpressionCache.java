@@ -0,0 +1,71 @@
+package io.github.pretenderdb.expression;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of compiled expressions. Lookups do not lock, since they run once per item on filtered reads;
+ * each hit stamps its entry, and once the cache is full a miss evicts the entry stamped longest ago.
+ *
+ * @param <K> the key, an expression and whatever else the compilation depends on
+ * @param <V> the compiled expression
+ */
+final class ExpressionCache<K, V> {
+
+  private final int maximumSize;
+  private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+  ExpressionCache(final int maximumSize) {
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * The compiled expression, compiling it on a miss. Compilation failures are thrown and not cached.
+   *
+   * @param key      the key
+   * @param compiler compiles the key
+   * @return the compiled expression
+   */
+  V get(final K key, final Function<K, V> compiler) {
+    Entry<V> entry = entries.get(key);
+    if (entry == null) {
+      entry = new Entry<>(compiler.apply(key));
+      if (entries.size() >= maximumSize) {
+        evictEldest();
+      }
+      entries.put(key, entry);
+    }
+    // Racing stamps are harmless: either is recent
+    entry.lastUsed = System.nanoTime();
+    return entry.value;
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private void evictEldest() {
+    K eldest = null;
+    long eldestUse = Long.MAX_VALUE;
+    for (Map.Entry<K, Entry<V>> candidate : entries.entrySet()) {
+      if (candidate.getValue().lastUsed - eldestUse < 0 || eldest == null) {
+        eldest = candidate.getKey();
+        eldestUse = candidate.getValue().lastUsed;
+      }
+    }
+    if (eldest != null) {
+      entries.remove(eldest);
+    }
+  }
+
+  private static final class Entry<V> {
+
+    private final V value;
+    private long lastUsed;
+
+    private Entry(final V value) {
+      this.value = value;
+    }
+  }
+}
@@ -1,7 +1,9 @@
 package io.github.pretenderdb.expression;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.inject.Inject;
@@ -13,12 +15,26 @@ import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 /**
  * Parses DynamoDB KeyConditionExpression for query operations.
  * Supports: =, &lt;, &gt;, &lt;=, &gt;=, BETWEEN, begins_with()
+ *
+ * <p>Key values are never written into the SQL: each operator has one condition text, binding
+ * {@code :sortKey} and, for a range, {@code :sortKeyEnd}, so the statement is the same from one query to the
+ * next and every sort key condition is a range of the primary key index.</p>
  */
 @Singleton
 public class KeyConditionExpressionParser {
 
   private static final Logger log = LoggerFactory.getLogger(KeyConditionExpressionParser.class);
 
+  /**
+   * The parameter holding the sort key value, or the lower bound of a range.
+   */
+  public static final String SORT_KEY = "sortKey";
+
+  /**
+   * The parameter holding the upper bound of a range.
+   */
+  public static final String SORT_KEY_END = "sortKeyEnd";
+
   // Patterns for parsing key condition expressions
   // Support both direct attribute names (userId) and expression attribute names (#user)
   private static final Pattern HASH_KEY_PATTERN = Pattern.compile("^\\s*(#?\\w+)\\s*=\\s*:(\\w+)");
@@ -62,6 +78,25 @@ public class KeyConditionExpressionParser {
   public ParsedKeyCondition parse(final String keyConditionExpression,
                                   final Map<String, AttributeValue> expressionAttributeValues,
                                   final Map<String, String> expressionAttributeNames) {
+    return parse(keyConditionExpression, expressionAttributeValues, expressionAttributeNames,
+        this::extractScalarValue, this::extractScalarValue);
+  }
+
+  /**
+   * Parses a KeyConditionExpression, encoding the key values the way the table stores its keys.
+   *
+   * @param keyConditionExpression    the key condition expression
+   * @param expressionAttributeValues the expression attribute values
+   * @param expressionAttributeNames  the expression attribute names (optional, can be null)
+   * @param hashKeyEncoder            encodes a hash key value for storage
+   * @param sortKeyEncoder            encodes a sort key value for storage
+   * @return the parsed result
+   */
+  public ParsedKeyCondition parse(final String keyConditionExpression,
+                                  final Map<String, AttributeValue> expressionAttributeValues,
+                                  final Map<String, String> expressionAttributeNames,
+                                  final Function<AttributeValue, String> hashKeyEncoder,
+                                  final Function<AttributeValue, String> sortKeyEncoder) {
     log.trace("parse({}, {}, {})", keyConditionExpression, expressionAttributeValues, expressionAttributeNames);
 
     if (keyConditionExpression == null || keyConditionExpression.isBlank()) {
@@ -102,9 +137,9 @@ public class KeyConditionExpressionParser {
       if (value1 == null || value2 == null) {
         throw new IllegalArgumentException("Missing value for BETWEEN placeholders");
       }
-      sortKeyCondition = String.format("sort_key_value BETWEEN '%s' AND '%s'",
-          extractScalarValue(value1), extractScalarValue(value2));
-      return new ParsedKeyCondition(extractScalarValue(hashKeyValue), sortKeyCondition, Optional.empty());
+      sortKeyCondition = "sort_key_value BETWEEN :sortKey AND :sortKeyEnd";
+      return new ParsedKeyCondition(hashKeyEncoder.apply(hashKeyValue), sortKeyCondition,
+          Optional.of(sortKeyEncoder.apply(value1)), Optional.of(sortKeyEncoder.apply(value2)));
     }
 
     // Check for begins_with
@@ -119,9 +154,14 @@ public class KeyConditionExpressionParser {
       if (value == null) {
         throw new IllegalArgumentException("Missing value for begins_with placeholder: :" + placeholder);
       }
-      sortKeyCondition = "sort_key_value LIKE :sortKey";
-      sortKeyValue = Optional.of(extractScalarValue(value) + "%");
-      return new ParsedKeyCondition(extractScalarValue(hashKeyValue), sortKeyCondition, sortKeyValue);
+      // The keys starting with the prefix are the range from the prefix up to the next string of its length,
+      // since the key columns sort by code point (COLLATE "C" on PostgreSQL)
+      final String prefix = sortKeyEncoder.apply(value);
+      final Optional<String> end = prefixEnd(prefix);
+      sortKeyCondition = end.isPresent()
+          ? "sort_key_value >= :sortKey AND sort_key_value < :sortKeyEnd"
+          : "sort_key_value >= :sortKey";
+      return new ParsedKeyCondition(hashKeyEncoder.apply(hashKeyValue), sortKeyCondition, Optional.of(prefix), end);
     }
 
     // Check for comparison operators
@@ -137,8 +177,8 @@ public class KeyConditionExpressionParser {
         throw new IllegalArgumentException("Missing value for placeholder: :" + placeholder);
       }
       sortKeyCondition = "sort_key_value = :sortKey";
-      sortKeyValue = Optional.of(extractScalarValue(value));
-      return new ParsedKeyCondition(extractScalarValue(hashKeyValue), sortKeyCondition, sortKeyValue);
+      sortKeyValue = Optional.of(sortKeyEncoder.apply(value));
+      return new ParsedKeyCondition(hashKeyEncoder.apply(hashKeyValue), sortKeyCondition, sortKeyValue);
     }
 
     sortMatcher = SORT_KEY_LT_PATTERN.matcher(keyConditionExpression);
@@ -153,8 +193,8 @@ public class KeyConditionExpressionParser {
         throw new IllegalArgumentException("Missing value for placeholder: :" + placeholder);
       }
       sortKeyCondition = "sort_key_value < :sortKey";
-      sortKeyValue = Optional.of(extractScalarValue(value));
-      return new ParsedKeyCondition(extractScalarValue(hashKeyValue), sortKeyCondition, sortKeyValue);
+      sortKeyValue = Optional.of(sortKeyEncoder.apply(value));
+      return new ParsedKeyCondition(hashKeyEncoder.apply(hashKeyValue), sortKeyCondition, sortKeyValue);
     }
 
     sortMatcher = SORT_KEY_GT_PATTERN.matcher(keyConditionExpression);
@@ -169,8 +209,8 @@ public class KeyConditionExpressionParser {
         throw new IllegalArgumentException("Missing value for placeholder: :" + placeholder);
       }
       sortKeyCondition = "sort_key_value > :sortKey";
-      sortKeyValue = Optional.of(extractScalarValue(value));
-      return new ParsedKeyCondition(extractScalarValue(hashKeyValue), sortKeyCondition, sortKeyValue);
+      sortKeyValue = Optional.of(sortKeyEncoder.apply(value));
+      return new ParsedKeyCondition(hashKeyEncoder.apply(hashKeyValue), sortKeyCondition, sortKeyValue);
     }
 
     sortMatcher = SORT_KEY_LE_PATTERN.matcher(keyConditionExpression);
@@ -185,8 +225,8 @@ public class KeyConditionExpressionParser {
         throw new IllegalArgumentException("Missing value for placeholder: :" + placeholder);
       }
       sortKeyCondition = "sort_key_value <= :sortKey";
-      sortKeyValue = Optional.of(extractScalarValue(value));
-      return new ParsedKeyCondition(extractScalarValue(hashKeyValue), sortKeyCondition, sortKeyValue);
+      sortKeyValue = Optional.of(sortKeyEncoder.apply(value));
+      return new ParsedKeyCondition(hashKeyEncoder.apply(hashKeyValue), sortKeyCondition, sortKeyValue);
     }
 
     sortMatcher = SORT_KEY_GE_PATTERN.matcher(keyConditionExpression);
@@ -201,12 +241,32 @@ public class KeyConditionExpressionParser {
         throw new IllegalArgumentException("Missing value for placeholder: :" + placeholder);
       }
       sortKeyCondition = "sort_key_value >= :sortKey";
-      sortKeyValue = Optional.of(extractScalarValue(value));
-      return new ParsedKeyCondition(extractScalarValue(hashKeyValue), sortKeyCondition, sortKeyValue);
+      sortKeyValue = Optional.of(sortKeyEncoder.apply(value));
+      return new ParsedKeyCondition(hashKeyEncoder.apply(hashKeyValue), sortKeyCondition, sortKeyValue);
     }
 
     // Hash key only
-    return new ParsedKeyCondition(extractScalarValue(hashKeyValue), null, Optional.empty());
+    return new ParsedKeyCondition(hashKeyEncoder.apply(hashKeyValue), null, Optional.empty());
+  }
+
+  /**
+   * The least string above every string starting with the prefix, in code point order: the prefix with its last
+   * code point incremented, after dropping trailing code points that cannot be. Empty when there is none, for an
+   * empty prefix or one made of the largest code point.
+   */
+  static Optional<String> prefixEnd(final String prefix) {
+    final int[] codePoints = prefix.codePoints().toArray();
+    for (int i = codePoints.length - 1; i >= 0; i--) {
+      int next = codePoints[i] + 1;
+      if (next == Character.MIN_SURROGATE) {
+        next = Character.MAX_SURROGATE + 1;
+      }
+      if (next <= Character.MAX_CODE_POINT) {
+        codePoints[i] = next;
+        return Optional.of(new String(codePoints, 0, i + 1));
+      }
+    }
+    return Optional.empty();
   }
 
   /**
@@ -248,48 +308,39 @@ public class KeyConditionExpressionParser {
   /**
    * Result of parsing a KeyConditionExpression.
    *
-   * @param sortKeyCondition SQL WHERE clause fragment for sort key
+   * @param hashKeyValue     the hash key value
+   * @param sortKeyCondition SQL WHERE clause fragment for sort key, binding {@code :sortKey} and {@code :sortKeyEnd}
    * @param sortKeyValue     Value to bind to :sortKey
+   * @param sortKeyEnd       Value to bind to :sortKeyEnd, the upper bound of a range
    */
-  public record ParsedKeyCondition(String hashKeyValue, String sortKeyCondition, Optional<String> sortKeyValue) {
+  public record ParsedKeyCondition(String hashKeyValue,
+                                   String sortKeyCondition,
+                                   Optional<String> sortKeyValue,
+                                   Optional<String> sortKeyEnd) {
+
     /**
-     * Instantiates a new Parsed key condition.
+     * Instantiates a new Parsed key condition binding at most :sortKey.
      *
      * @param hashKeyValue     the hash key value
      * @param sortKeyCondition the sort key condition
      * @param sortKeyValue     the sort key value
      */
-    public ParsedKeyCondition {
-    }
-
-    /**
-     * Gets hash key value.
-     *
-     * @return the hash key value
-     */
-    @Override
-    public String hashKeyValue() {
-      return hashKeyValue;
-    }
-
-    /**
-     * Gets sort key condition (SQL WHERE clause fragment).
-     *
-     * @return the sort key condition
-     */
-    @Override
-    public String sortKeyCondition() {
-      return sortKeyCondition;
+    public ParsedKeyCondition(final String hashKeyValue,
+                              final String sortKeyCondition,
+                              final Optional<String> sortKeyValue) {
+      this(hashKeyValue, sortKeyCondition, sortKeyValue, Optional.empty());
     }
 
     /**
-     * Gets sort key value to bind to the SQL parameter.
+     * The values to bind to the sort key condition, by parameter name.
      *
-     * @return the sort key value
+     * @return the parameters
      */
-    @Override
-    public Optional<String> sortKeyValue() {
-      return sortKeyValue;
+    public Map<String, String> sortKeyParameters() {
+      final Map<String, String> parameters = new HashMap<>();
+      sortKeyValue.ifPresent(value -> parameters.put(SORT_KEY, value));
+      sortKeyEnd.ifPresent(value -> parameters.put(SORT_KEY_END, value));
+      return parameters;
     }
   }
 }
@@ -0,0 +1,99 @@
+package io.github.pretenderdb.expression;
+
+import io.github.pretenderdb.dbu.model.Database;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles a DynamoDB ProjectionExpression into a PostgreSQL JSONB expression that selects only the projected
+ * top-level attributes of attributes_json, so a projected read transfers and parses just those attributes.
+ * Attribute names resolve as in {@link io.github.pretenderdb.converter.ItemConverter#applyProjection}, which
+ * still runs on the result; attributes the caller needs for itself (TTL, keys) are selected as well.
+ */
+@Singleton
+public class ProjectionExpressionCompiler {
+
+  private static final Logger log = LoggerFactory.getLogger(ProjectionExpressionCompiler.class);
+
+  private static final String DOCUMENT = "attributes_json";
+
+  /**
+   * jsonb_build_object takes at most 100 arguments, i.e. 50 attributes.
+   */
+  private static final int MAX_ATTRIBUTES = 50;
+
+  private final Database database;
+
+  /**
+   * Instantiates a new Projection expression compiler.
+   *
+   * @param database the database configuration
+   */
+  @Inject
+  public ProjectionExpressionCompiler(final Database database) {
+    log.info("ProjectionExpressionCompiler({})", database);
+    this.database = database;
+  }
+
+  /**
+   * Compiles the projection expression.
+   *
+   * @param projectionExpression     the projection expression
+   * @param expressionAttributeNames the expression attribute names (optional)
+   * @param requiredAttributes       attributes to select in addition to the projected ones
+   * @return the compiled projection, or empty when the database is not PostgreSQL, there is no projection or
+   *     it has too many attributes
+   */
+  public Optional<CompiledProjection> compile(final String projectionExpression,
+                                              final Map<String, String> expressionAttributeNames,
+                                              final Set<String> requiredAttributes) {
+    log.trace("compile({}, {}, {})", projectionExpression, expressionAttributeNames, requiredAttributes);
+
+    if (!database.usePostgresql() || projectionExpression == null || projectionExpression.isBlank()) {
+      return Optional.empty();
+    }
+
+    final Set<String> attributes = new LinkedHashSet<>();
+    for (String attr : projectionExpression.split(",")) {
+      final String trimmed = attr.trim();
+      attributes.add(expressionAttributeNames != null && trimmed.startsWith("#")
+          ? expressionAttributeNames.getOrDefault(trimmed, trimmed)
+          : trimmed);
+    }
+    attributes.addAll(requiredAttributes);
+    if (attributes.size() > MAX_ATTRIBUTES) {
+      return Optional.empty();
+    }
+
+    // Stored attribute values are JSON objects, never JSON null, so stripping nulls only drops missing ones
+    final Map<String, String> parameters = new LinkedHashMap<>();
+    final StringBuilder document = new StringBuilder("jsonb_strip_nulls(jsonb_build_object(");
+    for (String attribute : attributes) {
+      final String name = ":p" + parameters.size();
+      parameters.put("p" + parameters.size(), attribute);
+      if (parameters.size() > 1) {
+        document.append(", ");
+      }
+      document.append("CAST(").append(name).append(" AS TEXT), ")
+          .append(DOCUMENT).append(" -> CAST(").append(name).append(" AS TEXT)");
+    }
+    document.append("))");
+    return Optional.of(new CompiledProjection(document.toString(), Map.copyOf(parameters)));
+  }
+
+  /**
+   * A projection compiled to SQL.
+   *
+   * @param document   the expression to select in place of attributes_json
+   * @param parameters the string parameters to bind, by name
+   */
+  public record CompiledProjection(String document, Map<String, String> parameters) {
+  }
+}
@@ -0,0 +1,263 @@
+package io.github.pretenderdb.expression;
+
+import io.github.pretenderdb.converter.AttributeValueConverter;
+import io.github.pretenderdb.dbu.model.Database;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Compiles a DynamoDB UpdateExpression into a PostgreSQL JSONB expression over attributes_json, so the update
+ * runs as a single UPDATE instead of a read-modify-write in Java. Only forms whose JSONB translation gives the
+ * same result as {@link UpdateExpressionParser} are compiled: SET to a value, SET a = b + :n / b - :n, REMOVE,
+ * and ADD of a number. Everything else (list_append, if_not_exists, sets, DELETE, key attributes, an attribute
+ * touched twice) is left to the Java path. Attribute names and values are always bound, never inlined.
+ */
+@Singleton
+public class UpdateExpressionCompiler {
+
+  private static final Logger log = LoggerFactory.getLogger(UpdateExpressionCompiler.class);
+
+  private static final String DOCUMENT = "attributes_json";
+
+  private final AttributeValueConverter attributeValueConverter;
+  private final Database database;
+
+  /**
+   * Instantiates a new Update expression compiler.
+   *
+   * @param attributeValueConverter the attribute value converter
+   * @param database                the database configuration
+   */
+  @Inject
+  public UpdateExpressionCompiler(final AttributeValueConverter attributeValueConverter,
+                                  final Database database) {
+    log.info("UpdateExpressionCompiler({}, {})", attributeValueConverter, database);
+    this.attributeValueConverter = attributeValueConverter;
+    this.database = database;
+  }
+
+  /**
+   * Compiles the update expression.
+   *
+   * @param updateExpression          the update expression
+   * @param expressionAttributeValues the expression attribute values
+   * @param expressionAttributeNames  the expression attribute names (optional)
+   * @param keyAttributes             the key attribute names of the table, which may not be updated
+   * @return the compiled update, or empty when the database is not PostgreSQL or the expression needs the
+   *     Java path
+   */
+  public Optional<CompiledUpdate> compile(final String updateExpression,
+                                          final Map<String, AttributeValue> expressionAttributeValues,
+                                          final Map<String, String> expressionAttributeNames,
+                                          final Set<String> keyAttributes) {
+    log.trace("compile({}, {}, {})", updateExpression, expressionAttributeValues, keyAttributes);
+
+    if (!database.usePostgresql() || updateExpression == null || updateExpression.isBlank()) {
+      return Optional.empty();
+    }
+    if (UpdateExpressionParser.DELETE_PATTERN.matcher(updateExpression).find()) {
+      return Optional.empty();
+    }
+
+    final Compilation compilation = new Compilation(
+        expressionAttributeValues == null ? Map.of() : expressionAttributeValues,
+        expressionAttributeNames,
+        keyAttributes);
+    if (!compileSet(compilation, updateExpression)
+        || !compileRemove(compilation, updateExpression)
+        || !compileAdd(compilation, updateExpression)) {
+      log.trace("Update expression needs the Java path: {}", updateExpression);
+      return Optional.empty();
+    }
+    return Optional.of(compilation.build());
+  }
+
+  private boolean compileSet(final Compilation compilation, final String updateExpression) {
+    final Matcher setMatcher = UpdateExpressionParser.SET_PATTERN.matcher(updateExpression);
+    if (!setMatcher.find()) {
+      return true;
+    }
+
+    final Matcher assignMatcher = UpdateExpressionParser.SET_ASSIGN_PATTERN.matcher(setMatcher.group(1).trim());
+    while (assignMatcher.find()) {
+      final String attrName = compilation.target(assignMatcher.group(1).trim());
+      final String valueExpr = assignMatcher.group(2).trim();
+      if (attrName == null
+          || UpdateExpressionParser.LIST_APPEND_PATTERN.matcher(valueExpr).matches()
+          || UpdateExpressionParser.IF_NOT_EXISTS_PATTERN.matcher(valueExpr).matches()) {
+        return false;
+      }
+
+      final Matcher addMatcher = UpdateExpressionParser.NUMERIC_ADD_PATTERN.matcher(valueExpr);
+      final Matcher subtractMatcher = UpdateExpressionParser.NUMERIC_SUBTRACT_PATTERN.matcher(valueExpr);
+      if (addMatcher.matches()) {
+        if (!compilation.setArithmetic(attrName, addMatcher.group(1).trim(), "+", addMatcher.group(2).trim())) {
+          return false;
+        }
+      } else if (subtractMatcher.matches()) {
+        if (!compilation.setArithmetic(attrName, subtractMatcher.group(1).trim(), "-",
+            subtractMatcher.group(2).trim())) {
+          return false;
+        }
+      } else {
+        final AttributeValue value = compilation.value(valueExpr);
+        if (value == null) {
+          return false;
+        }
+        final String json = compilation.bind(attributeValueConverter.toJson(Map.of(attrName, value)));
+        compilation.apply("(%s || CAST(" + json + " AS JSONB))");
+      }
+    }
+    return true;
+  }
+
+  private boolean compileRemove(final Compilation compilation, final String updateExpression) {
+    final Matcher removeMatcher = UpdateExpressionParser.REMOVE_PATTERN.matcher(updateExpression);
+    if (!removeMatcher.find()) {
+      return true;
+    }
+
+    for (String attr : removeMatcher.group(1).trim().split(",")) {
+      final String attrName = compilation.target(attr.trim());
+      if (attrName == null) {
+        return false;
+      }
+      compilation.apply("(%s - CAST(" + compilation.bind(attrName) + " AS TEXT))");
+    }
+    return true;
+  }
+
+  private boolean compileAdd(final Compilation compilation, final String updateExpression) {
+    final Matcher addMatcher = UpdateExpressionParser.ADD_PATTERN.matcher(updateExpression);
+    if (!addMatcher.find()) {
+      return true;
+    }
+
+    for (String part : addMatcher.group(1).trim().split(",")) {
+      final String[] attrValue = part.trim().split("\\s+", 2);
+      if (attrValue.length != 2) {
+        return false;
+      }
+      final String attrName = compilation.target(attrValue[0].trim());
+      final AttributeValue addValue = compilation.value(attrValue[1].trim());
+      if (attrName == null || addValue == null || addValue.n() == null) {
+        return false;
+      }
+
+      // A missing attribute takes the added value as given; an existing one must be a number
+      final String name = compilation.bind(attrName);
+      final String current = DOCUMENT + " -> CAST(" + name + " AS TEXT)";
+      final String added = compilation.bind(attributeValueConverter.toJson(Map.of(attrName, addValue)));
+      compilation.guard("(" + current + " IS NULL OR " + current + " ->> 'N' IS NOT NULL)");
+      compilation.apply("jsonb_set(%s, ARRAY[CAST(" + name + " AS TEXT)], CASE WHEN " + current + " IS NULL "
+          + "THEN CAST(" + added + " AS JSONB) -> CAST(" + name + " AS TEXT) "
+          + "ELSE jsonb_build_object('N', CAST(CAST(" + current + " ->> 'N' AS NUMERIC) + CAST("
+          + compilation.bind(addValue.n()) + " AS NUMERIC) AS TEXT)) END)");
+    }
+    return true;
+  }
+
+  /**
+   * State of one compilation. Reads always see the stored document, as DynamoDB evaluates every operand
+   * against the item before the update; an attribute that an earlier action already changed is therefore
+   * not compiled, since the Java path would read the changed value.
+   */
+  private static final class Compilation {
+
+    private final Map<String, AttributeValue> values;
+    private final Map<String, String> names;
+    private final Set<String> keyAttributes;
+    private final Set<String> touched = new HashSet<>();
+    private final List<String> guards = new ArrayList<>();
+    private final Map<String, String> parameters = new LinkedHashMap<>();
+    private String expression = DOCUMENT;
+
+    private Compilation(final Map<String, AttributeValue> values,
+                        final Map<String, String> names,
+                        final Set<String> keyAttributes) {
+      this.values = values;
+      this.names = names;
+      this.keyAttributes = keyAttributes;
+    }
+
+    /**
+     * Resolves an attribute the update writes; null if it cannot be compiled.
+     */
+    private String target(final String nameExpr) {
+      final String attrName = name(nameExpr);
+      if (attrName == null || keyAttributes.contains(attrName) || !touched.add(attrName)) {
+        return null;
+      }
+      return attrName;
+    }
+
+    private String name(final String nameExpr) {
+      if (nameExpr.startsWith("#")) {
+        return names == null ? null : names.get(nameExpr);
+      }
+      return nameExpr;
+    }
+
+    private AttributeValue value(final String valueExpr) {
+      return valueExpr.startsWith(":") ? values.get(valueExpr) : null;
+    }
+
+    private boolean setArithmetic(final String attrName,
+                                  final String operandExpr,
+                                  final String operator,
+                                  final String valueExpr) {
+      final String operandAttr = name(operandExpr);
+      final AttributeValue operand = value(valueExpr);
+      if (operandAttr == null || (touched.contains(operandAttr) && !operandAttr.equals(attrName))
+          || operand == null || operand.n() == null) {
+        return false;
+      }
+
+      // The operand must exist and be a number, otherwise no row matches and the Java path reports it
+      final String current = DOCUMENT + " -> CAST(" + bind(operandAttr) + " AS TEXT) ->> 'N'";
+      guard(current + " IS NOT NULL");
+      apply("jsonb_set(%s, ARRAY[CAST(" + bind(attrName) + " AS TEXT)], jsonb_build_object('N', CAST(CAST("
+          + current + " AS NUMERIC) " + operator + " CAST(" + bind(operand.n()) + " AS NUMERIC) AS TEXT)))");
+      return true;
+    }
+
+    private String bind(final String value) {
+      final String name = "u" + parameters.size();
+      parameters.put(name, value);
+      return ":" + name;
+    }
+
+    private void guard(final String predicate) {
+      guards.add(predicate);
+    }
+
+    private void apply(final String template) {
+      expression = template.replace("%s", expression);
+    }
+
+    private CompiledUpdate build() {
+      return new CompiledUpdate(expression, List.copyOf(guards), Map.copyOf(parameters));
+    }
+  }
+
+  /**
+   * An update compiled to SQL.
+   *
+   * @param expression the new value of attributes_json
+   * @param guards     predicates the stored item must satisfy for the update to apply
+   * @param parameters the string parameters to bind, by name
+   */
+  public record CompiledUpdate(String expression, List<String> guards, Map<String, String> parameters) {
+  }
+}
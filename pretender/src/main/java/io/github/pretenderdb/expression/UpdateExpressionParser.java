@@ -17,36 +17,45 @@ import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 /**
  * Parses and applies DynamoDB UpdateExpression to AttributeValue map.
- * Supports: SET, REMOVE, ADD, DELETE actions.
+ * Supports: SET, REMOVE, ADD, DELETE actions. Each expression is compiled once into the list of actions it
+ * applies, with attribute names resolved, and cached by expression and names; values are resolved when the
+ * actions apply.
  */
 @Singleton
 public class UpdateExpressionParser {
 
   private static final Logger log = LoggerFactory.getLogger(UpdateExpressionParser.class);
 
-  // Patterns for parsing update expressions
-  private static final Pattern SET_PATTERN = Pattern.compile(
+  // Patterns for parsing update expressions, shared with UpdateExpressionCompiler
+  static final Pattern SET_PATTERN = Pattern.compile(
       "SET\\s+(.+?)(?=\\s+(?:REMOVE|ADD|DELETE)|$)", Pattern.CASE_INSENSITIVE);
-  private static final Pattern REMOVE_PATTERN = Pattern.compile(
+  static final Pattern REMOVE_PATTERN = Pattern.compile(
       "REMOVE\\s+(.+?)(?=\\s+(?:SET|ADD|DELETE)|$)", Pattern.CASE_INSENSITIVE);
-  private static final Pattern ADD_PATTERN = Pattern.compile(
+  static final Pattern ADD_PATTERN = Pattern.compile(
       "ADD\\s+(.+?)(?=\\s+(?:SET|REMOVE|DELETE)|$)", Pattern.CASE_INSENSITIVE);
-  private static final Pattern DELETE_PATTERN = Pattern.compile(
+  static final Pattern DELETE_PATTERN = Pattern.compile(
       "DELETE\\s+(.+?)(?=\\s+(?:SET|REMOVE|ADD)|$)", Pattern.CASE_INSENSITIVE);
 
   // SET action patterns
   // Matches "attr = value" where value can contain commas inside parentheses
-  private static final Pattern SET_ASSIGN_PATTERN = Pattern.compile(
+  static final Pattern SET_ASSIGN_PATTERN = Pattern.compile(
       "(#?\\w+)\\s*=\\s*(.+?)(?=\\s*,\\s*#?\\w+\\s*=|$)");
-  private static final Pattern LIST_APPEND_PATTERN = Pattern.compile(
+  static final Pattern LIST_APPEND_PATTERN = Pattern.compile(
       "list_append\\s*\\(\\s*(.+?)\\s*,\\s*(.+?)\\s*\\)");
-  private static final Pattern IF_NOT_EXISTS_PATTERN = Pattern.compile(
+  static final Pattern IF_NOT_EXISTS_PATTERN = Pattern.compile(
       "if_not_exists\\s*\\(\\s*(.+?)\\s*,\\s*(.+?)\\s*\\)");
-  private static final Pattern NUMERIC_ADD_PATTERN = Pattern.compile(
+  static final Pattern NUMERIC_ADD_PATTERN = Pattern.compile(
       "(#?\\w+)\\s*\\+\\s*(.+)");
-  private static final Pattern NUMERIC_SUBTRACT_PATTERN = Pattern.compile(
+  static final Pattern NUMERIC_SUBTRACT_PATTERN = Pattern.compile(
       "(#?\\w+)\\s*-\\s*(.+)");
 
+  /**
+   * How many compiled expressions are kept.
+   */
+  static final int CACHE_SIZE = 1_024;
+
+  private final ExpressionCache<Key, List<Action>> cache = new ExpressionCache<>(CACHE_SIZE);
+
   /**
    * Instantiates a new Update expression parser.
    */
@@ -76,24 +85,40 @@ public class UpdateExpressionParser {
       throw new IllegalArgumentException("UpdateExpression cannot be null or empty");
     }
 
-    // Work with a mutable copy
-    final Map<String, AttributeValue> result = new HashMap<>(item);
-
-    // Process each action type
-    processSET(result, updateExpression, expressionAttributeValues, expressionAttributeNames);
-    processREMOVE(result, updateExpression, expressionAttributeNames);
-    processADD(result, updateExpression, expressionAttributeValues, expressionAttributeNames);
-    processDELETE(result, updateExpression, expressionAttributeValues, expressionAttributeNames);
+    final List<Action> actions = compile(updateExpression, expressionAttributeNames);
 
+    // The only copy of the item; every action updates it in place
+    final Map<String, AttributeValue> result = new HashMap<>(item);
+    for (Action action : actions) {
+      action.apply(result, expressionAttributeValues);
+    }
     return result;
   }
 
   /**
-   * Process SET actions.
+   * The actions of an update expression, in the order they apply: SET, REMOVE, ADD then DELETE. Cached by
+   * expression and attribute names.
+   *
+   * @param updateExpression         the update expression
+   * @param expressionAttributeNames the expression attribute names (optional)
+   * @return the actions
+   */
+  List<Action> compile(final String updateExpression, final Map<String, String> expressionAttributeNames) {
+    return cache.get(new Key(updateExpression, expressionAttributeNames), key -> {
+      final List<Action> actions = new ArrayList<>();
+      compileSET(actions, updateExpression, expressionAttributeNames);
+      compileREMOVE(actions, updateExpression, expressionAttributeNames);
+      compileADD(actions, updateExpression, expressionAttributeNames);
+      compileDELETE(actions, updateExpression, expressionAttributeNames);
+      return List.copyOf(actions);
+    });
+  }
+
+  /**
+   * Compile SET actions.
    */
-  private void processSET(final Map<String, AttributeValue> item,
+  private void compileSET(final List<Action> actions,
                           final String updateExpression,
-                          final Map<String, AttributeValue> values,
                           final Map<String, String> names) {
     final Matcher setMatcher = SET_PATTERN.matcher(updateExpression);
     if (!setMatcher.find()) {
@@ -110,45 +135,48 @@ public class UpdateExpressionParser {
       // Check for list_append
       final Matcher listAppendMatcher = LIST_APPEND_PATTERN.matcher(valueExpr);
       if (listAppendMatcher.matches()) {
-        applyListAppend(item, attrName, listAppendMatcher.group(1).trim(),
-            listAppendMatcher.group(2).trim(), values, names);
+        final Operand list1 = operand(listAppendMatcher.group(1).trim(), names);
+        final Operand list2 = operand(listAppendMatcher.group(2).trim(), names);
+        actions.add((item, values) -> applyListAppend(item, attrName, list1, list2, values));
         continue;
       }
 
       // Check for if_not_exists
       final Matcher ifNotExistsMatcher = IF_NOT_EXISTS_PATTERN.matcher(valueExpr);
       if (ifNotExistsMatcher.matches()) {
-        applyIfNotExists(item, attrName, ifNotExistsMatcher.group(1).trim(),
-            ifNotExistsMatcher.group(2).trim(), values, names);
+        final String checkAttr = resolveAttributeName(ifNotExistsMatcher.group(1).trim(), names);
+        final String defaultValueExpr = ifNotExistsMatcher.group(2).trim();
+        actions.add((item, values) -> applyIfNotExists(item, attrName, checkAttr, defaultValueExpr, values));
         continue;
       }
 
       // Check for numeric addition (attr + value)
       final Matcher numericAddMatcher = NUMERIC_ADD_PATTERN.matcher(valueExpr);
       if (numericAddMatcher.matches()) {
-        applyNumericAdd(item, attrName, numericAddMatcher.group(1).trim(),
-            numericAddMatcher.group(2).trim(), values, names);
+        final String operandAttr = resolveAttributeName(numericAddMatcher.group(1).trim(), names);
+        final String addValueExpr = numericAddMatcher.group(2).trim();
+        actions.add((item, values) -> applyNumericAdd(item, attrName, operandAttr, addValueExpr, values));
         continue;
       }
 
       // Check for numeric subtraction (attr - value)
       final Matcher numericSubtractMatcher = NUMERIC_SUBTRACT_PATTERN.matcher(valueExpr);
       if (numericSubtractMatcher.matches()) {
-        applyNumericSubtract(item, attrName, numericSubtractMatcher.group(1).trim(),
-            numericSubtractMatcher.group(2).trim(), values, names);
+        final String operandAttr = resolveAttributeName(numericSubtractMatcher.group(1).trim(), names);
+        final String subtractValueExpr = numericSubtractMatcher.group(2).trim();
+        actions.add((item, values) -> applyNumericSubtract(item, attrName, operandAttr, subtractValueExpr, values));
         continue;
       }
 
       // Simple assignment
-      final AttributeValue value = resolveValue(valueExpr, values);
-      item.put(attrName, value);
+      actions.add((item, values) -> item.put(attrName, resolveValue(valueExpr, values)));
     }
   }
 
   /**
-   * Process REMOVE actions.
+   * Compile REMOVE actions.
    */
-  private void processREMOVE(final Map<String, AttributeValue> item,
+  private void compileREMOVE(final List<Action> actions,
                              final String updateExpression,
                              final Map<String, String> names) {
     final Matcher removeMatcher = REMOVE_PATTERN.matcher(updateExpression);
@@ -161,16 +189,15 @@ public class UpdateExpressionParser {
 
     for (String attr : attrs) {
       final String attrName = resolveAttributeName(attr.trim(), names);
-      item.remove(attrName);
+      actions.add((item, values) -> item.remove(attrName));
     }
   }
 
   /**
-   * Process ADD actions.
+   * Compile ADD actions.
    */
-  private void processADD(final Map<String, AttributeValue> item,
+  private void compileADD(final List<Action> actions,
                           final String updateExpression,
-                          final Map<String, AttributeValue> values,
                           final Map<String, String> names) {
     final Matcher addMatcher = ADD_PATTERN.matcher(updateExpression);
     if (!addMatcher.find()) {
@@ -187,35 +214,16 @@ public class UpdateExpressionParser {
       }
 
       final String attrName = resolveAttributeName(attrValue[0].trim(), names);
-      final AttributeValue addValue = resolveValue(attrValue[1].trim(), values);
-
-      // Numeric addition
-      if (addValue.n() != null) {
-        final AttributeValue current = item.get(attrName);
-        if (current == null) {
-          item.put(attrName, addValue);
-        } else if (current.n() != null) {
-          final BigDecimal sum = new BigDecimal(current.n()).add(new BigDecimal(addValue.n()));
-          item.put(attrName, AttributeValue.builder().n(sum.toString()).build());
-        } else {
-          throw new IllegalArgumentException("Cannot ADD number to non-numeric attribute: " + attrName);
-        }
-      }
-      // Set addition
-      else if (addValue.ss() != null || addValue.ns() != null || addValue.bs() != null) {
-        addToSet(item, attrName, addValue);
-      } else {
-        throw new IllegalArgumentException("ADD requires number or set type");
-      }
+      final String addValueExpr = attrValue[1].trim();
+      actions.add((item, values) -> applyAdd(item, attrName, resolveValue(addValueExpr, values)));
     }
   }
 
   /**
-   * Process DELETE actions.
+   * Compile DELETE actions.
    */
-  private void processDELETE(final Map<String, AttributeValue> item,
+  private void compileDELETE(final List<Action> actions,
                              final String updateExpression,
-                             final Map<String, AttributeValue> values,
                              final Map<String, String> names) {
     final Matcher deleteMatcher = DELETE_PATTERN.matcher(updateExpression);
     if (!deleteMatcher.find()) {
@@ -232,9 +240,34 @@ public class UpdateExpressionParser {
       }
 
       final String attrName = resolveAttributeName(attrValue[0].trim(), names);
-      final AttributeValue deleteValue = resolveValue(attrValue[1].trim(), values);
+      final String deleteValueExpr = attrValue[1].trim();
+      actions.add((item, values) -> deleteFromSet(item, attrName, resolveValue(deleteValueExpr, values)));
+    }
+  }
 
-      deleteFromSet(item, attrName, deleteValue);
+  /**
+   * Apply an ADD action.
+   */
+  private void applyAdd(final Map<String, AttributeValue> item,
+                        final String attrName,
+                        final AttributeValue addValue) {
+    // Numeric addition
+    if (addValue.n() != null) {
+      final AttributeValue current = item.get(attrName);
+      if (current == null) {
+        item.put(attrName, addValue);
+      } else if (current.n() != null) {
+        final BigDecimal sum = new BigDecimal(current.n()).add(new BigDecimal(addValue.n()));
+        item.put(attrName, AttributeValue.builder().n(sum.toString()).build());
+      } else {
+        throw new IllegalArgumentException("Cannot ADD number to non-numeric attribute: " + attrName);
+      }
+    }
+    // Set addition
+    else if (addValue.ss() != null || addValue.ns() != null || addValue.bs() != null) {
+      addToSet(item, attrName, addValue);
+    } else {
+      throw new IllegalArgumentException("ADD requires number or set type");
     }
   }
 
@@ -243,12 +276,11 @@ public class UpdateExpressionParser {
    */
   private void applyListAppend(final Map<String, AttributeValue> item,
                                final String attrName,
-                               final String list1Expr,
-                               final String list2Expr,
-                               final Map<String, AttributeValue> values,
-                               final Map<String, String> names) {
-    final AttributeValue list1 = resolveValueOrAttribute(list1Expr, item, values, names);
-    final AttributeValue list2 = resolveValueOrAttribute(list2Expr, item, values, names);
+                               final Operand list1Operand,
+                               final Operand list2Operand,
+                               final Map<String, AttributeValue> values) {
+    final AttributeValue list1 = list1Operand.resolve(item, values);
+    final AttributeValue list2 = list2Operand.resolve(item, values);
 
     if (list1 == null || list1.l() == null) {
       item.put(attrName, list2);
@@ -259,7 +291,8 @@ public class UpdateExpressionParser {
       return;
     }
 
-    final List<AttributeValue> result = new ArrayList<>(list1.l());
+    final List<AttributeValue> result = new ArrayList<>(list1.l().size() + list2.l().size());
+    result.addAll(list1.l());
     result.addAll(list2.l());
     item.put(attrName, AttributeValue.builder().l(result).build());
   }
@@ -269,11 +302,9 @@ public class UpdateExpressionParser {
    */
   private void applyIfNotExists(final Map<String, AttributeValue> item,
                                 final String attrName,
-                                final String checkAttrExpr,
+                                final String checkAttr,
                                 final String defaultValueExpr,
-                                final Map<String, AttributeValue> values,
-                                final Map<String, String> names) {
-    final String checkAttr = resolveAttributeName(checkAttrExpr, names);
+                                final Map<String, AttributeValue> values) {
     if (!item.containsKey(checkAttr)) {
       final AttributeValue defaultValue = resolveValue(defaultValueExpr, values);
       item.put(attrName, defaultValue);
@@ -285,11 +316,9 @@ public class UpdateExpressionParser {
    */
   private void applyNumericAdd(final Map<String, AttributeValue> item,
                                final String attrName,
-                               final String operandExpr,
+                               final String operandAttr,
                                final String addValueExpr,
-                               final Map<String, AttributeValue> values,
-                               final Map<String, String> names) {
-    final String operandAttr = resolveAttributeName(operandExpr, names);
+                               final Map<String, AttributeValue> values) {
     final AttributeValue current = item.get(operandAttr);
     final AttributeValue addValue = resolveValue(addValueExpr, values);
 
@@ -309,11 +338,9 @@ public class UpdateExpressionParser {
    */
   private void applyNumericSubtract(final Map<String, AttributeValue> item,
                                     final String attrName,
-                                    final String operandExpr,
+                                    final String operandAttr,
                                     final String subtractValueExpr,
-                                    final Map<String, AttributeValue> values,
-                                    final Map<String, String> names) {
-    final String operandAttr = resolveAttributeName(operandExpr, names);
+                                    final Map<String, AttributeValue> values) {
     final AttributeValue current = item.get(operandAttr);
     final AttributeValue subtractValue = resolveValue(subtractValueExpr, values);
 
@@ -409,7 +436,7 @@ public class UpdateExpressionParser {
   /**
    * Resolve value from expression attribute values.
    */
-  private AttributeValue resolveValue(final String valueExpr, final Map<String, AttributeValue> values) {
+  private static AttributeValue resolveValue(final String valueExpr, final Map<String, AttributeValue> values) {
     if (valueExpr.startsWith(":")) {
       final AttributeValue value = values.get(valueExpr);
       if (value == null) {
@@ -421,17 +448,34 @@ public class UpdateExpressionParser {
   }
 
   /**
-   * Resolve value from either attribute or expression values.
+   * Compile an operand that is either an expression attribute value or an attribute of the item.
    */
-  private AttributeValue resolveValueOrAttribute(final String expr,
-                                                 final Map<String, AttributeValue> item,
-                                                 final Map<String, AttributeValue> values,
-                                                 final Map<String, String> names) {
-    if (expr.startsWith(":")) {
-      return resolveValue(expr, values);
-    } else {
-      final String attrName = resolveAttributeName(expr, names);
-      return item.get(attrName);
+  private Operand operand(final String expr, final Map<String, String> names) {
+    return expr.startsWith(":")
+        ? new Operand(expr, null)
+        : new Operand(null, resolveAttributeName(expr, names));
+  }
+
+  /**
+   * One step of a compiled update, applied in place to the copy of the item.
+   */
+  @FunctionalInterface
+  interface Action {
+
+    void apply(Map<String, AttributeValue> item, Map<String, AttributeValue> values);
+  }
+
+  /**
+   * A list_append operand: an expression attribute value, or an attribute of the item as updated so far.
+   */
+  private record Operand(String valueExpr, String attrName) {
+
+    private AttributeValue resolve(final Map<String, AttributeValue> item,
+                                   final Map<String, AttributeValue> values) {
+      return valueExpr != null ? resolveValue(valueExpr, values) : item.get(attrName);
     }
   }
+
+  private record Key(String expression, Map<String, String> names) {
+  }
 }
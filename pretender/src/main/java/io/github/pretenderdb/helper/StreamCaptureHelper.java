@@ -1,9 +1,10 @@
 package io.github.pretenderdb.helper;
 
 import io.github.pretenderdb.converter.AttributeValueConverter;
-import io.github.pretenderdb.dao.PdbMetadataDao;
 import io.github.pretenderdb.dao.PdbStreamDao;
+import io.github.pretenderdb.dao.PdbWriteUnit;
 import io.github.pretenderdb.manager.PdbStreamTableManager;
+import io.github.pretenderdb.manager.PdbTableManager;
 import io.github.pretenderdb.model.ImmutablePdbStreamRecord;
 import io.github.pretenderdb.model.PdbMetadata;
 import io.github.pretenderdb.model.PdbStreamRecord;
@@ -26,7 +27,7 @@ public class StreamCaptureHelper {
 
   private static final Logger log = LoggerFactory.getLogger(StreamCaptureHelper.class);
 
-  private final PdbMetadataDao metadataDao;
+  private final PdbTableManager tableManager;
   private final PdbStreamDao streamDao;
   private final PdbStreamTableManager streamTableManager;
   private final AttributeValueConverter attributeValueConverter;
@@ -34,18 +35,18 @@ public class StreamCaptureHelper {
   /**
    * Instantiates a new Stream capture helper.
    *
-   * @param metadataDao             the metadata dao
+   * @param tableManager            the table manager, for the cached table metadata
    * @param streamDao               the stream dao
    * @param streamTableManager      the stream table manager
    * @param attributeValueConverter the attribute value converter
    */
   @Inject
-  public StreamCaptureHelper(final PdbMetadataDao metadataDao,
+  public StreamCaptureHelper(final PdbTableManager tableManager,
                              final PdbStreamDao streamDao,
                              final PdbStreamTableManager streamTableManager,
                              final AttributeValueConverter attributeValueConverter) {
-    log.info("StreamCaptureHelper({}, {}, {}, {})", metadataDao, streamDao, streamTableManager, attributeValueConverter);
-    this.metadataDao = metadataDao;
+    log.info("StreamCaptureHelper({}, {}, {}, {})", tableManager, streamDao, streamTableManager, attributeValueConverter);
+    this.tableManager = tableManager;
     this.streamDao = streamDao;
     this.streamTableManager = streamTableManager;
     this.attributeValueConverter = attributeValueConverter;
@@ -59,16 +60,31 @@ public class StreamCaptureHelper {
    */
   public void captureInsert(final String tableName, final Map<String, AttributeValue> newItem) {
     log.trace("captureInsert({}, {})", tableName, newItem);
+    insertRecord(tableName, newItem).ifPresent(record -> write(tableName, record));
+  }
+
+  /**
+   * Captures an INSERT event as part of a write unit; the record is written when the unit flushes.
+   *
+   * @param unit      the write unit
+   * @param tableName the table name
+   * @param newItem   the new item
+   */
+  public void captureInsert(final PdbWriteUnit unit,
+                            final String tableName,
+                            final Map<String, AttributeValue> newItem) {
+    log.trace("captureInsert(unit, {}, {})", tableName, newItem);
+    insertRecord(tableName, newItem).ifPresent(record -> queue(unit, tableName, record));
+  }
 
-    final Optional<PdbMetadata> metadata = metadataDao.getTable(tableName);
+  private Optional<PdbStreamRecord> insertRecord(final String tableName, final Map<String, AttributeValue> newItem) {
+    final Optional<PdbMetadata> metadata = tableManager.getPdbTable(tableName);
     if (metadata.isEmpty() || !metadata.get().streamEnabled()) {
       log.trace("Streams not enabled for table {}", tableName);
-      return;
+      return Optional.empty();
     }
 
     final PdbMetadata table = metadata.get();
-    final String streamTableName = streamTableManager.getStreamTableName(tableName);
-
     // Extract keys
     final String hashKeyValue = attributeValueConverter.extractKeyValue(newItem, table.hashKey());
     final Optional<String> sortKeyValue = table.sortKey()
@@ -102,9 +118,7 @@ public class StreamCaptureHelper {
         break;
     }
 
-    final PdbStreamRecord record = recordBuilder.build();
-    streamDao.insert(streamTableName, record);
-    log.debug("Captured INSERT event for table {} with eventId {}", tableName, record.eventId());
+    return Optional.of(recordBuilder.build());
   }
 
   /**
@@ -118,16 +132,35 @@ public class StreamCaptureHelper {
                             final Map<String, AttributeValue> oldItem,
                             final Map<String, AttributeValue> newItem) {
     log.trace("captureModify({}, {}, {})", tableName, oldItem, newItem);
+    modifyRecord(tableName, oldItem, newItem).ifPresent(record -> write(tableName, record));
+  }
 
-    final Optional<PdbMetadata> metadata = metadataDao.getTable(tableName);
+  /**
+   * Captures a MODIFY event as part of a write unit; the record is written when the unit flushes.
+   *
+   * @param unit      the write unit
+   * @param tableName the table name
+   * @param oldItem   the old item
+   * @param newItem   the new item
+   */
+  public void captureModify(final PdbWriteUnit unit,
+                            final String tableName,
+                            final Map<String, AttributeValue> oldItem,
+                            final Map<String, AttributeValue> newItem) {
+    log.trace("captureModify(unit, {}, {}, {})", tableName, oldItem, newItem);
+    modifyRecord(tableName, oldItem, newItem).ifPresent(record -> queue(unit, tableName, record));
+  }
+
+  private Optional<PdbStreamRecord> modifyRecord(final String tableName,
+                                                 final Map<String, AttributeValue> oldItem,
+                                                 final Map<String, AttributeValue> newItem) {
+    final Optional<PdbMetadata> metadata = tableManager.getPdbTable(tableName);
     if (metadata.isEmpty() || !metadata.get().streamEnabled()) {
       log.trace("Streams not enabled for table {}", tableName);
-      return;
+      return Optional.empty();
     }
 
     final PdbMetadata table = metadata.get();
-    final String streamTableName = streamTableManager.getStreamTableName(tableName);
-
     // Extract keys from new item
     final String hashKeyValue = attributeValueConverter.extractKeyValue(newItem, table.hashKey());
     final Optional<String> sortKeyValue = table.sortKey()
@@ -166,9 +199,7 @@ public class StreamCaptureHelper {
         break;
     }
 
-    final PdbStreamRecord record = recordBuilder.build();
-    streamDao.insert(streamTableName, record);
-    log.debug("Captured MODIFY event for table {} with eventId {}", tableName, record.eventId());
+    return Optional.of(recordBuilder.build());
   }
 
   /**
@@ -179,16 +210,31 @@ public class StreamCaptureHelper {
    */
   public void captureRemove(final String tableName, final Map<String, AttributeValue> oldItem) {
     log.trace("captureRemove({}, {})", tableName, oldItem);
+    removeRecord(tableName, oldItem).ifPresent(record -> write(tableName, record));
+  }
 
-    final Optional<PdbMetadata> metadata = metadataDao.getTable(tableName);
+  /**
+   * Captures a REMOVE event as part of a write unit; the record is written when the unit flushes.
+   *
+   * @param unit      the write unit
+   * @param tableName the table name
+   * @param oldItem   the old item
+   */
+  public void captureRemove(final PdbWriteUnit unit,
+                            final String tableName,
+                            final Map<String, AttributeValue> oldItem) {
+    log.trace("captureRemove(unit, {}, {})", tableName, oldItem);
+    removeRecord(tableName, oldItem).ifPresent(record -> queue(unit, tableName, record));
+  }
+
+  private Optional<PdbStreamRecord> removeRecord(final String tableName, final Map<String, AttributeValue> oldItem) {
+    final Optional<PdbMetadata> metadata = tableManager.getPdbTable(tableName);
     if (metadata.isEmpty() || !metadata.get().streamEnabled()) {
       log.trace("Streams not enabled for table {}", tableName);
-      return;
+      return Optional.empty();
     }
 
     final PdbMetadata table = metadata.get();
-    final String streamTableName = streamTableManager.getStreamTableName(tableName);
-
     // Extract keys
     final String hashKeyValue = attributeValueConverter.extractKeyValue(oldItem, table.hashKey());
     final Optional<String> sortKeyValue = table.sortKey()
@@ -222,9 +268,17 @@ public class StreamCaptureHelper {
         break;
     }
 
-    final PdbStreamRecord record = recordBuilder.build();
-    streamDao.insert(streamTableName, record);
-    log.debug("Captured REMOVE event for table {} with eventId {}", tableName, record.eventId());
+    return Optional.of(recordBuilder.build());
+  }
+
+  private void write(final String tableName, final PdbStreamRecord record) {
+    streamDao.insert(streamTableManager.getStreamTableName(tableName), record);
+    log.debug("Captured {} event for table {} with eventId {}", record.eventType(), tableName, record.eventId());
+  }
+
+  private void queue(final PdbWriteUnit unit, final String tableName, final PdbStreamRecord record) {
+    unit.streamRecord(streamTableManager.getStreamTableName(tableName), record);
+    log.debug("Queued {} event for table {} with eventId {}", record.eventType(), tableName, record.eventId());
   }
 
   /**
@@ -2,12 +2,20 @@ package io.github.pretenderdb.manager;
 
 import io.github.pretenderdb.converter.AttributeValueConverter;
 import io.github.pretenderdb.converter.ItemConverter;
+import io.github.pretenderdb.dao.PdbItemCache;
 import io.github.pretenderdb.dao.PdbItemDao;
+import io.github.pretenderdb.dao.PdbWriteUnit;
+import io.github.pretenderdb.dao.PdbWriteUnitRunner;
+import io.github.pretenderdb.expression.ConditionExpression;
+import io.github.pretenderdb.expression.ConditionExpressionCompiler;
 import io.github.pretenderdb.expression.ConditionExpressionParser;
 import io.github.pretenderdb.expression.KeyConditionExpressionParser;
+import io.github.pretenderdb.expression.ProjectionExpressionCompiler;
+import io.github.pretenderdb.expression.UpdateExpressionCompiler;
 import io.github.pretenderdb.expression.UpdateExpressionParser;
 import io.github.pretenderdb.helper.AttributeEncryptionHelper;
 import io.github.pretenderdb.helper.StreamCaptureHelper;
+import io.github.pretenderdb.model.EncryptionConfig;
 import io.github.pretenderdb.model.PdbGlobalSecondaryIndex;
 import io.github.pretenderdb.model.PdbItem;
 import io.github.pretenderdb.model.PdbMetadata;
@@ -16,12 +24,21 @@ import java.time.Clock;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.transaction.TransactionIsolationLevel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.dynamodb.model.*;
@@ -49,6 +66,11 @@ public class PdbItemManager {
   private final CapacityCalculator capacityCalculator;
   private final Clock clock;
   private final org.jdbi.v3.core.Jdbi jdbi;
+  private final PdbWriteUnitRunner writeUnitRunner;
+  private final UpdateExpressionCompiler updateExpressionCompiler;
+  private final ConditionExpressionCompiler conditionExpressionCompiler;
+  private final ProjectionExpressionCompiler projectionExpressionCompiler;
+  private final PdbItemCache itemCache;
 
   /**
    * Instantiates a new Pdb item manager.
@@ -67,6 +89,11 @@ public class PdbItemManager {
    * @param capacityCalculator           the capacity calculator
    * @param clock                        the clock
    * @param jdbi                         the jdbi instance
+   * @param writeUnitRunner              runs put, update and delete as write units
+   * @param updateExpressionCompiler     compiles update expressions to JSONB SQL
+   * @param conditionExpressionCompiler  compiles condition expressions to JSONB SQL
+   * @param projectionExpressionCompiler compiles projection expressions to JSONB SQL
+   * @param itemCache                    the near-cache for getItem
    */
   @Inject
   public PdbItemManager(final PdbTableManager tableManager,
@@ -82,11 +109,17 @@ public class PdbItemManager {
                         final AttributeEncryptionHelper encryptionHelper,
                         final CapacityCalculator capacityCalculator,
                         final Clock clock,
-                        final org.jdbi.v3.core.Jdbi jdbi) {
-    log.info("PdbItemManager({}, {}, {}, {}, {}, {}, {}, {}, {}, {}, {}, {}, {}, {})",
+                        final org.jdbi.v3.core.Jdbi jdbi,
+                        final PdbWriteUnitRunner writeUnitRunner,
+                        final UpdateExpressionCompiler updateExpressionCompiler,
+                        final ConditionExpressionCompiler conditionExpressionCompiler,
+                        final ProjectionExpressionCompiler projectionExpressionCompiler,
+                        final PdbItemCache itemCache) {
+    log.info("PdbItemManager({}, {}, {}, {}, {}, {}, {}, {}, {}, {}, {}, {}, {}, {}, {}, {}, {}, {}, {})",
         tableManager, itemTableManager, itemDao, itemConverter, attributeValueConverter,
         conditionExpressionParser, keyConditionExpressionParser, updateExpressionParser, gsiProjectionHelper,
-        streamCaptureHelper, encryptionHelper, capacityCalculator, clock, jdbi);
+        streamCaptureHelper, encryptionHelper, capacityCalculator, clock, jdbi, writeUnitRunner,
+        updateExpressionCompiler, conditionExpressionCompiler, projectionExpressionCompiler, itemCache);
     this.tableManager = tableManager;
     this.itemTableManager = itemTableManager;
     this.itemDao = itemDao;
@@ -101,6 +134,11 @@ public class PdbItemManager {
     this.capacityCalculator = capacityCalculator;
     this.clock = clock;
     this.jdbi = jdbi;
+    this.writeUnitRunner = writeUnitRunner;
+    this.updateExpressionCompiler = updateExpressionCompiler;
+    this.conditionExpressionCompiler = conditionExpressionCompiler;
+    this.projectionExpressionCompiler = projectionExpressionCompiler;
+    this.itemCache = itemCache;
   }
 
   /**
@@ -123,12 +161,101 @@ public class PdbItemManager {
     validateItemSize(request.item());
 
     // Extract key values
-    final String hashKeyValue = attributeValueConverter.extractKeyValue(request.item(), metadata.hashKey());
+    final String hashKeyValue = attributeValueConverter.extractKeyValue(
+        request.item(), metadata.hashKey(), metadata.hashKeyType());
     final Optional<String> sortKeyValue = metadata.sortKey().map(sk ->
-        attributeValueConverter.extractKeyValue(request.item(), sk));
+        attributeValueConverter.extractKeyValue(request.item(), sk, metadata.sortKeyType()));
+
+    final boolean hasCondition = request.conditionExpression() != null && !request.conditionExpression().isBlank();
+    final PutItemResponse.Builder responseBuilder = PutItemResponse.builder();
+    try {
+      writeUnitRunner.inWriteUnit(unit -> {
+        final PdbItem pdbItem;
+        if (!hasCondition && request.returnValues() != ReturnValue.ALL_OLD) {
+          // Blind put: nothing to check first, so write with a single upsert
+          pdbItem = blindPutItem(unit, tableName, metadata, request.item());
+        } else {
+          pdbItem = conditionalPutItem(unit, request, metadata, hashKeyValue, sortKeyValue, responseBuilder);
+        }
+
+        // Maintain GSI tables
+        maintainGsiTables(unit, metadata, request.item(), pdbItem);
+        return pdbItem;
+      });
+    } finally {
+      itemCache.invalidate(tableName, hashKeyValue, sortKeyValue);
+    }
+
+    // Add consumed capacity if requested
+    if (request.returnConsumedCapacity() != null &&
+        request.returnConsumedCapacity() != software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity.NONE) {
+      final software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity consumedCapacity =
+          capacityCalculator.calculateWriteCapacity(tableName, request.item());
+      responseBuilder.consumedCapacity(consumedCapacity);
+    }
+
+    return responseBuilder.build();
+  }
+
+  /**
+   * Writes a put that has no condition and does not return the old item with one upsert. The previous
+   * image only comes back from the database when the table has a stream to feed or GSI rows to replace.
+   *
+   * @param unit      the write unit
+   * @param tableName the table name
+   * @param metadata  the table metadata
+   * @param item      the item to put
+   * @return the stored item
+   */
+  private PdbItem blindPutItem(final PdbWriteUnit unit,
+                               final String tableName,
+                               final PdbMetadata metadata,
+                               final Map<String, AttributeValue> item) {
+    final PdbItem pdbItem = itemConverter.toPdbItem(tableName, encryptionHelper.encryptAttributes(item, metadata),
+        metadata);
+    if (!metadata.streamEnabled() && metadata.globalSecondaryIndexes().isEmpty()) {
+      itemDao.upsert(unit.handle(), itemTableName(tableName), pdbItem);
+      return pdbItem;
+    }
+    final Optional<String> previousJson =
+        itemDao.upsertReturningPrevious(unit.handle(), itemTableName(tableName), pdbItem);
+    if (previousJson.isPresent()) {
+      final Map<String, AttributeValue> previousItem = attributeValueConverter.fromJson(previousJson.get());
+      streamCaptureHelper.captureModify(unit, tableName, previousItem, item);
+      deleteFromGsiTables(unit, metadata, encryptionHelper.decryptAttributes(previousItem, metadata));
+    } else {
+      streamCaptureHelper.captureInsert(unit, tableName, item);
+    }
+    return pdbItem;
+  }
+
+  /**
+   * Writes a put that needs the existing item first, either to check its condition or to return it.
+   *
+   * @param unit            the write unit
+   * @param request         the request
+   * @param metadata        the table metadata
+   * @param hashKeyValue    the hash key value
+   * @param sortKeyValue    the sort key value
+   * @param responseBuilder the response, given the old item for ALL_OLD
+   * @return the stored item
+   */
+  private PdbItem conditionalPutItem(final PdbWriteUnit unit,
+                                     final PutItemRequest request,
+                                     final PdbMetadata metadata,
+                                     final String hashKeyValue,
+                                     final Optional<String> sortKeyValue,
+                                     final PutItemResponse.Builder responseBuilder) {
+    final String tableName = request.tableName();
+
+    final Optional<PdbItem> pushedDown = putItemIfCondition(unit, request, metadata);
+    if (pushedDown.isPresent()) {
+      return pushedDown.get();
+    }
 
     // Check if item exists (needed for both condition check and upsert logic)
-    final Optional<PdbItem> existingPdbItem = itemDao.get(itemTableName(tableName), hashKeyValue, sortKeyValue);
+    final Optional<PdbItem> existingPdbItem =
+        itemDao.get(unit.handle(), itemTableName(tableName), hashKeyValue, sortKeyValue);
 
     // Check condition expression if provided
     if (request.conditionExpression() != null && !request.conditionExpression().isBlank()) {
@@ -157,10 +284,12 @@ public class PdbItemManager {
       // MODIFY event - item exists
       final Map<String, AttributeValue> oldItem = attributeValueConverter.fromJson(
           existingPdbItem.get().attributesJson());
-      streamCaptureHelper.captureModify(tableName, oldItem, request.item());
+      streamCaptureHelper.captureModify(unit, tableName, oldItem, request.item());
+      // The replaced item's GSI rows go; maintainGsiTables writes the new ones
+      deleteFromGsiTables(unit, metadata, encryptionHelper.decryptAttributes(oldItem, metadata));
     } else {
       // INSERT event - new item
-      streamCaptureHelper.captureInsert(tableName, request.item());
+      streamCaptureHelper.captureInsert(unit, tableName, request.item());
     }
 
     // Encrypt specified attributes before storage
@@ -171,37 +300,65 @@ public class PdbItemManager {
 
     // Insert or update (putItem is an upsert operation)
     if (existingPdbItem.isPresent()) {
-      itemDao.update(itemTableName(tableName), pdbItem);
+      itemDao.update(unit.handle(), itemTableName(tableName), pdbItem);
     } else {
-      itemDao.insert(itemTableName(tableName), pdbItem);
+      itemDao.insert(unit.handle(), itemTableName(tableName), pdbItem);
     }
 
-    // Maintain GSI tables
-    maintainGsiTables(metadata, request.item(), pdbItem);
-
-    // Build response with optional consumed capacity
-    final PutItemResponse.Builder responseBuilder = PutItemResponse.builder();
+    if (request.returnValues() == ReturnValue.ALL_OLD && existingPdbItem.isPresent()) {
+      responseBuilder.attributes(encryptionHelper.decryptAttributes(
+          attributeValueConverter.fromJson(existingPdbItem.get().attributesJson()), metadata));
+    }
+    return pdbItem;
+  }
 
-    // Add consumed capacity if requested
-    if (request.returnConsumedCapacity() != null &&
-        request.returnConsumedCapacity() != software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity.NONE) {
-      final software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity consumedCapacity =
-          capacityCalculator.calculateWriteCapacity(tableName, request.item());
-      responseBuilder.consumedCapacity(consumedCapacity);
+  /**
+   * Writes a conditional put with its condition in the WHERE clause of the write on PostgreSQL, when the
+   * condition compiles and nothing needs the replaced item (no ALL_OLD, stream or GSI rows). A condition that
+   * holds for a missing item becomes an insert-or-update-if; any other becomes an update-if. Either way no row
+   * written means the condition failed.
+   *
+   * @param unit     the write unit
+   * @param request  the request
+   * @param metadata the table metadata
+   * @return the stored item, or empty when the Java path has to run
+   * @throws ConditionalCheckFailedException if the condition does not hold
+   */
+  private Optional<PdbItem> putItemIfCondition(final PdbWriteUnit unit,
+                                               final PutItemRequest request,
+                                               final PdbMetadata metadata) {
+    if (request.returnValues() == ReturnValue.ALL_OLD
+        || metadata.streamEnabled()
+        || !metadata.globalSecondaryIndexes().isEmpty()) {
+      return Optional.empty();
+    }
+    final Optional<ConditionExpressionCompiler.CompiledCondition> condition = conditionExpressionCompiler.compile(
+        request.conditionExpression(), request.expressionAttributeValues(), request.expressionAttributeNames());
+    if (condition.isEmpty()) {
+      return Optional.empty();
     }
 
-    return responseBuilder.build();
+    final PdbItem pdbItem = itemConverter.toPdbItem(request.tableName(),
+        encryptionHelper.encryptAttributes(request.item(), metadata), metadata);
+    final boolean written = itemDao.putIf(unit.handle(), itemTableName(request.tableName()), pdbItem,
+        condition.get()::predicate, condition.get().parameters(), condition.get().matchesMissingItem());
+    if (!written) {
+      throw ConditionalCheckFailedException.builder()
+          .message("The conditional request failed")
+          .build();
+    }
+    return Optional.of(pdbItem);
   }
 
   /**
    * Get item from table.
    *
-   * <p><strong>Consistent Reads:</strong> All reads in Pretender are strongly consistent
-   * by default due to SQL database ACID guarantees. The {@code ConsistentRead} parameter
-   * is accepted for API compatibility but has no effect - reads always reflect the most
-   * recent successful write operations.</p>
+   * <p><strong>Consistent Reads:</strong> With {@code ConsistentRead=true} the item is read from
+   * the primary. Otherwise it may be served by a read replica, when replicas are configured, and
+   * so may not reflect the most recent writes. On a table in the near-cache ({@link PdbItemCache}) it may be
+   * served from the cache instead, and misses are read from the primary.</p>
    *
-   * @param request the get item request (ConsistentRead parameter is accepted but ignored)
+   * @param request the get item request
    * @return the get item response containing the item if found, or empty item map if not found
    * @throws ResourceNotFoundException if the table does not exist
    */
@@ -213,32 +370,55 @@ public class PdbItemManager {
 
     // Extract keys
     final String hashKeyValue = attributeValueConverter.extractKeyValue(
-        request.key(), metadata.hashKey());
+        request.key(), metadata.hashKey(), metadata.hashKeyType());
     final Optional<String> sortKeyValue = metadata.sortKey().map(sk ->
-        attributeValueConverter.extractKeyValue(request.key(), sk));
-
-    // Query
-    final Optional<PdbItem> pdbItem = itemDao.get(
-        itemTableName(tableName), hashKeyValue, sortKeyValue);
+        attributeValueConverter.extractKeyValue(request.key(), sk, metadata.sortKeyType()));
+
+    // Eventually consistent reads of a cached table are served from the near-cache when they can
+    final boolean consistentRead = Boolean.TRUE.equals(request.consistentRead());
+    final boolean cached = itemCache.enabled(tableName);
+    Map<String, AttributeValue> item = cached && !consistentRead
+        ? itemCache.get(tableName, hashKeyValue, sortKeyValue).orElse(null)
+        : null;
+
+    if (item == null) {
+      // The cache is filled from the primary with the whole item, so it never holds a replica's older image
+      final long generation = itemCache.generation(tableName);
+      final Optional<PdbItem> pdbItem = itemDao.get(
+          itemTableName(tableName), hashKeyValue, sortKeyValue, consistentRead || cached,
+          cached
+              ? PdbItemDao.Projection.ALL
+              : projection(metadata, request.projectionExpression(), request.expressionAttributeNames()));
+
+      if (pdbItem.isEmpty()) {
+        return GetItemResponse.builder().build();
+      }
 
-    if (pdbItem.isEmpty()) {
-      return GetItemResponse.builder().build();
-    }
+      // Convert to AttributeValue map
+      item = attributeValueConverter.fromJson(pdbItem.get().attributesJson());
 
-    // Convert to AttributeValue map
-    Map<String, AttributeValue> item = attributeValueConverter.fromJson(
-        pdbItem.get().attributesJson());
+      // Decrypt encrypted attributes
+      item = encryptionHelper.decryptAttributes(item, metadata);
 
-    // Decrypt encrypted attributes
-    item = encryptionHelper.decryptAttributes(item, metadata);
+      if (cached && !isExpired(metadata, item)) {
+        itemCache.put(tableName, hashKeyValue, sortKeyValue, item, generation);
+      }
+    }
 
     // Check TTL expiration and delete if expired
     if (isExpired(metadata, item)) {
       log.debug("Item expired due to TTL, deleting and returning empty response");
-      // Delete the expired item (on-read cleanup)
-      itemDao.delete(itemTableName(tableName), hashKeyValue, sortKeyValue);
-      // Also delete from GSI tables
-      deleteFromGsiTables(metadata, item);
+      // Delete the expired item and its GSI rows (on-read cleanup)
+      final Map<String, AttributeValue> expiredItem = item;
+      try {
+        writeUnitRunner.inWriteUnit(unit -> {
+          itemDao.delete(unit.handle(), itemTableName(tableName), hashKeyValue, sortKeyValue);
+          deleteFromGsiTables(unit, metadata, expiredItem);
+          return null;
+        });
+      } finally {
+        itemCache.invalidate(tableName, hashKeyValue, sortKeyValue);
+      }
       return GetItemResponse.builder().build();
     }
 
@@ -277,13 +457,42 @@ public class PdbItemManager {
 
     // Extract keys
     final String hashKeyValue = attributeValueConverter.extractKeyValue(
-        request.key(), metadata.hashKey());
+        request.key(), metadata.hashKey(), metadata.hashKeyType());
     final Optional<String> sortKeyValue = metadata.sortKey().map(sk ->
-        attributeValueConverter.extractKeyValue(request.key(), sk));
+        attributeValueConverter.extractKeyValue(request.key(), sk, metadata.sortKeyType()));
+
+    try {
+      return writeUnitRunner.inWriteUnit(unit -> updateItem(unit, request, metadata, hashKeyValue, sortKeyValue));
+    } finally {
+      itemCache.invalidate(tableName, hashKeyValue, sortKeyValue);
+    }
+  }
+
+  /**
+   * Reads, checks, updates and re-indexes one item inside a write unit.
+   *
+   * @param unit         the write unit
+   * @param request      the request
+   * @param metadata     the table metadata
+   * @param hashKeyValue the hash key value
+   * @param sortKeyValue the sort key value
+   * @return the response
+   */
+  private UpdateItemResponse updateItem(final PdbWriteUnit unit,
+                                        final UpdateItemRequest request,
+                                        final PdbMetadata metadata,
+                                        final String hashKeyValue,
+                                        final Optional<String> sortKeyValue) {
+    final String tableName = request.tableName();
+
+    final Optional<UpdateItemResponse> inPlace = updateItemInPlace(unit, request, metadata, hashKeyValue, sortKeyValue);
+    if (inPlace.isPresent()) {
+      return inPlace.get();
+    }
 
     // Get existing item or create empty one
     final Optional<PdbItem> existingPdbItem = itemDao.get(
-        itemTableName(tableName), hashKeyValue, sortKeyValue);
+        unit.handle(), itemTableName(tableName), hashKeyValue, sortKeyValue);
 
     Map<String, AttributeValue> currentAttributes;
     if (existingPdbItem.isPresent()) {
@@ -329,10 +538,10 @@ public class PdbItemManager {
     // Capture stream event BEFORE actual write
     if (existingPdbItem.isPresent()) {
       // MODIFY event - item exists
-      streamCaptureHelper.captureModify(tableName, currentAttributes, updatedAttributes);
+      streamCaptureHelper.captureModify(unit, tableName, currentAttributes, updatedAttributes);
     } else {
       // INSERT event - item created via updateItem
-      streamCaptureHelper.captureInsert(tableName, updatedAttributes);
+      streamCaptureHelper.captureInsert(unit, tableName, updatedAttributes);
     }
 
     // Encrypt specified attributes before storage
@@ -349,18 +558,18 @@ public class PdbItemManager {
     }
 
     if (existingPdbItem.isPresent()) {
-      itemDao.update(itemTableName(tableName), updatedPdbItem);
+      itemDao.update(unit.handle(), itemTableName(tableName), updatedPdbItem);
     } else {
-      itemDao.insert(itemTableName(tableName), updatedPdbItem);
+      itemDao.insert(unit.handle(), itemTableName(tableName), updatedPdbItem);
     }
 
     // Update GSI tables: delete old entries if item existed, then maintain new entries
     if (existingPdbItem.isPresent()) {
       // Delete old GSI entries (using old attribute values before update)
-      deleteFromGsiTables(metadata, currentAttributes);
+      deleteFromGsiTables(unit, metadata, currentAttributes);
     }
     // Maintain new GSI tables (insert/update with new attribute values)
-    maintainGsiTables(metadata, updatedAttributes, updatedPdbItem);
+    maintainGsiTables(unit, metadata, updatedAttributes, updatedPdbItem);
 
     // Build response
     final UpdateItemResponse.Builder responseBuilder = UpdateItemResponse.builder();
@@ -382,6 +591,87 @@ public class PdbItemManager {
     return responseBuilder.build();
   }
 
+  /**
+   * Runs the update as one UPDATE ... RETURNING on PostgreSQL when the expression, and the condition if
+   * any, compile to JSONB and nothing needs the item as it was: no ALL_OLD, no GSI rows or stream record to
+   * derive and no encrypted attributes. The new item is still validated; a failure throws and rolls back the
+   * write unit.
+   *
+   * @param unit         the write unit
+   * @param request      the request
+   * @param metadata     the table metadata
+   * @param hashKeyValue the hash key value
+   * @param sortKeyValue the sort key value
+   * @return the response, or empty when the Java path has to run (including when the item does not exist)
+   */
+  private Optional<UpdateItemResponse> updateItemInPlace(final PdbWriteUnit unit,
+                                                         final UpdateItemRequest request,
+                                                         final PdbMetadata metadata,
+                                                         final String hashKeyValue,
+                                                         final Optional<String> sortKeyValue) {
+    if (request.returnValues() == ReturnValue.ALL_OLD
+        || !metadata.globalSecondaryIndexes().isEmpty()
+        || metadata.streamEnabled()
+        || encryptionHelper.getEncryptionConfig(metadata.name()).filter(EncryptionConfig::enabled).isPresent()) {
+      return Optional.empty();
+    }
+
+    final Set<String> keyAttributes = new HashSet<>();
+    keyAttributes.add(metadata.hashKey());
+    metadata.sortKey().ifPresent(keyAttributes::add);
+    final Optional<UpdateExpressionCompiler.CompiledUpdate> compiled = updateExpressionCompiler.compile(
+        request.updateExpression(),
+        request.expressionAttributeValues(),
+        request.expressionAttributeNames(),
+        keyAttributes);
+    if (compiled.isEmpty()) {
+      return Optional.empty();
+    }
+
+    // A condition goes into the WHERE clause next to the update's own guards
+    final List<String> guards = new ArrayList<>(compiled.get().guards());
+    final Map<String, String> parameters = new HashMap<>(compiled.get().parameters());
+    boolean conditionMatchesMissingItem = true;
+    if (request.conditionExpression() != null && !request.conditionExpression().isBlank()) {
+      final Optional<ConditionExpressionCompiler.CompiledCondition> condition = conditionExpressionCompiler.compile(
+          request.conditionExpression(), request.expressionAttributeValues(), request.expressionAttributeNames());
+      if (condition.isEmpty()) {
+        return Optional.empty();
+      }
+      guards.add(condition.get().predicate("attributes_json"));
+      parameters.putAll(condition.get().parameters());
+      conditionMatchesMissingItem = condition.get().matchesMissingItem();
+    }
+
+    final Optional<String> updatedJson = itemDao.updateInPlace(unit.handle(), itemTableName(request.tableName()),
+        hashKeyValue, sortKeyValue, compiled.get().expression(), guards, parameters, clock.instant());
+    if (updatedJson.isEmpty()) {
+      if (!conditionMatchesMissingItem && compiled.get().guards().isEmpty()) {
+        // Neither a missing item nor an existing one could have passed: the condition failed
+        throw ConditionalCheckFailedException.builder()
+            .message("The conditional request failed")
+            .build();
+      }
+      log.trace("In-place update matched no row, using the Java path");
+      return Optional.empty();
+    }
+
+    final Map<String, AttributeValue> updatedAttributes = attributeValueConverter.fromJson(updatedJson.get());
+    validateItemAttributes(updatedAttributes, metadata);
+    validateItemSize(updatedAttributes);
+
+    final UpdateItemResponse.Builder responseBuilder = UpdateItemResponse.builder();
+    if (request.returnValues() == ReturnValue.ALL_NEW) {
+      responseBuilder.attributes(updatedAttributes);
+    }
+    if (request.returnConsumedCapacity() != null &&
+        request.returnConsumedCapacity() != software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity.NONE) {
+      responseBuilder.consumedCapacity(
+          capacityCalculator.calculateWriteCapacity(request.tableName(), updatedAttributes));
+    }
+    return Optional.of(responseBuilder.build());
+  }
+
   /**
    * Delete item.
    *
@@ -396,48 +686,77 @@ public class PdbItemManager {
 
     // Extract keys
     final String hashKeyValue = attributeValueConverter.extractKeyValue(
-        request.key(), metadata.hashKey());
+        request.key(), metadata.hashKey(), metadata.hashKeyType());
     final Optional<String> sortKeyValue = metadata.sortKey().map(sk ->
-        attributeValueConverter.extractKeyValue(request.key(), sk));
+        attributeValueConverter.extractKeyValue(request.key(), sk, metadata.sortKeyType()));
 
-    // Get old item (needed for return values, condition check, and GSI deletion)
-    Map<String, AttributeValue> oldItem = null;
-    final Optional<PdbItem> pdbItem = itemDao.get(
-        itemTableName(tableName), hashKeyValue, sortKeyValue);
-    if (pdbItem.isPresent()) {
-      oldItem = attributeValueConverter.fromJson(pdbItem.get().attributesJson());
+    try {
+      return writeUnitRunner.inWriteUnit(unit -> deleteItem(unit, request, metadata, hashKeyValue, sortKeyValue));
+    } finally {
+      itemCache.invalidate(tableName, hashKeyValue, sortKeyValue);
     }
+  }
 
-    // Check condition expression if provided
-    if (request.conditionExpression() != null && !request.conditionExpression().isBlank()) {
-      // Evaluate condition against existing item (null if doesn't exist)
-      final boolean conditionMet = conditionExpressionParser.evaluate(
-          oldItem,
-          request.conditionExpression(),
-          request.expressionAttributeValues(),
-          request.expressionAttributeNames()
-      );
+  /**
+   * Reads, checks and deletes one item and its GSI rows inside a write unit.
+   *
+   * @param unit         the write unit
+   * @param request      the request
+   * @param metadata     the table metadata
+   * @param hashKeyValue the hash key value
+   * @param sortKeyValue the sort key value
+   * @return the response
+   */
+  private DeleteItemResponse deleteItem(final PdbWriteUnit unit,
+                                        final DeleteItemRequest request,
+                                        final PdbMetadata metadata,
+                                        final String hashKeyValue,
+                                        final Optional<String> sortKeyValue) {
+    final String tableName = request.tableName();
 
-      if (!conditionMet) {
-        throw ConditionalCheckFailedException.builder()
-            .message("The conditional request failed")
-            .build();
+    // A compiled condition is checked by the DELETE itself; otherwise read the item and check it in Java
+    final Optional<Map<String, AttributeValue>> deleted =
+        deleteItemIfCondition(unit, request, hashKeyValue, sortKeyValue);
+    final Map<String, AttributeValue> oldItem;
+    if (deleted.isPresent()) {
+      oldItem = deleted.get();
+    } else {
+      // Get old item (needed for return values, condition check, and GSI deletion)
+      final Optional<PdbItem> pdbItem = itemDao.get(
+          unit.handle(), itemTableName(tableName), hashKeyValue, sortKeyValue);
+      oldItem = pdbItem.map(item -> attributeValueConverter.fromJson(item.attributesJson())).orElse(null);
+
+      // Check condition expression if provided
+      if (request.conditionExpression() != null && !request.conditionExpression().isBlank()) {
+        // Evaluate condition against existing item (null if doesn't exist)
+        final boolean conditionMet = conditionExpressionParser.evaluate(
+            oldItem,
+            request.conditionExpression(),
+            request.expressionAttributeValues(),
+            request.expressionAttributeNames()
+        );
+
+        if (!conditionMet) {
+          throw ConditionalCheckFailedException.builder()
+              .message("The conditional request failed")
+              .build();
+        }
       }
+
+      // Delete from main table
+      itemDao.delete(unit.handle(), itemTableName(tableName), hashKeyValue, sortKeyValue);
     }
 
-    // Capture REMOVE stream event BEFORE actual delete
+    // Capture REMOVE stream event
     if (oldItem != null) {
-      streamCaptureHelper.captureRemove(tableName, oldItem);
+      streamCaptureHelper.captureRemove(unit, tableName, oldItem);
     }
 
-    // Delete from GSI tables first if item exists
+    // Delete from GSI tables if item exists
     if (oldItem != null) {
-      deleteFromGsiTables(metadata, oldItem);
+      deleteFromGsiTables(unit, metadata, oldItem);
     }
 
-    // Delete from main table
-    itemDao.delete(itemTableName(tableName), hashKeyValue, sortKeyValue);
-
     // Build response
     final DeleteItemResponse.Builder responseBuilder = DeleteItemResponse.builder();
     if (oldItem != null) {
@@ -458,15 +777,45 @@ public class PdbItemManager {
     return responseBuilder.build();
   }
 
+  /**
+   * Deletes the item with its condition in the WHERE clause of the DELETE on PostgreSQL, when the condition
+   * compiles. No row deleted is a failed condition unless the condition holds for a missing item, in which
+   * case the Java path decides.
+   *
+   * @param unit         the write unit
+   * @param request      the request
+   * @param hashKeyValue the hash key value
+   * @param sortKeyValue the sort key value
+   * @return the deleted item, or empty when the Java path has to run
+   * @throws ConditionalCheckFailedException if the condition does not hold
+   */
+  private Optional<Map<String, AttributeValue>> deleteItemIfCondition(final PdbWriteUnit unit,
+                                                                      final DeleteItemRequest request,
+                                                                      final String hashKeyValue,
+                                                                      final Optional<String> sortKeyValue) {
+    final Optional<ConditionExpressionCompiler.CompiledCondition> condition = conditionExpressionCompiler.compile(
+        request.conditionExpression(), request.expressionAttributeValues(), request.expressionAttributeNames());
+    if (condition.isEmpty()) {
+      return Optional.empty();
+    }
+
+    final Optional<String> deletedJson = itemDao.deleteIf(unit.handle(), itemTableName(request.tableName()),
+        hashKeyValue, sortKeyValue, condition.get().predicate("attributes_json"), condition.get().parameters());
+    if (deletedJson.isEmpty() && !condition.get().matchesMissingItem()) {
+      throw ConditionalCheckFailedException.builder()
+          .message("The conditional request failed")
+          .build();
+    }
+    return deletedJson.map(attributeValueConverter::fromJson);
+  }
+
   /**
    * Query items in a table using KeyConditionExpression.
    *
-   * <p><strong>Consistent Reads:</strong> All reads in Pretender are strongly consistent
-   * by default due to SQL database ACID guarantees. The {@code ConsistentRead} parameter
-   * is accepted for API compatibility but has no effect - reads always reflect the most
-   * recent successful write operations.</p>
+   * <p><strong>Consistent Reads:</strong> With {@code ConsistentRead=true} the query runs on
+   * the primary. Otherwise it may be served by a read replica, when replicas are configured.</p>
    *
-   * @param request the query request (ConsistentRead parameter is accepted but ignored)
+   * @param request the query request
    * @return the query response containing matching items and optional LastEvaluatedKey for pagination
    * @throws ResourceNotFoundException if the table or index does not exist
    * @throws IllegalArgumentException  if the KeyConditionExpression is invalid
@@ -478,66 +827,67 @@ public class PdbItemManager {
     final PdbMetadata metadata = getTableMetadata(tableName);
 
     // Determine if querying an index or the main table
-    final String queryTableName;
-    final String hashKeyName;
-    final Optional<String> sortKeyName;
-
-    if (request.indexName() != null && !request.indexName().isBlank()) {
-      // Query GSI
-      final PdbGlobalSecondaryIndex gsi = metadata.globalSecondaryIndexes().stream()
-          .filter(g -> g.indexName().equals(request.indexName()))
-          .findFirst()
-          .orElseThrow(() -> new IllegalArgumentException(
-              "Index not found: " + request.indexName()));
-
-      queryTableName = itemTableManager.getGsiTableName(tableName, gsi.indexName());
-      hashKeyName = gsi.hashKey();
-      sortKeyName = gsi.sortKey();
-    } else {
-      // Query main table
-      queryTableName = itemTableName(tableName);
-      hashKeyName = metadata.hashKey();
-      sortKeyName = metadata.sortKey();
-    }
+    final QueryTarget target = queryTarget(metadata, request.indexName());
+    final String queryTableName = target.tableName();
+    final String hashKeyName = target.hashKeyName();
+    final Optional<String> hashKeyType = target.hashKeyType();
 
     // Parse key condition expression
-    final KeyConditionExpressionParser.ParsedKeyCondition condition =
-        keyConditionExpressionParser.parse(
-            request.keyConditionExpression(),
-            request.expressionAttributeValues(),
-            request.expressionAttributeNames());
+    final KeyConditionExpressionParser.ParsedKeyCondition condition = keyCondition(target, request);
 
     // Determine limit (default to 100 if not specified)
     final int limit = request.limit() != null ? request.limit() : 100;
 
     // Extract ExclusiveStartKey for pagination
-    final Optional<String> exclusiveStartHashKey;
-    final Optional<String> exclusiveStartSortKey;
-    if (request.hasExclusiveStartKey() && request.exclusiveStartKey() != null) {
-      exclusiveStartHashKey = Optional.ofNullable(request.exclusiveStartKey().get(hashKeyName))
-          .map(av -> attributeValueConverter.extractKeyValue(request.exclusiveStartKey(), hashKeyName));
-      exclusiveStartSortKey = sortKeyName.isPresent()
-          ? Optional.ofNullable(request.exclusiveStartKey().get(sortKeyName.get()))
-          .map(av -> attributeValueConverter.extractKeyValue(request.exclusiveStartKey(), sortKeyName.get()))
-          : Optional.empty();
+    final Optional<String> exclusiveStartHashKey = startKey(request.exclusiveStartKey(), hashKeyName, hashKeyType);
+    final Optional<String> exclusiveStartSortKey =
+        exclusiveStartSortKey(metadata, target, request.exclusiveStartKey());
+
+    final Optional<ConditionExpressionCompiler.CompiledCondition> filter = compileFilter(metadata,
+        request.filterExpression(), request.expressionAttributeValues(), request.expressionAttributeNames());
+    final PdbItemDao.Projection projection = javaFilter(request.filterExpression(), filter)
+        ? PdbItemDao.Projection.ALL
+        : projection(metadata, request.projectionExpression(), request.expressionAttributeNames());
+    // Descending queries page backwards from the ExclusiveStartKey; the last item read is still the last key
+    final boolean scanIndexForward = !Boolean.FALSE.equals(request.scanIndexForward());
+    final PdbItemDao.Page page;
+    if (filter.isPresent()) {
+      // The filter runs in the database over the same page of rows
+      page = itemDao.queryFiltered(
+          queryTableName,
+          condition.hashKeyValue(),
+          condition.sortKeyCondition(),
+          condition.sortKeyParameters(),
+          limit,
+          exclusiveStartHashKey,
+          exclusiveStartSortKey,
+          Boolean.TRUE.equals(request.consistentRead()),
+          filter.get().predicate("attributes_json"),
+          filter.get().parameters(),
+          projection,
+          scanIndexForward);
     } else {
-      exclusiveStartHashKey = Optional.empty();
-      exclusiveStartSortKey = Optional.empty();
+      // The page ends at limit items or 1 MB, with the last item read as LastEvaluatedKey when more follow
+      page = itemDao.queryPage(
+          queryTableName,
+          condition.hashKeyValue(),
+          condition.sortKeyCondition(),
+          condition.sortKeyParameters(),
+          limit,
+          exclusiveStartHashKey,
+          exclusiveStartSortKey,
+          Boolean.TRUE.equals(request.consistentRead()),
+          projection,
+          scanIndexForward);
     }
+    final List<PdbItem> resultItems = page.items();
+    final int scannedCount = page.scannedCount();
+    final Optional<PdbItem> lastEvaluated = page.lastEvaluated();
 
-    // Query with limit + 1 to detect if there are more results
-    final List<PdbItem> items = itemDao.query(
-        queryTableName,
-        condition.hashKeyValue(),
-        condition.sortKeyCondition(),
-        condition.sortKeyValue(),
-        limit + 1,
-        exclusiveStartHashKey,
-        exclusiveStartSortKey);
-
-    // Check if we have more results
-    final boolean hasMore = items.size() > limit;
-    final List<PdbItem> resultItems = hasMore ? items.subList(0, limit) : items;
+    // The filter, when the database did not apply it, is parsed once for the page
+    final Optional<ConditionExpression> itemFilter = filter.isEmpty()
+        ? itemFilter(request.filterExpression(), request.expressionAttributeNames())
+        : Optional.empty();
 
     // Convert to AttributeValue maps and filter expired items
     final List<Map<String, AttributeValue>> resultAttributeMaps = new ArrayList<>();
@@ -554,13 +904,9 @@ public class PdbItemManager {
         continue;
       }
 
-      // Apply FilterExpression if present (post-query filtering)
-      if (request.filterExpression() != null && !request.filterExpression().isBlank()) {
-        final boolean filterPassed = conditionExpressionParser.evaluate(
-            attributes,
-            request.filterExpression(),
-            request.expressionAttributeValues(),
-            request.expressionAttributeNames());
+      // Apply FilterExpression if present and not already applied by the database (post-query filtering)
+      if (itemFilter.isPresent()) {
+        final boolean filterPassed = itemFilter.get().test(attributes, request.expressionAttributeValues());
         if (!filterPassed) {
           log.trace("Item filtered out by FilterExpression");
           continue;
@@ -580,19 +926,11 @@ public class PdbItemManager {
     final QueryResponse.Builder responseBuilder = QueryResponse.builder()
         .items(resultAttributeMaps)
         .count(resultAttributeMaps.size())
-        .scannedCount(resultItems.size());
+        .scannedCount(scannedCount);
 
     // Add LastEvaluatedKey if there are more results
-    if (hasMore) {
-      final PdbItem lastItem = resultItems.get(resultItems.size() - 1);
-      final Map<String, AttributeValue> lastKey = new HashMap<>();
-      lastKey.put(hashKeyName,
-          AttributeValue.builder().s(lastItem.hashKeyValue()).build());
-      lastItem.sortKeyValue().ifPresent(sk ->
-          lastKey.put(sortKeyName.orElseThrow(),
-              AttributeValue.builder().s(sk).build()));
-      responseBuilder.lastEvaluatedKey(lastKey);
-    }
+    lastEvaluated.ifPresent(lastItem ->
+        responseBuilder.lastEvaluatedKey(lastEvaluatedKey(metadata, target, lastItem)));
 
     // Add consumed capacity if requested
     if (request.returnConsumedCapacity() != null &&
@@ -616,6 +954,101 @@ public class PdbItemManager {
     return responseBuilder.build();
   }
 
+  /**
+   * Compiles a FilterExpression for evaluation in the database. Filters see decrypted attributes, so tables
+   * with encryption enabled keep filtering in Java, as do filters the compiler does not support.
+   *
+   * @param metadata                  the table metadata
+   * @param filterExpression          the filter expression (optional)
+   * @param expressionAttributeValues the expression attribute values
+   * @param expressionAttributeNames  the expression attribute names
+   * @return the compiled filter, or empty when filtering happens in Java
+   */
+  private Optional<ConditionExpressionCompiler.CompiledCondition> compileFilter(
+      final PdbMetadata metadata,
+      final String filterExpression,
+      final Map<String, AttributeValue> expressionAttributeValues,
+      final Map<String, String> expressionAttributeNames) {
+    if (filterExpression == null || filterExpression.isBlank()
+        || encryptionHelper.getEncryptionConfig(metadata.name()).filter(EncryptionConfig::enabled).isPresent()) {
+      return Optional.empty();
+    }
+    return conditionExpressionCompiler.compile(filterExpression, expressionAttributeValues, expressionAttributeNames);
+  }
+
+  /**
+   * Whether a FilterExpression has to be evaluated in Java, in which case reads need the whole document.
+   */
+  private boolean javaFilter(final String filterExpression,
+                             final Optional<ConditionExpressionCompiler.CompiledCondition> filter) {
+    return filterExpression != null && !filterExpression.isBlank() && filter.isEmpty();
+  }
+
+  /**
+   * The filter expression parsed for testing items in Java, or empty when there is none.
+   */
+  private Optional<ConditionExpression> itemFilter(final String filterExpression,
+                                                   final Map<String, String> expressionAttributeNames) {
+    return filterExpression == null || filterExpression.isBlank()
+        ? Optional.empty()
+        : Optional.of(conditionExpressionParser.compile(filterExpression, expressionAttributeNames));
+  }
+
+  /**
+   * The attributes a projected read selects. Besides the projected attributes it keeps the key attributes,
+   * the TTL attribute and GSI keys, which the read needs for expiry checks and on-read cleanup; the Java
+   * projection then trims the item to what was asked. Tables with encryption enabled read whole documents.
+   *
+   * @param metadata                 the table metadata
+   * @param projectionExpression     the projection expression (optional)
+   * @param expressionAttributeNames the expression attribute names (optional)
+   * @return the projection
+   */
+  private PdbItemDao.Projection projection(final PdbMetadata metadata,
+                                           final String projectionExpression,
+                                           final Map<String, String> expressionAttributeNames) {
+    if (projectionExpression == null || projectionExpression.isBlank()
+        || encryptionHelper.getEncryptionConfig(metadata.name()).filter(EncryptionConfig::enabled).isPresent()) {
+      return PdbItemDao.Projection.ALL;
+    }
+    final Set<String> required = new HashSet<>();
+    required.add(metadata.hashKey());
+    metadata.sortKey().ifPresent(required::add);
+    metadata.ttlAttributeName().ifPresent(required::add);
+    for (PdbGlobalSecondaryIndex gsi : metadata.globalSecondaryIndexes()) {
+      required.add(gsi.hashKey());
+      gsi.sortKey().ifPresent(required::add);
+    }
+    return projectionExpressionCompiler.compile(projectionExpression, expressionAttributeNames, required)
+        .map(compiled -> new PdbItemDao.Projection(compiled.document(), compiled.parameters()))
+        .orElse(PdbItemDao.Projection.ALL);
+  }
+
+  /**
+   * The segment of a parallel scan. Segment and TotalSegments come together, TotalSegments is 1 to 1000000
+   * and Segment is below it, as in DynamoDB.
+   *
+   * @param request the scan request
+   * @return the segment, or the whole table when the request has none
+   */
+  private PdbItemDao.Segment segment(final ScanRequest request) {
+    if (request.segment() == null && request.totalSegments() == null) {
+      return PdbItemDao.Segment.ALL;
+    }
+    if (request.segment() == null || request.totalSegments() == null) {
+      throw new IllegalArgumentException("Segment and TotalSegments must be specified together");
+    }
+    if (request.totalSegments() < 1 || request.totalSegments() > 1_000_000) {
+      throw new IllegalArgumentException(
+          "TotalSegments must be between 1 and 1000000 (received " + request.totalSegments() + ")");
+    }
+    if (request.segment() < 0 || request.segment() >= request.totalSegments()) {
+      throw new IllegalArgumentException(
+          "Segment must be at least 0 and less than TotalSegments (received " + request.segment() + ")");
+    }
+    return new PdbItemDao.Segment(request.segment(), request.totalSegments());
+  }
+
   /**
    * Scan items.
    *
@@ -630,6 +1063,7 @@ public class PdbItemManager {
 
     // Determine limit (default to 100 if not specified)
     final int limit = request.limit() != null ? request.limit() : 100;
+    final PdbItemDao.Segment segment = segment(request);
 
     // Extract ExclusiveStartKey for pagination
     Optional<String> exclusiveStartHashKey = Optional.empty();
@@ -637,20 +1071,40 @@ public class PdbItemManager {
 
     if (request.hasExclusiveStartKey() && request.exclusiveStartKey() != null) {
       exclusiveStartHashKey = Optional.ofNullable(request.exclusiveStartKey().get(metadata.hashKey()))
-          .map(av -> attributeValueConverter.extractKeyValue(request.exclusiveStartKey(), metadata.hashKey()));
+          .map(av -> attributeValueConverter.extractKeyValue(
+              request.exclusiveStartKey(), metadata.hashKey(), metadata.hashKeyType()));
       exclusiveStartSortKey = metadata.sortKey().isPresent()
           ? Optional.ofNullable(request.exclusiveStartKey().get(metadata.sortKey().get()))
-          .map(av -> attributeValueConverter.extractKeyValue(request.exclusiveStartKey(), metadata.sortKey().get()))
+          .map(av -> attributeValueConverter.extractKeyValue(
+              request.exclusiveStartKey(), metadata.sortKey().get(), metadata.sortKeyType()))
           : Optional.empty();
     }
 
-    // Scan with limit + 1 to detect if there are more results
-    final List<PdbItem> items = itemDao.scan(itemTableName(tableName), limit + 1,
-        exclusiveStartHashKey, exclusiveStartSortKey);
+    final Optional<ConditionExpressionCompiler.CompiledCondition> filter = compileFilter(metadata,
+        request.filterExpression(), request.expressionAttributeValues(), request.expressionAttributeNames());
+    final PdbItemDao.Projection projection = javaFilter(request.filterExpression(), filter)
+        ? PdbItemDao.Projection.ALL
+        : projection(metadata, request.projectionExpression(), request.expressionAttributeNames());
+    final PdbItemDao.Page page;
+    if (filter.isPresent()) {
+      // The filter runs in the database over the same page of rows
+      page = itemDao.scanFiltered(itemTableName(tableName), limit,
+          exclusiveStartHashKey, exclusiveStartSortKey, Boolean.TRUE.equals(request.consistentRead()),
+          filter.get().predicate("attributes_json"), filter.get().parameters(), projection, segment);
+    } else {
+      // The page ends at limit items or 1 MB, with the last item read as LastEvaluatedKey when more follow
+      page = itemDao.scanPage(itemTableName(tableName), limit,
+          exclusiveStartHashKey, exclusiveStartSortKey, Boolean.TRUE.equals(request.consistentRead()), projection,
+          segment);
+    }
+    final List<PdbItem> resultItems = page.items();
+    final int scannedCount = page.scannedCount();
+    final Optional<PdbItem> lastEvaluated = page.lastEvaluated();
 
-    // Check if we have more results
-    final boolean hasMore = items.size() > limit;
-    final List<PdbItem> resultItems = hasMore ? items.subList(0, limit) : items;
+    // The filter, when the database did not apply it, is parsed once for the page
+    final Optional<ConditionExpression> itemFilter = filter.isEmpty()
+        ? itemFilter(request.filterExpression(), request.expressionAttributeNames())
+        : Optional.empty();
 
     // Convert to AttributeValue maps and filter expired items
     final List<Map<String, AttributeValue>> resultAttributeMaps = new ArrayList<>();
@@ -667,13 +1121,9 @@ public class PdbItemManager {
         continue;
       }
 
-      // Apply FilterExpression if present (post-scan filtering)
-      if (request.filterExpression() != null && !request.filterExpression().isBlank()) {
-        final boolean filterPassed = conditionExpressionParser.evaluate(
-            attributes,
-            request.filterExpression(),
-            request.expressionAttributeValues(),
-            request.expressionAttributeNames());
+      // Apply FilterExpression if present and not already applied by the database (post-scan filtering)
+      if (itemFilter.isPresent()) {
+        final boolean filterPassed = itemFilter.get().test(attributes, request.expressionAttributeValues());
         if (!filterPassed) {
           log.trace("Item filtered out by FilterExpression");
           continue;
@@ -693,17 +1143,17 @@ public class PdbItemManager {
     final ScanResponse.Builder responseBuilder = ScanResponse.builder()
         .items(resultAttributeMaps)
         .count(resultAttributeMaps.size())
-        .scannedCount(resultItems.size());
+        .scannedCount(scannedCount);
 
     // Add LastEvaluatedKey if there are more results
-    if (hasMore) {
-      final PdbItem lastItem = resultItems.get(resultItems.size() - 1);
+    if (lastEvaluated.isPresent()) {
+      final PdbItem lastItem = lastEvaluated.get();
       final Map<String, AttributeValue> lastKey = new HashMap<>();
       lastKey.put(metadata.hashKey(),
-          AttributeValue.builder().s(lastItem.hashKeyValue()).build());
+          attributeValueConverter.decodeKeyValue(lastItem.hashKeyValue(), metadata.hashKeyType()));
       lastItem.sortKeyValue().ifPresent(sk ->
           lastKey.put(metadata.sortKey().orElseThrow(),
-              AttributeValue.builder().s(sk).build()));
+              attributeValueConverter.decodeKeyValue(sk, metadata.sortKeyType())));
       responseBuilder.lastEvaluatedKey(lastKey);
     }
 
@@ -729,6 +1179,185 @@ public class PdbItemManager {
     return responseBuilder.build();
   }
 
+  /**
+   * Streams the items matching a query from a single database cursor, in key order. Unlike
+   * {@link #query(QueryRequest)} there are no pages: rows are fetched in batches and decoded as the stream is
+   * consumed, so a large partition is walked in constant memory with one statement. Limit caps the items
+   * evaluated; ExclusiveStartKey, ScanIndexForward, FilterExpression and ProjectionExpression apply as in a
+   * query. The stream holds a database connection and must be closed.
+   *
+   * @param request the query request
+   * @return the items
+   */
+  public Stream<Map<String, AttributeValue>> queryStream(final QueryRequest request) {
+    log.trace("queryStream({})", request);
+
+    final PdbMetadata metadata = getTableMetadata(request.tableName());
+    final QueryTarget target = queryTarget(metadata, request.indexName());
+    final KeyConditionExpressionParser.ParsedKeyCondition condition = keyCondition(target, request);
+    final PdbItemDao.Projection projection = javaFilter(request.filterExpression(), Optional.empty())
+        ? PdbItemDao.Projection.ALL
+        : projection(metadata, request.projectionExpression(), request.expressionAttributeNames());
+
+    final Stream<PdbItem> items = itemDao.streamQuery(
+        target.tableName(),
+        condition.hashKeyValue(),
+        condition.sortKeyCondition(),
+        condition.sortKeyParameters(),
+        startKey(request.exclusiveStartKey(), target.hashKeyName(), target.hashKeyType()),
+        exclusiveStartSortKey(metadata, target, request.exclusiveStartKey()),
+        Boolean.TRUE.equals(request.consistentRead()),
+        projection,
+        !Boolean.FALSE.equals(request.scanIndexForward()));
+    return readItems(metadata, request.limit() == null ? items : items.limit(request.limit()),
+        request.filterExpression(), request.expressionAttributeValues(), request.expressionAttributeNames(),
+        request.projectionExpression());
+  }
+
+  /**
+   * Streams the items of a table, or of one segment of a parallel scan, from a single database cursor. See
+   * {@link #queryStream(QueryRequest)}.
+   *
+   * @param request the scan request
+   * @return the items
+   */
+  public Stream<Map<String, AttributeValue>> scanStream(final ScanRequest request) {
+    log.trace("scanStream({})", request);
+
+    final PdbMetadata metadata = getTableMetadata(request.tableName());
+    final PdbItemDao.Projection projection = javaFilter(request.filterExpression(), Optional.empty())
+        ? PdbItemDao.Projection.ALL
+        : projection(metadata, request.projectionExpression(), request.expressionAttributeNames());
+
+    final Stream<PdbItem> items = itemDao.streamScan(
+        itemTableName(request.tableName()),
+        startKey(request.exclusiveStartKey(), metadata.hashKey(), metadata.hashKeyType()),
+        metadata.sortKey().flatMap(sk -> startKey(request.exclusiveStartKey(), sk, metadata.sortKeyType())),
+        Boolean.TRUE.equals(request.consistentRead()),
+        projection,
+        segment(request));
+    return readItems(metadata, request.limit() == null ? items : items.limit(request.limit()),
+        request.filterExpression(), request.expressionAttributeValues(), request.expressionAttributeNames(),
+        request.projectionExpression());
+  }
+
+  /**
+   * Decodes streamed items lazily: decryption, TTL expiry, the filter and the projection, as in query and
+   * scan. Closing the result closes the source.
+   */
+  private Stream<Map<String, AttributeValue>> readItems(final PdbMetadata metadata,
+                                                       final Stream<PdbItem> items,
+                                                       final String filterExpression,
+                                                       final Map<String, AttributeValue> expressionAttributeValues,
+                                                       final Map<String, String> expressionAttributeNames,
+                                                       final String projectionExpression) {
+    final Optional<ConditionExpression> filter = itemFilter(filterExpression, expressionAttributeNames);
+    final boolean project = projectionExpression != null && !projectionExpression.isBlank();
+    return items
+        .map(item -> encryptionHelper.decryptAttributes(attributeValueConverter.fromJson(item.attributesJson()),
+            metadata))
+        .filter(attributes -> !isExpired(metadata, attributes))
+        .filter(attributes -> filter.isEmpty() || filter.get().test(attributes, expressionAttributeValues))
+        .map(attributes -> project
+            ? itemConverter.applyProjection(attributes, projectionExpression, expressionAttributeNames)
+            : attributes);
+  }
+
+  /**
+   * The table a query reads and its key attributes: a GSI table, or the item table.
+   */
+  private QueryTarget queryTarget(final PdbMetadata metadata, final String indexName) {
+    if (indexName != null && !indexName.isBlank()) {
+      final PdbGlobalSecondaryIndex gsi = metadata.globalSecondaryIndexes().stream()
+          .filter(g -> g.indexName().equals(indexName))
+          .findFirst()
+          .orElseThrow(() -> new IllegalArgumentException("Index not found: " + indexName));
+      return new QueryTarget(itemTableManager.getGsiTableName(metadata.name(), gsi.indexName()),
+          gsi.hashKey(), gsi.sortKey(), gsi.hashKeyType(), gsi.sortKeyType(), true);
+    }
+    return new QueryTarget(itemTableName(metadata.name()),
+        metadata.hashKey(), metadata.sortKey(), metadata.hashKeyType(), metadata.sortKeyType(), false);
+  }
+
+  /**
+   * Parses the KeyConditionExpression of a query, encoding key values as the target stores them.
+   */
+  private KeyConditionExpressionParser.ParsedKeyCondition keyCondition(final QueryTarget target,
+                                                                       final QueryRequest request) {
+    return keyConditionExpressionParser.parse(
+        request.keyConditionExpression(),
+        request.expressionAttributeValues(),
+        request.expressionAttributeNames(),
+        value -> attributeValueConverter.encodeKeyValue(value, target.hashKeyType()),
+        value -> attributeValueConverter.encodeKeyValue(value, target.sortKeyType()));
+  }
+
+  /**
+   * The sort key to resume a query after, in the storage encoding. An index row's sort key is the composite of
+   * {@link #buildCompositeSortKey}, rebuilt from the index sort key and the table keys of the ExclusiveStartKey.
+   */
+  private Optional<String> exclusiveStartSortKey(final PdbMetadata metadata,
+                                                 final QueryTarget target,
+                                                 final Map<String, AttributeValue> exclusiveStartKey) {
+    if (!target.index()) {
+      return target.sortKeyName().flatMap(sk -> startKey(exclusiveStartKey, sk, target.sortKeyType()));
+    }
+    return startKey(exclusiveStartKey, metadata.hashKey(), metadata.hashKeyType()).map(mainHashKey ->
+        buildCompositeSortKey(
+            target.sortKeyName().flatMap(sk -> startKey(exclusiveStartKey, sk, target.sortKeyType())),
+            mainHashKey,
+            metadata.sortKey().flatMap(sk -> startKey(exclusiveStartKey, sk, metadata.sortKeyType()))));
+  }
+
+  /**
+   * The LastEvaluatedKey of a query page. A table row's keys are decoded from its key columns. An index row
+   * holds the composite sort key, so its index sort key and table keys come from the item, which always
+   * carries them, as DynamoDB returns them for an index.
+   */
+  private Map<String, AttributeValue> lastEvaluatedKey(final PdbMetadata metadata,
+                                                       final QueryTarget target,
+                                                       final PdbItem lastItem) {
+    final Map<String, AttributeValue> lastKey = new HashMap<>();
+    lastKey.put(target.hashKeyName(),
+        attributeValueConverter.decodeKeyValue(lastItem.hashKeyValue(), target.hashKeyType()));
+    if (!target.index()) {
+      lastItem.sortKeyValue().ifPresent(sk ->
+          lastKey.put(target.sortKeyName().orElseThrow(),
+              attributeValueConverter.decodeKeyValue(sk, target.sortKeyType())));
+      return lastKey;
+    }
+    final Map<String, AttributeValue> attributes = encryptionHelper.decryptAttributes(
+        attributeValueConverter.fromJson(lastItem.attributesJson()), metadata);
+    target.sortKeyName().ifPresent(sk -> lastKey.put(sk, attributes.get(sk)));
+    lastKey.put(metadata.hashKey(), attributes.get(metadata.hashKey()));
+    metadata.sortKey().ifPresent(sk -> lastKey.put(sk, attributes.get(sk)));
+    return lastKey;
+  }
+
+  /**
+   * One key attribute of an ExclusiveStartKey in the storage encoding, if the key has it.
+   */
+  private Optional<String> startKey(final Map<String, AttributeValue> exclusiveStartKey,
+                                    final String keyName,
+                                    final Optional<String> keyType) {
+    if (exclusiveStartKey == null || !exclusiveStartKey.containsKey(keyName)) {
+      return Optional.empty();
+    }
+    return Optional.of(attributeValueConverter.extractKeyValue(exclusiveStartKey, keyName, keyType));
+  }
+
+  /**
+   * The table a query reads, with the names and declared types of its key attributes, and whether it is the
+   * table of an index.
+   */
+  private record QueryTarget(String tableName,
+                             String hashKeyName,
+                             Optional<String> sortKeyName,
+                             Optional<String> hashKeyType,
+                             Optional<String> sortKeyType,
+                             boolean index) {
+  }
+
   /**
    * Get table metadata, throwing ResourceNotFoundException if not found.
    */
@@ -747,22 +1376,21 @@ public class PdbItemManager {
   }
 
   /**
-   * Maintains GSI tables when an item is put or updated.
+   * Queues the GSI rows of an item that is put or updated on the write unit.
    *
+   * @param unit      the write unit
    * @param metadata  the table metadata
    * @param itemAttrs the item attributes
    * @param pdbItem   the PdbItem for create/update timestamps
    */
-  private void maintainGsiTables(final PdbMetadata metadata,
+  private void maintainGsiTables(final PdbWriteUnit unit,
+                                 final PdbMetadata metadata,
                                  final Map<String, AttributeValue> itemAttrs,
                                  final PdbItem pdbItem) {
     if (metadata.globalSecondaryIndexes().isEmpty()) {
       return;
     }
 
-    // Collect all GSI items to insert in batch
-    final Map<String, List<PdbItem>> gsiItemsByTable = new HashMap<>();
-
     for (PdbGlobalSecondaryIndex gsi : metadata.globalSecondaryIndexes()) {
       // Check if item has GSI keys
       if (!gsiProjectionHelper.hasGsiKeys(itemAttrs, gsi)) {
@@ -771,9 +1399,10 @@ public class PdbItemManager {
       }
 
       // Extract GSI key values
-      final String gsiHashKeyValue = attributeValueConverter.extractKeyValue(itemAttrs, gsi.hashKey());
+      final String gsiHashKeyValue = attributeValueConverter.extractKeyValue(
+          itemAttrs, gsi.hashKey(), gsi.hashKeyType());
       final Optional<String> gsiSortKeyValue = gsi.sortKey().map(sk ->
-          attributeValueConverter.extractKeyValue(itemAttrs, sk));
+          attributeValueConverter.extractKeyValue(itemAttrs, sk, gsi.sortKeyType()));
 
       // Build composite sort key for uniqueness
       // Format: [<gsi_sort_key>#]<main_hash_key>[#<main_sort_key>]
@@ -801,35 +1430,31 @@ public class PdbItemManager {
           .updateDate(pdbItem.updateDate())
           .build();
 
-      // Group items by GSI table for batch insertion
-      gsiItemsByTable.computeIfAbsent(gsiTableName, k -> new ArrayList<>()).add(gsiItem);
-    }
-
-    // Batch insert all GSI items per table
-    for (Map.Entry<String, List<PdbItem>> entry : gsiItemsByTable.entrySet()) {
-      final String gsiTableName = entry.getKey();
-      final List<PdbItem> items = entry.getValue();
-      itemDao.batchInsert(gsiTableName, items);
-      log.trace("Batch maintained {} items in GSI table {}", items.size(), gsiTableName);
+      // Upsert, so a put that keeps the GSI key replaces the row instead of colliding with it
+      unit.upsert(gsiTableName, gsiItem);
+      log.trace("Queued upsert into GSI table {}", gsiTableName);
     }
   }
 
   /**
-   * Deletes an item from all GSI tables.
+   * Queues the deletion of an item's rows from all GSI tables on the write unit.
    *
+   * @param unit      the write unit
    * @param metadata  the table metadata
    * @param itemAttrs the item attributes (to extract GSI keys)
    */
-  private void deleteFromGsiTables(final PdbMetadata metadata,
+  private void deleteFromGsiTables(final PdbWriteUnit unit,
+                                   final PdbMetadata metadata,
                                    final Map<String, AttributeValue> itemAttrs) {
     if (metadata.globalSecondaryIndexes().isEmpty()) {
       return;
     }
 
     // Extract main table keys once
-    final String mainHashKeyValue = attributeValueConverter.extractKeyValue(itemAttrs, metadata.hashKey());
+    final String mainHashKeyValue = attributeValueConverter.extractKeyValue(
+        itemAttrs, metadata.hashKey(), metadata.hashKeyType());
     final Optional<String> mainSortKeyValue = metadata.sortKey().map(sk ->
-        attributeValueConverter.extractKeyValue(itemAttrs, sk));
+        attributeValueConverter.extractKeyValue(itemAttrs, sk, metadata.sortKeyType()));
 
     for (PdbGlobalSecondaryIndex gsi : metadata.globalSecondaryIndexes()) {
       // Check if item has GSI keys
@@ -838,9 +1463,10 @@ public class PdbItemManager {
       }
 
       // Extract GSI key values
-      final String gsiHashKeyValue = attributeValueConverter.extractKeyValue(itemAttrs, gsi.hashKey());
+      final String gsiHashKeyValue = attributeValueConverter.extractKeyValue(
+          itemAttrs, gsi.hashKey(), gsi.hashKeyType());
       final Optional<String> gsiSortKeyValue = gsi.sortKey().map(sk ->
-          attributeValueConverter.extractKeyValue(itemAttrs, sk));
+          attributeValueConverter.extractKeyValue(itemAttrs, sk, gsi.sortKeyType()));
 
       // Build composite sort key for uniqueness (same as in maintainGsiTables)
       final String compositeSortKey = buildCompositeSortKey(
@@ -851,9 +1477,9 @@ public class PdbItemManager {
 
       // Delete from GSI table
       final String gsiTableName = itemTableManager.getGsiTableName(metadata.name(), gsi.indexName());
-      itemDao.delete(gsiTableName, gsiHashKeyValue, Optional.of(compositeSortKey));
+      unit.delete(gsiTableName, new PdbItemDao.KeyPair(gsiHashKeyValue, Optional.of(compositeSortKey)));
 
-      log.trace("Deleted from GSI table {}", gsiTableName);
+      log.trace("Queued delete from GSI table {}", gsiTableName);
     }
   }
 
@@ -919,12 +1545,13 @@ public class PdbItemManager {
   /**
    * Batch get items from one or more tables.
    *
-   * <p><strong>Consistent Reads:</strong> All reads in Pretender are strongly consistent
-   * by default due to SQL database ACID guarantees. The {@code ConsistentRead} parameter
-   * in {@code KeysAndAttributes} is accepted for API compatibility but has no effect -
-   * reads always reflect the most recent successful write operations.</p>
+   * <p><strong>Consistent Reads:</strong> Tables whose {@code KeysAndAttributes} ask for
+   * {@code ConsistentRead=true} are read from the primary. The others may be served by a read
+   * replica, when replicas are configured.</p>
    *
-   * @param request the batch get item request (ConsistentRead parameter is accepted but ignored)
+   * <p>Each table is read with one select, and the tables are read concurrently on virtual threads.</p>
+   *
+   * @param request the batch get item request
    * @return the batch get item response containing requested items from all tables
    * @throws IllegalArgumentException  if the request contains more than 100 items across all tables
    * @throws ResourceNotFoundException if any requested table does not exist
@@ -943,54 +1570,28 @@ public class PdbItemManager {
       }
     }
 
-    final Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
-
-    // Process each table in the request
-    for (Map.Entry<String, KeysAndAttributes> entry : request.requestItems().entrySet()) {
-      final String tableName = entry.getKey();
-      final KeysAndAttributes keysAndAttributes = entry.getValue();
-
-      // Verify table exists
-      final PdbMetadata metadata = getTableMetadata(tableName);
-
-      // Convert keys to KeyPair format for batch retrieval
-      final List<PdbItemDao.KeyPair> keyPairs = new ArrayList<>();
-      for (Map<String, AttributeValue> key : keysAndAttributes.keys()) {
-        final String hashKeyValue = attributeValueConverter.extractKeyValue(key, metadata.hashKey());
-        final Optional<String> sortKeyValue = metadata.sortKey().map(sk ->
-            attributeValueConverter.extractKeyValue(key, sk));
-        keyPairs.add(new PdbItemDao.KeyPair(hashKeyValue, sortKeyValue));
-      }
-
-      // Batch get all items in a single query
-      final List<PdbItem> pdbItems = itemDao.batchGet(itemTableName(tableName), keyPairs);
-
-      // Convert to AttributeValue maps
-      final List<Map<String, AttributeValue>> items = new ArrayList<>();
-      for (PdbItem pdbItem : pdbItems) {
-        Map<String, AttributeValue> itemAttrs = attributeValueConverter.fromJson(pdbItem.attributesJson());
-
-        // Decrypt encrypted attributes
-        itemAttrs = encryptionHelper.decryptAttributes(itemAttrs, metadata);
-
-        // Check TTL expiration
-        if (isExpired(metadata, itemAttrs)) {
-          log.debug("Skipping expired item in batch get");
-          continue;
-        }
+    // Verify every table exists before reading any of them
+    final Map<String, PdbMetadata> metadataByTable = new HashMap<>();
+    for (String tableName : request.requestItems().keySet()) {
+      metadataByTable.put(tableName, getTableMetadata(tableName));
+    }
 
-        // Apply projection if present
-        if (keysAndAttributes.projectionExpression() != null && !keysAndAttributes.projectionExpression().isBlank()) {
-          itemAttrs = itemConverter.applyProjection(itemAttrs, keysAndAttributes.projectionExpression());
+    // Tables are independent reads, so each runs on its own virtual thread and connection
+    final Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+    if (request.requestItems().size() == 1) {
+      request.requestItems().forEach((tableName, keysAndAttributes) -> responses.put(tableName,
+          batchGetTable(metadataByTable.get(tableName), keysAndAttributes)));
+    } else {
+      try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        final Map<String, Future<List<Map<String, AttributeValue>>>> futures = new HashMap<>();
+        request.requestItems().forEach((tableName, keysAndAttributes) -> futures.put(tableName,
+            executor.submit(() -> batchGetTable(metadataByTable.get(tableName), keysAndAttributes))));
+        for (Map.Entry<String, Future<List<Map<String, AttributeValue>>>> future : futures.entrySet()) {
+          responses.put(future.getKey(), result(future.getValue()));
         }
-
-        items.add(itemAttrs);
-      }
-
-      if (!items.isEmpty()) {
-        responses.put(tableName, items);
       }
     }
+    responses.values().removeIf(List::isEmpty);
 
     // Build response
     final BatchGetItemResponse.Builder responseBuilder = BatchGetItemResponse.builder()
@@ -1029,8 +1630,83 @@ public class PdbItemManager {
   }
 
   /**
-   * Batch write (put or delete) items to one or more tables.
-   * Tracks failed items and returns them as unprocessed items.
+   * Reads the keys of one table of a batch get with a single select.
+   *
+   * @param metadata          the table metadata
+   * @param keysAndAttributes the keys and projection
+   * @return the items found, decrypted and projected, without expired ones
+   */
+  private List<Map<String, AttributeValue>> batchGetTable(final PdbMetadata metadata,
+                                                          final KeysAndAttributes keysAndAttributes) {
+    final String tableName = metadata.name();
+
+    // Convert keys to KeyPair format for batch retrieval
+    final List<PdbItemDao.KeyPair> keyPairs = new ArrayList<>();
+    for (Map<String, AttributeValue> key : keysAndAttributes.keys()) {
+      keyPairs.add(keyPair(metadata, key));
+    }
+
+    // Batch get all items in a single query
+    final List<PdbItem> pdbItems = itemDao.batchGet(itemTableName(tableName), keyPairs,
+        Boolean.TRUE.equals(keysAndAttributes.consistentRead()),
+        projection(metadata, keysAndAttributes.projectionExpression(),
+            keysAndAttributes.expressionAttributeNames()));
+
+    // Convert to AttributeValue maps
+    final List<Map<String, AttributeValue>> items = new ArrayList<>();
+    for (PdbItem pdbItem : pdbItems) {
+      Map<String, AttributeValue> itemAttrs = attributeValueConverter.fromJson(pdbItem.attributesJson());
+
+      // Decrypt encrypted attributes
+      itemAttrs = encryptionHelper.decryptAttributes(itemAttrs, metadata);
+
+      // Check TTL expiration
+      if (isExpired(metadata, itemAttrs)) {
+        log.debug("Skipping expired item in batch get");
+        continue;
+      }
+
+      // Apply projection if present
+      if (keysAndAttributes.projectionExpression() != null && !keysAndAttributes.projectionExpression().isBlank()) {
+        itemAttrs = itemConverter.applyProjection(itemAttrs, keysAndAttributes.projectionExpression(),
+            keysAndAttributes.expressionAttributeNames());
+      }
+
+      items.add(itemAttrs);
+    }
+    return items;
+  }
+
+  /**
+   * The key of an item in the storage encoding.
+   */
+  private PdbItemDao.KeyPair keyPair(final PdbMetadata metadata, final Map<String, AttributeValue> key) {
+    return new PdbItemDao.KeyPair(
+        attributeValueConverter.extractKeyValue(key, metadata.hashKey(), metadata.hashKeyType()),
+        metadata.sortKey().map(sk -> attributeValueConverter.extractKeyValue(key, sk, metadata.sortKeyType())));
+  }
+
+  /**
+   * Waits for a sub-request, rethrowing its failure as is.
+   */
+  private static <T> T result(final Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted waiting for a batch read", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Batch write (put or delete) items to one or more tables. The valid requests of each table are written
+   * together in one transaction, as one upsert batch and one delete batch. Requests that fail validation, or
+   * that fail when a failed batch is retried item by item, are returned as unprocessed items.
    *
    * @param request the batch write item request
    * @return the batch write item response with unprocessed items if any failed
@@ -1062,8 +1738,9 @@ public class PdbItemManager {
       final List<WriteRequest> writeRequests = entry.getValue();
 
       // Verify table exists first - if table doesn't exist, all items for this table are unprocessed
+      final PdbMetadata metadata;
       try {
-        getTableMetadata(tableName);
+        metadata = getTableMetadata(tableName);
       } catch (ResourceNotFoundException e) {
         // Table doesn't exist - all items for this table are unprocessed
         log.warn("Table {} not found, marking all {} items as unprocessed", tableName, writeRequests.size());
@@ -1071,43 +1748,48 @@ public class PdbItemManager {
         continue;  // Skip to next table
       }
 
-      // Process each write request
+      // Validate each request up front; the ones that fail are unprocessed and the rest are written together
+      final List<BatchWrite> writes = new ArrayList<>();
       for (WriteRequest writeRequest : writeRequests) {
         try {
-          if (writeRequest.putRequest() != null) {
-            // Handle PutRequest
-            final PutRequest putRequest = writeRequest.putRequest();
-            putItem(PutItemRequest.builder()
-                .tableName(tableName)
-                .item(putRequest.item())
-                .build());
-
-            // Track capacity if requested
-            if (request.returnConsumedCapacity() != null &&
-                request.returnConsumedCapacity() != software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity.NONE) {
-              final double itemCapacity = capacityCalculator.calculateWriteCapacity(tableName, putRequest.item()).capacityUnits();
-              capacityByTable.merge(tableName, itemCapacity, Double::sum);
-            }
-          } else if (writeRequest.deleteRequest() != null) {
-            // Handle DeleteRequest
-            final DeleteRequest deleteRequest = writeRequest.deleteRequest();
-            deleteItem(DeleteItemRequest.builder()
-                .tableName(tableName)
-                .key(deleteRequest.key())
-                .build());
-
-            // Track capacity if requested - for delete, use 1 WCU per item
-            if (request.returnConsumedCapacity() != null &&
-                request.returnConsumedCapacity() != software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity.NONE) {
-              capacityByTable.merge(tableName, 1.0, Double::sum);
-            }
-          }
+          batchWrite(writeRequest, metadata).ifPresent(writes::add);
         } catch (Exception e) {
-          // Write failed - add to unprocessed items
           log.warn("Failed to write item to table {}: {}", tableName, e.getMessage());
           unprocessedItems.computeIfAbsent(tableName, k -> new ArrayList<>()).add(writeRequest);
         }
       }
+
+      List<BatchWrite> written;
+      if (writes.stream().map(BatchWrite::key).distinct().count() < writes.size()) {
+        // Writes to the same key depend on their order, so they keep the item-by-item path
+        written = writeOneByOne(tableName, writes, unprocessedItems);
+      } else {
+        try {
+          writeUnitRunner.inWriteUnit(unit -> {
+            writeBatch(unit, tableName, metadata, writes);
+            return null;
+          });
+          written = writes;
+        } catch (Exception e) {
+          // Nothing was written; retry one by one so only the requests that fail are unprocessed
+          log.warn("Batch write to table {} failed, retrying item by item: {}", tableName, e.getMessage());
+          written = writeOneByOne(tableName, writes, unprocessedItems);
+        }
+      }
+      for (BatchWrite write : writes) {
+        itemCache.invalidate(tableName, write.key().hashKey(), write.key().sortKey());
+      }
+
+      // Track capacity if requested - for delete, use 1 WCU per item
+      if (request.returnConsumedCapacity() != null &&
+          request.returnConsumedCapacity() != software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity.NONE) {
+        for (BatchWrite write : written) {
+          final double itemCapacity = write.item() != null
+              ? capacityCalculator.calculateWriteCapacity(tableName, write.item()).capacityUnits()
+              : 1.0;
+          capacityByTable.merge(tableName, itemCapacity, Double::sum);
+        }
+      }
     }
 
     // Build response
@@ -1141,9 +1823,129 @@ public class PdbItemManager {
     return responseBuilder.build();
   }
 
+  /**
+   * Validates one request of a batch write and extracts its key.
+   *
+   * @param writeRequest the write request
+   * @param metadata     the table metadata
+   * @return the write, or empty when the request has neither a put nor a delete
+   * @throws IllegalArgumentException if the item is invalid
+   */
+  private Optional<BatchWrite> batchWrite(final WriteRequest writeRequest, final PdbMetadata metadata) {
+    final Map<String, AttributeValue> attributes;
+    if (writeRequest.putRequest() != null) {
+      attributes = writeRequest.putRequest().item();
+      validateItemAttributes(attributes, metadata);
+      validateItemSize(attributes);
+    } else if (writeRequest.deleteRequest() != null) {
+      attributes = writeRequest.deleteRequest().key();
+    } else {
+      return Optional.empty();
+    }
+    return Optional.of(new BatchWrite(writeRequest, keyPair(metadata, attributes),
+        writeRequest.putRequest() != null ? attributes : null));
+  }
+
+  /**
+   * Writes the puts and deletes of one table in a write unit: the images they replace are read with one
+   * select when the table has a stream or GSIs, the puts go out as one upsert batch and the deletes as one
+   * delete batch, and the GSI and stream writes are queued on the unit, which batches them per table.
+   *
+   * @param unit      the write unit
+   * @param tableName the table name
+   * @param metadata  the table metadata
+   * @param writes    the writes, with distinct keys
+   */
+  private void writeBatch(final PdbWriteUnit unit,
+                          final String tableName,
+                          final PdbMetadata metadata,
+                          final List<BatchWrite> writes) {
+    final String itemTable = itemTableName(tableName);
+    final Map<PdbItemDao.KeyPair, Map<String, AttributeValue>> previous = new HashMap<>();
+    if (metadata.streamEnabled() || !metadata.globalSecondaryIndexes().isEmpty()) {
+      for (PdbItem item : itemDao.batchGet(unit.handle(), itemTable,
+          writes.stream().map(BatchWrite::key).toList())) {
+        previous.put(new PdbItemDao.KeyPair(item.hashKeyValue(), item.sortKeyValue()),
+            attributeValueConverter.fromJson(item.attributesJson()));
+      }
+    }
+
+    final List<PdbItem> puts = new ArrayList<>();
+    final List<PdbItemDao.KeyPair> deletes = new ArrayList<>();
+    for (BatchWrite write : writes) {
+      final Map<String, AttributeValue> previousItem = previous.get(write.key());
+      if (write.item() != null) {
+        final PdbItem pdbItem = itemConverter.toPdbItem(tableName,
+            encryptionHelper.encryptAttributes(write.item(), metadata), metadata);
+        puts.add(pdbItem);
+        if (previousItem != null) {
+          streamCaptureHelper.captureModify(unit, tableName, previousItem, write.item());
+          deleteFromGsiTables(unit, metadata, encryptionHelper.decryptAttributes(previousItem, metadata));
+        } else if (metadata.streamEnabled()) {
+          streamCaptureHelper.captureInsert(unit, tableName, write.item());
+        }
+        maintainGsiTables(unit, metadata, write.item(), pdbItem);
+      } else {
+        deletes.add(write.key());
+        if (previousItem != null) {
+          streamCaptureHelper.captureRemove(unit, tableName, previousItem);
+          deleteFromGsiTables(unit, metadata, previousItem);
+        }
+      }
+    }
+    itemDao.batchUpsert(unit.handle(), itemTable, puts);
+    itemDao.batchDelete(unit.handle(), itemTable, deletes);
+  }
+
+  /**
+   * Writes the requests of a batch write one at a time, each in its own write unit.
+   *
+   * @param tableName        the table name
+   * @param writes           the writes
+   * @param unprocessedItems the unprocessed items, given the requests that fail
+   * @return the writes that succeeded
+   */
+  private List<BatchWrite> writeOneByOne(final String tableName,
+                                         final List<BatchWrite> writes,
+                                         final Map<String, List<WriteRequest>> unprocessedItems) {
+    final List<BatchWrite> written = new ArrayList<>();
+    for (BatchWrite write : writes) {
+      try {
+        if (write.item() != null) {
+          putItem(PutItemRequest.builder()
+              .tableName(tableName)
+              .item(write.item())
+              .build());
+        } else {
+          deleteItem(DeleteItemRequest.builder()
+              .tableName(tableName)
+              .key(write.request().deleteRequest().key())
+              .build());
+        }
+        written.add(write);
+      } catch (Exception e) {
+        // Write failed - add to unprocessed items
+        log.warn("Failed to write item to table {}: {}", tableName, e.getMessage());
+        unprocessedItems.computeIfAbsent(tableName, k -> new ArrayList<>()).add(write.request());
+      }
+    }
+    return written;
+  }
+
+  /**
+   * One validated request of a batch write.
+   *
+   * @param request the write request
+   * @param key     the item key in the storage encoding
+   * @param item    the item to put, or null for a delete
+   */
+  private record BatchWrite(WriteRequest request, PdbItemDao.KeyPair key, Map<String, AttributeValue> item) {
+  }
+
   /**
    * Transactionally get items from one or more tables.
-   * All gets must succeed or the entire transaction fails.
+   * All gets must succeed or the entire transaction fails. The keys of each table are read with one select,
+   * and all of them inside a single REPEATABLE READ transaction, so the items come from one snapshot.
    *
    * @param request the transact get items request
    * @return the transact get items response with all retrieved items
@@ -1166,36 +1968,60 @@ public class PdbItemManager {
     final Map<String, Double> capacityByTable = new HashMap<>();
 
     try {
-      // Process each get operation
+      // Verify tables exist (will throw ResourceNotFoundException if not) and group the keys by table
+      final Map<String, PdbMetadata> metadataByTable = new HashMap<>();
+      final Map<String, List<PdbItemDao.KeyPair>> keysByTable = new LinkedHashMap<>();
+      final List<PdbItemDao.KeyPair> keys = new ArrayList<>();
       for (TransactGetItem transactGetItem : request.transactItems()) {
         final Get get = transactGetItem.get();
-        final String tableName = get.tableName();
-
-        // Verify table exists (will throw ResourceNotFoundException if not)
-        getTableMetadata(tableName);
+        final PdbMetadata metadata = metadataByTable.computeIfAbsent(get.tableName(), this::getTableMetadata);
+        final PdbItemDao.KeyPair key = keyPair(metadata, get.key());
+        keysByTable.computeIfAbsent(get.tableName(), k -> new ArrayList<>()).add(key);
+        keys.add(key);
+      }
 
-        // Execute the get operation
-        final GetItemRequest getRequest = GetItemRequest.builder()
-            .tableName(tableName)
-            .key(get.key())
-            .projectionExpression(get.projectionExpression())
-            .expressionAttributeNames(get.expressionAttributeNames())
-            .build();
+      // One select per table, all in one snapshot, so the items are read as of the same point in time
+      final Map<String, Map<PdbItemDao.KeyPair, PdbItem>> itemsByTable = jdbi.inTransaction(
+          TransactionIsolationLevel.REPEATABLE_READ, handle -> {
+            final Map<String, Map<PdbItemDao.KeyPair, PdbItem>> read = new HashMap<>();
+            for (Map.Entry<String, List<PdbItemDao.KeyPair>> entry : keysByTable.entrySet()) {
+              final Map<PdbItemDao.KeyPair, PdbItem> items = new HashMap<>();
+              for (PdbItem item : itemDao.batchGet(handle, itemTableName(entry.getKey()), entry.getValue())) {
+                items.put(new PdbItemDao.KeyPair(item.hashKeyValue(), item.sortKeyValue()), item);
+              }
+              read.put(entry.getKey(), items);
+            }
+            return read;
+          });
 
-        final GetItemResponse getResponse = getItem(getRequest);
+      for (int i = 0; i < request.transactItems().size(); i++) {
+        final Get get = request.transactItems().get(i).get();
+        final String tableName = get.tableName();
+        final PdbMetadata metadata = metadataByTable.get(tableName);
+        final PdbItem pdbItem = itemsByTable.get(tableName).get(keys.get(i));
+
+        Map<String, AttributeValue> item = null;
+        if (pdbItem != null) {
+          item = encryptionHelper.decryptAttributes(attributeValueConverter.fromJson(pdbItem.attributesJson()),
+              metadata);
+          if (isExpired(metadata, item)) {
+            // Expired items read as missing; the TTL sweep deletes them
+            item = null;
+          } else if (get.projectionExpression() != null && !get.projectionExpression().isBlank()) {
+            item = itemConverter.applyProjection(item, get.projectionExpression(), get.expressionAttributeNames());
+          }
+        }
 
         // Build item response
-        final ItemResponse itemResponse = ItemResponse.builder()
-            .item(getResponse.item())
-            .build();
-
-        responses.add(itemResponse);
+        responses.add(ItemResponse.builder()
+            .item(item)
+            .build());
 
         // Track capacity if requested
         if (request.returnConsumedCapacity() != null &&
             request.returnConsumedCapacity() != software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity.NONE &&
-            getResponse.item() != null && !getResponse.item().isEmpty()) {
-          final double itemCapacity = capacityCalculator.calculateReadCapacity(tableName, getResponse.item()).capacityUnits();
+            item != null && !item.isEmpty()) {
+          final double itemCapacity = capacityCalculator.calculateReadCapacity(tableName, item).capacityUnits();
           capacityByTable.merge(tableName, itemCapacity, Double::sum);
         }
       }
@@ -1380,7 +2206,46 @@ public class PdbItemManager {
           .message("Transaction cancelled due to internal error")
           .cancellationReasons(reason)
           .build();
+    } finally {
+      if (request.transactItems() != null) {
+        request.transactItems().forEach(this::invalidateCached);
+      }
+    }
+  }
+
+  /**
+   * Drops the item a transactional write touched from the near-cache. A key that cannot be read drops the
+   * whole table's items.
+   *
+   * @param transactWriteItem the transact write item
+   */
+  private void invalidateCached(final TransactWriteItem transactWriteItem) {
+    final String tableName;
+    final Map<String, AttributeValue> key;
+    if (transactWriteItem.put() != null) {
+      tableName = transactWriteItem.put().tableName();
+      key = transactWriteItem.put().item();
+    } else if (transactWriteItem.update() != null) {
+      tableName = transactWriteItem.update().tableName();
+      key = transactWriteItem.update().key();
+    } else if (transactWriteItem.delete() != null) {
+      tableName = transactWriteItem.delete().tableName();
+      key = transactWriteItem.delete().key();
+    } else {
+      return;
+    }
+    if (!itemCache.enabled(tableName)) {
+      return;
     }
+    tableManager.getPdbTable(tableName).ifPresent(metadata -> {
+      try {
+        itemCache.invalidate(tableName,
+            attributeValueConverter.extractKeyValue(key, metadata.hashKey(), metadata.hashKeyType()),
+            metadata.sortKey().map(sk -> attributeValueConverter.extractKeyValue(key, sk, metadata.sortKeyType())));
+      } catch (IllegalArgumentException e) {
+        itemCache.invalidateTable(tableName);
+      }
+    });
   }
 
   /**
@@ -1433,9 +2298,10 @@ public class PdbItemManager {
     final PdbMetadata metadata = getTableMetadata(tableName);
 
     // Extract key values
-    final String hashKeyValue = attributeValueConverter.extractKeyValue(item, metadata.hashKey());
+    final String hashKeyValue = attributeValueConverter.extractKeyValue(
+        item, metadata.hashKey(), metadata.hashKeyType());
     final Optional<String> sortKeyValue = metadata.sortKey().map(sk ->
-        attributeValueConverter.extractKeyValue(item, sk));
+        attributeValueConverter.extractKeyValue(item, sk, metadata.sortKeyType()));
 
     // Check if item exists (for condition evaluation)
     final String itemTableName = itemTableManager.getItemTableName(tableName);
@@ -1483,9 +2349,10 @@ public class PdbItemManager {
     final PdbMetadata metadata = getTableMetadata(tableName);
 
     // Extract key values
-    final String hashKeyValue = attributeValueConverter.extractKeyValue(key, metadata.hashKey());
+    final String hashKeyValue = attributeValueConverter.extractKeyValue(
+        key, metadata.hashKey(), metadata.hashKeyType());
     final Optional<String> sortKeyValue = metadata.sortKey().map(sk ->
-        attributeValueConverter.extractKeyValue(key, sk));
+        attributeValueConverter.extractKeyValue(key, sk, metadata.sortKeyType()));
 
     // Get existing item
     final String itemTableName = itemTableManager.getItemTableName(tableName);
@@ -1541,9 +2408,10 @@ public class PdbItemManager {
     final PdbMetadata metadata = getTableMetadata(tableName);
 
     // Extract key values
-    final String hashKeyValue = attributeValueConverter.extractKeyValue(key, metadata.hashKey());
+    final String hashKeyValue = attributeValueConverter.extractKeyValue(
+        key, metadata.hashKey(), metadata.hashKeyType());
     final Optional<String> sortKeyValue = metadata.sortKey().map(sk ->
-        attributeValueConverter.extractKeyValue(key, sk));
+        attributeValueConverter.extractKeyValue(key, sk, metadata.sortKeyType()));
 
     // Get existing item for condition check
     final String itemTableName = itemTableManager.getItemTableName(tableName);
@@ -1583,9 +2451,10 @@ public class PdbItemManager {
     final PdbMetadata metadata = getTableMetadata(tableName);
 
     // Extract key values
-    final String hashKeyValue = attributeValueConverter.extractKeyValue(key, metadata.hashKey());
+    final String hashKeyValue = attributeValueConverter.extractKeyValue(
+        key, metadata.hashKey(), metadata.hashKeyType());
     final Optional<String> sortKeyValue = metadata.sortKey().map(sk ->
-        attributeValueConverter.extractKeyValue(key, sk));
+        attributeValueConverter.extractKeyValue(key, sk, metadata.sortKeyType()));
 
     // Get the item to check condition against
     final String itemTableName = itemTableManager.getItemTableName(tableName);
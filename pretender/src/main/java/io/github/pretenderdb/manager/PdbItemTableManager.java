@@ -1,5 +1,6 @@
 package io.github.pretenderdb.manager;
 
+import io.github.pretenderdb.dao.PdbItemStatements;
 import io.github.pretenderdb.dbu.model.Database;
 import io.github.pretenderdb.model.PdbGlobalSecondaryIndex;
 import io.github.pretenderdb.model.PdbMetadata;
@@ -22,18 +23,31 @@ public class PdbItemTableManager {
 
   private final Jdbi jdbi;
   private final Database database;
+  private final PdbItemStatements statements;
 
   /**
-   * Instantiates a new Pdb item table manager.
+   * Instantiates a new Pdb item table manager with its own statement registry.
    *
    * @param jdbi     the jdbi
    * @param database the database configuration
    */
-  @Inject
   public PdbItemTableManager(final Jdbi jdbi, final Database database) {
-    log.info("PdbItemTableManager({}, {})", jdbi, database);
+    this(jdbi, database, new PdbItemStatements(database));
+  }
+
+  /**
+   * Instantiates a new Pdb item table manager.
+   *
+   * @param jdbi       the jdbi
+   * @param database   the database configuration
+   * @param statements the per-table statement registry, cleared when a table is dropped
+   */
+  @Inject
+  public PdbItemTableManager(final Jdbi jdbi, final Database database, final PdbItemStatements statements) {
+    log.info("PdbItemTableManager({}, {}, {})", jdbi, database, statements);
     this.jdbi = jdbi;
     this.database = database;
+    this.statements = statements;
   }
 
   /**
@@ -64,6 +78,20 @@ public class PdbItemTableManager {
         log.warn("Failed to create index for table {}: {}", metadata.name(), e.getMessage());
       }
 
+      // Index the md5 of the hash key so parallel scan segments read disjoint ranges (PostgreSQL, best effort)
+      if (database.usePostgresql()) {
+        try {
+          final String indexName = INDEX_PREFIX + sanitizeTableName(metadata.name()) + "_segment";
+          handle.execute(String.format(
+              "CREATE INDEX \"%s\" ON \"%s\" ((md5(hash_key_value) COLLATE \"C\"), hash_key_value, sort_key_value)",
+              indexName,
+              itemTableName
+          ));
+        } catch (Exception e) {
+          log.warn("Failed to create segment index for table {}: {}", metadata.name(), e.getMessage());
+        }
+      }
+
       // Create GSI tables
       for (PdbGlobalSecondaryIndex gsi : metadata.globalSecondaryIndexes()) {
         createGsiTable(handle, metadata.name(), gsi, metadata);
@@ -114,6 +142,7 @@ public class PdbItemTableManager {
 
       log.debug("Dropped item table: {}", itemTableName);
     });
+    statements.evict(itemTableName);
   }
 
   /**
@@ -204,8 +233,8 @@ public class PdbItemTableManager {
     // Build the SQL
     return String.format("""
             CREATE TABLE IF NOT EXISTS %s (
-              hash_key_value VARCHAR(2048) NOT NULL,
-              sort_key_value VARCHAR(2048) %s,
+              hash_key_value %s NOT NULL,
+              sort_key_value %s %s,
               attributes_json %s NOT NULL,
               create_date TIMESTAMP NOT NULL,
               update_date TIMESTAMP NOT NULL,
@@ -213,6 +242,8 @@ public class PdbItemTableManager {
             )
             """,
         quotedTableName,
+        keyColumnType(),
+        keyColumnType(),
         hasSortKey ? "NOT NULL" : "NULL",
         jsonColumnType,
         primaryKeyConstraint);
@@ -242,19 +273,30 @@ public class PdbItemTableManager {
     return String.format(
         """
             CREATE TABLE IF NOT EXISTS %s (
-                hash_key_value VARCHAR(2048) NOT NULL,
-                sort_key_value VARCHAR(2048) NOT NULL,
+                hash_key_value %s NOT NULL,
+                sort_key_value %s NOT NULL,
                 attributes_json %s NOT NULL,
                 create_date TIMESTAMP NOT NULL,
                 update_date TIMESTAMP NOT NULL,
                 %s)
             """,
         quotedTableName,
+        keyColumnType(),
+        keyColumnType(),
         jsonColumnType,
         primaryKeyConstraint
     );
   }
 
+  /**
+   * The type of the key columns. Key conditions, begins_with ranges and pagination compare keys by code point,
+   * so on PostgreSQL the columns use the "C" collation whatever the database default; HSQLDB already compares
+   * that way.
+   */
+  private String keyColumnType() {
+    return database.usePostgresql() ? "VARCHAR(2048) COLLATE \"C\"" : "VARCHAR(2048)";
+  }
+
   /**
    * Sanitizes a table name to prevent SQL injection and ensure valid identifier.
    * Only allows alphanumeric characters, underscores, and hyphens.
@@ -1,10 +1,15 @@
 package io.github.pretenderdb.manager;
 
+import io.github.pretenderdb.dao.PdbItemCache;
 import io.github.pretenderdb.dao.PdbMetadataDao;
+import io.github.pretenderdb.dbu.invalidation.InvalidationBus;
 import io.github.pretenderdb.model.PdbMetadata;
 import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Clock;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.jdbi.v3.core.statement.UnableToExecuteStatementException;
@@ -12,16 +17,38 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The type PdbMetadata manager.
+ * The type PdbMetadata manager. Table metadata is cached in process once read; every change made through this
+ * manager drops the cached copy after the change is written, and a read that raced the change is not cached.
+ * Changes are also published on the {@link InvalidationBus}, so other processes sharing the database drop
+ * their copy too.
+ *
+ * <p>With the bus disabled, changes made by other processes are not announced, so a cached copy is only trusted
+ * for {@link #REVALIDATE_MILLIS} after it was read or last checked. It is then checked against the table's
+ * METADATA_VERSION and create date, and read again when the table was changed, deleted or recreated.</p>
  */
 @Singleton
 public class PdbTableManager {
 
   private static final Logger log = LoggerFactory.getLogger(PdbTableManager.class);
 
+  /**
+   * The invalidation bus topic of table metadata; keys are table names.
+   */
+  public static final String INVALIDATION_TOPIC = "pretender.table";
+
+  /**
+   * How long a cached copy is trusted before it is checked again, when the invalidation bus is disabled.
+   */
+  public static final long REVALIDATE_MILLIS = 1_000;
+
   private final PdbMetadataDao pdbMetadataDao;
   private final PdbItemTableManager pdbItemTableManager;
   private final PdbStreamTableManager pdbStreamTableManager;
+  private final PdbItemCache itemCache;
+  private final InvalidationBus invalidationBus;
+  private final Clock clock;
+  private final Map<String, Cached> metadataCache = new ConcurrentHashMap<>();
+  private long invalidations;
 
   /**
    * Instantiates a new PdbMetadata manager.
@@ -29,15 +56,36 @@ public class PdbTableManager {
    * @param pdbMetadataDao        the dao
    * @param pdbItemTableManager   the item table manager
    * @param pdbStreamTableManager the stream table manager
+   * @param itemCache             the item near-cache
+   * @param invalidationBus       the invalidation bus
+   * @param clock                 the clock
    */
   @Inject
   public PdbTableManager(final PdbMetadataDao pdbMetadataDao,
                          final PdbItemTableManager pdbItemTableManager,
-                         final PdbStreamTableManager pdbStreamTableManager) {
-    log.info("PdbTableManager({}, {}, {})", pdbMetadataDao, pdbItemTableManager, pdbStreamTableManager);
+                         final PdbStreamTableManager pdbStreamTableManager,
+                         final PdbItemCache itemCache,
+                         final InvalidationBus invalidationBus,
+                         final Clock clock) {
+    log.info("PdbTableManager({}, {}, {}, {}, {}, {})", pdbMetadataDao, pdbItemTableManager, pdbStreamTableManager,
+        itemCache, invalidationBus, clock);
     this.pdbMetadataDao = pdbMetadataDao;
     this.pdbItemTableManager = pdbItemTableManager;
     this.pdbStreamTableManager = pdbStreamTableManager;
+    this.itemCache = itemCache;
+    this.invalidationBus = invalidationBus;
+    this.clock = clock;
+    invalidationBus.subscribe(INVALIDATION_TOPIC, new InvalidationBus.Listener() {
+      @Override
+      public void invalidate(final String key) {
+        PdbTableManager.this.invalidate(key);
+      }
+
+      @Override
+      public void invalidateAll() {
+        PdbTableManager.this.invalidateAll();
+      }
+    });
   }
 
   /**
@@ -54,6 +102,7 @@ public class PdbTableManager {
     }
     try {
       final boolean inserted = pdbMetadataDao.insert(pdbMetadata);
+      changed(pdbMetadata.name());
       if (inserted) {
         // Create the corresponding item storage table
         pdbItemTableManager.createItemTable(pdbMetadata);
@@ -79,7 +128,24 @@ public class PdbTableManager {
    */
   public Optional<PdbMetadata> getPdbTable(final String name) {
     log.trace("getPdbTable({})", name);
-    return pdbMetadataDao.getTable(name);
+    final Cached cached = metadataCache.get(name);
+    if (cached != null) {
+      if (invalidationBus.enabled() || clock.millis() - cached.checkedAtMillis() < REVALIDATE_MILLIS) {
+        return Optional.of(cached.metadata());
+      }
+      final long seen = invalidations();
+      final PdbMetadata metadata = cached.metadata();
+      if (pdbMetadataDao.getMetadataVersion(name, metadata.createDate())
+          .filter(version -> version == metadata.metadataVersion())
+          .isPresent()) {
+        cache(metadata, seen);
+        return Optional.of(metadata);
+      }
+    }
+    final long seen = invalidations();
+    final Optional<PdbMetadata> metadata = pdbMetadataDao.getTable(name);
+    metadata.ifPresent(table -> cache(table, seen));
+    return metadata;
   }
 
   /**
@@ -91,9 +157,11 @@ public class PdbTableManager {
   public boolean deletePdbTable(final String name) {
     log.trace("deletePdbTable({})", name);
     final boolean deleted = pdbMetadataDao.delete(name);
+    changed(name);
     if (deleted) {
       // Drop the corresponding item storage table
       pdbItemTableManager.dropItemTable(name);
+      itemCache.invalidateTable(name);
       log.info("Deleted DynamoDB table and item storage table: {}", name);
     }
     return deleted;
@@ -118,6 +186,7 @@ public class PdbTableManager {
   public void enableTtl(final String tableName, final String ttlAttributeName) {
     log.trace("enableTtl({}, {})", tableName, ttlAttributeName);
     pdbMetadataDao.updateTtl(tableName, ttlAttributeName, true);
+    changed(tableName);
     log.info("Enabled TTL on table {} with attribute {}", tableName, ttlAttributeName);
   }
 
@@ -129,6 +198,7 @@ public class PdbTableManager {
   public void disableTtl(final String tableName) {
     log.trace("disableTtl({})", tableName);
     pdbMetadataDao.updateTtl(tableName, null, false);
+    changed(tableName);
     log.info("Disabled TTL on table {}", tableName);
   }
 
@@ -156,6 +226,7 @@ public class PdbTableManager {
 
     // Update metadata
     pdbMetadataDao.updateStreamConfig(tableName, true, streamViewType, streamArn, streamLabel);
+    changed(tableName);
 
     log.info("Enabled DynamoDB Streams on table {} with viewType {} (ARN: {})",
         tableName, streamViewType, streamArn);
@@ -170,10 +241,48 @@ public class PdbTableManager {
   public void disableStream(final String tableName) {
     log.trace("disableStream({})", tableName);
     pdbMetadataDao.updateStreamConfig(tableName, false, null, null, null);
+    changed(tableName);
     log.info("Disabled DynamoDB Streams on table {}", tableName);
     // Note: Not dropping stream table - stream records should persist
   }
 
+  private synchronized long invalidations() {
+    return invalidations;
+  }
+
+  /**
+   * Caches metadata read from the database, unless some table was changed since the read started.
+   */
+  private synchronized void cache(final PdbMetadata metadata, final long seen) {
+    if (invalidations == seen) {
+      metadataCache.put(metadata.name(), new Cached(metadata, clock.millis()));
+    }
+  }
+
+  private synchronized void invalidate(final String name) {
+    invalidations++;
+    metadataCache.remove(name);
+  }
+
+  private synchronized void invalidateAll() {
+    invalidations++;
+    metadataCache.clear();
+  }
+
+  /**
+   * Drops the cached copy after this process changed the table, here and in the other processes.
+   */
+  private void changed(final String name) {
+    invalidate(name);
+    invalidationBus.publish(INVALIDATION_TOPIC, name);
+  }
+
+  /**
+   * A cached copy and when it was read or last checked against the database.
+   */
+  private record Cached(PdbMetadata metadata, long checkedAtMillis) {
+  }
+
   /**
    * Generates a stream ARN for a table.
    * Format: arn:aws:dynamodb:us-east-1:123456789012:table/{tableName}/stream/{timestamp}
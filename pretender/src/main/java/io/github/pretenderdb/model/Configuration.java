@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.github.pretenderdb.dbu.model.Database;
+import java.util.List;
+import java.util.Optional;
 import org.immutables.value.Value;
 
 /**
@@ -22,4 +24,19 @@ public interface Configuration {
    */
   Database database();
 
+  /**
+   * Maximum number of calls the async client runs at once. Each running call holds a database connection, so
+   * when empty it is the connection pool size; further calls wait for a slot instead of queueing on the pool.
+   *
+   * @return the async concurrency
+   */
+  Optional<Integer> asyncConcurrency();
+
+  /**
+   * Tables whose items are kept in the near-cache, see {@link ItemCacheConfig}. Empty by default.
+   *
+   * @return the item caches
+   */
+  List<ItemCacheConfig> itemCaches();
+
 }
@@ -0,0 +1,44 @@
+package io.github.pretenderdb.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+/**
+ * Near-cache settings for one DynamoDB table. Tables without one are never cached.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableItemCacheConfig.class)
+@JsonDeserialize(builder = ImmutableItemCacheConfig.Builder.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public interface ItemCacheConfig {
+
+  /**
+   * The table name this configuration applies to.
+   *
+   * @return the table name
+   */
+  String tableName();
+
+  /**
+   * Maximum number of items kept; the least recently read ones are evicted first.
+   *
+   * @return the maximum size
+   */
+  @Value.Default
+  default int maximumSize() {
+    return 10_000;
+  }
+
+  /**
+   * How long a cached item may be served after it was read from the database, in milliseconds. Bounds how
+   * stale a hit can be when the table is written by something other than this instance.
+   *
+   * @return the expire after write
+   */
+  @Value.Default
+  default long expireAfterWriteMillis() {
+    return 60_000L;
+  }
+}
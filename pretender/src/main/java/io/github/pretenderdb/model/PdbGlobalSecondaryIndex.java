@@ -35,6 +35,20 @@ public interface PdbGlobalSecondaryIndex {
    */
   Optional<String> sortKey();
 
+  /**
+   * The scalar type (S, N or B) of the hash key, empty when not recorded.
+   *
+   * @return the hash key type
+   */
+  Optional<String> hashKeyType();
+
+  /**
+   * The scalar type (S, N or B) of the sort key, empty when not recorded.
+   *
+   * @return the sort key type
+   */
+  Optional<String> sortKeyType();
+
   /**
    * The projection type for this GSI.
    * Valid values: ALL, KEYS_ONLY, INCLUDE
@@ -36,6 +36,21 @@ public interface PdbMetadata {
    */
   Optional<String> sortKey();
 
+  /**
+   * The scalar type (S, N or B) of the hash key, from the table's AttributeDefinitions. Empty for tables
+   * created before key types were recorded, whose keys are stored as plain strings.
+   *
+   * @return the hash key type
+   */
+  Optional<String> hashKeyType();
+
+  /**
+   * The scalar type (S, N or B) of the sort key. See {@link #hashKeyType()}.
+   *
+   * @return the sort key type
+   */
+  Optional<String> sortKeyType();
+
   /**
    * Global Secondary Indexes for this table.
    *
@@ -104,4 +119,14 @@ public interface PdbMetadata {
    */
   Instant createDate();
 
+  /**
+   * Metadata version, bumped by every TTL or stream change to the table. A new table starts at 0.
+   *
+   * @return the metadata version
+   */
+  @Value.Default
+  default long metadataVersion() {
+    return 0L;
+  }
+
 }
@@ -1,6 +1,7 @@
 package io.github.pretenderdb.service;
 
 import io.github.pretenderdb.converter.AttributeValueConverter;
+import io.github.pretenderdb.dao.PdbItemCache;
 import io.github.pretenderdb.dao.PdbItemDao;
 import io.github.pretenderdb.manager.PdbItemTableManager;
 import io.github.pretenderdb.manager.PdbTableManager;
@@ -36,6 +37,7 @@ public class TtlCleanupService {
   private final PdbTableManager tableManager;
   private final PdbItemTableManager itemTableManager;
   private final PdbItemDao itemDao;
+  private final PdbItemCache itemCache;
   private final AttributeValueConverter attributeValueConverter;
   private final Clock clock;
 
@@ -50,6 +52,7 @@ public class TtlCleanupService {
    * @param tableManager            the table manager
    * @param itemTableManager        the item table manager
    * @param itemDao                 the item DAO
+   * @param itemCache               the item near-cache
    * @param attributeValueConverter the attribute value converter
    * @param clock                   the clock
    */
@@ -57,9 +60,10 @@ public class TtlCleanupService {
   public TtlCleanupService(final PdbTableManager tableManager,
                            final PdbItemTableManager itemTableManager,
                            final PdbItemDao itemDao,
+                           final PdbItemCache itemCache,
                            final AttributeValueConverter attributeValueConverter,
                            final Clock clock) {
-    this(tableManager, itemTableManager, itemDao, attributeValueConverter, clock,
+    this(tableManager, itemTableManager, itemDao, itemCache, attributeValueConverter, clock,
         DEFAULT_CLEANUP_INTERVAL_SECONDS, DEFAULT_BATCH_SIZE);
   }
 
@@ -69,6 +73,7 @@ public class TtlCleanupService {
    * @param tableManager            the table manager
    * @param itemTableManager        the item table manager
    * @param itemDao                 the item DAO
+   * @param itemCache               the item near-cache
    * @param attributeValueConverter the attribute value converter
    * @param clock                   the clock
    * @param cleanupIntervalSeconds  the cleanup interval in seconds
@@ -77,16 +82,18 @@ public class TtlCleanupService {
   public TtlCleanupService(final PdbTableManager tableManager,
                            final PdbItemTableManager itemTableManager,
                            final PdbItemDao itemDao,
+                           final PdbItemCache itemCache,
                            final AttributeValueConverter attributeValueConverter,
                            final Clock clock,
                            final long cleanupIntervalSeconds,
                            final int batchSize) {
-    log.info("TtlCleanupService({}, {}, {}, {}, {}, interval={}s, batch={})",
-        tableManager, itemTableManager, itemDao, attributeValueConverter, clock,
+    log.info("TtlCleanupService({}, {}, {}, {}, {}, {}, interval={}s, batch={})",
+        tableManager, itemTableManager, itemDao, itemCache, attributeValueConverter, clock,
         cleanupIntervalSeconds, batchSize);
     this.tableManager = tableManager;
     this.itemTableManager = itemTableManager;
     this.itemDao = itemDao;
+    this.itemCache = itemCache;
     this.attributeValueConverter = attributeValueConverter;
     this.clock = clock;
     this.cleanupIntervalSeconds = cleanupIntervalSeconds;
@@ -245,6 +252,7 @@ public class TtlCleanupService {
       try {
         // Delete from main table
         itemDao.delete(itemTableName, item.hashKeyValue(), item.sortKeyValue());
+        itemCache.invalidate(metadata.name(), item.hashKeyValue(), item.sortKeyValue());
 
         // Delete from GSI tables
         final Map<String, AttributeValue> attributes = attributeValueConverter.fromJson(item.attributesJson());
@@ -281,9 +289,10 @@ public class TtlCleanupService {
         }
 
         // Extract GSI key values
-        final String gsiHashKeyValue = attributeValueConverter.extractKeyValue(itemAttrs, gsi.hashKey());
+        final String gsiHashKeyValue = attributeValueConverter.extractKeyValue(
+            itemAttrs, gsi.hashKey(), gsi.hashKeyType());
         final Optional<String> gsiSortKeyValue = gsi.sortKey().map(sk ->
-            attributeValueConverter.extractKeyValue(itemAttrs, sk));
+            attributeValueConverter.extractKeyValue(itemAttrs, sk, gsi.sortKeyType()));
 
         // Build composite sort key
         final String compositeSortKey = buildCompositeSortKey(
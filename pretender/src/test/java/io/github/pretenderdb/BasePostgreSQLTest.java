@@ -28,6 +28,7 @@ import io.github.pretenderdb.dao.GsiListColumnMapper;
 import io.github.pretenderdb.model.Configuration;
 import io.github.pretenderdb.model.ImmutableConfiguration;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.UUID;
 import org.jdbi.v3.core.Jdbi;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -76,6 +77,22 @@ public abstract class BasePostgreSQLTest {
     component = PretenderComponent.instance(configuration);
   }
 
+  /**
+   * A component over a fresh in-memory HSQLDB database, where expressions are never compiled to SQL and
+   * always run on the Java path. Tests of the PostgreSQL pushdowns compare their results with it.
+   *
+   * @return the HSQLDB component
+   */
+  protected PretenderComponent hsqldbComponent() {
+    return PretenderComponent.instance(ImmutableConfiguration.builder()
+        .database(ImmutableDatabase.builder()
+            .url("jdbc:hsqldb:mem:" + getClass().getSimpleName() + UUID.randomUUID())
+            .username("SA")
+            .password("")
+            .build())
+        .build());
+  }
+
   @AfterEach
   void cleanupPostgreSQL() {
     if (jdbi != null) {
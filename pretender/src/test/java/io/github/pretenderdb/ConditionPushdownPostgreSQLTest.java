@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2023. Ned Wolpert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pretenderdb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.pretenderdb.expression.ConditionExpressionCompiler;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+/**
+ * Conditional writes whose condition runs in the WHERE clause on PostgreSQL: each must succeed or fail, and
+ * leave the item, as the Java path decides on HSQLDB.
+ */
+class ConditionPushdownPostgreSQLTest extends BasePostgreSQLTest {
+
+  private static final String TABLE_NAME = "ConditionPushdown";
+
+  private DynamoDbClient postgresql;
+  private DynamoDbClient hsqldb;
+
+  @BeforeEach
+  void setupTables() {
+    postgresql = component.dynamoDbPretenderClient();
+    hsqldb = hsqldbComponent().dynamoDbPretenderClient();
+    for (DynamoDbClient client : List.of(postgresql, hsqldb)) {
+      client.createTable(CreateTableRequest.builder()
+          .tableName(TABLE_NAME)
+          .keySchema(KeySchemaElement.builder().attributeName("pk").keyType(KeyType.HASH).build())
+          .attributeDefinitions(
+              AttributeDefinition.builder().attributeName("pk").attributeType(ScalarAttributeType.S).build())
+          .build());
+    }
+  }
+
+  @Test
+  void attributeNotExists_onMissingAndExistingItem_withPostgreSQL() {
+    final Map<String, AttributeValue> values = Map.of();
+    final String condition = "attribute_not_exists(pk)";
+    final Consumer<DynamoDbClient> put = client -> client.putItem(PutItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .item(Map.of("pk", s("new"), "v", s("first")))
+        .conditionExpression(condition)
+        .build());
+
+    assertCompiled(condition, values, Map.of());
+    // Missing: the insert goes in; existing: ON CONFLICT ... DO UPDATE ... WHERE finds the condition false
+    assertThat(written(put)).isTrue();
+    assertThat(written(put)).isFalse();
+    assertSameItem("new");
+  }
+
+  @Test
+  void versionCheck_optimisticLock_withPostgreSQL() {
+    putBoth(Map.of("pk", s("locked"), "version", n("1")));
+    final String condition = "#v = :expected";
+    final Map<String, String> names = Map.of("#v", "version");
+
+    final Map<String, AttributeValue> current = Map.of(":expected", n("1"));
+    assertCompiled(condition, current, names);
+    final Consumer<DynamoDbClient> put = client -> client.putItem(PutItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .item(Map.of("pk", s("locked"), "version", n("2")))
+        .conditionExpression(condition)
+        .expressionAttributeNames(names)
+        .expressionAttributeValues(current)
+        .build());
+    assertThat(written(put)).isTrue();
+    // The second writer still holds version 1
+    assertThat(written(put)).isFalse();
+    assertSameItem("locked");
+
+    final Map<String, AttributeValue> stale = Map.of(":expected", n("1"), ":next", n("3"));
+    assertThat(written(client -> client.updateItem(UpdateItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .key(Map.of("pk", s("locked")))
+        .updateExpression("SET #v = :next")
+        .conditionExpression(condition)
+        .expressionAttributeNames(names)
+        .expressionAttributeValues(stale)
+        .build()))).isFalse();
+    assertThat(written(client -> client.deleteItem(DeleteItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .key(Map.of("pk", s("locked")))
+        .conditionExpression(condition)
+        .expressionAttributeNames(names)
+        .expressionAttributeValues(Map.of(":expected", n("2")))
+        .build()))).isTrue();
+    assertSameItem("locked");
+  }
+
+  @Test
+  void comparison_withAttributeOfOtherType_withPostgreSQL() {
+    putBoth(Map.of("pk", s("typed"), "count", n("5"), "label", s("\uD83D\uDE00")));
+
+    // A number compared with a string: the Java path takes it as "less than"
+    final Map<String, Boolean> expected = Map.of(
+        "#a < :v", true, "#a <> :v", true, "#a <= :v", true, "#a = :v", false, "#a > :v", false);
+    for (Map.Entry<String, Boolean> comparison : expected.entrySet()) {
+      assertThat(conditionalUpdate("count", comparison.getKey(), s("abc")))
+          .as(comparison.getKey()).isEqualTo(comparison.getValue());
+      assertThat(conditionalUpdate("label", comparison.getKey(), n("1")))
+          .as(comparison.getKey()).isEqualTo(comparison.getValue());
+    }
+    // Strings compare by code point, so U+1F600 sorts above U+E000
+    assertThat(conditionalUpdate("label", "#a > :v", s("\uE000"))).isTrue();
+    assertThat(conditionalUpdate("label", "#a < :v", s("\uE000"))).isFalse();
+    assertSameItem("typed");
+  }
+
+  /**
+   * Runs an update of the "typed" item under the condition on both databases; both must agree.
+   */
+  private boolean conditionalUpdate(final String attribute, final String condition, final AttributeValue value) {
+    final Map<String, String> names = Map.of("#a", attribute);
+    final Map<String, AttributeValue> values = Map.of(":v", value, ":t", s(condition));
+    assertCompiled(condition, values, names);
+    return written(client -> client.updateItem(UpdateItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .key(Map.of("pk", s("typed")))
+        .updateExpression("SET touched = :t")
+        .conditionExpression(condition)
+        .expressionAttributeNames(names)
+        .expressionAttributeValues(values)
+        .build()));
+  }
+
+  private void assertCompiled(final String condition,
+                              final Map<String, AttributeValue> values,
+                              final Map<String, String> names) {
+    assertThat(new ConditionExpressionCompiler(configuration.database()).compile(condition, values, names))
+        .as("compiled to SQL: %s", condition).isPresent();
+  }
+
+  /**
+   * Runs the write on both databases and checks they agree on whether the condition held.
+   */
+  private boolean written(final Consumer<DynamoDbClient> write) {
+    final boolean compiled = succeeds(write, postgresql);
+    assertThat(compiled).as("PostgreSQL agrees with HSQLDB").isEqualTo(succeeds(write, hsqldb));
+    return compiled;
+  }
+
+  private boolean succeeds(final Consumer<DynamoDbClient> write, final DynamoDbClient client) {
+    try {
+      write.accept(client);
+      return true;
+    } catch (ConditionalCheckFailedException e) {
+      return false;
+    }
+  }
+
+  private void putBoth(final Map<String, AttributeValue> item) {
+    for (DynamoDbClient client : List.of(postgresql, hsqldb)) {
+      client.putItem(PutItemRequest.builder().tableName(TABLE_NAME).item(item).build());
+    }
+  }
+
+  private void assertSameItem(final String key) {
+    final GetItemRequest request = GetItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .key(Map.of("pk", s(key)))
+        .consistentRead(true)
+        .build();
+    assertThat(postgresql.getItem(request).item()).isEqualTo(hsqldb.getItem(request).item());
+  }
+
+  private static AttributeValue s(final String value) {
+    return AttributeValue.builder().s(value).build();
+  }
+
+  private static AttributeValue n(final String value) {
+    return AttributeValue.builder().n(value).build();
+  }
+}
@@ -0,0 +1,119 @@
+package io.github.pretenderdb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import io.github.pretenderdb.dbu.model.ImmutableConnectionPool;
+import io.github.pretenderdb.dbu.model.ImmutableDatabase;
+import io.github.pretenderdb.model.Configuration;
+import io.github.pretenderdb.model.ImmutableConfiguration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+
+@ExtendWith(MockitoExtension.class)
+class DynamoDbAsyncPretenderClientTest {
+
+  @Mock private DynamoDbPretenderClient syncClient;
+
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void concurrency_defaultsToPoolSize() {
+    assertThat(client(configuration(3, null)).concurrency()).isEqualTo(3);
+    assertThat(client(configuration(3, 7)).concurrency()).isEqualTo(7);
+  }
+
+  @Test
+  void putItem_runsAtMostConcurrencyCallsAtOnce() {
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    when(syncClient.putItem(any(PutItemRequest.class))).thenAnswer(invocation -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      Thread.sleep(20);
+      running.decrementAndGet();
+      return PutItemResponse.builder().build();
+    });
+    final DynamoDbAsyncPretenderClient client = client(configuration(2, null));
+
+    final List<CompletableFuture<PutItemResponse>> futures = IntStream.range(0, 10)
+        .mapToObj(i -> client.putItem(PutItemRequest.builder().tableName("t").build()))
+        .toList();
+    CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+    assertThat(maxRunning.get()).isEqualTo(2);
+  }
+
+  @Test
+  void putItem_failureCompletesExceptionally() {
+    when(syncClient.putItem(any(PutItemRequest.class)))
+        .thenThrow(ResourceNotFoundException.builder().message("Table not found").build());
+
+    assertThatThrownBy(() -> client(configuration(1, null))
+        .putItem(PutItemRequest.builder().tableName("t").build()).join())
+        .isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(ResourceNotFoundException.class);
+  }
+
+  @Test
+  void close_shutsDownExecutorAfterRunningCalls() {
+    when(syncClient.putItem(any(PutItemRequest.class))).thenReturn(PutItemResponse.builder().build());
+    final DynamoDbAsyncPretenderClient client = client(configuration(1, null));
+    final CompletableFuture<PutItemResponse> before = client.putItem(PutItemRequest.builder().tableName("t").build());
+
+    client.close();
+
+    assertThat(before.join()).isNotNull();
+    assertThat(executor.isShutdown()).isTrue();
+  }
+
+  @Test
+  void close_laterCallsReturnFailedFuture() {
+    final DynamoDbAsyncPretenderClient client = client(configuration(1, null));
+    client.close();
+
+    final CompletableFuture<PutItemResponse> after = client.putItem(PutItemRequest.builder().tableName("t").build());
+
+    assertThat(after).isCompletedExceptionally();
+    assertThatThrownBy(after::join)
+        .isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(RejectedExecutionException.class);
+  }
+
+  private DynamoDbAsyncPretenderClient client(final Configuration configuration) {
+    return new DynamoDbAsyncPretenderClient(syncClient, configuration, executor);
+  }
+
+  private Configuration configuration(final int poolSize, final Integer asyncConcurrency) {
+    return ImmutableConfiguration.builder()
+        .database(ImmutableDatabase.builder()
+            .url("jdbc:hsqldb:mem:test")
+            .username("SA")
+            .password("")
+            .connectionPool(ImmutableConnectionPool.builder().maximumPoolSize(poolSize).build())
+            .build())
+        .asyncConcurrency(Optional.ofNullable(asyncConcurrency))
+        .build();
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2023. Ned Wolpert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pretenderdb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.pretenderdb.expression.ConditionExpressionCompiler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+/**
+ * Filtered queries and scans run the filter inside the page window query on PostgreSQL. Each page must count,
+ * scan and end where the Java filter over the same page ends on HSQLDB, including when the limit cuts the
+ * page inside a run of filtered-out rows.
+ */
+class FilteredPagePostgreSQLTest extends BasePostgreSQLTest {
+
+  private static final String TABLE_NAME = "FilteredPage";
+  private static final String FILTER = "kind = :keep";
+  private static final Map<String, AttributeValue> VALUES = Map.of(":keep", s("keep"));
+
+  private DynamoDbClient postgresql;
+  private DynamoDbClient hsqldb;
+
+  @BeforeEach
+  void setupTable() {
+    postgresql = component.dynamoDbPretenderClient();
+    hsqldb = hsqldbComponent().dynamoDbPretenderClient();
+    for (DynamoDbClient client : List.of(postgresql, hsqldb)) {
+      client.createTable(CreateTableRequest.builder()
+          .tableName(TABLE_NAME)
+          .keySchema(
+              KeySchemaElement.builder().attributeName("pk").keyType(KeyType.HASH).build(),
+              KeySchemaElement.builder().attributeName("sk").keyType(KeyType.RANGE).build())
+          .attributeDefinitions(
+              AttributeDefinition.builder().attributeName("pk").attributeType(ScalarAttributeType.S).build(),
+              AttributeDefinition.builder().attributeName("sk").attributeType(ScalarAttributeType.S).build())
+          .build());
+      // Only s01 and s06 of each partition pass the filter
+      for (String pk : List.of("a", "b")) {
+        for (int i = 1; i <= 6; i++) {
+          final String sk = String.format("s%02d", i);
+          client.putItem(PutItemRequest.builder()
+              .tableName(TABLE_NAME)
+              .item(Map.of("pk", s(pk), "sk", s(sk), "kind", s(i == 1 || i == 6 ? "keep" : "skip")))
+              .build());
+        }
+      }
+    }
+  }
+
+  @Test
+  void filter_compilesToSql() {
+    assertThat(new ConditionExpressionCompiler(configuration.database()).compile(FILTER, VALUES, Map.of()))
+        .isPresent();
+  }
+
+  @Test
+  void query_limitInsideFilteredOutRows_withPostgreSQL() {
+    final List<Page> pages = pages((client, startKey) -> {
+      final QueryResponse response = client.query(QueryRequest.builder()
+          .tableName(TABLE_NAME)
+          .keyConditionExpression("pk = :pk")
+          .filterExpression(FILTER)
+          .expressionAttributeValues(Map.of(":pk", s("a"), ":keep", s("keep")))
+          .limit(3)
+          .exclusiveStartKey(startKey)
+          .build());
+      return new Page(response.items(), response.count(), response.scannedCount(), response.lastEvaluatedKey());
+    });
+
+    // s01 | s02 s03 ends the page mid-run, then s04 s05 | s06
+    assertThat(pages.get(0).count()).isEqualTo(1);
+    assertThat(pages.get(0).scannedCount()).isEqualTo(3);
+    assertThat(pages.get(0).lastEvaluatedKey()).isEqualTo(Map.of("pk", s("a"), "sk", s("s03")));
+    assertThat(pages.stream().mapToInt(Page::count).sum()).isEqualTo(2);
+    assertThat(pages.stream().mapToInt(Page::scannedCount).sum()).isEqualTo(6);
+  }
+
+  @Test
+  void scan_limitInsideFilteredOutRows_withPostgreSQL() {
+    final List<Page> pages = pages((client, startKey) -> {
+      final ScanResponse response = client.scan(ScanRequest.builder()
+          .tableName(TABLE_NAME)
+          .filterExpression(FILTER)
+          .expressionAttributeValues(VALUES)
+          .limit(4)
+          .exclusiveStartKey(startKey)
+          .build());
+      return new Page(response.items(), response.count(), response.scannedCount(), response.lastEvaluatedKey());
+    });
+
+    assertThat(pages.get(0).count()).isEqualTo(1);
+    assertThat(pages.get(0).scannedCount()).isEqualTo(4);
+    assertThat(pages.stream().mapToInt(Page::count).sum()).isEqualTo(4);
+    assertThat(pages.stream().mapToInt(Page::scannedCount).sum()).isEqualTo(12);
+  }
+
+  /**
+   * Reads every page from both databases, checking each pair of pages agrees, and returns the PostgreSQL pages.
+   */
+  private List<Page> pages(final BiFunction<DynamoDbClient, Map<String, AttributeValue>, Page> read) {
+    final List<Page> pages = new ArrayList<>();
+    Map<String, AttributeValue> startKey = null;
+    do {
+      final Page page = read.apply(postgresql, startKey);
+      assertThat(page).as("page %d", pages.size()).isEqualTo(read.apply(hsqldb, startKey));
+      pages.add(page);
+      startKey = page.lastEvaluatedKey().isEmpty() ? null : page.lastEvaluatedKey();
+    } while (startKey != null);
+    return pages;
+  }
+
+  private record Page(List<Map<String, AttributeValue>> items,
+                      int count,
+                      int scannedCount,
+                      Map<String, AttributeValue> lastEvaluatedKey) {
+  }
+
+  private static AttributeValue s(final String value) {
+    return AttributeValue.builder().s(value).build();
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2023. Ned Wolpert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pretenderdb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.pretenderdb.dbu.invalidation.InvalidationBus;
+import io.github.pretenderdb.dbu.liquibase.LiquibaseHelper;
+import io.github.pretenderdb.dbu.model.Database;
+import io.github.pretenderdb.dbu.model.ImmutableDatabase;
+import io.github.pretenderdb.dbu.model.ImmutableInvalidation;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The invalidation bus over LISTEN/NOTIFY, between two buses on one PostgreSQL database.
+ */
+class InvalidationBusPostgreSQLTest extends BasePostgreSQLTest {
+
+  private static final String TOPIC = "topic";
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private InvalidationBus first;
+  private InvalidationBus second;
+  private BlockingQueue<String> received;
+
+  @BeforeEach
+  void setupBuses() throws InterruptedException {
+    final Database database = ImmutableDatabase.builder()
+        .from(configuration.database())
+        .invalidation(ImmutableInvalidation.builder().enabled(true).pollIntervalMillis(50).build())
+        .build();
+    first = new InvalidationBus(database, jdbi, new LiquibaseHelper());
+    second = new InvalidationBus(database, jdbi, new LiquibaseHelper());
+    received = new LinkedBlockingQueue<>();
+    second.subscribe(TOPIC, new InvalidationBus.Listener() {
+      @Override
+      public void invalidate(final String key) {
+        received.add(key);
+      }
+
+      @Override
+      public void invalidateAll() {
+        received.add("*");
+      }
+    });
+    // The listener drops everything once it is listening
+    assertThat(received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo("*");
+  }
+
+  @AfterEach
+  void closeBuses() {
+    first.close();
+    second.close();
+  }
+
+  @Test
+  void publish_deliveredToOtherBus_withPostgreSQL() throws InterruptedException {
+    first.publish(TOPIC, "key");
+    first.publish("other", "ignored");
+    first.publish(TOPIC, "multi\nline");
+    second.publish(TOPIC, "own");
+
+    assertThat(received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo("key");
+    assertThat(received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo("multi\nline");
+    assertThat(received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  void listenerReconnect_invalidatesAll_withPostgreSQL() throws InterruptedException {
+    final int terminated = jdbi.withHandle(handle -> handle.createQuery(
+            "SELECT COUNT(pg_terminate_backend(pid)) FROM pg_stat_activity WHERE query = :listen")
+        .bind("listen", "LISTEN " + InvalidationBus.CHANNEL)
+        .mapTo(Integer.class)
+        .one());
+    assertThat(terminated).isPositive();
+
+    // Anything published while it was disconnected is lost, so the listener drops everything
+    assertThat(received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo("*");
+    first.publish(TOPIC, "after");
+    assertThat(received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo("after");
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2023. Ned Wolpert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pretenderdb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.ShardIteratorType;
+
+/**
+ * An unconditional put over an existing item on a table with a stream and a GSI must see the item it
+ * replaces: a MODIFY record with the old image, and the old GSI row removed, even when the item was inserted
+ * by a concurrent put.
+ */
+class OverwritePostgreSQLTest extends BasePostgreSQLTest {
+
+  private static final String TABLE_NAME = "Overwrite";
+  private static final String INDEX_NAME = "by-status";
+
+  private DynamoDbClient client;
+  private String streamArn;
+
+  @BeforeEach
+  void setupTable() {
+    client = component.dynamoDbPretenderClient();
+    client.createTable(CreateTableRequest.builder()
+        .tableName(TABLE_NAME)
+        .keySchema(KeySchemaElement.builder().attributeName("pk").keyType(KeyType.HASH).build())
+        .attributeDefinitions(
+            AttributeDefinition.builder().attributeName("pk").attributeType(ScalarAttributeType.S).build(),
+            AttributeDefinition.builder().attributeName("group").attributeType(ScalarAttributeType.S).build(),
+            AttributeDefinition.builder().attributeName("status").attributeType(ScalarAttributeType.S).build())
+        .globalSecondaryIndexes(GlobalSecondaryIndex.builder()
+            .indexName(INDEX_NAME)
+            .keySchema(
+                KeySchemaElement.builder().attributeName("group").keyType(KeyType.HASH).build(),
+                KeySchemaElement.builder().attributeName("status").keyType(KeyType.RANGE).build())
+            .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+            .build())
+        .build());
+    component.pdbTableManager().enableStream(TABLE_NAME, "NEW_AND_OLD_IMAGES");
+    streamArn = component.pdbTableManager().getPdbTable(TABLE_NAME).orElseThrow().streamArn().orElseThrow();
+  }
+
+  @Test
+  void overwrite_emitsModifyAndReplacesGsiRow_withPostgreSQL() {
+    put("first");
+    put("second");
+
+    final List<Record> records = records();
+    assertThat(records).extracting(Record::eventName).containsExactly(OperationType.INSERT, OperationType.MODIFY);
+    assertThat(records.get(1).dynamodb().oldImage().get("status").s()).isEqualTo("first");
+    assertThat(records.get(1).dynamodb().newImage().get("status").s()).isEqualTo("second");
+    assertThat(gsiStatuses()).containsExactly("second");
+  }
+
+  @Test
+  void concurrentPutsOfNewItem_oneInsertAndNoStaleGsiRows_withPostgreSQL() throws Exception {
+    final int writers = 8;
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(writers);
+    try {
+      final List<Future<?>> puts = new ArrayList<>();
+      for (int i = 0; i < writers; i++) {
+        final String status = "status-" + i;
+        puts.add(executor.submit(() -> {
+          start.await();
+          put(status);
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> put : puts) {
+        put.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // One put inserted the item; each of the others replaced the one before it
+    final List<Record> records = records();
+    assertThat(records).hasSize(writers);
+    assertThat(records).filteredOn(r -> r.eventName() == OperationType.INSERT).hasSize(1);
+    for (int i = 1; i < writers; i++) {
+      assertThat(records.get(i).eventName()).isEqualTo(OperationType.MODIFY);
+      assertThat(records.get(i).dynamodb().oldImage()).isEqualTo(records.get(i - 1).dynamodb().newImage());
+    }
+    assertThat(gsiStatuses()).containsExactly(records.get(writers - 1).dynamodb().newImage().get("status").s());
+  }
+
+  private void put(final String status) {
+    client.putItem(PutItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .item(Map.of("pk", s("item"), "group", s("g"), "status", s(status)))
+        .build());
+  }
+
+  private List<String> gsiStatuses() {
+    return client.query(QueryRequest.builder()
+            .tableName(TABLE_NAME)
+            .indexName(INDEX_NAME)
+            .keyConditionExpression("#g = :g")
+            .expressionAttributeNames(Map.of("#g", "group"))
+            .expressionAttributeValues(Map.of(":g", s("g")))
+            .build())
+        .items().stream().map(item -> item.get("status").s()).toList();
+  }
+
+  private List<Record> records() {
+    final DynamoDbStreamsPretenderClient streams = component.dynamoDbStreamsPretenderClient();
+    final String shardId = streams.describeStream(DescribeStreamRequest.builder().streamArn(streamArn).build())
+        .streamDescription().shards().get(0).shardId();
+    final String iterator = streams.getShardIterator(GetShardIteratorRequest.builder()
+        .streamArn(streamArn)
+        .shardId(shardId)
+        .shardIteratorType(ShardIteratorType.TRIM_HORIZON)
+        .build()).shardIterator();
+    return streams.getRecords(GetRecordsRequest.builder().shardIterator(iterator).build()).records();
+  }
+
+  private static AttributeValue s(final String value) {
+    return AttributeValue.builder().s(value).build();
+  }
+}
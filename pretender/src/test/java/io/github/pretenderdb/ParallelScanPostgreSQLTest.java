@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2023. Ned Wolpert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pretenderdb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+/**
+ * Parallel scan segments on PostgreSQL are ranges of md5(hash key) COLLATE "C" read in that order. The
+ * segments must split the table without gaps or overlaps, page within themselves, and hold the same keys
+ * as the segments HSQLDB picks in Java.
+ */
+class ParallelScanPostgreSQLTest extends BasePostgreSQLTest {
+
+  private static final String TABLE_NAME = "ParallelScan";
+  private static final int ITEMS = 60;
+  private static final int TOTAL_SEGMENTS = 4;
+  private static final int LIMIT = 5;
+
+  private DynamoDbClient postgresql;
+  private DynamoDbClient hsqldb;
+
+  @BeforeEach
+  void setupTable() {
+    postgresql = component.dynamoDbPretenderClient();
+    hsqldb = hsqldbComponent().dynamoDbPretenderClient();
+    for (DynamoDbClient client : List.of(postgresql, hsqldb)) {
+      client.createTable(CreateTableRequest.builder()
+          .tableName(TABLE_NAME)
+          .keySchema(KeySchemaElement.builder().attributeName("pk").keyType(KeyType.HASH).build())
+          .attributeDefinitions(
+              AttributeDefinition.builder().attributeName("pk").attributeType(ScalarAttributeType.S).build())
+          .build());
+      for (int i = 0; i < ITEMS; i++) {
+        client.putItem(PutItemRequest.builder()
+            .tableName(TABLE_NAME)
+            .item(Map.of("pk", AttributeValue.builder().s("item-" + i).build()))
+            .build());
+      }
+    }
+  }
+
+  @Test
+  void segments_areDisjointAndCoverTable_withPostgreSQL() {
+    final Set<String> all = new HashSet<>();
+    int pagedSegments = 0;
+    for (int segment = 0; segment < TOTAL_SEGMENTS; segment++) {
+      final List<List<String>> pages = scanSegment(postgresql, segment);
+      final List<String> keys = pages.stream().flatMap(List::stream).toList();
+
+      assertThat(keys).as("segment %d has no repeated keys", segment).doesNotHaveDuplicates();
+      for (String key : keys) {
+        assertThat(all.add(key)).as("%s is in one segment only", key).isTrue();
+      }
+      assertThat(new HashSet<>(keys)).as("segment %d matches HSQLDB", segment)
+          .isEqualTo(new HashSet<>(scanSegment(hsqldb, segment).stream().flatMap(List::stream).toList()));
+      assertThat(pages).allSatisfy(page -> assertThat(page).hasSizeLessThanOrEqualTo(LIMIT));
+      if (pages.size() > 1) {
+        pagedSegments++;
+      }
+    }
+
+    assertThat(all).hasSize(ITEMS);
+    // 60 keys over 4 segments with 5 per page: every segment needs more than one page
+    assertThat(pagedSegments).isEqualTo(TOTAL_SEGMENTS);
+  }
+
+  /**
+   * Reads a segment page by page, following LastEvaluatedKey, and returns the keys of each page.
+   */
+  private List<List<String>> scanSegment(final DynamoDbClient client, final int segment) {
+    final List<List<String>> pages = new ArrayList<>();
+    Map<String, AttributeValue> startKey = null;
+    do {
+      final ScanResponse response = client.scan(ScanRequest.builder()
+          .tableName(TABLE_NAME)
+          .segment(segment)
+          .totalSegments(TOTAL_SEGMENTS)
+          .limit(LIMIT)
+          .exclusiveStartKey(startKey)
+          .build());
+      pages.add(response.items().stream().map(item -> item.get("pk").s()).toList());
+      startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+          ? response.lastEvaluatedKey()
+          : null;
+    } while (startKey != null);
+    return pages;
+  }
+}
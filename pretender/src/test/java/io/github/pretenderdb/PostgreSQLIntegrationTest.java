@@ -16,9 +16,11 @@
 
 package io.github.pretenderdb;
 
+import static io.github.pretenderdb.dagger.PretenderModule.LIQUIBASE_SETUP_XML;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import io.github.pretenderdb.dagger.PretenderComponent;
+import io.github.pretenderdb.dbu.liquibase.LiquibaseHelper;
 import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.AfterEach;
@@ -479,4 +481,110 @@ class PostgreSQLIntegrationTest extends BasePostgreSQLTest {
     assertThat(batchGetResponse.responses().get(TABLE_NAME))
         .allMatch(item -> item.containsKey("data"));
   }
+
+  @Test
+  void query_beginsWithPunctuation_withPostgreSQL() {
+    dynamoDbClient.createTable(CreateTableRequest.builder()
+        .tableName(TABLE_NAME)
+        .keySchema(
+            KeySchemaElement.builder().attributeName(HASH_KEY).keyType(KeyType.HASH).build(),
+            KeySchemaElement.builder().attributeName(SORT_KEY).keyType(KeyType.RANGE).build()
+        )
+        .attributeDefinitions(
+            AttributeDefinition.builder().attributeName(HASH_KEY).attributeType(ScalarAttributeType.S).build(),
+            AttributeDefinition.builder().attributeName(SORT_KEY).attributeType(ScalarAttributeType.S).build()
+        )
+        .build());
+    for (String sortKey : List.of("a", "a-", "a-b", "a-c", "a.b", "ab", "a-%", "b")) {
+      dynamoDbClient.putItem(PutItemRequest.builder()
+          .tableName(TABLE_NAME)
+          .item(Map.of(
+              HASH_KEY, AttributeValue.builder().s("prefix").build(),
+              SORT_KEY, AttributeValue.builder().s(sortKey).build()
+          ))
+          .build());
+    }
+
+    final QueryResponse response = dynamoDbClient.query(QueryRequest.builder()
+        .tableName(TABLE_NAME)
+        .keyConditionExpression(HASH_KEY + " = :pk AND begins_with(" + SORT_KEY + ", :prefix)")
+        .expressionAttributeValues(Map.of(
+            ":pk", AttributeValue.builder().s("prefix").build(),
+            ":prefix", AttributeValue.builder().s("a-").build()
+        ))
+        .build());
+
+    assertThat(response.items()).extracting(item -> item.get(SORT_KEY).s())
+        .containsExactly("a-", "a-%", "a-b", "a-c");
+    assertThat(keyColumnCollations("pdb_item_postgrestesttable")).containsOnly("C");
+  }
+
+  @Test
+  void query_pagesMeasuredByStoredDocument_withPostgreSQL() {
+    dynamoDbClient.createTable(CreateTableRequest.builder()
+        .tableName(TABLE_NAME)
+        .keySchema(
+            KeySchemaElement.builder().attributeName(HASH_KEY).keyType(KeyType.HASH).build(),
+            KeySchemaElement.builder().attributeName(SORT_KEY).keyType(KeyType.RANGE).build()
+        )
+        .attributeDefinitions(
+            AttributeDefinition.builder().attributeName(HASH_KEY).attributeType(ScalarAttributeType.S).build(),
+            AttributeDefinition.builder().attributeName(SORT_KEY).attributeType(ScalarAttributeType.S).build()
+        )
+        .build());
+    // 150,000 characters but 300,000 bytes each, so the fourth document takes the page past 1 MB
+    final String payload = "\u00e9".repeat(150_000);
+    for (int i = 1; i <= 6; i++) {
+      dynamoDbClient.putItem(PutItemRequest.builder()
+          .tableName(TABLE_NAME)
+          .item(Map.of(
+              HASH_KEY, AttributeValue.builder().s("large").build(),
+              SORT_KEY, AttributeValue.builder().s("item-" + i).build(),
+              "data", AttributeValue.builder().s(payload).build()
+          ))
+          .build());
+    }
+    final QueryRequest projected = QueryRequest.builder()
+        .tableName(TABLE_NAME)
+        .keyConditionExpression(HASH_KEY + " = :pk")
+        .projectionExpression(HASH_KEY + ", " + SORT_KEY)
+        .expressionAttributeValues(Map.of(":pk", AttributeValue.builder().s("large").build()))
+        .build();
+
+    final QueryResponse unfiltered = dynamoDbClient.query(projected);
+    final QueryResponse filtered = dynamoDbClient.query(projected.toBuilder()
+        .filterExpression("attribute_exists(" + SORT_KEY + ")")
+        .build());
+
+    assertThat(unfiltered.count()).isEqualTo(4);
+    assertThat(unfiltered.lastEvaluatedKey().get(SORT_KEY).s()).isEqualTo("item-4");
+    assertThat(filtered.scannedCount()).isEqualTo(4);
+    assertThat(filtered.lastEvaluatedKey()).isEqualTo(unfiltered.lastEvaluatedKey());
+  }
+
+  @Test
+  void keyColumnsOfExistingTables_collatedByMigration_withPostgreSQL() {
+    // A table created before the key columns were collated, in a collation that skips punctuation
+    jdbi.useHandle(handle -> {
+      handle.execute("CREATE TABLE pdb_item_legacy ("
+          + "hash_key_value VARCHAR(2048) COLLATE \"en-x-icu\" NOT NULL, "
+          + "sort_key_value VARCHAR(2048) COLLATE \"en-x-icu\" NOT NULL, "
+          + "attributes_json JSONB NOT NULL, create_date TIMESTAMP NOT NULL, update_date TIMESTAMP NOT NULL, "
+          + "PRIMARY KEY (hash_key_value, sort_key_value))");
+      handle.execute("DELETE FROM databasechangelog WHERE id = '2026-10-17-03'");
+    });
+
+    new LiquibaseHelper().runLiquibase(jdbi, LIQUIBASE_SETUP_XML);
+
+    assertThat(keyColumnCollations("pdb_item_legacy")).containsOnly("C");
+  }
+
+  private List<String> keyColumnCollations(final String tableName) {
+    return jdbi.withHandle(handle -> handle.createQuery("SELECT collation_name FROM information_schema.columns "
+            + "WHERE table_schema = current_schema() AND table_name = :table "
+            + "AND column_name IN ('hash_key_value', 'sort_key_value')")
+        .bind("table", tableName)
+        .mapTo(String.class)
+        .list());
+  }
 }
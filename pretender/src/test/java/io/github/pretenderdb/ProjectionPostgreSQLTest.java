@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2023. Ned Wolpert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pretenderdb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.pretenderdb.expression.ProjectionExpressionCompiler;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+
+/**
+ * Projections selected with jsonb_strip_nulls(jsonb_build_object(...)) on PostgreSQL must return the same
+ * attributes the Java projection returns on HSQLDB, for every read that pushes the projection down.
+ */
+class ProjectionPostgreSQLTest extends BasePostgreSQLTest {
+
+  private static final String TABLE_NAME = "ProjectionPushdown";
+  private static final String PROJECTION = "#n, #s, absent";
+  private static final Map<String, String> NAMES = Map.of("#n", "name", "#s", "status");
+
+  private DynamoDbClient postgresql;
+  private DynamoDbClient hsqldb;
+
+  @BeforeEach
+  void setupTable() {
+    postgresql = component.dynamoDbPretenderClient();
+    hsqldb = hsqldbComponent().dynamoDbPretenderClient();
+    for (DynamoDbClient client : List.of(postgresql, hsqldb)) {
+      client.createTable(CreateTableRequest.builder()
+          .tableName(TABLE_NAME)
+          .keySchema(
+              KeySchemaElement.builder().attributeName("pk").keyType(KeyType.HASH).build(),
+              KeySchemaElement.builder().attributeName("sk").keyType(KeyType.RANGE).build())
+          .attributeDefinitions(
+              AttributeDefinition.builder().attributeName("pk").attributeType(ScalarAttributeType.S).build(),
+              AttributeDefinition.builder().attributeName("sk").attributeType(ScalarAttributeType.S).build())
+          .build());
+      client.putItem(PutItemRequest.builder()
+          .tableName(TABLE_NAME)
+          .item(Map.of("pk", s("a"), "sk", s("s1"), "name", s("One"), "status", s("active"), "other", s("x")))
+          .build());
+      // No status: the projected object must leave it out rather than carry a null
+      client.putItem(PutItemRequest.builder()
+          .tableName(TABLE_NAME)
+          .item(Map.of("pk", s("a"), "sk", s("s2"), "name", s("Two"), "other", s("y")))
+          .build());
+    }
+  }
+
+  @Test
+  void projection_compilesToSql() {
+    assertThat(new ProjectionExpressionCompiler(configuration.database()).compile(PROJECTION, NAMES, Set.of()))
+        .isPresent();
+  }
+
+  @Test
+  void getItem_withPostgreSQL() {
+    final List<Map<String, AttributeValue>> items = sameOnBoth(client -> List.of(client.getItem(
+        GetItemRequest.builder()
+            .tableName(TABLE_NAME)
+            .key(Map.of("pk", s("a"), "sk", s("s2")))
+            .projectionExpression(PROJECTION)
+            .expressionAttributeNames(NAMES)
+            .build()).item()));
+
+    assertThat(items).containsExactly(Map.of("name", s("Two")));
+  }
+
+  @Test
+  void query_withPostgreSQL() {
+    final List<Map<String, AttributeValue>> items = sameOnBoth(client -> client.query(QueryRequest.builder()
+        .tableName(TABLE_NAME)
+        .keyConditionExpression("pk = :pk")
+        .expressionAttributeValues(Map.of(":pk", s("a")))
+        .projectionExpression(PROJECTION)
+        .expressionAttributeNames(NAMES)
+        .build()).items());
+
+    assertThat(items).containsExactly(Map.of("name", s("One"), "status", s("active")), Map.of("name", s("Two")));
+  }
+
+  @Test
+  void scan_withPostgreSQL() {
+    final List<Map<String, AttributeValue>> items = sameOnBoth(client -> client.scan(ScanRequest.builder()
+        .tableName(TABLE_NAME)
+        .projectionExpression(PROJECTION)
+        .expressionAttributeNames(NAMES)
+        .build()).items());
+
+    assertThat(items).hasSize(2);
+  }
+
+  @Test
+  void batchGetItem_withPostgreSQL() {
+    final List<Map<String, AttributeValue>> items = sameOnBoth(client -> client.batchGetItem(
+        BatchGetItemRequest.builder()
+            .requestItems(Map.of(TABLE_NAME, KeysAndAttributes.builder()
+                .keys(List.of(Map.of("pk", s("a"), "sk", s("s1"))))
+                .projectionExpression(PROJECTION)
+                .expressionAttributeNames(NAMES)
+                .build()))
+            .build()).responses().get(TABLE_NAME));
+
+    assertThat(items).containsExactly(Map.of("name", s("One"), "status", s("active")));
+  }
+
+  /**
+   * Runs the read on both databases, checks they return the same items and returns them.
+   */
+  private List<Map<String, AttributeValue>> sameOnBoth(
+      final Function<DynamoDbClient, List<Map<String, AttributeValue>>> read) {
+    final List<Map<String, AttributeValue>> items = read.apply(postgresql);
+    assertThat(items).isEqualTo(read.apply(hsqldb));
+    return items;
+  }
+
+  private static AttributeValue s(final String value) {
+    return AttributeValue.builder().s(value).build();
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2023. Ned Wolpert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.pretenderdb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.pretenderdb.converter.AttributeValueConverter;
+import io.github.pretenderdb.expression.UpdateExpressionCompiler;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+/**
+ * UpdateItem compiled to a single JSONB UPDATE on PostgreSQL: each update must leave the item, and return
+ * the values, that the Java path does on HSQLDB.
+ */
+class UpdateItemPostgreSQLTest extends BasePostgreSQLTest {
+
+  private static final String TABLE_NAME = "UpdateInPlace";
+  private static final Map<String, AttributeValue> KEY = Map.of("pk", s("counter"));
+
+  private DynamoDbClient postgresql;
+  private DynamoDbClient hsqldb;
+
+  @BeforeEach
+  void setupTables() {
+    postgresql = component.dynamoDbPretenderClient();
+    hsqldb = hsqldbComponent().dynamoDbPretenderClient();
+    for (DynamoDbClient client : List.of(postgresql, hsqldb)) {
+      client.createTable(CreateTableRequest.builder()
+          .tableName(TABLE_NAME)
+          .keySchema(KeySchemaElement.builder().attributeName("pk").keyType(KeyType.HASH).build())
+          .attributeDefinitions(
+              AttributeDefinition.builder().attributeName("pk").attributeType(ScalarAttributeType.S).build())
+          .build());
+      client.putItem(PutItemRequest.builder()
+          .tableName(TABLE_NAME)
+          .item(Map.of("pk", s("counter"), "count", n("5"), "name", s("a"), "tag", s("x")))
+          .build());
+    }
+  }
+
+  @Test
+  void setArithmetic_incrementsCounter_withPostgreSQL() {
+    final UpdateItemRequest request = update("SET #c = #c + :one", Map.of(":one", n("1")));
+
+    final Map<String, AttributeValue> updated = updateBoth(request);
+
+    assertThat(updated).containsEntry("count", n("6")).containsEntry("name", s("a"));
+    assertThat(updateBoth(request)).containsEntry("count", n("7"));
+  }
+
+  @Test
+  void addNumber_toExistingAndMissingAttributes_withPostgreSQL() {
+    final Map<String, AttributeValue> updated = updateBoth(
+        update("ADD #c :two, visits :three", Map.of(":two", n("2"), ":three", n("3"))));
+
+    assertThat(updated).containsEntry("count", n("7")).containsEntry("visits", n("3"));
+  }
+
+  @Test
+  void remove_dropsAttribute_withPostgreSQL() {
+    final Map<String, AttributeValue> updated = updateBoth(update("REMOVE tag", Map.of()));
+
+    assertThat(updated).doesNotContainKey("tag").containsEntry("count", n("5"));
+  }
+
+  @Test
+  void failedCondition_throwsAndLeavesItem_withPostgreSQL() {
+    final UpdateItemRequest request = update("SET #n = :name", Map.of(":name", s("b"), ":big", n("100")))
+        .toBuilder()
+        .conditionExpression("#c > :big")
+        .expressionAttributeNames(Map.of("#c", "count", "#n", "name"))
+        .build();
+
+    for (DynamoDbClient client : List.of(postgresql, hsqldb)) {
+      assertThatThrownBy(() -> client.updateItem(request)).isInstanceOf(ConditionalCheckFailedException.class);
+    }
+    assertThat(get(postgresql)).isEqualTo(get(hsqldb)).containsEntry("name", s("a"));
+  }
+
+  /**
+   * Runs the update on both databases, checks it compiles, so PostgreSQL really runs it in place, and that
+   * both return the same ALL_NEW attributes and store the same item.
+   */
+  private Map<String, AttributeValue> updateBoth(final UpdateItemRequest request) {
+    assertThat(new UpdateExpressionCompiler(new AttributeValueConverter(new ObjectMapper()), configuration.database())
+        .compile(request.updateExpression(), request.expressionAttributeValues(),
+            request.expressionAttributeNames(), Set.of("pk")))
+        .as("compiled to SQL").isPresent();
+
+    final Map<String, AttributeValue> compiled = postgresql.updateItem(request).attributes();
+    final Map<String, AttributeValue> java = hsqldb.updateItem(request).attributes();
+
+    assertThat(compiled).isEqualTo(java);
+    assertThat(get(postgresql)).isEqualTo(compiled);
+    assertThat(get(hsqldb)).isEqualTo(java);
+    return compiled;
+  }
+
+  private UpdateItemRequest update(final String updateExpression, final Map<String, AttributeValue> values) {
+    final UpdateItemRequest.Builder request = UpdateItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .key(KEY)
+        .updateExpression(updateExpression)
+        .expressionAttributeNames(Map.of("#c", "count"))
+        .returnValues(ReturnValue.ALL_NEW);
+    if (!values.isEmpty()) {
+      request.expressionAttributeValues(values);
+    }
+    return request.build();
+  }
+
+  private Map<String, AttributeValue> get(final DynamoDbClient client) {
+    return client.getItem(GetItemRequest.builder().tableName(TABLE_NAME).key(KEY).build()).item();
+  }
+
+  private static AttributeValue s(final String value) {
+    return AttributeValue.builder().s(value).build();
+  }
+
+  private static AttributeValue n(final String value) {
+    return AttributeValue.builder().n(value).build();
+  }
+}
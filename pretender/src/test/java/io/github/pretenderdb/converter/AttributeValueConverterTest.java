@@ -4,7 +4,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import software.amazon.awssdk.core.SdkBytes;
@@ -272,4 +274,52 @@ class AttributeValueConverterTest {
 
     assertThat(result).isEmpty();
   }
+
+  @Test
+  void encodeKeyValue_numbersSortLikeNumbers() {
+    final List<String> numbers = List.of("-1000", "-10.5", "-10", "-9", "-0.001", "0", "0.001", "0.5", "9",
+        "10", "10.5", "100", "1E+20");
+
+    final List<String> encoded = numbers.stream()
+        .map(n -> converter.encodeKeyValue(AttributeValue.builder().n(n).build(), Optional.of("N")))
+        .toList();
+
+    assertThat(encoded).isSorted();
+    assertThat(encoded).doesNotHaveDuplicates();
+  }
+
+  @Test
+  void encodeKeyValue_equalNumbersEncodeEqually() {
+    assertThat(converter.encodeKeyValue(AttributeValue.builder().n("10.0").build(), Optional.of("N")))
+        .isEqualTo(converter.encodeKeyValue(AttributeValue.builder().n("1E1").build(), Optional.of("N")));
+  }
+
+  @Test
+  void encodeKeyValue_decodeKeyValue_roundTrip() {
+    for (String number : List.of("-123.45", "-1", "0", "0.0001", "42", "1000000")) {
+      final String encoded = converter.encodeKeyValue(AttributeValue.builder().n(number).build(), Optional.of("N"));
+
+      assertThat(converter.decodeKeyValue(encoded, Optional.of("N")).n()).isEqualTo(number);
+    }
+
+    final AttributeValue binary = AttributeValue.builder().b(SdkBytes.fromByteArray(new byte[]{0x01, (byte) 0xff}))
+        .build();
+    final String encoded = converter.encodeKeyValue(binary, Optional.of("B"));
+    assertThat(encoded).isEqualTo("01ff");
+    assertThat(converter.decodeKeyValue(encoded, Optional.of("B"))).isEqualTo(binary);
+  }
+
+  @Test
+  void encodeKeyValue_legacyTableKeepsPlainStrings() {
+    assertThat(converter.encodeKeyValue(AttributeValue.builder().n("10").build(), Optional.empty()))
+        .isEqualTo("10");
+    assertThat(converter.decodeKeyValue("10", Optional.empty())).isEqualTo(AttributeValue.builder().s("10").build());
+  }
+
+  @Test
+  void encodeKeyValue_typeMismatch() {
+    assertThatThrownBy(() -> converter.encodeKeyValue(AttributeValue.builder().s("10").build(), Optional.of("N")))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("does not match the key type");
+  }
 }
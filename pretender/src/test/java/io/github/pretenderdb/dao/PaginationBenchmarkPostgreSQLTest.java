@@ -0,0 +1,222 @@
+package io.github.pretenderdb.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static io.github.pretenderdb.dagger.PretenderModule.LIQUIBASE_SETUP_XML;
+
+import io.github.pretenderdb.BasePostgreSQLTest;
+import io.github.pretenderdb.dagger.PretenderComponent;
+import io.github.pretenderdb.dagger.PretenderModule;
+import io.github.pretenderdb.dbu.factory.JdbiFactory;
+import io.github.pretenderdb.dbu.liquibase.LiquibaseHelper;
+import io.github.pretenderdb.dbu.model.Database;
+import io.github.pretenderdb.dbu.model.ImmutableDatabase;
+import io.github.pretenderdb.manager.PdbItemTableManager;
+import io.github.pretenderdb.model.ImmutableConfiguration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+/**
+ * Pagination benchmark over a large PostgreSQL table: a scan page deep into the table, or a query page deep
+ * into a large partition, must cost about the same as the first one, since keyset pagination seeks the
+ * primary key index instead of reading the rows before the page. Loads 10M rows by default, so it only runs
+ * when PRETENDER_BENCHMARK=true; PRETENDER_BENCHMARK_ROWS overrides the row count. The rows are loaded once
+ * for the class into their own schema, which the per-test cleanup of the public schema leaves alone.
+ */
+@EnabledIfEnvironmentVariable(named = "PRETENDER_BENCHMARK", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PaginationBenchmarkPostgreSQLTest extends BasePostgreSQLTest {
+
+  private static final Logger log = LoggerFactory.getLogger(PaginationBenchmarkPostgreSQLTest.class);
+
+  private static final String SCHEMA = "pagination_benchmark";
+  private static final String TABLE_NAME = "PaginationBenchmark";
+  private static final int ROWS_PER_PARTITION = 100;
+  private static final String LARGE_PARTITION = "user-large";
+  private static final int LARGE_PARTITION_ROWS = 100_000;
+  private static final int PAGE_SIZE = 100;
+  private static final int PAGES_PER_POSITION = 20;
+  private static final double[] POSITIONS = {0.0, 0.25, 0.5, 0.75, 0.99};
+
+  private Database benchmarkDatabase;
+  private Jdbi benchmarkJdbi;
+  private DynamoDbClient client;
+  private String itemTableName;
+  private int rows;
+
+  @BeforeAll
+  void loadTable() {
+    rows = Integer.parseInt(System.getenv().getOrDefault("PRETENDER_BENCHMARK_ROWS", "10000000"));
+    final String url = POSTGRES_CONTAINER.getJdbcUrl();
+    benchmarkDatabase = ImmutableDatabase.builder()
+        .url(url + (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA)
+        .username(POSTGRES_CONTAINER.getUsername())
+        .password(POSTGRES_CONTAINER.getPassword())
+        .build();
+    benchmarkJdbi = new JdbiFactory(benchmarkDatabase, new PretenderModule().immutableClasses()).createJdbi();
+    benchmarkJdbi.useHandle(handle -> {
+      handle.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+      handle.execute("CREATE SCHEMA " + SCHEMA);
+    });
+    new LiquibaseHelper().runLiquibase(benchmarkJdbi, LIQUIBASE_SETUP_XML);
+    client = PretenderComponent.instance(ImmutableConfiguration.builder().database(benchmarkDatabase).build())
+        .dynamoDbPretenderClient();
+    client.createTable(CreateTableRequest.builder()
+        .tableName(TABLE_NAME)
+        .keySchema(
+            KeySchemaElement.builder().attributeName("pk").keyType(KeyType.HASH).build(),
+            KeySchemaElement.builder().attributeName("sk").keyType(KeyType.RANGE).build())
+        .attributeDefinitions(
+            AttributeDefinition.builder().attributeName("pk").attributeType(ScalarAttributeType.S).build(),
+            AttributeDefinition.builder().attributeName("sk").attributeType(ScalarAttributeType.S).build())
+        .build());
+    itemTableName = new PdbItemTableManager(benchmarkJdbi, benchmarkDatabase).getItemTableName(TABLE_NAME);
+
+    final long start = System.nanoTime();
+    benchmarkJdbi.useHandle(handle -> {
+      handle.createUpdate("INSERT INTO \"" + itemTableName + "\" "
+              + "SELECT pk, sk, jsonb_build_object('pk', jsonb_build_object('S', pk), "
+              + "'sk', jsonb_build_object('S', sk), 'payload', jsonb_build_object('S', md5(pk || sk))), now(), now() "
+              + "FROM (SELECT 'user-' || lpad(CAST(g / :perPartition AS TEXT), 8, '0') AS pk, "
+              + "lpad(CAST(g % :perPartition AS TEXT), 4, '0') AS sk FROM generate_series(0, :rows - 1) g) keys")
+          .bind("perPartition", ROWS_PER_PARTITION)
+          .bind("rows", rows)
+          .execute();
+      handle.createUpdate("INSERT INTO \"" + itemTableName + "\" "
+              + "SELECT :pk, sk, jsonb_build_object('pk', jsonb_build_object('S', :pk), "
+              + "'sk', jsonb_build_object('S', sk), 'payload', jsonb_build_object('S', md5(sk))), now(), now() "
+              + "FROM (SELECT lpad(CAST(g AS TEXT), 6, '0') AS sk FROM generate_series(0, :rows - 1) g) keys")
+          .bind("pk", LARGE_PARTITION)
+          .bind("rows", LARGE_PARTITION_ROWS)
+          .execute();
+      handle.execute("ANALYZE \"" + itemTableName + "\"");
+    });
+    log.info("Loaded {} rows in {} ms", rows + LARGE_PARTITION_ROWS, (System.nanoTime() - start) / 1_000_000);
+  }
+
+  @AfterAll
+  void dropSchema() {
+    benchmarkJdbi.useHandle(handle -> handle.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE"));
+  }
+
+  @Test
+  void scanPages_constantLatencyAcrossTable() {
+    final List<Double> medians = new ArrayList<>();
+    for (double position : POSITIONS) {
+      final int row = (int) (rows * position);
+      final double median = medianPageMillis(row == 0
+          ? null
+          : Map.of("pk", s(partitionKey(row)), "sk", s(String.format("%04d", row % ROWS_PER_PARTITION))),
+          startKey -> {
+            final ScanRequest.Builder request = ScanRequest.builder().tableName(TABLE_NAME).limit(PAGE_SIZE);
+            if (startKey != null) {
+              request.exclusiveStartKey(startKey);
+            }
+            final ScanResponse response = client.scan(request.build());
+            return response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+          });
+      log.info("Scan pages from {}% of the table: median {} ms per page", (int) (position * 100), median);
+      medians.add(median);
+    }
+
+    assertFlat(medians);
+  }
+
+  @Test
+  void queryPages_constantLatencyAcrossPartition() {
+    final List<Double> medians = new ArrayList<>();
+    for (double position : POSITIONS) {
+      final int row = (int) (LARGE_PARTITION_ROWS * position);
+      final double median = medianPageMillis(row == 0
+          ? null
+          : Map.of("pk", s(LARGE_PARTITION), "sk", s(String.format("%06d", row))),
+          startKey -> {
+            final QueryRequest.Builder request = QueryRequest.builder()
+                .tableName(TABLE_NAME)
+                .keyConditionExpression("pk = :pk")
+                .expressionAttributeValues(Map.of(":pk", s(LARGE_PARTITION)))
+                .limit(PAGE_SIZE);
+            if (startKey != null) {
+              request.exclusiveStartKey(startKey);
+            }
+            final QueryResponse response = client.query(request.build());
+            return response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+          });
+      log.info("Query pages from {}% of the partition: median {} ms per page", (int) (position * 100), median);
+      medians.add(median);
+    }
+
+    assertFlat(medians);
+  }
+
+  @Test
+  void scanAfterKey_seeksPrimaryKeyIndex() {
+    final String plan = benchmarkJdbi.withHandle(handle -> String.join("\n", handle
+        .createQuery("EXPLAIN " + new PdbItemStatements(benchmarkDatabase).forTable(itemTableName)
+            .scanAfterKey())
+        .bind("exclusiveHashKey", partitionKey(rows / 2))
+        .bind("exclusiveSortKey", "0050")
+        .bind("limit", PAGE_SIZE)
+        .mapTo(String.class)
+        .list()));
+
+    log.info("Scan page plan:\n{}", plan);
+    assertThat(plan).contains("Index").doesNotContain("Seq Scan").doesNotContain("Sort");
+  }
+
+  /**
+   * Reads up to {@link #PAGES_PER_POSITION} pages from the start key, each page function call returning the
+   * next start key or null at the end, and returns the median page latency.
+   */
+  private double medianPageMillis(final Map<String, AttributeValue> exclusiveStartKey,
+                                  final Function<Map<String, AttributeValue>, Map<String, AttributeValue>> page) {
+    Map<String, AttributeValue> startKey = exclusiveStartKey;
+    final List<Long> pageNanos = new ArrayList<>();
+    for (int i = 0; i < PAGES_PER_POSITION; i++) {
+      final long start = System.nanoTime();
+      startKey = page.apply(startKey);
+      pageNanos.add(System.nanoTime() - start);
+      if (startKey == null || startKey.isEmpty()) {
+        break;
+      }
+    }
+    return pageNanos.stream().sorted().toList().get(pageNanos.size() / 2) / 1_000_000.0;
+  }
+
+  /**
+   * Deep pages cost about what the first ones do; an OFFSET-like plan would grow with the position.
+   */
+  private void assertFlat(final List<Double> medians) {
+    final double first = medians.get(0);
+    assertThat(medians).allSatisfy(median -> assertThat(median).isLessThan(first * 3 + 5));
+  }
+
+  private String partitionKey(final int row) {
+    return String.format("user-%08d", row / ROWS_PER_PARTITION);
+  }
+
+  private AttributeValue s(final String value) {
+    return AttributeValue.builder().s(value).build();
+  }
+}
@@ -0,0 +1,123 @@
+package io.github.pretenderdb.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import io.github.pretenderdb.dbu.invalidation.InvalidationBus;
+import io.github.pretenderdb.dbu.model.ImmutableDatabase;
+import io.github.pretenderdb.model.ImmutableConfiguration;
+import io.github.pretenderdb.model.ImmutableItemCacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+class PdbItemCacheTest {
+
+  private static final String TABLE_NAME = "Cached";
+  private static final Map<String, AttributeValue> ITEM = Map.of("id", AttributeValue.builder().s("a").build());
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final InvalidationBus invalidationBus = mock(InvalidationBus.class);
+  private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+  private PdbItemCache cache;
+
+  @BeforeEach
+  void setup() {
+    final Clock clock = new Clock() {
+      @Override
+      public ZoneId getZone() {
+        return ZoneId.of("UTC");
+      }
+
+      @Override
+      public Clock withZone(final ZoneId zone) {
+        return this;
+      }
+
+      @Override
+      public Instant instant() {
+        return now;
+      }
+    };
+    cache = new PdbItemCache(ImmutableConfiguration.builder()
+        .database(ImmutableDatabase.builder().url("jdbc:hsqldb:mem:cache").username("SA").password("").build())
+        .addItemCaches(ImmutableItemCacheConfig.builder()
+            .tableName(TABLE_NAME)
+            .maximumSize(2)
+            .expireAfterWriteMillis(1_000)
+            .build())
+        .build(), meterRegistry, clock, invalidationBus);
+  }
+
+  @Test
+  void get_hitAfterPut_untilExpired() {
+    assertThat(cache.get(TABLE_NAME, "a", Optional.empty())).isEmpty();
+    cache.put(TABLE_NAME, "a", Optional.empty(), ITEM, cache.generation(TABLE_NAME));
+
+    assertThat(cache.get(TABLE_NAME, "a", Optional.empty())).contains(ITEM);
+    now = now.plus(Duration.ofSeconds(1));
+    assertThat(cache.get(TABLE_NAME, "a", Optional.empty())).isEmpty();
+
+    assertThat(cache.stats(TABLE_NAME)).isEqualTo(new PdbItemCache.Stats(1, 2, 0, 0));
+    assertThat(meterRegistry.get("cache.gets").tag("table", TABLE_NAME).tag("result", "hit")
+        .functionCounter().count()).isEqualTo(1.0);
+  }
+
+  @Test
+  void put_evictsLeastRecentlyRead() {
+    cache.put(TABLE_NAME, "a", Optional.of("1"), ITEM, 0);
+    cache.put(TABLE_NAME, "b", Optional.of("1"), ITEM, 0);
+    cache.get(TABLE_NAME, "a", Optional.of("1"));
+    cache.put(TABLE_NAME, "c", Optional.of("1"), ITEM, 0);
+
+    assertThat(cache.get(TABLE_NAME, "a", Optional.of("1"))).isPresent();
+    assertThat(cache.get(TABLE_NAME, "b", Optional.of("1"))).isEmpty();
+    assertThat(cache.stats(TABLE_NAME).evictions()).isEqualTo(1);
+    assertThat(cache.stats(TABLE_NAME).size()).isEqualTo(2);
+  }
+
+  @Test
+  void put_afterInvalidate_isDropped() {
+    final long generation = cache.generation(TABLE_NAME);
+    cache.invalidate(TABLE_NAME, "a", Optional.empty());
+    cache.put(TABLE_NAME, "a", Optional.empty(), ITEM, generation);
+
+    assertThat(cache.get(TABLE_NAME, "a", Optional.empty())).isEmpty();
+  }
+
+  @Test
+  void uncachedTable_isNeverCached() {
+    cache.put("Other", "a", Optional.empty(), ITEM, cache.generation("Other"));
+
+    assertThat(cache.enabled("Other")).isFalse();
+    assertThat(cache.get("Other", "a", Optional.empty())).isEmpty();
+  }
+
+  @Test
+  void invalidate_publishedAndAppliedByOtherProcess() {
+    final ArgumentCaptor<InvalidationBus.Listener> listener = ArgumentCaptor.forClass(InvalidationBus.Listener.class);
+    verify(invalidationBus).subscribe(eq(PdbItemCache.INVALIDATION_TOPIC), listener.capture());
+    cache.invalidate(TABLE_NAME, "a:b", Optional.of("1"));
+    verify(invalidationBus).publish(PdbItemCache.INVALIDATION_TOPIC,
+        PdbItemCache.itemKey(TABLE_NAME, "a:b", Optional.of("1")));
+
+    cache.put(TABLE_NAME, "a:b", Optional.of("1"), ITEM, cache.generation(TABLE_NAME));
+    cache.put(TABLE_NAME, "a", Optional.empty(), ITEM, cache.generation(TABLE_NAME));
+    listener.getValue().invalidate(PdbItemCache.itemKey(TABLE_NAME, "a:b", Optional.of("1")));
+    assertThat(cache.get(TABLE_NAME, "a:b", Optional.of("1"))).isEmpty();
+    assertThat(cache.get(TABLE_NAME, "a", Optional.empty())).isPresent();
+
+    listener.getValue().invalidate(TABLE_NAME);
+    assertThat(cache.get(TABLE_NAME, "a", Optional.empty())).isEmpty();
+  }
+}
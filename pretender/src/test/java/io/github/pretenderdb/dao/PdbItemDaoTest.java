@@ -3,14 +3,22 @@ package io.github.pretenderdb.dao;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import io.github.pretenderdb.BaseJdbiTest;
+import io.github.pretenderdb.dagger.PretenderModule;
+import io.github.pretenderdb.dbu.factory.JdbiFactory;
+import io.github.pretenderdb.dbu.model.ImmutableDatabase;
 import io.github.pretenderdb.manager.PdbItemTableManager;
 import io.github.pretenderdb.model.ImmutablePdbItem;
 import io.github.pretenderdb.model.ImmutablePdbMetadata;
 import io.github.pretenderdb.model.PdbItem;
 import io.github.pretenderdb.model.PdbMetadata;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.jdbi.v3.core.Jdbi;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -55,6 +63,80 @@ class PdbItemDaoTest extends BaseJdbiTest {
     assertThat(retrieved.get().attributesJson()).contains("Test Item");
   }
 
+  @Test
+  void upsert_insertsThenReplaces() {
+    final Instant created = Instant.parse("2024-01-01T00:00:00Z");
+    final PdbItem item = ImmutablePdbItem.builder()
+        .tableName(testTableName)
+        .hashKeyValue("item-123")
+        .attributesJson("{\"id\":{\"S\":\"item-123\"},\"v\":{\"N\":\"1\"}}")
+        .createDate(created)
+        .updateDate(created)
+        .build();
+
+    dao.upsert(testTableName, item);
+    dao.upsert(testTableName, ImmutablePdbItem.copyOf(item)
+        .withAttributesJson("{\"id\":{\"S\":\"item-123\"},\"v\":{\"N\":\"2\"}}")
+        .withCreateDate(Instant.now())
+        .withUpdateDate(Instant.now()));
+
+    final Optional<PdbItem> retrieved = dao.get(testTableName, "item-123", Optional.empty());
+    assertThat(retrieved).isPresent();
+    assertThat(retrieved.get().attributesJson()).contains("\"2\"");
+    assertThat(retrieved.get().createDate()).isEqualTo(created);
+    assertThat(dao.scan(testTableName, 10)).hasSize(1);
+  }
+
+  @Test
+  void upsertReturningPrevious_returnsReplacedJson() {
+    final PdbItem item = ImmutablePdbItem.builder()
+        .tableName(testTableName)
+        .hashKeyValue("item-123")
+        .attributesJson("{\"v\":{\"N\":\"1\"}}")
+        .createDate(Instant.now())
+        .updateDate(Instant.now())
+        .build();
+
+    assertThat(dao.upsertReturningPrevious(testTableName, item)).isEmpty();
+    assertThat(dao.upsertReturningPrevious(testTableName,
+        ImmutablePdbItem.copyOf(item).withAttributesJson("{\"v\":{\"N\":\"2\"}}")))
+        .contains("{\"v\":{\"N\":\"1\"}}");
+  }
+
+  @Test
+  void eventuallyConsistentReads_useReadJdbi() {
+    final Jdbi replica = new JdbiFactory(ImmutableDatabase.builder()
+        .url("jdbc:hsqldb:mem:replica:" + UUID.randomUUID())
+        .username("SA")
+        .password("")
+        .build(), new PretenderModule().immutableClasses()).createJdbi();
+    new PdbItemTableManager(replica, configuration.database()).createItemTable(ImmutablePdbMetadata.builder()
+        .name("test_items")
+        .hashKey("id")
+        .createDate(Instant.now())
+        .build());
+    final PdbItemDao routedDao = new PdbItemDao(jdbi, replica, configuration.database(),
+        new PdbItemStatements(configuration.database()));
+    final PdbItem item = ImmutablePdbItem.builder()
+        .tableName(testTableName)
+        .hashKeyValue("item-123")
+        .attributesJson("{\"id\":{\"S\":\"item-123\"}}")
+        .createDate(Instant.now())
+        .updateDate(Instant.now())
+        .build();
+
+    routedDao.insert(testTableName, item);
+
+    // The write only reached the primary, so the replica does not see it yet
+    assertThat(routedDao.get(testTableName, "item-123", Optional.empty(), true)).isPresent();
+    assertThat(routedDao.get(testTableName, "item-123", Optional.empty(), false)).isEmpty();
+    assertThat(routedDao.scan(testTableName, 10, Optional.empty(), Optional.empty(), true)).hasSize(1);
+    assertThat(routedDao.scan(testTableName, 10, Optional.empty(), Optional.empty(), false)).isEmpty();
+    assertThat(routedDao.batchGet(testTableName,
+        List.of(new PdbItemDao.KeyPair("item-123", Optional.empty())), false)).isEmpty();
+    replica.useHandle(handle -> handle.execute("SHUTDOWN"));
+  }
+
   @Test
   void insert_withSortKey() {
     // Create table with sort key
@@ -176,10 +258,44 @@ class PdbItemDaoTest extends BaseJdbiTest {
     }
 
     // Query by hash key only
-    final List<PdbItem> results = dao.query(queryTableName, "user-query", null, Optional.empty(), 10);
+    final List<PdbItem> results = dao.query(queryTableName, "user-query", null, Map.of(), 10);
     assertThat(results).hasSize(5);
   }
 
+  @Test
+  void query_descending_pagesBackwardsFromExclusiveStartKey() {
+    final PdbMetadata metadata = ImmutablePdbMetadata.builder()
+        .name("query_desc_test")
+        .hashKey("userId")
+        .sortKey("timestamp")
+        .createDate(Instant.now())
+        .build();
+
+    tableManager.createItemTable(metadata);
+    final String queryTableName = tableManager.getItemTableName("query_desc_test");
+
+    for (int i = 1; i <= 5; i++) {
+      dao.insert(queryTableName, ImmutablePdbItem.builder()
+          .tableName(queryTableName)
+          .hashKeyValue("user-desc")
+          .sortKeyValue("2024-01-0" + i)
+          .attributesJson("{\"userId\":{\"S\":\"user-desc\"}}")
+          .createDate(Instant.now())
+          .updateDate(Instant.now())
+          .build());
+    }
+
+    final List<PdbItem> firstPage = dao.query(queryTableName, "user-desc", null, Map.of(), 2,
+        Optional.empty(), Optional.empty(), true, PdbItemDao.Projection.ALL, false);
+    assertThat(firstPage).extracting(item -> item.sortKeyValue().orElseThrow())
+        .containsExactly("2024-01-05", "2024-01-04");
+
+    final List<PdbItem> nextPage = dao.query(queryTableName, "user-desc", null, Map.of(), 2,
+        Optional.of("user-desc"), Optional.of("2024-01-04"), true, PdbItemDao.Projection.ALL, false);
+    assertThat(nextPage).extracting(item -> item.sortKeyValue().orElseThrow())
+        .containsExactly("2024-01-03", "2024-01-02");
+  }
+
   @Test
   void query_withLimit() {
     // Insert multiple items
@@ -217,9 +333,267 @@ class PdbItemDaoTest extends BaseJdbiTest {
     assertThat(results).hasSizeGreaterThanOrEqualTo(3);
   }
 
+  @Test
+  void scan_afterKey_continuesAcrossPartitions() {
+    final PdbMetadata metadata = ImmutablePdbMetadata.builder()
+        .name("scan_paging_test")
+        .hashKey("userId")
+        .sortKey("timestamp")
+        .createDate(Instant.now())
+        .build();
+
+    tableManager.createItemTable(metadata);
+    final String scanTableName = tableManager.getItemTableName("scan_paging_test");
+    for (String user : List.of("a", "b")) {
+      for (int i = 1; i <= 3; i++) {
+        dao.insert(scanTableName, ImmutablePdbItem.builder()
+            .tableName(scanTableName)
+            .hashKeyValue(user)
+            .sortKeyValue(String.valueOf(i))
+            .attributesJson("{\"userId\":{\"S\":\"" + user + "\"}}")
+            .createDate(Instant.now())
+            .updateDate(Instant.now())
+            .build());
+      }
+    }
+
+    final List<PdbItem> results = dao.scan(scanTableName, 3, Optional.of("a"), Optional.of("2"));
+
+    assertThat(results).extracting(item -> item.hashKeyValue() + item.sortKeyValue().orElseThrow())
+        .containsExactly("a3", "b1", "b2");
+  }
+
+  @Test
+  void scan_segments_coverTableDisjointly() {
+    for (int i = 1; i <= 25; i++) {
+      dao.insert(testTableName, ImmutablePdbItem.builder()
+          .tableName(testTableName)
+          .hashKeyValue("segment-item-" + i)
+          .attributesJson("{\"id\":{\"S\":\"segment-item-" + i + "\"}}")
+          .createDate(Instant.now())
+          .updateDate(Instant.now())
+          .build());
+    }
+
+    final List<String> scanned = new ArrayList<>();
+    for (int segment = 0; segment < 3; segment++) {
+      final PdbItemDao.Segment current = new PdbItemDao.Segment(segment, 3);
+      Optional<String> exclusiveStartHashKey = Optional.empty();
+      List<PdbItem> page;
+      do {
+        page = dao.scan(testTableName, 4, exclusiveStartHashKey, Optional.empty(), true,
+            PdbItemDao.Projection.ALL, current);
+        page.forEach(item -> assertThat(current.contains(item.hashKeyValue())).isTrue());
+        page.forEach(item -> scanned.add(item.hashKeyValue()));
+        exclusiveStartHashKey = page.isEmpty()
+            ? Optional.empty()
+            : Optional.of(page.get(page.size() - 1).hashKeyValue());
+      } while (page.size() == 4);
+    }
+
+    assertThat(scanned).hasSize(25).doesNotHaveDuplicates();
+  }
+
+  @Test
+  void scanPage_endsAtOneMegabyte() {
+    final String payload = "x".repeat(300_000);
+    for (int i = 1; i <= 5; i++) {
+      dao.insert(testTableName, ImmutablePdbItem.builder()
+          .tableName(testTableName)
+          .hashKeyValue("large-item-" + i)
+          .attributesJson("{\"id\":{\"S\":\"large-item-" + i + "\"},\"data\":{\"S\":\"" + payload + "\"}}")
+          .createDate(Instant.now())
+          .updateDate(Instant.now())
+          .build());
+    }
+
+    final PdbItemDao.Page page = dao.scanPage(testTableName, 100, Optional.empty(), Optional.empty(), true,
+        PdbItemDao.Projection.ALL, PdbItemDao.Segment.ALL);
+
+    // The fourth document takes the page past 1 MB, so the page ends there
+    assertThat(page.items()).extracting(PdbItem::hashKeyValue)
+        .containsExactly("large-item-1", "large-item-2", "large-item-3", "large-item-4");
+    assertThat(page.scannedCount()).isEqualTo(4);
+    assertThat(page.lastEvaluated()).map(PdbItem::hashKeyValue).contains("large-item-4");
+
+    final PdbItemDao.Page rest = dao.scanPage(testTableName, 100, Optional.of("large-item-4"), Optional.empty(),
+        true, PdbItemDao.Projection.ALL, PdbItemDao.Segment.ALL);
+    assertThat(rest.items()).extracting(PdbItem::hashKeyValue).containsExactly("large-item-5");
+    assertThat(rest.lastEvaluated()).isEmpty();
+  }
+
+  @Test
+  void scanPage_measuresDocumentsInBytes() {
+    // 150,000 characters but 300,000 bytes each
+    final String payload = "\u00e9".repeat(150_000);
+    for (int i = 1; i <= 6; i++) {
+      dao.insert(testTableName, ImmutablePdbItem.builder()
+          .tableName(testTableName)
+          .hashKeyValue("wide-item-" + i)
+          .attributesJson("{\"id\":{\"S\":\"wide-item-" + i + "\"},\"data\":{\"S\":\"" + payload + "\"}}")
+          .createDate(Instant.now())
+          .updateDate(Instant.now())
+          .build());
+    }
+
+    final PdbItemDao.Page page = dao.scanPage(testTableName, 100, Optional.empty(), Optional.empty(), true,
+        PdbItemDao.Projection.ALL, PdbItemDao.Segment.ALL);
+
+    assertThat(page.items()).extracting(PdbItem::hashKeyValue)
+        .containsExactly("wide-item-1", "wide-item-2", "wide-item-3", "wide-item-4");
+    assertThat(page.lastEvaluated()).map(PdbItem::hashKeyValue).contains("wide-item-4");
+  }
+
+  @Test
+  void queryPage_endsAtPageSize() {
+    final PdbMetadata metadata = ImmutablePdbMetadata.builder()
+        .name("query_page_test")
+        .hashKey("userId")
+        .sortKey("timestamp")
+        .createDate(Instant.now())
+        .build();
+
+    tableManager.createItemTable(metadata);
+    final String queryTableName = tableManager.getItemTableName("query_page_test");
+    for (int i = 1; i <= 3; i++) {
+      dao.insert(queryTableName, ImmutablePdbItem.builder()
+          .tableName(queryTableName)
+          .hashKeyValue("user-page")
+          .sortKeyValue("2024-01-0" + i)
+          .attributesJson("{\"userId\":{\"S\":\"user-page\"}}")
+          .createDate(Instant.now())
+          .updateDate(Instant.now())
+          .build());
+    }
+
+    final PdbItemDao.Page page = dao.queryPage(queryTableName, "user-page", null, Map.of(), 2,
+        Optional.empty(), Optional.empty(), true, PdbItemDao.Projection.ALL, true);
+    assertThat(page.items()).extracting(item -> item.sortKeyValue().orElseThrow())
+        .containsExactly("2024-01-01", "2024-01-02");
+    assertThat(page.lastEvaluated()).flatMap(PdbItem::sortKeyValue).contains("2024-01-02");
+
+    final PdbItemDao.Page last = dao.queryPage(queryTableName, "user-page", null, Map.of(), 2,
+        Optional.of("user-page"), Optional.of("2024-01-02"), true, PdbItemDao.Projection.ALL, true);
+    assertThat(last.items()).hasSize(1);
+    assertThat(last.lastEvaluated()).isEmpty();
+  }
+
+  @Test
+  void batchGet_withSortKeys_matchesExactKeys() {
+    final PdbMetadata metadata = ImmutablePdbMetadata.builder()
+        .name("batch_get_test")
+        .hashKey("userId")
+        .sortKey("timestamp")
+        .createDate(Instant.now())
+        .build();
+
+    tableManager.createItemTable(metadata);
+    final String batchTableName = tableManager.getItemTableName("batch_get_test");
+    for (int i = 0; i < 100; i++) {
+      dao.insert(batchTableName, ImmutablePdbItem.builder()
+          .tableName(batchTableName)
+          .hashKeyValue("user-" + (i % 10))
+          .sortKeyValue(String.format("%03d", i))
+          .attributesJson("{\"userId\":{\"S\":\"user-" + (i % 10) + "\"}}")
+          .createDate(Instant.now())
+          .updateDate(Instant.now())
+          .build());
+    }
+
+    final List<PdbItemDao.KeyPair> keys = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      // Half of the keys pair a hash key with another partition's sort key, so they match nothing
+      keys.add(new PdbItemDao.KeyPair("user-" + (i % 10), Optional.of(String.format("%03d", i % 2 == 0 ? i : i + 1))));
+    }
+    keys.add(keys.get(0));
+
+    assertThat(dao.batchGet(batchTableName, keys))
+        .hasSize(50)
+        .allSatisfy(item -> assertThat(Integer.parseInt(item.sortKeyValue().orElseThrow()) % 2).isZero());
+  }
+
+  @Test
+  void streamScan_readsWholeTableFromStartKey() {
+    for (int i = 1; i <= 9; i++) {
+      dao.insert(testTableName, ImmutablePdbItem.builder()
+          .tableName(testTableName)
+          .hashKeyValue("stream-item-" + i)
+          .attributesJson("{\"id\":{\"S\":\"stream-item-" + i + "\"}}")
+          .createDate(Instant.now())
+          .updateDate(Instant.now())
+          .build());
+    }
+
+    try (Stream<PdbItem> items = dao.streamScan(testTableName, Optional.of("stream-item-3"), Optional.empty(),
+        true, PdbItemDao.Projection.ALL, PdbItemDao.Segment.ALL)) {
+      assertThat(items.map(PdbItem::hashKeyValue).toList())
+          .containsExactly("stream-item-4", "stream-item-5", "stream-item-6", "stream-item-7", "stream-item-8",
+              "stream-item-9");
+    }
+
+    final List<String> scanned = new ArrayList<>();
+    for (int segment = 0; segment < 2; segment++) {
+      try (Stream<PdbItem> items = dao.streamScan(testTableName, Optional.empty(), Optional.empty(), true,
+          PdbItemDao.Projection.ALL, new PdbItemDao.Segment(segment, 2))) {
+        items.forEach(item -> scanned.add(item.hashKeyValue()));
+      }
+    }
+    assertThat(scanned).hasSize(9).doesNotHaveDuplicates();
+  }
+
+  @Test
+  void streamQuery_descending() {
+    final PdbMetadata metadata = ImmutablePdbMetadata.builder()
+        .name("stream_query_test")
+        .hashKey("userId")
+        .sortKey("timestamp")
+        .createDate(Instant.now())
+        .build();
+
+    tableManager.createItemTable(metadata);
+    final String queryTableName = tableManager.getItemTableName("stream_query_test");
+    for (int i = 1; i <= 5; i++) {
+      dao.insert(queryTableName, ImmutablePdbItem.builder()
+          .tableName(queryTableName)
+          .hashKeyValue("user-stream")
+          .sortKeyValue("2024-01-0" + i)
+          .attributesJson("{\"userId\":{\"S\":\"user-stream\"}}")
+          .createDate(Instant.now())
+          .updateDate(Instant.now())
+          .build());
+    }
+
+    try (Stream<PdbItem> items = dao.streamQuery(queryTableName, "user-stream", null, Map.of(),
+        Optional.of("user-stream"), Optional.of("2024-01-04"), false, PdbItemDao.Projection.ALL, false)) {
+      assertThat(items.map(item -> item.sortKeyValue().orElseThrow()).toList())
+          .containsExactly("2024-01-03", "2024-01-02", "2024-01-01");
+    }
+  }
+
   @Test
   void scan_emptyTable() {
     final List<PdbItem> results = dao.scan(testTableName, 100);
     assertThat(results).isEmpty();
   }
+
+  @Test
+  void get_withProjection_selectsProjectedDocument() {
+    dao.insert(testTableName, ImmutablePdbItem.builder()
+        .tableName(testTableName)
+        .hashKeyValue("item-123")
+        .attributesJson("{\"id\":{\"S\":\"item-123\"},\"blob\":{\"S\":\"large\"}}")
+        .createDate(Instant.now())
+        .updateDate(Instant.now())
+        .build());
+    // A constant stands in for the JSONB projection, which needs PostgreSQL
+    final PdbItemDao.Projection projection = new PdbItemDao.Projection("CAST(:p0 AS VARCHAR(64))",
+        java.util.Map.of("p0", "{\"id\":{\"S\":\"item-123\"}}"));
+
+    assertThat(dao.get(testTableName, "item-123", Optional.empty(), true, projection))
+        .hasValueSatisfying(item -> assertThat(item.attributesJson()).doesNotContain("blob"));
+    assertThat(dao.batchGet(testTableName, List.of(new PdbItemDao.KeyPair("item-123", Optional.empty())), true,
+        projection))
+        .singleElement()
+        .satisfies(item -> assertThat(item.attributesJson()).doesNotContain("blob"));
+  }
 }
@@ -0,0 +1,48 @@
+package io.github.pretenderdb.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.pretenderdb.dbu.model.ImmutableDatabase;
+import org.junit.jupiter.api.Test;
+
+class PdbItemStatementsTest {
+
+  private PdbItemStatements statements(final String url) {
+    return new PdbItemStatements(ImmutableDatabase.builder().url(url).username("SA").password("").build());
+  }
+
+  @Test
+  void forTable_reusesStatements() {
+    final PdbItemStatements statements = statements("jdbc:hsqldb:mem:test");
+
+    final PdbItemStatements.ItemSql first = statements.forTable("pdb_item_users");
+
+    assertThat(statements.forTable("pdb_item_users")).isSameAs(first);
+    assertThat(first.get(true)).isEqualTo(
+        "SELECT * FROM \"pdb_item_users\" WHERE hash_key_value = :hashKey AND sort_key_value = :sortKey");
+    assertThat(first.insert()).contains(":attributesJson").doesNotContain("JSONB");
+  }
+
+  @Test
+  void forTable_castsJsonOnPostgresql() {
+    final PdbItemStatements statements = statements("jdbc:postgresql://localhost/pretender");
+
+    assertThat(statements.forTable("pdb_item_users").insert()).contains("CAST(:attributesJson AS JSONB)");
+    assertThat(statements.forTable("pdb_item_users").update(false)).contains("CAST(:attributesJson AS JSONB)");
+  }
+
+  @Test
+  void evict_dropsTableAndGsiStatements() {
+    final PdbItemStatements statements = statements("jdbc:hsqldb:mem:test");
+    final PdbItemStatements.ItemSql table = statements.forTable("pdb_item_users");
+    final PdbItemStatements.ItemSql gsi = statements.forTable("pdb_item_users_gsi_email");
+    final PdbItemStatements.ItemSql other = statements.forTable("pdb_item_users2");
+
+    statements.evict("pdb_item_users");
+
+    assertThat(statements.forTable("pdb_item_users")).isNotSameAs(table);
+    assertThat(statements.forTable("pdb_item_users_gsi_email")).isNotSameAs(gsi);
+    assertThat(statements.forTable("pdb_item_users2")).isSameAs(other);
+  }
+
+}
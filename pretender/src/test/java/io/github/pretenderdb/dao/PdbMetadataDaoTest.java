@@ -45,4 +45,29 @@ class PdbMetadataDaoTest extends BaseJdbiTest {
     assertThat(pdbMetadataDao.getTable(PDB_TABLE.name())).isEmpty();
   }
 
-}
\ No newline at end of file
+  @Test
+  void testUpdates_bumpMetadataVersion() {
+    pdbMetadataDao.insert(PDB_TABLE);
+    assertThat(pdbMetadataDao.getTable(PDB_TABLE.name())).get()
+        .extracting(PdbMetadata::metadataVersion).isEqualTo(0L);
+
+    pdbMetadataDao.updateTtl(PDB_TABLE.name(), "expireAt", true);
+    pdbMetadataDao.updateStreamConfig(PDB_TABLE.name(), true, "KEYS_ONLY", "arn", "label");
+
+    assertThat(pdbMetadataDao.getTable(PDB_TABLE.name())).get()
+        .extracting(PdbMetadata::metadataVersion).isEqualTo(2L);
+  }
+
+
+  @Test
+  void testGetMetadataVersion() {
+    pdbMetadataDao.insert(ImmutablePdbMetadata.copyOf(PDB_TABLE).withCreateDate(Instant.now()));
+    pdbMetadataDao.updateTtl(PDB_TABLE.name(), "expireAt", true);
+    // The create date as read back, which is what a cached copy holds
+    final Instant createDate = pdbMetadataDao.getTable(PDB_TABLE.name()).orElseThrow().createDate();
+
+    assertThat(pdbMetadataDao.getMetadataVersion(PDB_TABLE.name(), createDate)).contains(1L);
+    assertThat(pdbMetadataDao.getMetadataVersion(PDB_TABLE.name(), createDate.plusSeconds(1))).isEmpty();
+    assertThat(pdbMetadataDao.getMetadataVersion("other", createDate)).isEmpty();
+  }
+}
@@ -0,0 +1,106 @@
+package io.github.pretenderdb.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.pretenderdb.BaseJdbiTest;
+import io.github.pretenderdb.manager.PdbItemTableManager;
+import io.github.pretenderdb.manager.PdbStreamTableManager;
+import io.github.pretenderdb.model.ImmutablePdbItem;
+import io.github.pretenderdb.model.ImmutablePdbMetadata;
+import io.github.pretenderdb.model.ImmutablePdbStreamRecord;
+import io.github.pretenderdb.model.PdbItem;
+import io.github.pretenderdb.model.PdbStreamRecord;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PdbWriteUnitRunnerTest extends BaseJdbiTest {
+
+  private PdbItemDao itemDao;
+  private PdbStreamDao streamDao;
+  private PdbWriteUnitRunner runner;
+  private String itemTableName;
+  private String streamTableName;
+
+  @BeforeEach
+  void setup() {
+    itemDao = new PdbItemDao(jdbi, configuration.database());
+    streamDao = new PdbStreamDao(jdbi, configuration.database());
+    runner = new PdbWriteUnitRunner(jdbi, itemDao, streamDao);
+
+    final PdbItemTableManager itemTableManager = new PdbItemTableManager(jdbi, configuration.database());
+    itemTableManager.createItemTable(ImmutablePdbMetadata.builder()
+        .name("unit_items")
+        .hashKey("id")
+        .sortKey("sk")
+        .createDate(Instant.now())
+        .build());
+    itemTableName = itemTableManager.getItemTableName("unit_items");
+
+    final PdbStreamTableManager streamTableManager = new PdbStreamTableManager(jdbi, configuration.database());
+    streamTableManager.createStreamTable("unit_items");
+    streamTableName = streamTableManager.getStreamTableName("unit_items");
+  }
+
+  @Test
+  void inWriteUnit_flushesQueuedWritesOnCommit() {
+    runner.inWriteUnit(unit -> {
+      unit.upsert(itemTableName, item("a", "1"));
+      unit.upsert(itemTableName, item("b", "1"));
+      unit.streamRecord(streamTableName, record("event-1"));
+      return null;
+    });
+
+    assertThat(itemDao.scan(itemTableName, 10)).hasSize(2);
+    assertThat(streamDao.count(streamTableName)).isEqualTo(1);
+
+    runner.inWriteUnit(unit -> {
+      unit.delete(itemTableName, new PdbItemDao.KeyPair("a", Optional.of("1")));
+      unit.upsert(itemTableName, ImmutablePdbItem.copyOf(item("b", "1")).withAttributesJson("{\"v\":2}"));
+      return null;
+    });
+
+    assertThat(itemDao.get(itemTableName, "a", Optional.of("1"))).isEmpty();
+    assertThat(itemDao.get(itemTableName, "b", Optional.of("1")))
+        .hasValueSatisfying(item -> assertThat(item.attributesJson()).contains("2"));
+  }
+
+  @Test
+  void inWriteUnit_failureRollsBackItemAndQueuedWrites() {
+    assertThatThrownBy(() -> runner.inWriteUnit(unit -> {
+      itemDao.insert(unit.handle(), itemTableName, item("a", "1"));
+      unit.streamRecord(streamTableName, record("event-1"));
+      throw new IllegalStateException("condition failed");
+    })).isInstanceOf(IllegalStateException.class);
+
+    assertThat(itemDao.scan(itemTableName, 10)).isEmpty();
+    assertThat(streamDao.count(streamTableName)).isZero();
+  }
+
+  private PdbItem item(final String hashKey, final String sortKey) {
+    return ImmutablePdbItem.builder()
+        .tableName(itemTableName)
+        .hashKeyValue(hashKey)
+        .sortKeyValue(sortKey)
+        .attributesJson("{\"v\":1}")
+        .createDate(Instant.now())
+        .updateDate(Instant.now())
+        .build();
+  }
+
+  private PdbStreamRecord record(final String eventId) {
+    return ImmutablePdbStreamRecord.builder()
+        .sequenceNumber(0L)
+        .eventId(eventId)
+        .eventType("INSERT")
+        .eventTimestamp(Instant.now())
+        .hashKeyValue("a")
+        .keysJson("{\"id\":{\"S\":\"a\"}}")
+        .approximateCreationTime(System.currentTimeMillis())
+        .sizeBytes(10)
+        .createDate(Instant.now())
+        .build();
+  }
+}
@@ -0,0 +1,90 @@
+package io.github.pretenderdb.endToEnd;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.pretenderdb.DynamoDbAsyncPretenderClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+public class AsyncClientTest extends BaseEndToEndTest {
+
+  private static final String TABLE_NAME = "AsyncTable";
+
+  private DynamoDbAsyncPretenderClient client;
+
+  @BeforeEach
+  void setup() {
+    client = component.dynamoDbAsyncPretenderClient();
+    client.createTable(CreateTableRequest.builder()
+        .tableName(TABLE_NAME)
+        .keySchema(
+            KeySchemaElement.builder().attributeName("pk").keyType(KeyType.HASH).build(),
+            KeySchemaElement.builder().attributeName("sk").keyType(KeyType.RANGE).build())
+        .build()).join();
+  }
+
+  @Test
+  void putItem_concurrently_and_queryPaginator() {
+    final List<CompletableFuture<PutItemResponse>> puts = IntStream.range(0, 25)
+        .mapToObj(i -> client.putItem(PutItemRequest.builder()
+            .tableName(TABLE_NAME)
+            .item(Map.of("pk", s("user"), "sk", s(String.format("%02d", i))))
+            .build()))
+        .toList();
+    CompletableFuture.allOf(puts.toArray(CompletableFuture[]::new)).join();
+
+    final List<String> sortKeys = new ArrayList<>();
+    final List<Integer> pageSizes = new ArrayList<>();
+    final QueryRequest query = QueryRequest.builder()
+        .tableName(TABLE_NAME)
+        .keyConditionExpression("pk = :pk")
+        .expressionAttributeValues(Map.of(":pk", s("user")))
+        .limit(10)
+        .build();
+    client.queryPaginator(query).subscribe(page -> pageSizes.add(page.count())).join();
+    client.queryPaginator(query).items().subscribe(item -> sortKeys.add(item.get("sk").s())).join();
+
+    assertThat(pageSizes).startsWith(10, 10, 5);
+    assertThat(sortKeys).hasSize(25).isSorted();
+  }
+
+  @Test
+  void scanPaginator_readsAllItems() {
+    for (int i = 0; i < 7; i++) {
+      client.putItem(PutItemRequest.builder()
+          .tableName(TABLE_NAME)
+          .item(Map.of("pk", s("p" + i), "sk", s("s")))
+          .build()).join();
+    }
+
+    final List<Map<String, AttributeValue>> items = new ArrayList<>();
+    client.scanPaginator(ScanRequest.builder().tableName(TABLE_NAME).limit(3).build())
+        .items().subscribe(items::add).join();
+
+    assertThat(items).hasSize(7);
+  }
+
+  @Test
+  void getItem_missingTable_completesExceptionally() {
+    final CompletableFuture<GetItemResponse> future = client.getItem(GetItemRequest.builder()
+        .tableName("Missing")
+        .key(Map.of("pk", s("a"), "sk", s("b")))
+        .build());
+
+    assertThatThrownBy(future::join)
+        .isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(ResourceNotFoundException.class);
+  }
+
+  private static AttributeValue s(final String value) {
+    return AttributeValue.builder().s(value).build();
+  }
+}
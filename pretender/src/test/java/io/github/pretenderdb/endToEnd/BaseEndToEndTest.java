@@ -11,7 +11,7 @@ public abstract class BaseEndToEndTest {
 
   protected PretenderComponent component;
 
-  private Configuration configuration() {
+  protected Configuration configuration() {
     return ImmutableConfiguration.builder()
         .database(
             ImmutableDatabase.builder()
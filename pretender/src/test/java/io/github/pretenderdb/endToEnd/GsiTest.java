@@ -3,12 +3,16 @@ package io.github.pretenderdb.endToEnd;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
 import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
 import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
 import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
@@ -16,8 +20,11 @@ import software.amazon.awssdk.services.dynamodb.model.KeyType;
 import software.amazon.awssdk.services.dynamodb.model.Projection;
 import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
 import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
 import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 
 /**
  * End-to-end tests for Global Secondary Index (GSI) functionality.
@@ -250,6 +257,44 @@ class GsiTest extends BaseEndToEndTest {
     assertThat(response.items().get(0).get("userId").s()).isEqualTo("user-2");
   }
 
+  @Test
+  void batchWriteItem_maintainsGsi() {
+    createTableWithGsi(ProjectionType.ALL, null);
+    putItem("user-1", "active", "2024-01-01T00:00:00Z", "alice@example.com", "Alice");
+    putItem("user-2", "active", "2024-01-02T00:00:00Z", "bob@example.com", "Bob");
+
+    // Re-key user-1 out of the active partition, delete user-2 and add user-3
+    client.batchWriteItem(BatchWriteItemRequest.builder()
+        .requestItems(Map.of(TABLE_NAME, List.of(
+            WriteRequest.builder().putRequest(PutRequest.builder().item(Map.of(
+                "userId", AttributeValue.builder().s("user-1").build(),
+                "status", AttributeValue.builder().s("inactive").build(),
+                "timestamp", AttributeValue.builder().s("2024-01-01T00:00:00Z").build())).build()).build(),
+            WriteRequest.builder().deleteRequest(DeleteRequest.builder().key(Map.of(
+                "userId", AttributeValue.builder().s("user-2").build())).build()).build(),
+            WriteRequest.builder().putRequest(PutRequest.builder().item(Map.of(
+                "userId", AttributeValue.builder().s("user-3").build(),
+                "status", AttributeValue.builder().s("active").build(),
+                "timestamp", AttributeValue.builder().s("2024-01-03T00:00:00Z").build())).build()).build())))
+        .build());
+
+    final QueryResponse active = client.query(QueryRequest.builder()
+        .tableName(TABLE_NAME)
+        .indexName(GSI_NAME)
+        .keyConditionExpression("status = :status")
+        .expressionAttributeValues(Map.of(":status", AttributeValue.builder().s("active").build()))
+        .build());
+    assertThat(active.items()).extracting(item -> item.get("userId").s()).containsExactly("user-3");
+
+    final QueryResponse inactive = client.query(QueryRequest.builder()
+        .tableName(TABLE_NAME)
+        .indexName(GSI_NAME)
+        .keyConditionExpression("status = :status")
+        .expressionAttributeValues(Map.of(":status", AttributeValue.builder().s("inactive").build()))
+        .build());
+    assertThat(inactive.items()).extracting(item -> item.get("userId").s()).containsExactly("user-1");
+  }
+
   @Test
   void queryNonExistentIndex_throwsError() {
     createTableWithGsi(ProjectionType.ALL, null);
@@ -315,6 +360,114 @@ class GsiTest extends BaseEndToEndTest {
     assertThat(response2.items()).hasSize(1);
   }
 
+  @Test
+  void queryTable_numericSortKey_pagesInNumericOrder() {
+    createNumericTable();
+    final List<String> scores = List.of("-10", "-1.5", "0", "2", "9", "10", "10.5");
+    for (int i = 0; i < scores.size(); i++) {
+      putNumericItem("user-1", scores.get(i), "group-" + i, scores.get(scores.size() - 1 - i));
+    }
+
+    final List<Map<String, AttributeValue>> items = queryAllPages(QueryRequest.builder()
+        .tableName(TABLE_NAME)
+        .keyConditionExpression("userId = :id")
+        .expressionAttributeValues(Map.of(":id", AttributeValue.builder().s("user-1").build())));
+
+    assertThat(items).extracting(item -> item.get("seq").n()).containsExactlyElementsOf(scores);
+  }
+
+  @Test
+  void queryGsi_numericSortKey_pagesInNumericOrder() {
+    createNumericTable();
+    putNumericItem("user-1", "1", "team", "10");
+    putNumericItem("user-2", "1", "team", "9");
+    putNumericItem("user-3", "1", "team", "-2.5");
+    putNumericItem("user-4", "1", "team", "9");
+    putNumericItem("user-5", "1", "team", "100");
+    putNumericItem("user-6", "1", "other", "1");
+
+    final List<Map<String, AttributeValue>> items = queryAllPages(QueryRequest.builder()
+        .tableName(TABLE_NAME)
+        .indexName(GSI_NAME)
+        .keyConditionExpression("#group = :group")
+        .expressionAttributeNames(Map.of("#group", "group"))
+        .expressionAttributeValues(Map.of(":group", AttributeValue.builder().s("team").build())));
+
+    assertThat(items).extracting(item -> item.get("score").n() + "/" + item.get("userId").s())
+        .containsExactly("-2.5/user-3", "9/user-2", "9/user-4", "10/user-1", "100/user-5");
+  }
+
+  @Test
+  void queryGsi_lastEvaluatedKey_holdsIndexAndTableKeys() {
+    createNumericTable();
+    putNumericItem("user-1", "1", "team", "10");
+    putNumericItem("user-2", "2", "team", "20");
+
+    final QueryResponse response = client.query(QueryRequest.builder()
+        .tableName(TABLE_NAME)
+        .indexName(GSI_NAME)
+        .keyConditionExpression("#group = :group")
+        .expressionAttributeNames(Map.of("#group", "group"))
+        .expressionAttributeValues(Map.of(":group", AttributeValue.builder().s("team").build()))
+        .limit(1)
+        .build());
+
+    assertThat(response.lastEvaluatedKey()).containsOnly(
+        Map.entry("group", AttributeValue.builder().s("team").build()),
+        Map.entry("score", AttributeValue.builder().n("10").build()),
+        Map.entry("userId", AttributeValue.builder().s("user-1").build()),
+        Map.entry("seq", AttributeValue.builder().n("1").build()));
+  }
+
+  private List<Map<String, AttributeValue>> queryAllPages(final QueryRequest.Builder request) {
+    final List<Map<String, AttributeValue>> items = new ArrayList<>();
+    Map<String, AttributeValue> startKey = null;
+    do {
+      final QueryResponse page = client.query(request.limit(2).exclusiveStartKey(startKey).build());
+      items.addAll(page.items());
+      startKey = page.hasLastEvaluatedKey() ? page.lastEvaluatedKey() : null;
+    } while (startKey != null);
+    return items;
+  }
+
+  private void createNumericTable() {
+    client.createTable(CreateTableRequest.builder()
+        .tableName(TABLE_NAME)
+        .attributeDefinitions(
+            AttributeDefinition.builder().attributeName("userId").attributeType(ScalarAttributeType.S).build(),
+            AttributeDefinition.builder().attributeName("seq").attributeType(ScalarAttributeType.N).build(),
+            AttributeDefinition.builder().attributeName("group").attributeType(ScalarAttributeType.S).build(),
+            AttributeDefinition.builder().attributeName("score").attributeType(ScalarAttributeType.N).build()
+        )
+        .keySchema(
+            KeySchemaElement.builder().attributeName("userId").keyType(KeyType.HASH).build(),
+            KeySchemaElement.builder().attributeName("seq").keyType(KeyType.RANGE).build()
+        )
+        .globalSecondaryIndexes(
+            GlobalSecondaryIndex.builder()
+                .indexName(GSI_NAME)
+                .keySchema(
+                    KeySchemaElement.builder().attributeName("group").keyType(KeyType.HASH).build(),
+                    KeySchemaElement.builder().attributeName("score").keyType(KeyType.RANGE).build()
+                )
+                .projection(Projection.builder().projectionType(ProjectionType.KEYS_ONLY).build())
+                .build()
+        )
+        .build());
+  }
+
+  private void putNumericItem(final String userId, final String seq, final String group, final String score) {
+    client.putItem(PutItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .item(Map.of(
+            "userId", AttributeValue.builder().s(userId).build(),
+            "seq", AttributeValue.builder().n(seq).build(),
+            "group", AttributeValue.builder().s(group).build(),
+            "score", AttributeValue.builder().n(score).build()
+        ))
+        .build());
+  }
+
   private void createTableWithGsi(final ProjectionType projectionType, final List<String> nonKeyAttributes) {
     final Projection.Builder projectionBuilder = Projection.builder().projectionType(projectionType);
     if (nonKeyAttributes != null && !nonKeyAttributes.isEmpty()) {
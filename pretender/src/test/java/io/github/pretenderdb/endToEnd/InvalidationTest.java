@@ -0,0 +1,115 @@
+package io.github.pretenderdb.endToEnd;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.pretenderdb.DynamoDbPretenderClient;
+import io.github.pretenderdb.dagger.PretenderComponent;
+import io.github.pretenderdb.dbu.model.ImmutableDatabase;
+import io.github.pretenderdb.dbu.model.ImmutableInvalidation;
+import io.github.pretenderdb.model.Configuration;
+import io.github.pretenderdb.model.ImmutableConfiguration;
+import io.github.pretenderdb.model.ImmutableItemCacheConfig;
+import io.github.pretenderdb.model.PdbMetadata;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+/**
+ * Two processes on one database: what one caches is invalidated when the other writes.
+ */
+public class InvalidationTest extends BaseEndToEndTest {
+
+  private static final String TABLE_NAME = "SharedTable";
+
+  private Configuration configuration;
+  private PretenderComponent other;
+  private DynamoDbPretenderClient client;
+  private DynamoDbPretenderClient otherClient;
+
+  @Override
+  protected Configuration configuration() {
+    final Configuration base = super.configuration();
+    configuration = ImmutableConfiguration.builder()
+        .from(base)
+        .database(ImmutableDatabase.builder()
+            .from(base.database())
+            .invalidation(ImmutableInvalidation.builder().enabled(true).pollIntervalMillis(50).build())
+            .build())
+        .addItemCaches(ImmutableItemCacheConfig.builder().tableName(TABLE_NAME).build())
+        .build();
+    return configuration;
+  }
+
+  @BeforeEach
+  void setup() {
+    other = PretenderComponent.instance(configuration);
+    client = component.dynamoDbPretenderClient();
+    otherClient = other.dynamoDbPretenderClient();
+    client.createTable(CreateTableRequest.builder()
+        .tableName(TABLE_NAME)
+        .keySchema(KeySchemaElement.builder().attributeName("id").keyType(KeyType.HASH).build())
+        .build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    component.invalidationBus().close();
+    other.invalidationBus().close();
+  }
+
+  @Test
+  void getItem_cachedItem_invalidatedByOtherProcess() {
+    put(otherClient, "one");
+    // The invalidation of the first put can arrive after a read has cached the item, so wait for a hit
+    awaitUntil(() -> s("one").equals(get().get("v")) && component.itemCache().stats(TABLE_NAME).hits() > 0);
+
+    put(otherClient, "two");
+
+    awaitUntil(() -> s("two").equals(get().get("v")));
+  }
+
+  @Test
+  void getPdbTable_cachedMetadata_invalidatedByOtherProcess() {
+    assertThat(component.pdbTableManager().getPdbTable(TABLE_NAME)).map(PdbMetadata::ttlEnabled).contains(false);
+
+    other.pdbTableManager().enableTtl(TABLE_NAME, "expireAt");
+
+    awaitUntil(() -> component.pdbTableManager().getPdbTable(TABLE_NAME)
+        .map(PdbMetadata::ttlEnabled).orElse(false));
+  }
+
+  private void awaitUntil(final BooleanSupplier condition) {
+    final Instant deadline = Instant.now().plus(Duration.ofSeconds(10));
+    while (!condition.getAsBoolean()) {
+      assertThat(Instant.now()).as("invalidation received").isBefore(deadline);
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  private void put(final DynamoDbPretenderClient writer, final String value) {
+    writer.putItem(PutItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .item(Map.of("id", s("a"), "v", s(value)))
+        .build());
+  }
+
+  private Map<String, AttributeValue> get() {
+    return client.getItem(GetItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .key(Map.of("id", s("a")))
+        .build()).item();
+  }
+
+  private AttributeValue s(final String value) {
+    return AttributeValue.builder().s(value).build();
+  }
+}
@@ -0,0 +1,132 @@
+package io.github.pretenderdb.endToEnd;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.pretenderdb.DynamoDbPretenderClient;
+import io.github.pretenderdb.dao.PdbItemCache;
+import io.github.pretenderdb.model.Configuration;
+import io.github.pretenderdb.model.ImmutableConfiguration;
+import io.github.pretenderdb.model.ImmutableItemCacheConfig;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+public class ItemCacheTest extends BaseEndToEndTest {
+
+  private static final String TABLE_NAME = "CachedTable";
+
+  private DynamoDbPretenderClient client;
+
+  @Override
+  protected Configuration configuration() {
+    return ImmutableConfiguration.builder()
+        .from(super.configuration())
+        .addItemCaches(ImmutableItemCacheConfig.builder().tableName(TABLE_NAME).build())
+        .build();
+  }
+
+  @BeforeEach
+  void setup() {
+    client = component.dynamoDbPretenderClient();
+    client.createTable(CreateTableRequest.builder()
+        .tableName(TABLE_NAME)
+        .keySchema(KeySchemaElement.builder().attributeName("id").keyType(KeyType.HASH).build())
+        .build());
+  }
+
+  @Test
+  void getItem_servedFromCache_untilWritten() {
+    put("a", "one");
+
+    assertThat(get("a", false)).containsEntry("v", s("one"));
+    assertThat(get("a", false)).containsEntry("v", s("one"));
+    assertThat(stats().hits()).isEqualTo(1);
+
+    put("a", "two");
+    assertThat(get("a", false)).containsEntry("v", s("two"));
+
+    client.updateItem(UpdateItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .key(Map.of("id", s("a")))
+        .updateExpression("SET v = :v")
+        .expressionAttributeValues(Map.of(":v", s("three")))
+        .build());
+    assertThat(get("a", false)).containsEntry("v", s("three"));
+
+    client.deleteItem(DeleteItemRequest.builder().tableName(TABLE_NAME).key(Map.of("id", s("a"))).build());
+    assertThat(get("a", false)).isEmpty();
+  }
+
+  @Test
+  void getItem_batchAndTransactionalWrites_invalidate() {
+    put("a", "one");
+    put("b", "one");
+    get("a", false);
+    get("b", false);
+
+    client.batchWriteItem(BatchWriteItemRequest.builder()
+        .requestItems(Map.of(TABLE_NAME, List.of(WriteRequest.builder()
+            .putRequest(PutRequest.builder().item(Map.of("id", s("a"), "v", s("batch"))).build())
+            .build())))
+        .build());
+    client.transactWriteItems(TransactWriteItemsRequest.builder()
+        .transactItems(TransactWriteItem.builder()
+            .delete(Delete.builder().tableName(TABLE_NAME).key(Map.of("id", s("b"))).build())
+            .build())
+        .build());
+
+    assertThat(get("a", false)).containsEntry("v", s("batch"));
+    assertThat(get("b", false)).isEmpty();
+  }
+
+  @Test
+  void getItem_consistentRead_bypassesCache() {
+    put("a", "one");
+    get("a", false);
+
+    assertThat(get("a", true)).containsEntry("v", s("one"));
+    assertThat(stats().hits()).isZero();
+    assertThat(get("a", false)).containsEntry("v", s("one"));
+    assertThat(stats().hits()).isEqualTo(1);
+  }
+
+  @Test
+  void getItem_withProjection_fromCachedItem() {
+    put("a", "one");
+    get("a", false);
+
+    final Map<String, AttributeValue> item = client.getItem(GetItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .key(Map.of("id", s("a")))
+        .projectionExpression("v")
+        .build()).item();
+
+    assertThat(item).containsOnlyKeys("v");
+    assertThat(stats().hits()).isEqualTo(1);
+  }
+
+  private PdbItemCache.Stats stats() {
+    return component.itemCache().stats(TABLE_NAME);
+  }
+
+  private void put(final String id, final String value) {
+    client.putItem(PutItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .item(Map.of("id", s(id), "v", s(value)))
+        .build());
+  }
+
+  private Map<String, AttributeValue> get(final String id, final boolean consistentRead) {
+    return client.getItem(GetItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .key(Map.of("id", s(id)))
+        .consistentRead(consistentRead)
+        .build()).item();
+  }
+
+  private static AttributeValue s(final String value) {
+    return AttributeValue.builder().s(value).build();
+  }
+}
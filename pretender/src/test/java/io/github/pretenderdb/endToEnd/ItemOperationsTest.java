@@ -7,6 +7,7 @@ import io.github.pretenderdb.DynamoDbPretenderClient;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -861,7 +862,7 @@ public class ItemOperationsTest extends BaseEndToEndTest {
         software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest.builder()
             .requestItems(Map.of(
                 TABLE_NAME, software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes.builder()
-                    .keys(
+                    .keys(List.of(
                         Map.of(
                             HASH_KEY, AttributeValue.builder().s("batch-user-0").build(),
                             SORT_KEY, AttributeValue.builder().s("2024-01-01T00:00:00Z").build()
@@ -874,7 +875,7 @@ public class ItemOperationsTest extends BaseEndToEndTest {
                             HASH_KEY, AttributeValue.builder().s("batch-user-2").build(),
                             SORT_KEY, AttributeValue.builder().s("2024-01-03T00:00:00Z").build()
                         )
-                    )
+                    ))
                     .build()
             ))
             .build()
@@ -885,6 +886,83 @@ public class ItemOperationsTest extends BaseEndToEndTest {
     assertThat(response.responses().get(TABLE_NAME).get(0)).containsKey("name");
   }
 
+  @Test
+  void batchGetItem_withProjectionNames_resolvesPlaceholders() {
+    final Map<String, AttributeValue> key = Map.of(
+        HASH_KEY, AttributeValue.builder().s("batch-proj").build(),
+        SORT_KEY, AttributeValue.builder().s("2024-01-01T00:00:00Z").build());
+    final Map<String, AttributeValue> item = new java.util.HashMap<>(key);
+    item.put("name", AttributeValue.builder().s("Projected").build());
+    item.put("status", AttributeValue.builder().s("active").build());
+    client.putItem(PutItemRequest.builder().tableName(TABLE_NAME).item(item).build());
+
+    final BatchGetItemResponse response = client.batchGetItem(BatchGetItemRequest.builder()
+        .requestItems(Map.of(TABLE_NAME, KeysAndAttributes.builder()
+            .keys(List.of(key))
+            .projectionExpression("#n, #s")
+            .expressionAttributeNames(Map.of("#n", "name", "#s", "status"))
+            .build()))
+        .build());
+
+    assertThat(response.responses().get(TABLE_NAME)).containsExactly(Map.of(
+        "name", AttributeValue.builder().s("Projected").build(),
+        "status", AttributeValue.builder().s("active").build()));
+  }
+
+  @Test
+  void batchGetItem_and_transactGetItems_acrossTables() {
+    final String otherTable = "ItemOpsOtherTable";
+    client.createTable(CreateTableRequest.builder()
+        .tableName(otherTable)
+        .keySchema(KeySchemaElement.builder().attributeName("id").keyType(KeyType.HASH).build())
+        .build());
+    try {
+      client.putItem(PutItemRequest.builder()
+          .tableName(TABLE_NAME)
+          .item(Map.of(
+              HASH_KEY, AttributeValue.builder().s("user-1").build(),
+              SORT_KEY, AttributeValue.builder().s("2024-01-01T00:00:00Z").build(),
+              "name", AttributeValue.builder().s("One").build()))
+          .build());
+      client.putItem(PutItemRequest.builder()
+          .tableName(otherTable)
+          .item(Map.of(
+              "id", AttributeValue.builder().s("other-1").build(),
+              "name", AttributeValue.builder().s("Other").build()))
+          .build());
+      final Map<String, AttributeValue> itemKey = Map.of(
+          HASH_KEY, AttributeValue.builder().s("user-1").build(),
+          SORT_KEY, AttributeValue.builder().s("2024-01-01T00:00:00Z").build());
+      final Map<String, AttributeValue> otherKey = Map.of("id", AttributeValue.builder().s("other-1").build());
+      final Map<String, AttributeValue> missingKey = Map.of("id", AttributeValue.builder().s("missing").build());
+
+      final BatchGetItemResponse batchResponse = client.batchGetItem(BatchGetItemRequest.builder()
+          .requestItems(Map.of(
+              TABLE_NAME, KeysAndAttributes.builder().keys(List.of(itemKey)).build(),
+              otherTable, KeysAndAttributes.builder().keys(List.of(otherKey, missingKey)).build()))
+          .build());
+      assertThat(batchResponse.responses().get(TABLE_NAME)).extracting(item -> item.get("name").s())
+          .containsExactly("One");
+      assertThat(batchResponse.responses().get(otherTable)).extracting(item -> item.get("name").s())
+          .containsExactly("Other");
+
+      // Responses follow the request order, with an empty response for the missing item
+      final TransactGetItemsResponse transactResponse = client.transactGetItems(TransactGetItemsRequest.builder()
+          .transactItems(
+              TransactGetItem.builder().get(Get.builder().tableName(otherTable).key(missingKey).build()).build(),
+              TransactGetItem.builder().get(Get.builder().tableName(TABLE_NAME).key(itemKey).build()).build(),
+              TransactGetItem.builder().get(Get.builder().tableName(otherTable).key(otherKey)
+                  .projectionExpression("id").build()).build())
+          .build());
+      assertThat(transactResponse.responses()).hasSize(3);
+      assertThat(transactResponse.responses().get(0).item()).isEmpty();
+      assertThat(transactResponse.responses().get(1).item().get("name").s()).isEqualTo("One");
+      assertThat(transactResponse.responses().get(2).item()).containsOnlyKeys("id");
+    } finally {
+      client.deleteTable(DeleteTableRequest.builder().tableName(otherTable).build());
+    }
+  }
+
   @Test
   void batchWriteItem_putsAndDeletesMultipleItems() {
     // Put initial items to delete
@@ -2102,6 +2180,47 @@ public class ItemOperationsTest extends BaseEndToEndTest {
     assertThat(page1.count() + page2.count() + page3.count()).isEqualTo(5);
   }
 
+  @Test
+  void query_beginsWithAndBetween_matchKeysLiterally() {
+    final String hashKey = "key-range-test";
+    for (String sortKey : List.of("a%b", "a%c", "a_b", "aXb", "a%", "b")) {
+      client.putItem(PutItemRequest.builder()
+          .tableName(TABLE_NAME)
+          .item(Map.of(
+              HASH_KEY, AttributeValue.builder().s(hashKey).build(),
+              SORT_KEY, AttributeValue.builder().s(sortKey).build()
+          ))
+          .build());
+    }
+
+    // LIKE wildcards in the prefix are plain characters
+    final QueryResponse beginsWith = client.query(QueryRequest.builder()
+        .tableName(TABLE_NAME)
+        .keyConditionExpression("#pk = :pk AND begins_with(#sk, :prefix)")
+        .expressionAttributeNames(Map.of("#pk", HASH_KEY, "#sk", SORT_KEY))
+        .expressionAttributeValues(Map.of(
+            ":pk", AttributeValue.builder().s(hashKey).build(),
+            ":prefix", AttributeValue.builder().s("a%").build()
+        ))
+        .build());
+    assertThat(beginsWith.items()).extracting(item -> item.get(SORT_KEY).s())
+        .containsExactly("a%", "a%b", "a%c");
+
+    // Quotes in the bounds are bound, not written into the SQL
+    final QueryResponse between = client.query(QueryRequest.builder()
+        .tableName(TABLE_NAME)
+        .keyConditionExpression("#pk = :pk AND #sk BETWEEN :start AND :end")
+        .expressionAttributeNames(Map.of("#pk", HASH_KEY, "#sk", SORT_KEY))
+        .expressionAttributeValues(Map.of(
+            ":pk", AttributeValue.builder().s(hashKey).build(),
+            ":start", AttributeValue.builder().s("a%b").build(),
+            ":end", AttributeValue.builder().s("a_'").build()
+        ))
+        .build());
+    assertThat(between.items()).extracting(item -> item.get(SORT_KEY).s())
+        .containsExactly("a%b", "a%c", "aXb");
+  }
+
   @Test
   void transactWriteItems_exceedsMaxItemCount_throwsException() {
     // Test that transaction with more than 25 items throws IllegalArgumentException
@@ -2673,6 +2792,84 @@ public class ItemOperationsTest extends BaseEndToEndTest {
     assertThat(scanResponse.hasLastEvaluatedKey()).isFalse();  // No more pages (exact boundary)
   }
 
+  @Test
+  void scan_largeItems_pageEndsAtOneMegabyte() {
+    final String payload = "x".repeat(300_000);
+    for (int i = 0; i < 5; i++) {
+      client.putItem(PutItemRequest.builder()
+          .tableName(TABLE_NAME)
+          .item(Map.of(
+              HASH_KEY, AttributeValue.builder().s("user" + i).build(),
+              SORT_KEY, AttributeValue.builder().s("2024-01-01T00:00:00Z").build(),
+              "data", AttributeValue.builder().s(payload).build()))
+          .build());
+    }
+
+    final ScanResponse first = client.scan(ScanRequest.builder().tableName(TABLE_NAME).build());
+    assertThat(first.items()).hasSize(4);
+    assertThat(first.lastEvaluatedKey()).containsEntry(HASH_KEY, AttributeValue.builder().s("user3").build());
+
+    final ScanResponse second = client.scan(ScanRequest.builder()
+        .tableName(TABLE_NAME)
+        .exclusiveStartKey(first.lastEvaluatedKey())
+        .build());
+    assertThat(second.items()).hasSize(1);
+    assertThat(second.hasLastEvaluatedKey()).isFalse();
+  }
+
+  @Test
+  void scanStream_withFilterAndProjection() {
+    for (int i = 0; i < 10; i++) {
+      client.putItem(PutItemRequest.builder()
+          .tableName(TABLE_NAME)
+          .item(Map.of(
+              HASH_KEY, AttributeValue.builder().s("user" + String.format("%03d", i)).build(),
+              SORT_KEY, AttributeValue.builder().s("2024-01-01T00:00:00Z").build(),
+              "value", AttributeValue.builder().n(String.valueOf(i)).build()))
+          .build());
+    }
+
+    final ScanRequest scanRequest = ScanRequest.builder()
+        .tableName(TABLE_NAME)
+        .filterExpression("#v >= :min")
+        .projectionExpression(HASH_KEY)
+        .expressionAttributeNames(Map.of("#v", "value"))
+        .expressionAttributeValues(Map.of(":min", AttributeValue.builder().n("6").build()))
+        .build();
+
+    try (Stream<Map<String, AttributeValue>> items = client.scanStream(scanRequest)) {
+      assertThat(items.map(item -> item.get(HASH_KEY).s()).toList())
+          .containsExactly("user006", "user007", "user008", "user009");
+    }
+  }
+
+  @Test
+  void queryStream_limitAndExclusiveStartKey() {
+    for (int i = 1; i <= 8; i++) {
+      client.putItem(PutItemRequest.builder()
+          .tableName(TABLE_NAME)
+          .item(Map.of(
+              HASH_KEY, AttributeValue.builder().s("user-stream").build(),
+              SORT_KEY, AttributeValue.builder().s("2024-01-0" + i).build()))
+          .build());
+    }
+
+    final QueryRequest queryRequest = QueryRequest.builder()
+        .tableName(TABLE_NAME)
+        .keyConditionExpression(HASH_KEY + " = :uid")
+        .expressionAttributeValues(Map.of(":uid", AttributeValue.builder().s("user-stream").build()))
+        .exclusiveStartKey(Map.of(
+            HASH_KEY, AttributeValue.builder().s("user-stream").build(),
+            SORT_KEY, AttributeValue.builder().s("2024-01-02").build()))
+        .limit(4)
+        .build();
+
+    try (Stream<Map<String, AttributeValue>> items = client.queryStream(queryRequest)) {
+      assertThat(items.map(item -> item.get(SORT_KEY).s()).toList())
+          .containsExactly("2024-01-03", "2024-01-04", "2024-01-05", "2024-01-06");
+    }
+  }
+
   @Test
   void putItem_itemSizeExceeds400KB_throwsException() {
     // Create a large item that exceeds 400KB
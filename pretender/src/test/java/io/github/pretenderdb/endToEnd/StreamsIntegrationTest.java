@@ -199,6 +199,47 @@ class StreamsIntegrationTest extends BaseEndToEndTest {
     );
   }
 
+  @Test
+  void batchWriteItem_withStreamEnabled_capturesEachWrite() {
+    tableManager.enableStream(TABLE_NAME, "NEW_AND_OLD_IMAGES");
+    dynamoClient.putItem(PutItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .item(Map.of(
+            "id", AttributeValue.builder().s("replaced").build(),
+            "name", AttributeValue.builder().s("Old Name").build()))
+        .build());
+    dynamoClient.putItem(PutItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .item(Map.of("id", AttributeValue.builder().s("deleted").build()))
+        .build());
+
+    dynamoClient.batchWriteItem(BatchWriteItemRequest.builder()
+        .requestItems(Map.of(TABLE_NAME, List.of(
+            WriteRequest.builder().putRequest(PutRequest.builder().item(Map.of(
+                "id", AttributeValue.builder().s("replaced").build(),
+                "name", AttributeValue.builder().s("New Name").build())).build()).build(),
+            WriteRequest.builder().putRequest(PutRequest.builder().item(Map.of(
+                "id", AttributeValue.builder().s("inserted").build())).build()).build(),
+            WriteRequest.builder().deleteRequest(DeleteRequest.builder().key(Map.of(
+                "id", AttributeValue.builder().s("deleted").build())).build()).build(),
+            WriteRequest.builder().deleteRequest(DeleteRequest.builder().key(Map.of(
+                "id", AttributeValue.builder().s("missing").build())).build()).build())))
+        .build());
+
+    final List<Record> records = getAllStreamRecords();
+
+    // Two puts before the batch, then MODIFY, INSERT and REMOVE; deleting a missing item captures nothing
+    assertThat(records).hasSize(5);
+    assertThat(records.subList(2, 5)).extracting(Record::eventName)
+        .containsExactlyInAnyOrder(OperationType.MODIFY, OperationType.INSERT, OperationType.REMOVE);
+    final Record modify = records.stream()
+        .filter(record -> record.eventName() == OperationType.MODIFY)
+        .findFirst()
+        .orElseThrow();
+    assertThat(modify.dynamodb().oldImage().get("name").s()).isEqualTo("Old Name");
+    assertThat(modify.dynamodb().newImage().get("name").s()).isEqualTo("New Name");
+  }
+
   @Test
   void streamViewType_keysOnly_onlyIncludesKeys() {
     // Enable stream with KEYS_ONLY
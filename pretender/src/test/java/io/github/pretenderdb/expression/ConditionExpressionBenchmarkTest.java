@@ -0,0 +1,85 @@
+package io.github.pretenderdb.expression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Filter evaluation benchmark over a 1000-item page: testing items against an expression parsed once must
+ * beat the regex evaluator filtered reads used before expressions were compiled, kept here as
+ * {@link RegexConditionEvaluator}. Reports the best of many rounds in nanoseconds per item; only runs when
+ * PRETENDER_BENCHMARK=true. The build has no JMH, so this follows the other env-gated benchmarks.
+ */
+@EnabledIfEnvironmentVariable(named = "PRETENDER_BENCHMARK", matches = "true")
+class ConditionExpressionBenchmarkTest {
+
+  private static final Logger log = LoggerFactory.getLogger(ConditionExpressionBenchmarkTest.class);
+
+  private static final int ITEMS = 1_000;
+  private static final int ROUNDS = 200;
+  private static final Map<String, String> NAMES = Map.of("#s", "status");
+  private static final Map<String, AttributeValue> VALUES = Map.of(
+      ":s", AttributeValue.builder().s("active").build(),
+      ":lo", AttributeValue.builder().n("18").build(),
+      ":hi", AttributeValue.builder().n("65").build(),
+      ":p", AttributeValue.builder().s("u1").build());
+  private static final String[] EXPRESSIONS = {
+      "#s = :s",
+      "#s = :s AND age BETWEEN :lo AND :hi",
+      "(#s = :s OR begins_with(email, :p)) AND attribute_exists(age) AND age >= :lo"};
+
+  @Test
+  void compiledExpression_fasterThanRegexEvaluator() {
+    final List<Map<String, AttributeValue>> items = new ArrayList<>();
+    for (int i = 0; i < ITEMS; i++) {
+      items.add(Map.of(
+          "status", AttributeValue.builder().s(i % 3 == 0 ? "active" : "idle").build(),
+          "age", AttributeValue.builder().n(Integer.toString(i % 90)).build(),
+          "email", AttributeValue.builder().s("u" + i + "@example.com").build()));
+    }
+    final RegexConditionEvaluator regex = new RegexConditionEvaluator();
+    final ConditionExpressionParser parser = new ConditionExpressionParser();
+
+    for (String expression : EXPRESSIONS) {
+      // Both evaluators must agree before their speed is compared
+      for (Map<String, AttributeValue> item : items) {
+        assertThat(parser.evaluate(item, expression, VALUES, NAMES))
+            .as("%s on %s", expression, item)
+            .isEqualTo(regex.evaluate(item, expression, VALUES, NAMES));
+      }
+      final double before = nanosPerItem(items, item -> regex.evaluate(item, expression, VALUES, NAMES));
+      final ConditionExpression compiled = parser.compile(expression, NAMES);
+      final double cached = nanosPerItem(items, item -> compiled.test(item, VALUES));
+      final double evaluated = nanosPerItem(items, item -> parser.evaluate(item, expression, VALUES, NAMES));
+      log.info("{}: regex {} ns, compiled {} ns, evaluate {} ns per item", expression, before, cached, evaluated);
+
+      assertThat(cached).isLessThan(before);
+      assertThat(evaluated).isLessThan(before);
+    }
+  }
+
+  private double nanosPerItem(final List<Map<String, AttributeValue>> items,
+                              final Predicate<Map<String, AttributeValue>> filter) {
+    long best = Long.MAX_VALUE;
+    int matched = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      final long start = System.nanoTime();
+      for (Map<String, AttributeValue> item : items) {
+        if (filter.test(item)) {
+          matched++;
+        }
+      }
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    assertThat(matched).isPositive();
+    return (double) best / items.size();
+  }
+}
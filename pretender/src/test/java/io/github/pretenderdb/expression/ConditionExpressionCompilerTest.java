@@ -0,0 +1,63 @@
+package io.github.pretenderdb.expression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.pretenderdb.dbu.model.ImmutableDatabase;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+class ConditionExpressionCompilerTest {
+
+  private static final Map<String, AttributeValue> VALUES = Map.of(
+      ":v", AttributeValue.builder().n("3").build(),
+      ":status", AttributeValue.builder().s("OPEN").build(),
+      ":tags", AttributeValue.builder().ss("a").build());
+
+  private final ConditionExpressionCompiler compiler = compiler("jdbc:postgresql://localhost/pretender");
+
+  @Test
+  void compile_optimisticLock() {
+    final ConditionExpressionCompiler.CompiledCondition condition =
+        compiler.compile("#v = :v AND #s <> :status", VALUES, Map.of("#v", "version", "#s", "status"))
+            .orElseThrow();
+
+    assertThat(condition.predicate("attributes_json"))
+        .contains("attributes_json -> CAST(")
+        .contains("DOUBLE PRECISION")
+        .contains("COLLATE \"C\"")
+        .doesNotContain("{document}")
+        .doesNotContain("version");
+    assertThat(condition.parameters()).containsValues("version", "3", "status", "OPEN");
+    assertThat(condition.matchesMissingItem()).isFalse();
+  }
+
+  @Test
+  void compile_attributeNotExists_matchesMissingItem() {
+    final ConditionExpressionCompiler.CompiledCondition condition =
+        compiler.compile("attribute_not_exists(id)", VALUES, null).orElseThrow();
+
+    assertThat(condition.predicate("\"t\".attributes_json")).contains("\"t\".attributes_json").contains("IS NULL");
+    assertThat(condition.matchesMissingItem()).isTrue();
+  }
+
+  @Test
+  void compile_unsupportedForms_useJavaPath() {
+    assertThat(compiler.compile("a = :v OR b = :v", VALUES, null)).isEmpty();
+    assertThat(compiler.compile("a BETWEEN :v AND :v", VALUES, null)).isEmpty();
+    assertThat(compiler.compile("begins_with(a, :status)", VALUES, null)).isEmpty();
+    assertThat(compiler.compile("contains(a, :status)", VALUES, null)).isEmpty();
+    assertThat(compiler.compile("a = :tags", VALUES, null)).isEmpty();
+    assertThat(compiler.compile("a = :missing", VALUES, null)).isEmpty();
+    assertThat(compiler.compile("#unknown = :v", VALUES, Map.of())).isEmpty();
+  }
+
+  @Test
+  void compile_hsqldb_useJavaPath() {
+    assertThat(compiler("jdbc:hsqldb:mem:pretender").compile("a = :v", VALUES, null)).isEmpty();
+  }
+
+  private static ConditionExpressionCompiler compiler(final String url) {
+    return new ConditionExpressionCompiler(ImmutableDatabase.builder().url(url).username("sa").password("").build());
+  }
+}
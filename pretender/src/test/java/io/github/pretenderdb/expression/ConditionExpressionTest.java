@@ -0,0 +1,118 @@
+package io.github.pretenderdb.expression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+class ConditionExpressionTest {
+
+  private static final Map<String, AttributeValue> ITEM = Map.of(
+      "status", s("ACTIVE"),
+      "age", n("30"),
+      "email", s("john@example.com"));
+  private static final Map<String, AttributeValue> VALUES = Map.of(
+      ":active", s("ACTIVE"),
+      ":idle", s("IDLE"),
+      ":lo", n("18"),
+      ":hi", n("65"),
+      ":prefix", s("john"));
+
+  @Test
+  void test_notBindsTighterThanAnd() {
+    assertThat(test("NOT attribute_exists(missing) AND status = :active")).isTrue();
+    assertThat(test("NOT attribute_exists(missing) AND status = :idle")).isFalse();
+    assertThat(test("NOT (attribute_exists(missing) AND status = :idle)")).isTrue();
+  }
+
+  @Test
+  void test_andBindsTighterThanOr() {
+    assertThat(test("status = :idle AND age > :lo OR begins_with(email, :prefix)")).isTrue();
+    assertThat(test("status = :idle AND (age > :lo OR begins_with(email, :prefix))")).isFalse();
+  }
+
+  @Test
+  void test_betweenInsideLogicalOperators() {
+    assertThat(test("status = :idle OR age BETWEEN :lo AND :hi AND status = :active")).isTrue();
+    assertThat(test("((age BETWEEN :lo AND :hi)) AND NOT status <> :active")).isTrue();
+  }
+
+  @Test
+  void test_unparseableConditionNeverHolds() {
+    assertThat(test("size(email) > :lo")).isFalse();
+    assertThat(test("size(email) > :lo OR status = :active")).isTrue();
+    assertThat(test("status = :active extra")).isFalse();
+    assertThat(test("(status = :active")).isFalse();
+  }
+
+  @Test
+  void test_numbersCompareNumerically() {
+    final ConditionExpression expression = ConditionExpression.parse("age < :limit", null);
+
+    assertThat(expression.test(ITEM, Map.of(":limit", n("100")))).isTrue();
+    assertThat(expression.test(ITEM, Map.of(":limit", n("4")))).isFalse();
+    assertThat(expression.test(ITEM, Map.of(":limit", n("30.5")))).isTrue();
+  }
+
+  @Test
+  void test_stringsCompareByCodePoint() {
+    final ConditionExpression expression = ConditionExpression.parse("label > :private", null);
+    // U+1F600 is a surrogate pair, whose first UTF-16 unit sorts below U+E000
+    final Map<String, AttributeValue> item = Map.of("label", s("\uD83D\uDE00"));
+
+    assertThat(expression.test(item, Map.of(":private", s("\uE000")))).isTrue();
+    assertThat(expression.test(item, Map.of(":private", s("\uD83D\uDE01")))).isFalse();
+    assertThat(ConditionExpression.compareCodePoints("ab", "abc")).isNegative();
+  }
+
+  @Test
+  void parse_missingName_throws() {
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> ConditionExpression.parse("#s = :active", Map.of("#t", "status")))
+        .withMessageContaining("#s");
+  }
+
+  @Test
+  void test_missingValue_throws() {
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> test("begins_with(email, :missing)"))
+        .withMessageContaining(":missing");
+  }
+
+  @Test
+  void compile_cachedByExpressionAndNames() {
+    final ConditionExpressionParser parser = new ConditionExpressionParser();
+    final ConditionExpression first = parser.compile("#s = :active", Map.of("#s", "status"));
+
+    assertThat(parser.compile("#s = :active", Map.of("#s", "status"))).isSameAs(first);
+    assertThat(parser.compile("#s = :active", Map.of("#s", "email"))).isNotSameAs(first);
+    assertThat(parser.compile("#s = :active", Map.of("#s", "email")).test(ITEM, VALUES)).isFalse();
+  }
+
+  @Test
+  void expressionCache_evictsLeastRecentlyUsed() {
+    final ExpressionCache<String, String> cache = new ExpressionCache<>(2);
+    cache.get("a", String::toUpperCase);
+    cache.get("b", String::toUpperCase);
+    cache.get("a", key -> "recompiled");
+    cache.get("c", String::toUpperCase);
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.get("a", key -> "recompiled")).isEqualTo("A");
+    assertThat(cache.get("b", key -> "recompiled")).isEqualTo("recompiled");
+  }
+
+  private boolean test(final String expression) {
+    return ConditionExpression.parse(expression, null).test(ITEM, VALUES);
+  }
+
+  private static AttributeValue s(final String value) {
+    return AttributeValue.builder().s(value).build();
+  }
+
+  private static AttributeValue n(final String value) {
+    return AttributeValue.builder().n(value).build();
+  }
+}
@@ -128,8 +128,9 @@ class KeyConditionExpressionParserTest {
     final ParsedKeyCondition result = parser.parse(expression, values);
 
     assertThat(result.hashKeyValue()).isEqualTo("user-123");
-    assertThat(result.sortKeyCondition()).isEqualTo("sort_key_value BETWEEN '2024-01-01' AND '2024-12-31'");
-    assertThat(result.sortKeyValue()).isEmpty();
+    assertThat(result.sortKeyCondition()).isEqualTo("sort_key_value BETWEEN :sortKey AND :sortKeyEnd");
+    assertThat(result.sortKeyParameters())
+        .containsExactlyInAnyOrderEntriesOf(Map.of("sortKey", "2024-01-01", "sortKeyEnd", "2024-12-31"));
   }
 
   @Test
@@ -143,8 +144,34 @@ class KeyConditionExpressionParserTest {
     final ParsedKeyCondition result = parser.parse(expression, values);
 
     assertThat(result.hashKeyValue()).isEqualTo("user-123");
-    assertThat(result.sortKeyCondition()).isEqualTo("sort_key_value LIKE :sortKey");
-    assertThat(result.sortKeyValue()).contains("2024-01%");
+    assertThat(result.sortKeyCondition()).isEqualTo("sort_key_value >= :sortKey AND sort_key_value < :sortKeyEnd");
+    assertThat(result.sortKeyParameters())
+        .containsExactlyInAnyOrderEntriesOf(Map.of("sortKey", "2024-01", "sortKeyEnd", "2024-02"));
+  }
+
+  @Test
+  void parse_sortKeyBeginsWithEmptyPrefix() {
+    final String expression = "userId = :uid AND begins_with(timestamp, :prefix)";
+    final Map<String, AttributeValue> values = Map.of(
+        ":uid", AttributeValue.builder().s("user-123").build(),
+        ":prefix", AttributeValue.builder().s("").build()
+    );
+
+    final ParsedKeyCondition result = parser.parse(expression, values);
+
+    assertThat(result.sortKeyCondition()).isEqualTo("sort_key_value >= :sortKey");
+    assertThat(result.sortKeyParameters()).containsExactlyEntriesOf(Map.of("sortKey", ""));
+  }
+
+  @Test
+  void prefixEnd() {
+    assertThat(KeyConditionExpressionParser.prefixEnd("abc")).contains("abd");
+    assertThat(KeyConditionExpressionParser.prefixEnd("a%")).contains("a&");
+    assertThat(KeyConditionExpressionParser.prefixEnd("a\uD7FF")).contains("a\uE000");
+    assertThat(KeyConditionExpressionParser.prefixEnd("a\uD83D\uDE00")).contains("a\uD83D\uDE01");
+    assertThat(KeyConditionExpressionParser.prefixEnd("a\uDBFF\uDFFF")).contains("b");
+    assertThat(KeyConditionExpressionParser.prefixEnd("\uDBFF\uDFFF")).isEmpty();
+    assertThat(KeyConditionExpressionParser.prefixEnd("")).isEmpty();
   }
 
   @Test
@@ -294,8 +321,9 @@ class KeyConditionExpressionParserTest {
     final ParsedKeyCondition result = parser.parse(expression, values, names);
 
     assertThat(result.hashKeyValue()).isEqualTo("user-123");
-    assertThat(result.sortKeyCondition()).isEqualTo("sort_key_value BETWEEN '2024-01-01' AND '2024-12-31'");
-    assertThat(result.sortKeyValue()).isEmpty();
+    assertThat(result.sortKeyCondition()).isEqualTo("sort_key_value BETWEEN :sortKey AND :sortKeyEnd");
+    assertThat(result.sortKeyParameters())
+        .containsExactlyInAnyOrderEntriesOf(Map.of("sortKey", "2024-01-01", "sortKeyEnd", "2024-12-31"));
   }
 
   @Test
@@ -313,8 +341,9 @@ class KeyConditionExpressionParserTest {
     final ParsedKeyCondition result = parser.parse(expression, values, names);
 
     assertThat(result.hashKeyValue()).isEqualTo("user-123");
-    assertThat(result.sortKeyCondition()).isEqualTo("sort_key_value LIKE :sortKey");
-    assertThat(result.sortKeyValue()).contains("2024-01%");
+    assertThat(result.sortKeyCondition()).isEqualTo("sort_key_value >= :sortKey AND sort_key_value < :sortKeyEnd");
+    assertThat(result.sortKeyParameters())
+        .containsExactlyInAnyOrderEntriesOf(Map.of("sortKey", "2024-01", "sortKeyEnd", "2024-02"));
   }
 
   @Test
@@ -0,0 +1,48 @@
+package io.github.pretenderdb.expression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.pretenderdb.dbu.model.ImmutableDatabase;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ProjectionExpressionCompilerTest {
+
+  private final ProjectionExpressionCompiler compiler = compiler("jdbc:postgresql://localhost/pretender");
+
+  @Test
+  void compile_selectsProjectedAndRequiredAttributes() {
+    final ProjectionExpressionCompiler.CompiledProjection projection =
+        compiler.compile("#n, price", Map.of("#n", "name"), Set.of("id")).orElseThrow();
+
+    assertThat(projection.document()).startsWith("jsonb_strip_nulls(jsonb_build_object(")
+        .contains("attributes_json -> CAST(:p0 AS TEXT)")
+        .doesNotContain("name");
+    assertThat(projection.parameters()).containsOnly(
+        Map.entry("p0", "name"), Map.entry("p1", "price"), Map.entry("p2", "id"));
+  }
+
+  @Test
+  void compile_duplicateAttributes_selectedOnce() {
+    final ProjectionExpressionCompiler.CompiledProjection projection =
+        compiler.compile("id, name", null, Set.of("id")).orElseThrow();
+
+    assertThat(projection.parameters()).containsOnly(Map.entry("p0", "id"), Map.entry("p1", "name"));
+  }
+
+  @Test
+  void compile_noPushdown() {
+    final String wide = IntStream.range(0, 60).mapToObj(i -> "a" + i).collect(Collectors.joining(","));
+
+    assertThat(compiler.compile(null, null, Set.of())).isEmpty();
+    assertThat(compiler.compile(wide, null, Set.of())).isEmpty();
+    assertThat(compiler("jdbc:hsqldb:mem:pretender").compile("name", null, Set.of())).isEmpty();
+  }
+
+  private static ProjectionExpressionCompiler compiler(final String url) {
+    return new ProjectionExpressionCompiler(ImmutableDatabase.builder().url(url).username("sa").password("").build());
+  }
+}
@@ -0,0 +1,69 @@
+package io.github.pretenderdb.expression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.pretenderdb.converter.AttributeValueConverter;
+import io.github.pretenderdb.dbu.model.ImmutableDatabase;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+class UpdateExpressionCompilerTest {
+
+  private static final Set<String> KEYS = Set.of("id");
+  private static final Map<String, AttributeValue> VALUES = Map.of(
+      ":one", AttributeValue.builder().n("1").build(),
+      ":name", AttributeValue.builder().s("Ann").build(),
+      ":tags", AttributeValue.builder().ss("a").build());
+
+  private final UpdateExpressionCompiler compiler = compiler("jdbc:postgresql://localhost/pretender");
+
+  @Test
+  void compile_counterIncrement() {
+    final UpdateExpressionCompiler.CompiledUpdate update =
+        compiler.compile("SET #c = #c + :one", VALUES, Map.of("#c", "count"), KEYS).orElseThrow();
+
+    assertThat(update.expression()).startsWith("jsonb_set(attributes_json, ");
+    assertThat(update.expression()).contains("AS NUMERIC) + CAST(");
+    assertThat(update.guards()).hasSize(1);
+    assertThat(update.parameters()).containsValues("count", "1");
+  }
+
+  @Test
+  void compile_setRemoveAndAdd() {
+    final UpdateExpressionCompiler.CompiledUpdate update =
+        compiler.compile("SET name = :name REMOVE old ADD visits :one", VALUES, null, KEYS).orElseThrow();
+
+    assertThat(update.expression()).contains("||").contains(" - CAST(").contains("CASE WHEN");
+    assertThat(update.parameters()).containsValues("{\"name\":{\"S\":\"Ann\"}}", "old", "visits");
+    // Names and values are bound, never part of the SQL text
+    assertThat(update.expression()).doesNotContain("Ann").doesNotContain("visits");
+  }
+
+  @Test
+  void compile_unsupportedForms_useJavaPath() {
+    assertThat(compiler.compile("SET tags = list_append(tags, :tags)", VALUES, null, KEYS)).isEmpty();
+    assertThat(compiler.compile("SET a = if_not_exists(a, :one)", VALUES, null, KEYS)).isEmpty();
+    assertThat(compiler.compile("ADD tags :tags", VALUES, null, KEYS)).isEmpty();
+    assertThat(compiler.compile("DELETE tags :tags", VALUES, null, KEYS)).isEmpty();
+    assertThat(compiler.compile("SET id = :name", VALUES, null, KEYS)).isEmpty();
+    assertThat(compiler.compile("SET a = :name ADD a :one", VALUES, null, KEYS)).isEmpty();
+    assertThat(compiler.compile("SET a = :missing", VALUES, null, KEYS)).isEmpty();
+  }
+
+  @Test
+  void compile_hsqldb_useJavaPath() {
+    final Optional<UpdateExpressionCompiler.CompiledUpdate> update = compiler("jdbc:hsqldb:mem:pretender")
+        .compile("SET c = c + :one", VALUES, null, KEYS);
+
+    assertThat(update).isEmpty();
+  }
+
+  private static UpdateExpressionCompiler compiler(final String url) {
+    return new UpdateExpressionCompiler(new AttributeValueConverter(new ObjectMapper()),
+        ImmutableDatabase.builder().url(url).username("sa").password("").build());
+  }
+}
@@ -371,4 +371,35 @@ class UpdateExpressionParserTest {
     assertThat(result.get("name").s()).isEqualTo("John");
     assertThat(result.get("count").n()).isEqualTo("1");
   }
+
+  @Test
+  void compile_cachedByExpressionAndNames() {
+    final String expression = "SET #c = #c + :inc REMOVE #old";
+    final Map<String, String> names = Map.of("#c", "count", "#old", "legacy");
+
+    assertThat(parser.compile(expression, names)).isSameAs(parser.compile(expression, Map.copyOf(names)));
+    assertThat(parser.compile(expression, Map.of("#c", "total", "#old", "legacy")))
+        .isNotSameAs(parser.compile(expression, names));
+  }
+
+  @Test
+  void applyUpdate_cachedPlan_resolvesValuesPerCall() {
+    final Map<String, AttributeValue> item = Map.of(
+        "id", AttributeValue.builder().s("123").build(),
+        "count", AttributeValue.builder().n("10").build());
+    final String expression = "SET #c = #c + :inc, tags = list_append(if_missing, :tags)";
+    final Map<String, String> names = Map.of("#c", "count");
+
+    final Map<String, AttributeValue> first = parser.applyUpdate(item, expression, Map.of(
+        ":inc", AttributeValue.builder().n("1").build(),
+        ":tags", AttributeValue.builder().l(AttributeValue.builder().s("a").build()).build()), names);
+    final Map<String, AttributeValue> second = parser.applyUpdate(item, expression, Map.of(
+        ":inc", AttributeValue.builder().n("5").build(),
+        ":tags", AttributeValue.builder().l(AttributeValue.builder().s("b").build()).build()), names);
+
+    assertThat(first.get("count").n()).isEqualTo("11");
+    assertThat(second.get("count").n()).isEqualTo("15");
+    assertThat(second.get("tags").l()).extracting(AttributeValue::s).containsExactly("b");
+    assertThat(item.get("count").n()).isEqualTo("10");
+  }
 }
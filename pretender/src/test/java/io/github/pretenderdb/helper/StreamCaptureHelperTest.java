@@ -8,9 +8,9 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.github.pretenderdb.converter.AttributeValueConverter;
-import io.github.pretenderdb.dao.PdbMetadataDao;
 import io.github.pretenderdb.dao.PdbStreamDao;
 import io.github.pretenderdb.manager.PdbStreamTableManager;
+import io.github.pretenderdb.manager.PdbTableManager;
 import io.github.pretenderdb.model.ImmutablePdbMetadata;
 import io.github.pretenderdb.model.PdbMetadata;
 import io.github.pretenderdb.model.PdbStreamRecord;
@@ -31,7 +31,7 @@ import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 class StreamCaptureHelperTest {
 
   @Mock
-  private PdbMetadataDao metadataDao;
+  private PdbTableManager tableManager;
 
   @Mock
   private PdbStreamDao streamDao;
@@ -49,7 +49,7 @@ class StreamCaptureHelperTest {
 
   @BeforeEach
   void setup() {
-    helper = new StreamCaptureHelper(metadataDao, streamDao, streamTableManager, attributeValueConverter);
+    helper = new StreamCaptureHelper(tableManager, streamDao, streamTableManager, attributeValueConverter);
   }
 
   @Test
@@ -58,7 +58,7 @@ class StreamCaptureHelperTest {
     final Map<String, AttributeValue> item = createTestItem();
 
     // Table exists but streams not enabled
-    when(metadataDao.getTable(tableName)).thenReturn(Optional.of(createMetadata(false, null)));
+    when(tableManager.getPdbTable(tableName)).thenReturn(Optional.of(createMetadata(false, null)));
 
     helper.captureInsert(tableName, item);
 
@@ -70,7 +70,7 @@ class StreamCaptureHelperTest {
     final String tableName = "nonexistent-table";
     final Map<String, AttributeValue> item = createTestItem();
 
-    when(metadataDao.getTable(tableName)).thenReturn(Optional.empty());
+    when(tableManager.getPdbTable(tableName)).thenReturn(Optional.empty());
 
     helper.captureInsert(tableName, item);
 
@@ -290,7 +290,7 @@ class StreamCaptureHelperTest {
                                     boolean streamEnabled, String viewType) {
     final PdbMetadata metadata = createMetadata(streamEnabled, viewType);
 
-    when(metadataDao.getTable(tableName)).thenReturn(Optional.of(metadata));
+    when(tableManager.getPdbTable(tableName)).thenReturn(Optional.of(metadata));
     when(streamTableManager.getStreamTableName(tableName)).thenReturn(streamTableName);
     when(attributeValueConverter.extractKeyValue(any(), eq("id"))).thenReturn("test-hash");
     when(attributeValueConverter.toJson(any())).thenAnswer(invocation -> {
@@ -6,14 +6,20 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.github.pretenderdb.converter.AttributeValueConverter;
 import io.github.pretenderdb.converter.ItemConverter;
 import io.github.pretenderdb.dao.PdbItemDao;
+import io.github.pretenderdb.dao.PdbWriteUnit;
+import io.github.pretenderdb.dao.PdbWriteUnitRunner;
+import io.github.pretenderdb.expression.ConditionExpressionCompiler;
 import io.github.pretenderdb.expression.ConditionExpressionParser;
 import io.github.pretenderdb.expression.KeyConditionExpressionParser;
+import io.github.pretenderdb.expression.ProjectionExpressionCompiler;
+import io.github.pretenderdb.expression.UpdateExpressionCompiler;
 import io.github.pretenderdb.expression.UpdateExpressionParser;
 import io.github.pretenderdb.model.ImmutablePdbItem;
 import io.github.pretenderdb.model.ImmutablePdbMetadata;
@@ -24,6 +30,8 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import org.jdbi.v3.core.Handle;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -35,6 +43,7 @@ import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
 import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
 import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
@@ -67,6 +76,12 @@ class PdbItemManagerTest {
   @Mock private io.github.pretenderdb.util.CapacityCalculator capacityCalculator;
   @Mock private Clock clock;
   @Mock private org.jdbi.v3.core.Jdbi jdbi;
+  @Mock private PdbWriteUnitRunner writeUnitRunner;
+  @Mock private UpdateExpressionCompiler updateExpressionCompiler;
+  @Mock private ConditionExpressionCompiler conditionExpressionCompiler;
+  @Mock private ProjectionExpressionCompiler projectionExpressionCompiler;
+  @Mock private io.github.pretenderdb.dao.PdbItemCache itemCache;
+  @Mock private Handle handle;
 
   private PdbItemManager manager;
   private PdbMetadata metadata;
@@ -75,7 +90,8 @@ class PdbItemManagerTest {
   void setup() {
     manager = new PdbItemManager(tableManager, itemTableManager, itemDao, itemConverter,
         attributeValueConverter, conditionExpressionParser, keyConditionExpressionParser, updateExpressionParser,
-        gsiProjectionHelper, streamCaptureHelper, encryptionHelper, capacityCalculator, clock, jdbi);
+        gsiProjectionHelper, streamCaptureHelper, encryptionHelper, capacityCalculator, clock, jdbi, writeUnitRunner,
+        updateExpressionCompiler, conditionExpressionCompiler, projectionExpressionCompiler, itemCache);
 
     metadata = ImmutablePdbMetadata.builder()
         .name(TABLE_NAME)
@@ -84,6 +100,11 @@ class PdbItemManagerTest {
         .createDate(NOW)
         .build();
 
+    // Write units run inline on a mock handle
+    org.mockito.Mockito.lenient().when(writeUnitRunner.inWriteUnit(any()))
+        .thenAnswer(invocation -> invocation.<Function<PdbWriteUnit, ?>>getArgument(0)
+            .apply(new PdbWriteUnit(handle)));
+
     // Mock for item size validation (lenient because not all tests call putItem/updateItem)
     org.mockito.Mockito.lenient().when(attributeValueConverter.toJson(any())).thenReturn("{}");
 
@@ -113,7 +134,6 @@ class PdbItemManagerTest {
 
     when(tableManager.getPdbTable(TABLE_NAME)).thenReturn(Optional.of(metadata));
     when(itemConverter.toPdbItem(TABLE_NAME, item, metadata)).thenReturn(pdbItem);
-    when(itemDao.insert(ITEM_TABLE_NAME, pdbItem)).thenReturn(true);
 
     final PutItemRequest request = PutItemRequest.builder()
         .tableName(TABLE_NAME)
@@ -122,7 +142,49 @@ class PdbItemManagerTest {
 
     manager.putItem(request);
 
-    verify(itemDao).insert(ITEM_TABLE_NAME, pdbItem);
+    // No condition and no ALL_OLD: a single upsert, no read first
+    verify(itemDao).upsert(handle, ITEM_TABLE_NAME, pdbItem);
+    verify(itemDao, never()).get(any(Handle.class), any(), any(), any());
+  }
+
+  @Test
+  void putItem_returnAllOld_readsExistingItem() {
+    final Map<String, AttributeValue> item = Map.of(
+        HASH_KEY, AttributeValue.builder().s("123").build(),
+        SORT_KEY, AttributeValue.builder().s("2024-01-01").build(),
+        "name", AttributeValue.builder().s("New").build()
+    );
+    final Map<String, AttributeValue> oldItem = Map.of(
+        HASH_KEY, AttributeValue.builder().s("123").build(),
+        SORT_KEY, AttributeValue.builder().s("2024-01-01").build(),
+        "name", AttributeValue.builder().s("Old").build()
+    );
+    final PdbItem existing = ImmutablePdbItem.builder()
+        .tableName(TABLE_NAME)
+        .hashKeyValue("123")
+        .sortKeyValue("2024-01-01")
+        .attributesJson("{\"old\":true}")
+        .createDate(NOW)
+        .updateDate(NOW)
+        .build();
+    final PdbItem pdbItem = ImmutablePdbItem.copyOf(existing).withAttributesJson("{}");
+
+    when(tableManager.getPdbTable(TABLE_NAME)).thenReturn(Optional.of(metadata));
+    when(attributeValueConverter.extractKeyValue(item, HASH_KEY, Optional.empty())).thenReturn("123");
+    when(attributeValueConverter.extractKeyValue(item, SORT_KEY, Optional.empty())).thenReturn("2024-01-01");
+    when(itemDao.get(handle, ITEM_TABLE_NAME, "123", Optional.of("2024-01-01"))).thenReturn(Optional.of(existing));
+    when(attributeValueConverter.fromJson(existing.attributesJson())).thenReturn(oldItem);
+    when(itemConverter.toPdbItem(TABLE_NAME, item, metadata)).thenReturn(pdbItem);
+
+    final PutItemResponse response = manager.putItem(PutItemRequest.builder()
+        .tableName(TABLE_NAME)
+        .item(item)
+        .returnValues(ReturnValue.ALL_OLD)
+        .build());
+
+    verify(itemDao).update(handle, ITEM_TABLE_NAME, pdbItem);
+    verify(itemDao, never()).upsert(any(Handle.class), any(), any());
+    assertThat(response.attributes()).isEqualTo(oldItem);
   }
 
   @Test
@@ -161,9 +223,9 @@ class PdbItemManagerTest {
     );
 
     when(tableManager.getPdbTable(TABLE_NAME)).thenReturn(Optional.of(metadata));
-    when(attributeValueConverter.extractKeyValue(key, HASH_KEY)).thenReturn("123");
-    when(attributeValueConverter.extractKeyValue(key, SORT_KEY)).thenReturn("2024-01-01");
-    when(itemDao.get(ITEM_TABLE_NAME, "123", Optional.of("2024-01-01")))
+    when(attributeValueConverter.extractKeyValue(key, HASH_KEY, Optional.empty())).thenReturn("123");
+    when(attributeValueConverter.extractKeyValue(key, SORT_KEY, Optional.empty())).thenReturn("2024-01-01");
+    when(itemDao.get(ITEM_TABLE_NAME, "123", Optional.of("2024-01-01"), false, PdbItemDao.Projection.ALL))
         .thenReturn(Optional.of(pdbItem));
     when(attributeValueConverter.fromJson(pdbItem.attributesJson())).thenReturn(expectedItem);
 
@@ -184,8 +246,8 @@ class PdbItemManagerTest {
     );
 
     when(tableManager.getPdbTable(TABLE_NAME)).thenReturn(Optional.of(metadata));
-    when(attributeValueConverter.extractKeyValue(key, HASH_KEY)).thenReturn("123");
-    when(itemDao.get(eq(ITEM_TABLE_NAME), eq("123"), any()))
+    when(attributeValueConverter.extractKeyValue(key, HASH_KEY, Optional.empty())).thenReturn("123");
+    when(itemDao.get(eq(ITEM_TABLE_NAME), eq("123"), any(), eq(false), eq(PdbItemDao.Projection.ALL)))
         .thenReturn(Optional.empty());
 
     final GetItemRequest request = GetItemRequest.builder()
@@ -223,8 +285,8 @@ class PdbItemManagerTest {
     );
 
     when(tableManager.getPdbTable(TABLE_NAME)).thenReturn(Optional.of(metadata));
-    when(attributeValueConverter.extractKeyValue(key, HASH_KEY)).thenReturn("123");
-    when(itemDao.get(eq(ITEM_TABLE_NAME), eq("123"), any()))
+    when(attributeValueConverter.extractKeyValue(key, HASH_KEY, Optional.empty())).thenReturn("123");
+    when(itemDao.get(eq(ITEM_TABLE_NAME), eq("123"), any(), eq(false), eq(PdbItemDao.Projection.ALL)))
         .thenReturn(Optional.of(pdbItem));
     when(attributeValueConverter.fromJson(pdbItem.attributesJson())).thenReturn(fullItem);
     when(itemConverter.applyProjection(any(), eq("name"), any())).thenReturn(projectedItem);
@@ -273,8 +335,8 @@ class PdbItemManagerTest {
         .build();
 
     when(tableManager.getPdbTable(TABLE_NAME)).thenReturn(Optional.of(metadata));
-    when(attributeValueConverter.extractKeyValue(key, HASH_KEY)).thenReturn("123");
-    when(itemDao.get(eq(ITEM_TABLE_NAME), eq("123"), any()))
+    when(attributeValueConverter.extractKeyValue(key, HASH_KEY, Optional.empty())).thenReturn("123");
+    when(itemDao.get(eq(handle), eq(ITEM_TABLE_NAME), eq("123"), any()))
         .thenReturn(Optional.of(existingPdbItem));
     when(attributeValueConverter.fromJson(existingPdbItem.attributesJson()))
         .thenReturn(existingAttributes);
@@ -282,7 +344,7 @@ class PdbItemManagerTest {
         .thenReturn(updatedAttributes);
     when(itemConverter.updatePdbItem(existingPdbItem, updatedAttributes, metadata))
         .thenReturn(updatedPdbItem);
-    when(itemDao.update(ITEM_TABLE_NAME, updatedPdbItem)).thenReturn(true);
+    when(itemDao.update(handle, ITEM_TABLE_NAME, updatedPdbItem)).thenReturn(true);
 
     final UpdateItemRequest request = UpdateItemRequest.builder()
         .tableName(TABLE_NAME)
@@ -295,7 +357,7 @@ class PdbItemManagerTest {
     final UpdateItemResponse response = manager.updateItem(request);
 
     assertThat(response.attributes()).isEqualTo(updatedAttributes);
-    verify(itemDao).update(ITEM_TABLE_NAME, updatedPdbItem);
+    verify(itemDao).update(handle, ITEM_TABLE_NAME, updatedPdbItem);
   }
 
   @Test
@@ -318,14 +380,14 @@ class PdbItemManagerTest {
         .build();
 
     when(tableManager.getPdbTable(TABLE_NAME)).thenReturn(Optional.of(metadata));
-    when(attributeValueConverter.extractKeyValue(key, HASH_KEY)).thenReturn("123");
-    when(itemDao.get(eq(ITEM_TABLE_NAME), eq("123"), any()))
+    when(attributeValueConverter.extractKeyValue(key, HASH_KEY, Optional.empty())).thenReturn("123");
+    when(itemDao.get(eq(handle), eq(ITEM_TABLE_NAME), eq("123"), any()))
         .thenReturn(Optional.empty());
     when(updateExpressionParser.applyUpdate(any(), anyString(), any(), any()))
         .thenReturn(updatedAttributes);
     when(itemConverter.toPdbItem(TABLE_NAME, updatedAttributes, metadata))
         .thenReturn(updatedPdbItem);
-    when(itemDao.insert(ITEM_TABLE_NAME, updatedPdbItem)).thenReturn(true);
+    when(itemDao.insert(handle, ITEM_TABLE_NAME, updatedPdbItem)).thenReturn(true);
 
     final UpdateItemRequest request = UpdateItemRequest.builder()
         .tableName(TABLE_NAME)
@@ -336,7 +398,7 @@ class PdbItemManagerTest {
 
     manager.updateItem(request);
 
-    verify(itemDao).insert(ITEM_TABLE_NAME, updatedPdbItem);
+    verify(itemDao).insert(handle, ITEM_TABLE_NAME, updatedPdbItem);
   }
 
   @Test
@@ -359,11 +421,11 @@ class PdbItemManagerTest {
     );
 
     when(tableManager.getPdbTable(TABLE_NAME)).thenReturn(Optional.of(metadata));
-    when(attributeValueConverter.extractKeyValue(key, HASH_KEY)).thenReturn("123");
-    when(itemDao.get(eq(ITEM_TABLE_NAME), eq("123"), any()))
+    when(attributeValueConverter.extractKeyValue(key, HASH_KEY, Optional.empty())).thenReturn("123");
+    when(itemDao.get(eq(handle), eq(ITEM_TABLE_NAME), eq("123"), any()))
         .thenReturn(Optional.of(pdbItem));
     when(attributeValueConverter.fromJson(pdbItem.attributesJson())).thenReturn(oldItem);
-    when(itemDao.delete(eq(ITEM_TABLE_NAME), eq("123"), any())).thenReturn(true);
+    when(itemDao.delete(eq(handle), eq(ITEM_TABLE_NAME), eq("123"), any())).thenReturn(true);
 
     final DeleteItemRequest request = DeleteItemRequest.builder()
         .tableName(TABLE_NAME)
@@ -374,7 +436,7 @@ class PdbItemManagerTest {
     final DeleteItemResponse response = manager.deleteItem(request);
 
     assertThat(response.attributes()).isEqualTo(oldItem);
-    verify(itemDao).delete(eq(ITEM_TABLE_NAME), eq("123"), any());
+    verify(itemDao).delete(eq(handle), eq(ITEM_TABLE_NAME), eq("123"), any());
   }
 
   @Test
@@ -384,8 +446,8 @@ class PdbItemManagerTest {
     );
 
     when(tableManager.getPdbTable(TABLE_NAME)).thenReturn(Optional.of(metadata));
-    when(attributeValueConverter.extractKeyValue(key, HASH_KEY)).thenReturn("123");
-    when(itemDao.delete(eq(ITEM_TABLE_NAME), eq("123"), any())).thenReturn(true);
+    when(attributeValueConverter.extractKeyValue(key, HASH_KEY, Optional.empty())).thenReturn("123");
+    when(itemDao.delete(eq(handle), eq(ITEM_TABLE_NAME), eq("123"), any())).thenReturn(true);
 
     final DeleteItemRequest request = DeleteItemRequest.builder()
         .tableName(TABLE_NAME)
@@ -422,10 +484,10 @@ class PdbItemManagerTest {
     );
 
     when(tableManager.getPdbTable(TABLE_NAME)).thenReturn(Optional.of(metadata));
-    when(keyConditionExpressionParser.parse(eq("id = :id"), eq(values), any())).thenReturn(condition);
-    when(itemDao.query(eq(ITEM_TABLE_NAME), eq("123"), eq(null), eq(Optional.empty()), eq(101),
-        eq(Optional.empty()), eq(Optional.empty())))
-        .thenReturn(List.of(item1));
+    when(keyConditionExpressionParser.parse(eq("id = :id"), eq(values), any(), any(), any())).thenReturn(condition);
+    when(itemDao.queryPage(eq(ITEM_TABLE_NAME), eq("123"), eq(null), eq(Map.of()), eq(100),
+        eq(Optional.empty()), eq(Optional.empty()), eq(false), eq(PdbItemDao.Projection.ALL), eq(true)))
+        .thenReturn(new PdbItemDao.Page(List.of(item1), 1, Optional.empty()));
     when(attributeValueConverter.fromJson(item1.attributesJson())).thenReturn(attr1);
 
     final QueryRequest request = QueryRequest.builder()
@@ -456,8 +518,9 @@ class PdbItemManagerTest {
     );
 
     when(tableManager.getPdbTable(TABLE_NAME)).thenReturn(Optional.of(metadata));
-    when(itemDao.scan(eq(ITEM_TABLE_NAME), eq(101), eq(Optional.empty()), eq(Optional.empty())))
-        .thenReturn(List.of(item1));
+    when(itemDao.scanPage(eq(ITEM_TABLE_NAME), eq(100), eq(Optional.empty()), eq(Optional.empty()), eq(false),
+        eq(PdbItemDao.Projection.ALL), eq(PdbItemDao.Segment.ALL)))
+        .thenReturn(new PdbItemDao.Page(List.of(item1), 1, Optional.empty()));
     when(attributeValueConverter.fromJson(item1.attributesJson())).thenReturn(attr1);
 
     final ScanRequest request = ScanRequest.builder()
@@ -469,4 +532,55 @@ class PdbItemManagerTest {
     assertThat(response.items()).hasSize(1);
     assertThat(response.count()).isEqualTo(1);
   }
+
+  @Test
+  void scan_filterInDatabase_keepsScannedCountAndLastEvaluatedKey() {
+    final PdbItem match = ImmutablePdbItem.builder()
+        .tableName(TABLE_NAME)
+        .hashKeyValue("123")
+        .attributesJson("{\"id\":1}")
+        .createDate(NOW)
+        .updateDate(NOW)
+        .build();
+    final PdbItem last = ImmutablePdbItem.copyOf(match).withHashKeyValue("456");
+    final Map<String, AttributeValue> attr1 = Map.of("id", AttributeValue.builder().s("123").build());
+    final Map<String, AttributeValue> values = Map.of(":s", AttributeValue.builder().s("OPEN").build());
+    final ConditionExpressionCompiler.CompiledCondition filter = new ConditionExpressionCompiler.CompiledCondition(
+        "({document} IS NOT NULL)", Map.of("c0", "status"), false);
+
+    when(tableManager.getPdbTable(TABLE_NAME)).thenReturn(Optional.of(metadata));
+    when(conditionExpressionCompiler.compile("status = :s", values, Map.of())).thenReturn(Optional.of(filter));
+    when(itemDao.scanFiltered(ITEM_TABLE_NAME, 2, Optional.empty(), Optional.empty(), false,
+        "(attributes_json IS NOT NULL)", Map.of("c0", "status"), PdbItemDao.Projection.ALL,
+        PdbItemDao.Segment.ALL))
+        .thenReturn(new PdbItemDao.Page(List.of(match), 2, Optional.of(last)));
+    when(attributeValueConverter.fromJson(match.attributesJson())).thenReturn(attr1);
+    when(attributeValueConverter.decodeKeyValue("456", Optional.empty()))
+        .thenReturn(AttributeValue.builder().s("456").build());
+
+    final ScanResponse response = manager.scan(ScanRequest.builder()
+        .tableName(TABLE_NAME)
+        .limit(2)
+        .filterExpression("status = :s")
+        .expressionAttributeValues(values)
+        .build());
+
+    assertThat(response.items()).containsExactly(attr1);
+    assertThat(response.scannedCount()).isEqualTo(2);
+    assertThat(response.lastEvaluatedKey()).containsEntry(HASH_KEY, AttributeValue.builder().s("456").build());
+    verify(conditionExpressionParser, never()).compile(any(), any());
+  }
+
+  @Test
+  void scan_invalidSegment() {
+    when(tableManager.getPdbTable(TABLE_NAME)).thenReturn(Optional.of(metadata));
+
+    assertThatThrownBy(() -> manager.scan(ScanRequest.builder().tableName(TABLE_NAME).segment(1).build()))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("specified together");
+    assertThatThrownBy(() -> manager.scan(ScanRequest.builder().tableName(TABLE_NAME)
+        .segment(4).totalSegments(4).build()))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("less than TotalSegments");
+  }
 }
@@ -4,12 +4,20 @@ import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.github.pretenderdb.dao.PdbItemCache;
 import io.github.pretenderdb.dao.PdbMetadataDao;
+import io.github.pretenderdb.dbu.invalidation.InvalidationBus;
 import io.github.pretenderdb.model.ImmutablePdbMetadata;
 import io.github.pretenderdb.model.PdbMetadata;
 import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Clock;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
@@ -17,6 +25,7 @@ import org.jdbi.v3.core.statement.StatementContext;
 import org.jdbi.v3.core.statement.UnableToExecuteStatementException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -35,6 +44,9 @@ class PdbMetadataManagerTest {
   @Mock private PdbMetadataDao dao;
   @Mock private PdbItemTableManager itemTableManager;
   @Mock private PdbStreamTableManager streamTableManager;
+  @Mock private PdbItemCache itemCache;
+  @Mock private InvalidationBus invalidationBus;
+  @Mock private Clock clock;
   @Mock private StatementContext context;
 
   @InjectMocks private PdbTableManager manager;
@@ -69,6 +81,82 @@ class PdbMetadataManagerTest {
     assertThat(manager.getPdbTable(PDB_TABLE.name())).contains(PDB_TABLE);
   }
 
+  @Test
+  void testGetPdbTable_cachedUntilChanged() {
+    when(dao.getTable(PDB_TABLE.name())).thenReturn(of(PDB_TABLE));
+    assertThat(manager.getPdbTable(PDB_TABLE.name())).contains(PDB_TABLE);
+    assertThat(manager.getPdbTable(PDB_TABLE.name())).contains(PDB_TABLE);
+    verify(dao, times(1)).getTable(PDB_TABLE.name());
+
+    manager.enableTtl(PDB_TABLE.name(), "expireAt");
+    assertThat(manager.getPdbTable(PDB_TABLE.name())).contains(PDB_TABLE);
+    verify(dao, times(2)).getTable(PDB_TABLE.name());
+  }
+
+  @Test
+  void testGetPdbTable_invalidatedByOtherProcess() {
+    final ArgumentCaptor<InvalidationBus.Listener> listener = ArgumentCaptor.forClass(InvalidationBus.Listener.class);
+    verify(invalidationBus).subscribe(eq(PdbTableManager.INVALIDATION_TOPIC), listener.capture());
+    when(dao.getTable(PDB_TABLE.name())).thenReturn(of(PDB_TABLE));
+    manager.getPdbTable(PDB_TABLE.name());
+
+    listener.getValue().invalidate(PDB_TABLE.name());
+    manager.getPdbTable(PDB_TABLE.name());
+    listener.getValue().invalidateAll();
+    manager.getPdbTable(PDB_TABLE.name());
+
+    verify(dao, times(3)).getTable(PDB_TABLE.name());
+  }
+
+  @Test
+  void testGetPdbTable_revalidatedWithoutBus() {
+    when(dao.getTable(PDB_TABLE.name())).thenReturn(of(PDB_TABLE));
+    manager.getPdbTable(PDB_TABLE.name());
+
+    // Unchanged: the cached copy is kept
+    when(clock.millis()).thenReturn(PdbTableManager.REVALIDATE_MILLIS);
+    when(dao.getMetadataVersion(PDB_TABLE.name(), PDB_TABLE.createDate())).thenReturn(of(0L));
+    assertThat(manager.getPdbTable(PDB_TABLE.name())).contains(PDB_TABLE);
+    verify(dao, times(1)).getTable(PDB_TABLE.name());
+
+    // Changed by another process: read again
+    when(clock.millis()).thenReturn(2 * PdbTableManager.REVALIDATE_MILLIS);
+    when(dao.getMetadataVersion(PDB_TABLE.name(), PDB_TABLE.createDate())).thenReturn(of(1L));
+    assertThat(manager.getPdbTable(PDB_TABLE.name())).contains(PDB_TABLE);
+    verify(dao, times(2)).getTable(PDB_TABLE.name());
+
+    // Deleted or recreated by another process: read again
+    when(clock.millis()).thenReturn(3 * PdbTableManager.REVALIDATE_MILLIS);
+    when(dao.getMetadataVersion(PDB_TABLE.name(), PDB_TABLE.createDate())).thenReturn(empty());
+    when(dao.getTable(PDB_TABLE.name())).thenReturn(empty());
+    assertThat(manager.getPdbTable(PDB_TABLE.name())).isEmpty();
+  }
+
+  @Test
+  void testGetPdbTable_trustedWithBus() {
+    when(invalidationBus.enabled()).thenReturn(true);
+    when(dao.getTable(PDB_TABLE.name())).thenReturn(of(PDB_TABLE));
+    manager.getPdbTable(PDB_TABLE.name());
+
+    assertThat(manager.getPdbTable(PDB_TABLE.name())).contains(PDB_TABLE);
+    verify(dao, times(1)).getTable(PDB_TABLE.name());
+    verify(dao, never()).getMetadataVersion(any(), any());
+  }
+
+  @Test
+  void testEnableTtl_publishesInvalidation() {
+    manager.enableTtl(PDB_TABLE.name(), "expireAt");
+    verify(invalidationBus).publish(PdbTableManager.INVALIDATION_TOPIC, PDB_TABLE.name());
+  }
+
+  @Test
+  void testGetPdbTableNotFound_notCached() {
+    when(dao.getTable(PDB_TABLE.name())).thenReturn(empty());
+    assertThat(manager.getPdbTable(PDB_TABLE.name())).isEmpty();
+    assertThat(manager.getPdbTable(PDB_TABLE.name())).isEmpty();
+    verify(dao, times(2)).getTable(PDB_TABLE.name());
+  }
+
   @Test
   void testGetPdbTableNotFound() {
     when(dao.getTable(PDB_TABLE.name())).thenReturn(empty());
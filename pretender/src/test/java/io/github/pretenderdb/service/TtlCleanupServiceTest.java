@@ -8,6 +8,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.github.pretenderdb.converter.AttributeValueConverter;
+import io.github.pretenderdb.dao.PdbItemCache;
 import io.github.pretenderdb.dao.PdbItemDao;
 import io.github.pretenderdb.manager.PdbItemTableManager;
 import io.github.pretenderdb.manager.PdbTableManager;
@@ -51,6 +52,9 @@ public class TtlCleanupServiceTest {
   @Mock
   private PdbItemDao itemDao;
 
+  @Mock
+  private PdbItemCache itemCache;
+
   @Mock
   private AttributeValueConverter attributeValueConverter;
 
@@ -60,7 +64,8 @@ public class TtlCleanupServiceTest {
   @BeforeEach
   void setup() {
     clock = Clock.fixed(NOW, ZoneId.of("UTC"));
-    service = new TtlCleanupService(tableManager, itemTableManager, itemDao, attributeValueConverter, clock, 60, 10);
+    service = new TtlCleanupService(tableManager, itemTableManager, itemDao, itemCache, attributeValueConverter, clock,
+        60, 10);
   }
 
   @Test
@@ -208,7 +213,7 @@ public class TtlCleanupServiceTest {
     when(itemDao.scan(eq(ITEM_TABLE_NAME), org.mockito.ArgumentMatchers.anyInt()))
         .thenReturn(List.of(expiredItem));
     when(attributeValueConverter.fromJson(expiredJson)).thenReturn(expiredAttributes);
-    when(attributeValueConverter.extractKeyValue(expiredAttributes, "status")).thenReturn("ACTIVE");
+    when(attributeValueConverter.extractKeyValue(expiredAttributes, "status", Optional.empty())).thenReturn("ACTIVE");
 
     // Execute
     service.runCleanup();